@@ -0,0 +1,74 @@
+package cc.cc1234.mybatis.generator;
+
+import org.mybatis.generator.api.IntrospectedTable;
+import org.mybatis.generator.api.ProgressCallback;
+import org.mybatis.generator.api.dom.java.TopLevelClass;
+import org.mybatis.generator.codegen.mybatis3.model.ExampleGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * an operation generates the example of a table, {@link #exampleGenerator()} is the cost of the generator alone.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class ExampleModelPlusPluginBenchmark {
+
+    private static final ProgressCallback NO_PROGRESS = new ProgressCallback() {
+    };
+
+    /**
+     * ${tables}x${columns}
+     */
+    @Param({"10x10", "10x500", "1000x100", "1000x500", "5000x10", "5000x100"})
+    public String shape;
+
+    private SyntheticSchema schema;
+
+    private ExampleModelPlusPlugin plugin;
+
+    @Setup
+    public void setUp() {
+        schema = SyntheticSchema.of(shape);
+        plugin = schema.initialize(new ExampleModelPlusPlugin(), new Properties());
+    }
+
+    @Benchmark
+    public TopLevelClass exampleGenerator() {
+        return generateExample(schema.nextTable());
+    }
+
+    @Benchmark
+    public TopLevelClass modelExampleClassGenerated() {
+        IntrospectedTable table = schema.nextTable();
+        TopLevelClass example = generateExample(table);
+        plugin.modelExampleClassGenerated(example, table);
+        return example;
+    }
+
+    private TopLevelClass generateExample(IntrospectedTable table) {
+        ExampleGenerator generator = new ExampleGenerator("src");
+        generator.setContext(schema.getContext());
+        generator.setIntrospectedTable(table);
+        generator.setWarnings(new ArrayList<>());
+        generator.setProgressCallback(NO_PROGRESS);
+        return (TopLevelClass) generator.getCompilationUnits().get(0);
+    }
+}
@@ -0,0 +1,237 @@
+package cc.cc1234.mybatis.generator;
+
+import org.apache.ibatis.builder.xml.XMLMapperBuilder;
+import org.apache.ibatis.datasource.unpooled.UnpooledDataSource;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.session.LocalCacheScope;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.mybatis.generator.api.MyBatisGenerator;
+import org.mybatis.generator.config.CommentGeneratorConfiguration;
+import org.mybatis.generator.config.Configuration;
+import org.mybatis.generator.config.Context;
+import org.mybatis.generator.config.GeneratedKey;
+import org.mybatis.generator.config.JDBCConnectionConfiguration;
+import org.mybatis.generator.config.JavaModelGeneratorConfiguration;
+import org.mybatis.generator.config.ModelType;
+import org.mybatis.generator.config.PluginConfiguration;
+import org.mybatis.generator.config.SqlMapGeneratorConfiguration;
+import org.mybatis.generator.config.TableConfiguration;
+import org.mybatis.generator.internal.DefaultShellCallback;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * the mappers generated by the plugins for the table USER_ACCOUNT of an in-memory h2 database, compiled and loaded
+ * by their own class loader, and the mybatis session factory of them.
+ * <p>
+ * the benchmarks are compiled before the code is generated, so they call the generated code by method handles.
+ * </p>
+ */
+final class GeneratedMappers implements AutoCloseable {
+
+    static final String STATUS_ACTIVE = "ACTIVE";
+
+    private static final String MODEL_PACKAGE = "bench.model";
+
+    private static final String MAPPER_PACKAGE = "bench.mapper";
+
+    private final String url;
+
+    private final Path directory;
+
+    private final URLClassLoader classLoader;
+
+    private final SqlSessionFactory sqlSessionFactory;
+
+    private final Connection keepAlive;
+
+    /**
+     * @param rows the rows of USER_ACCOUNT, 90% of them are active
+     */
+    GeneratedMappers(int rows) throws Exception {
+        // the same query is executed again, not answered by the result of the last one
+        this.url = "jdbc:h2:mem:benchmark-" + System.nanoTime() + ";MODE=MySQL;OPTIMIZE_REUSE_RESULTS=FALSE";
+        // the in-memory database is dropped with its last connection
+        this.keepAlive = DriverManager.getConnection(url, "sa", "");
+        createTable(rows);
+
+        this.directory = Files.createTempDirectory("mybatis-generator-benchmark");
+        generate();
+        this.classLoader = compile();
+
+        org.apache.ibatis.session.Configuration configuration = new org.apache.ibatis.session.Configuration(
+                new Environment("benchmark", new JdbcTransactionFactory(),
+                        new UnpooledDataSource("org.h2.Driver", url, "sa", "")));
+        // the same select is repeated by a session, which must not be answered by the local cache
+        configuration.setLocalCacheScope(LocalCacheScope.STATEMENT);
+        // the types of the mappers are resolved by the default class loader of mybatis
+        Resources.setDefaultClassLoader(classLoader);
+        List<Path> xmlFiles;
+        try (Stream<Path> files = Files.walk(directory)) {
+            xmlFiles = files.filter(file -> file.toString().endsWith(".xml")).collect(Collectors.toList());
+        }
+        for (Path xmlFile : xmlFiles) {
+            try (InputStream in = Files.newInputStream(xmlFile)) {
+                new XMLMapperBuilder(in, configuration, xmlFile.toString(), configuration.getSqlFragments()).parse();
+            }
+        }
+        this.sqlSessionFactory = new SqlSessionFactoryBuilder().build(configuration);
+    }
+
+    SqlSessionFactory getSqlSessionFactory() {
+        return sqlSessionFactory;
+    }
+
+    Class<?> modelClass(String simpleName) throws ClassNotFoundException {
+        return classLoader.loadClass(MODEL_PACKAGE + "." + simpleName);
+    }
+
+    Class<?> mapperClass(String simpleName) throws ClassNotFoundException {
+        return classLoader.loadClass(MAPPER_PACKAGE + "." + simpleName);
+    }
+
+    /**
+     * the generic methods of the base mapper are erased, so the methods are found by the name and the parameter count
+     *
+     * @return the method handle of a public method, its parameters and its return type are all Object
+     */
+    static MethodHandle method(Class<?> type, String name, int parameterCount) throws IllegalAccessException {
+        for (Method method : type.getMethods()) {
+            if (method.getName().equals(name) && method.getParameterCount() == parameterCount && !method.isBridge()) {
+                return MethodHandles.publicLookup()
+                        .unreflect(method)
+                        .asType(MethodType.genericMethodType(parameterCount + 1));
+            }
+        }
+        throw new IllegalArgumentException("No method " + name + " of " + parameterCount + " parameters in " + type);
+    }
+
+    @Override
+    public void close() throws Exception {
+        Resources.setDefaultClassLoader(null);
+        classLoader.close();
+        keepAlive.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    private void createTable(int rows) throws SQLException {
+        try (Statement statement = keepAlive.createStatement()) {
+            statement.execute("create table USER_ACCOUNT ("
+                    + "ID bigint auto_increment primary key, "
+                    + "EMAIL varchar(100) not null, "
+                    + "NICKNAME varchar(50), "
+                    + "STATUS varchar(10) not null, "
+                    + "CREATE_TIME timestamp not null)");
+        }
+        try (PreparedStatement statement = keepAlive.prepareStatement(
+                "insert into USER_ACCOUNT (EMAIL, NICKNAME, STATUS, CREATE_TIME) values (?, ?, ?, ?)")) {
+            long now = System.currentTimeMillis();
+            for (int i = 1; i <= rows; i++) {
+                statement.setString(1, "user" + i + "@example.com");
+                statement.setString(2, i % 3 == 0 ? null : "user" + i);
+                statement.setString(3, i % 10 == 0 ? "DISABLED" : STATUS_ACTIVE);
+                statement.setTimestamp(4, new Timestamp(now - i * 60_000L));
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        }
+    }
+
+    private void generate() throws Exception {
+        Context context = new Context(ModelType.FLAT);
+        context.setId("benchmark");
+        context.setTargetRuntime("MyBatis3");
+        context.addPluginConfiguration(plugin(MapperPlusPlugin.class,
+                "base-mapper.target.project", directory.toString(),
+                "base-mapper.target.package", MAPPER_PACKAGE,
+                "java-mapper.target.project", directory.toString(),
+                "java-mapper.target.package", MAPPER_PACKAGE));
+        context.addPluginConfiguration(plugin(ExampleModelPlusPlugin.class));
+        context.addPluginConfiguration(plugin(NullSafePlugin.class));
+        CommentGeneratorConfiguration commentConfiguration = new CommentGeneratorConfiguration();
+        commentConfiguration.addProperty("suppressAllComments", "true");
+        context.setCommentGeneratorConfiguration(commentConfiguration);
+        JDBCConnectionConfiguration jdbcConfiguration = new JDBCConnectionConfiguration();
+        jdbcConfiguration.setDriverClass("org.h2.Driver");
+        jdbcConfiguration.setConnectionURL(url);
+        jdbcConfiguration.setUserId("sa");
+        jdbcConfiguration.setPassword("");
+        context.setJdbcConnectionConfiguration(jdbcConfiguration);
+        JavaModelGeneratorConfiguration modelConfiguration = new JavaModelGeneratorConfiguration();
+        modelConfiguration.setTargetPackage(MODEL_PACKAGE);
+        modelConfiguration.setTargetProject(directory.toString());
+        context.setJavaModelGeneratorConfiguration(modelConfiguration);
+        SqlMapGeneratorConfiguration sqlMapConfiguration = new SqlMapGeneratorConfiguration();
+        sqlMapConfiguration.setTargetPackage(MAPPER_PACKAGE);
+        sqlMapConfiguration.setTargetProject(directory.toString());
+        context.setSqlMapGeneratorConfiguration(sqlMapConfiguration);
+        TableConfiguration tableConfiguration = new TableConfiguration(context);
+        tableConfiguration.setTableName("USER_ACCOUNT");
+        tableConfiguration.setGeneratedKey(new GeneratedKey("ID", "JDBC", true, null));
+        context.addTableConfiguration(tableConfiguration);
+
+        Configuration configuration = new Configuration();
+        configuration.addContext(context);
+        List<String> warnings = new ArrayList<>();
+        new MyBatisGenerator(configuration, new DefaultShellCallback(true), warnings).generate(null);
+    }
+
+    private static PluginConfiguration plugin(Class<?> type, String... properties) {
+        PluginConfiguration pluginConfiguration = new PluginConfiguration();
+        pluginConfiguration.setConfigurationType(type.getName());
+        for (int i = 0; i < properties.length; i += 2) {
+            pluginConfiguration.addProperty(properties[i], properties[i + 1]);
+        }
+        return pluginConfiguration;
+    }
+
+    private URLClassLoader compile() throws IOException {
+        Path classes = directory.resolve("classes");
+        Files.createDirectories(classes);
+        List<String> arguments = new ArrayList<>();
+        arguments.add("-proc:none");
+        arguments.add("-encoding");
+        arguments.add("UTF-8");
+        arguments.add("-classpath");
+        arguments.add(System.getProperty("java.class.path"));
+        arguments.add("-d");
+        arguments.add(classes.toString());
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.filter(file -> file.toString().endsWith(".java")).forEach(file -> arguments.add(file.toString()));
+        }
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler.run(null, null, null, arguments.toArray(new String[0])) != 0) {
+            throw new IllegalStateException("The generated code in " + directory + " is not compiled");
+        }
+        return new URLClassLoader(new URL[]{classes.toUri().toURL()}, GeneratedMappers.class.getClassLoader());
+    }
+}
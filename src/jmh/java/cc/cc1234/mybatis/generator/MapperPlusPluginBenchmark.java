@@ -0,0 +1,94 @@
+package cc.cc1234.mybatis.generator;
+
+import org.mybatis.generator.api.IntrospectedTable;
+import org.mybatis.generator.api.ProgressCallback;
+import org.mybatis.generator.api.dom.xml.Document;
+import org.mybatis.generator.api.dom.xml.XmlElement;
+import org.mybatis.generator.codegen.mybatis3.xmlmapper.XMLMapperGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * an operation generates the xml mapper of a table, {@link #xmlMapperGenerator()} is the cost of the generator alone.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class MapperPlusPluginBenchmark {
+
+    private static final ProgressCallback NO_PROGRESS = new ProgressCallback() {
+    };
+
+    /**
+     * ${tables}x${columns}
+     */
+    @Param({"10x10", "10x500", "1000x100", "1000x500", "5000x10", "5000x100"})
+    public String shape;
+
+    private SyntheticSchema schema;
+
+    private MapperPlusPlugin plugin;
+
+    @Setup
+    public void setUp() {
+        schema = SyntheticSchema.of(shape);
+        Properties properties = new Properties();
+        properties.setProperty("base-mapper.target.project", "src");
+        properties.setProperty("base-mapper.target.package", "demo.mapper");
+        properties.setProperty("java-mapper.target.project", "src");
+        properties.setProperty("java-mapper.target.package", "demo.mapper");
+        properties.setProperty("statement.timeout", "*.*=30, *.*ByExample=10, table_1.selectOneByExample=3");
+        properties.setProperty("statement.fetch-size", "*.selectByExample=500, *.selectCursorByExample=2000");
+        properties.setProperty("cache.tables", "table_1*");
+        plugin = schema.initialize(new MapperPlusPlugin(), properties);
+    }
+
+    @Benchmark
+    public Document xmlMapperGenerator() {
+        return generateXmlMapper(schema.nextTable());
+    }
+
+    @Benchmark
+    public Document sqlMapDocumentGenerated() {
+        IntrospectedTable table = schema.nextTable();
+        Document document = generateXmlMapper(table);
+        plugin.sqlMapDocumentGenerated(document, table);
+        return document;
+    }
+
+    @Benchmark
+    public XmlElement selectOneByExample() {
+        XmlElement mapper = new XmlElement("mapper");
+        SelectOneByExampleXmlElementGenerator generator = new SelectOneByExampleXmlElementGenerator(Dialect.MYSQL);
+        generator.setContext(schema.getContext());
+        generator.setWarnings(new ArrayList<>());
+        generator.setIntrospectedTable(schema.nextTable());
+        generator.addElements(mapper);
+        return mapper;
+    }
+
+    private Document generateXmlMapper(IntrospectedTable table) {
+        XMLMapperGenerator generator = new XMLMapperGenerator();
+        generator.setContext(schema.getContext());
+        generator.setIntrospectedTable(table);
+        generator.setWarnings(new ArrayList<>());
+        generator.setProgressCallback(NO_PROGRESS);
+        return generator.getDocument();
+    }
+}
@@ -0,0 +1,228 @@
+package cc.cc1234.mybatis.generator;
+
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.session.SqlSession;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.invoke.MethodHandle;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * the generated code at runtime: the mappers of USER_ACCOUNT with 10,000 rows in an in-memory h2 database, and the
+ * Example, which is built once and reused by every operation.
+ * <p>
+ * {@link #selectOneByExample()} and {@link #selectByExampleFirstRow()} select the first of 9,000 active users,
+ * {@link #exampleWhereClause()} is the dynamic sql of selectByExample without the database, and
+ * {@link #insertBatch()} is rolled back after every 100 rows.
+ * </p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 10, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class MapperRuntimeBenchmark {
+
+    private static final int ROWS = 10_000;
+
+    private static final int BATCH_SIZE = 100;
+
+    private static final Object CAP = 100L;
+
+    private GeneratedMappers mappers;
+
+    private SqlSession session;
+
+    private SqlSession rollbackSession;
+
+    private Object mapper;
+
+    private Object rollbackMapper;
+
+    /**
+     * where STATUS = 'ACTIVE' order by CREATE_TIME desc, ID asc
+     */
+    private Object activeExample;
+
+    /**
+     * where STATUS = 'ACTIVE' and EMAIL like 'user1%' and ID between 1 and 5000 order by ID asc limit 10
+     */
+    private Object pageExample;
+
+    private Object row;
+
+    private List<Object> rows;
+
+    private List<Long> ids;
+
+    private long nextId;
+
+    private MappedStatement selectByExampleStatement;
+
+    private MethodHandle getOrderByClause;
+
+    private MethodHandle selectByPrimaryKey;
+
+    private MethodHandle selectByPrimaryKeys;
+
+    private MethodHandle selectByExample;
+
+    private MethodHandle selectOneByExample;
+
+    private MethodHandle countByExample;
+
+    private MethodHandle countByExampleUpTo;
+
+    private MethodHandle existsByExample;
+
+    private MethodHandle updateByPrimaryKeySelective;
+
+    private MethodHandle insertBatchHandle;
+
+    @Setup
+    public void setUp() throws Exception {
+        mappers = new GeneratedMappers(ROWS);
+        Class<?> mapperClass = mappers.mapperClass("UserAccountMapper");
+        session = mappers.getSqlSessionFactory().openSession(true);
+        rollbackSession = mappers.getSqlSessionFactory().openSession(false);
+        mapper = session.getMapper(mapperClass);
+        rollbackMapper = rollbackSession.getMapper(mapperClass);
+        selectByExampleStatement = mappers.getSqlSessionFactory()
+                .getConfiguration()
+                .getMappedStatement(mapperClass.getName() + ".selectByExample");
+
+        Class<?> exampleClass = mappers.modelClass("UserAccountExample");
+        activeExample = exampleClass.getConstructor().newInstance();
+        Object criteria = exampleClass.getMethod("createCriteria").invoke(activeExample);
+        criteria.getClass().getMethod("andStatusEqualTo", String.class)
+                .invoke(criteria, GeneratedMappers.STATUS_ACTIVE);
+        Object orderBy = exampleClass.getMethod("orderBy").invoke(activeExample);
+        orderBy.getClass().getMethod("createTimeDesc").invoke(orderBy);
+        orderBy.getClass().getMethod("idAsc").invoke(orderBy);
+
+        pageExample = exampleClass.getConstructor().newInstance();
+        criteria = exampleClass.getMethod("createCriteria").invoke(pageExample);
+        criteria.getClass().getMethod("andStatusEqualTo", String.class)
+                .invoke(criteria, GeneratedMappers.STATUS_ACTIVE);
+        criteria.getClass().getMethod("andEmailLike", String.class).invoke(criteria, "user1%");
+        criteria.getClass().getMethod("andIdBetween", Long.class, Long.class).invoke(criteria, 1L, 5000L);
+        orderBy = exampleClass.getMethod("orderBy").invoke(pageExample);
+        orderBy.getClass().getMethod("idAsc").invoke(orderBy);
+        exampleClass.getMethod("limit", int.class).invoke(pageExample, 10);
+
+        Class<?> modelClass = mappers.modelClass("UserAccount");
+        row = modelClass.getConstructor().newInstance();
+        modelClass.getMethod("setId", Long.class).invoke(row, 1L);
+        modelClass.getMethod("setNickname", String.class).invoke(row, "benchmark");
+        rows = new ArrayList<>(BATCH_SIZE);
+        ids = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            Object newRow = modelClass.getConstructor().newInstance();
+            modelClass.getMethod("setEmail", String.class).invoke(newRow, "batch" + i + "@example.com");
+            modelClass.getMethod("setStatus", String.class).invoke(newRow, GeneratedMappers.STATUS_ACTIVE);
+            modelClass.getMethod("setCreateTime", Date.class).invoke(newRow, new Date());
+            rows.add(newRow);
+            ids.add((long) (i * (ROWS / BATCH_SIZE) + 1));
+        }
+
+        getOrderByClause = GeneratedMappers.method(exampleClass, "getOrderByClause", 0);
+        selectByPrimaryKey = GeneratedMappers.method(mapperClass, "selectByPrimaryKey", 1);
+        selectByPrimaryKeys = GeneratedMappers.method(mapperClass, "selectByPrimaryKeys", 1);
+        selectByExample = GeneratedMappers.method(mapperClass, "selectByExample", 1);
+        selectOneByExample = GeneratedMappers.method(mapperClass, "selectOneByExample", 1);
+        countByExample = GeneratedMappers.method(mapperClass, "countByExample", 1);
+        countByExampleUpTo = GeneratedMappers.method(mapperClass, "countByExampleUpTo", 2);
+        existsByExample = GeneratedMappers.method(mapperClass, "existsByExample", 1);
+        updateByPrimaryKeySelective = GeneratedMappers.method(mapperClass, "updateByPrimaryKeySelective", 1);
+        insertBatchHandle = GeneratedMappers.method(mapperClass, "insertBatch", 1);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        rollbackSession.close();
+        session.close();
+        mappers.close();
+    }
+
+    @Benchmark
+    public Object getOrderByClause() throws Throwable {
+        return (Object) getOrderByClause.invokeExact(activeExample);
+    }
+
+    @Benchmark
+    public BoundSql exampleWhereClause() {
+        return selectByExampleStatement.getBoundSql(pageExample);
+    }
+
+    @Benchmark
+    public Object selectByPrimaryKey() throws Throwable {
+        nextId = nextId == ROWS ? 1 : nextId + 1;
+        return (Object) selectByPrimaryKey.invokeExact(mapper, (Object) nextId);
+    }
+
+    @Benchmark
+    public Object selectByPrimaryKeys() throws Throwable {
+        return (Object) selectByPrimaryKeys.invokeExact(mapper, (Object) ids);
+    }
+
+    @Benchmark
+    public Object selectByExample() throws Throwable {
+        return (Object) selectByExample.invokeExact(mapper, pageExample);
+    }
+
+    @Benchmark
+    public Object selectOneByExample() throws Throwable {
+        return (Object) selectOneByExample.invokeExact(mapper, activeExample);
+    }
+
+    /**
+     * what selectOneByExample replaces, all the matched rows are mapped to take the first one
+     */
+    @Benchmark
+    public Object selectByExampleFirstRow() throws Throwable {
+        List<?> result = (List<?>) (Object) selectByExample.invokeExact(mapper, activeExample);
+        return result.isEmpty() ? null : result.get(0);
+    }
+
+    @Benchmark
+    public Object countByExample() throws Throwable {
+        return (Object) countByExample.invokeExact(mapper, activeExample);
+    }
+
+    @Benchmark
+    public Object countByExampleUpTo() throws Throwable {
+        return (Object) countByExampleUpTo.invokeExact(mapper, activeExample, CAP);
+    }
+
+    @Benchmark
+    public Object existsByExample() throws Throwable {
+        return (Object) existsByExample.invokeExact(mapper, activeExample);
+    }
+
+    @Benchmark
+    public Object updateByPrimaryKeySelective() throws Throwable {
+        return (Object) updateByPrimaryKeySelective.invokeExact(mapper, row);
+    }
+
+    @Benchmark
+    public Object insertBatch() throws Throwable {
+        Object count = (Object) insertBatchHandle.invokeExact(rollbackMapper, (Object) rows);
+        rollbackSession.rollback();
+        return count;
+    }
+}
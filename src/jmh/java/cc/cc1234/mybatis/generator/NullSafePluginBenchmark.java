@@ -0,0 +1,106 @@
+package cc.cc1234.mybatis.generator;
+
+import org.mybatis.generator.api.IntrospectedColumn;
+import org.mybatis.generator.api.IntrospectedTable;
+import org.mybatis.generator.api.Plugin;
+import org.mybatis.generator.api.dom.java.Field;
+import org.mybatis.generator.api.dom.java.JavaVisibility;
+import org.mybatis.generator.api.dom.java.Method;
+import org.mybatis.generator.api.dom.java.Parameter;
+import org.mybatis.generator.api.dom.java.TopLevelClass;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import static org.mybatis.generator.internal.util.JavaBeansUtil.getGetterMethodName;
+import static org.mybatis.generator.internal.util.JavaBeansUtil.getSetterMethodName;
+
+/**
+ * an operation generates the fields, the getters and the setters of the record of a table, {@link #model()} is the
+ * cost of the fields and the methods alone.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class NullSafePluginBenchmark {
+
+    /**
+     * ${tables}x${columns}
+     */
+    @Param({"10x10", "10x500", "1000x100", "1000x500", "5000x10", "5000x100"})
+    public String shape;
+
+    private SyntheticSchema schema;
+
+    private NullSafePlugin plugin;
+
+    @Setup
+    public void setUp() {
+        schema = SyntheticSchema.of(shape);
+        Properties properties = new Properties();
+        properties.setProperty("primitive.types", "true");
+        properties.setProperty("or-else.getter", "true");
+        properties.setProperty("if-present.method", "true");
+        properties.setProperty("ignore.columns", "table_1*.column_1, *.column_2?");
+        plugin = schema.initialize(new NullSafePlugin(), properties);
+    }
+
+    @Benchmark
+    public TopLevelClass model() {
+        return generateModel(schema.nextTable(), null);
+    }
+
+    @Benchmark
+    public TopLevelClass fieldGetterAndSetterGenerated() {
+        return generateModel(schema.nextTable(), plugin);
+    }
+
+    /**
+     * the same as the record generator, the plugin is called for every field, getter and setter
+     */
+    private static TopLevelClass generateModel(IntrospectedTable table, Plugin plugin) {
+        TopLevelClass topLevelClass = new TopLevelClass(table.getBaseRecordType());
+        for (IntrospectedColumn column : table.getAllColumns()) {
+            Field field = new Field(column.getJavaProperty(), column.getFullyQualifiedJavaType());
+            field.setVisibility(JavaVisibility.PRIVATE);
+            if (plugin == null || plugin.modelFieldGenerated(field, topLevelClass, column, table,
+                    Plugin.ModelClassType.BASE_RECORD)) {
+                topLevelClass.addField(field);
+            }
+
+            Method getter = new Method(getGetterMethodName(column.getJavaProperty(),
+                    column.getFullyQualifiedJavaType()));
+            getter.setVisibility(JavaVisibility.PUBLIC);
+            getter.setReturnType(column.getFullyQualifiedJavaType());
+            getter.addBodyLine("return " + column.getJavaProperty() + ";");
+            if (plugin == null || plugin.modelGetterMethodGenerated(getter, topLevelClass, column, table,
+                    Plugin.ModelClassType.BASE_RECORD)) {
+                topLevelClass.addMethod(getter);
+            }
+
+            Method setter = new Method(getSetterMethodName(column.getJavaProperty()));
+            setter.setVisibility(JavaVisibility.PUBLIC);
+            setter.addParameter(new Parameter(column.getFullyQualifiedJavaType(), column.getJavaProperty()));
+            setter.addBodyLine("this." + column.getJavaProperty() + " = " + column.getJavaProperty() + ";");
+            if (plugin == null || plugin.modelSetterMethodGenerated(setter, topLevelClass, column, table,
+                    Plugin.ModelClassType.BASE_RECORD)) {
+                topLevelClass.addMethod(setter);
+            }
+        }
+        return topLevelClass;
+    }
+}
@@ -0,0 +1,167 @@
+package cc.cc1234.mybatis.generator;
+
+import org.mybatis.generator.api.FullyQualifiedTable;
+import org.mybatis.generator.api.IntrospectedColumn;
+import org.mybatis.generator.api.IntrospectedTable;
+import org.mybatis.generator.api.Plugin;
+import org.mybatis.generator.api.PluginAdapter;
+import org.mybatis.generator.api.dom.java.FullyQualifiedJavaType;
+import org.mybatis.generator.codegen.mybatis3.IntrospectedTableMyBatis3Impl;
+import org.mybatis.generator.config.CommentGeneratorConfiguration;
+import org.mybatis.generator.config.Context;
+import org.mybatis.generator.config.JavaClientGeneratorConfiguration;
+import org.mybatis.generator.config.JavaModelGeneratorConfiguration;
+import org.mybatis.generator.config.ModelType;
+import org.mybatis.generator.config.SqlMapGeneratorConfiguration;
+import org.mybatis.generator.config.TableConfiguration;
+
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * the tables of a context as they are introspected from a database, without a database.
+ * <p>
+ * the shape is ${tables}x${columns}, every table has a BIGINT primary key ID followed by the columns of the usual
+ * types, nullable or not, with or without a default value.
+ * </p>
+ */
+final class SyntheticSchema {
+
+    /**
+     * the jdbc type, the java type, nullable, and the default value
+     */
+    private static final Object[][] COLUMN_TYPES = {
+            {Types.VARCHAR, "java.lang.String", true, null},
+            {Types.INTEGER, "java.lang.Integer", false, null},
+            {Types.TIMESTAMP, "java.util.Date", true, null},
+            {Types.DECIMAL, "java.math.BigDecimal", true, null},
+            {Types.BIT, "java.lang.Boolean", false, "0"},
+            {Types.BIGINT, "java.lang.Long", true, null},
+            {Types.VARCHAR, "java.lang.String", false, "''"},
+    };
+
+    private final Context context;
+
+    private final List<IntrospectedTable> tables;
+
+    private int next;
+
+    private SyntheticSchema(Context context, List<IntrospectedTable> tables) {
+        this.context = context;
+        this.tables = tables;
+    }
+
+    /**
+     * @param shape ${tables}x${columns}
+     */
+    static SyntheticSchema of(String shape) {
+        int idx = shape.indexOf('x');
+        int tableCount = Integer.parseInt(shape.substring(0, idx));
+        int columnCount = Integer.parseInt(shape.substring(idx + 1));
+
+        // the plugins are only aggregated when the context generates files, the benchmarks call them directly
+        Context context = new Context(ModelType.FLAT) {
+            private final Plugin noPlugin = new PluginAdapter() {
+                @Override
+                public boolean validate(List<String> warnings) {
+                    return true;
+                }
+            };
+
+            @Override
+            public Plugin getPlugins() {
+                return noPlugin;
+            }
+        };
+        context.setId("benchmark");
+        context.setTargetRuntime("MyBatis3");
+        CommentGeneratorConfiguration commentConfiguration = new CommentGeneratorConfiguration();
+        commentConfiguration.addProperty("suppressAllComments", "true");
+        context.setCommentGeneratorConfiguration(commentConfiguration);
+        JavaModelGeneratorConfiguration modelConfiguration = new JavaModelGeneratorConfiguration();
+        modelConfiguration.setTargetPackage("demo.model");
+        modelConfiguration.setTargetProject("src");
+        context.setJavaModelGeneratorConfiguration(modelConfiguration);
+        SqlMapGeneratorConfiguration sqlMapConfiguration = new SqlMapGeneratorConfiguration();
+        sqlMapConfiguration.setTargetPackage("demo.mapper");
+        sqlMapConfiguration.setTargetProject("src");
+        context.setSqlMapGeneratorConfiguration(sqlMapConfiguration);
+        JavaClientGeneratorConfiguration clientConfiguration = new JavaClientGeneratorConfiguration();
+        clientConfiguration.setConfigurationType("XMLMAPPER");
+        clientConfiguration.setTargetPackage("demo.mapper");
+        clientConfiguration.setTargetProject("src");
+        context.setJavaClientGeneratorConfiguration(clientConfiguration);
+
+        List<IntrospectedTable> tables = new ArrayList<>(tableCount);
+        for (int i = 0; i < tableCount; i++) {
+            tables.add(newTable(context, "TABLE_" + i, columnCount));
+        }
+        return new SyntheticSchema(context, tables);
+    }
+
+    Context getContext() {
+        return context;
+    }
+
+    List<IntrospectedTable> getTables() {
+        return tables;
+    }
+
+    /**
+     * the tables one by one, so every table is visited as the generator does
+     */
+    IntrospectedTable nextTable() {
+        IntrospectedTable table = tables.get(next);
+        next = next + 1 == tables.size() ? 0 : next + 1;
+        return table;
+    }
+
+    /**
+     * validates the plugin and initializes every table, the same as the generator
+     */
+    <T extends PluginAdapter> T initialize(T plugin, Properties properties) {
+        plugin.setContext(context);
+        plugin.setProperties(properties);
+        List<String> warnings = new ArrayList<>();
+        if (!plugin.validate(warnings)) {
+            throw new IllegalStateException("invalid plugin " + plugin.getClass().getName() + ": " + warnings);
+        }
+        for (IntrospectedTable table : tables) {
+            plugin.initialized(table);
+        }
+        return plugin;
+    }
+
+    private static IntrospectedTable newTable(Context context, String name, int columnCount) {
+        IntrospectedTable table = new IntrospectedTableMyBatis3Impl();
+        table.setContext(context);
+        table.setTableConfiguration(new TableConfiguration(context));
+        table.setFullyQualifiedTable(new FullyQualifiedTable(null, null, name, null, null, false,
+                null, null, null, false, null, context));
+        addColumn(table, "ID", "id", Types.BIGINT, "java.lang.Long", false, null);
+        table.addPrimaryKeyColumn("ID");
+        for (int i = 1; i < columnCount; i++) {
+            Object[] type = COLUMN_TYPES[i % COLUMN_TYPES.length];
+            addColumn(table, "COLUMN_" + i, "column" + i, (Integer) type[0], (String) type[1], (Boolean) type[2],
+                    (String) type[3]);
+        }
+        table.initialize();
+        return table;
+    }
+
+    private static void addColumn(IntrospectedTable table, String name, String property, int jdbcType,
+                                  String javaType, boolean nullable, String defaultValue) {
+        IntrospectedColumn column = new IntrospectedColumn();
+        column.setContext(table.getContext());
+        column.setIntrospectedTable(table);
+        column.setActualColumnName(name);
+        column.setJavaProperty(property);
+        column.setJdbcType(jdbcType);
+        column.setFullyQualifiedJavaType(new FullyQualifiedJavaType(javaType));
+        column.setNullable(nullable);
+        column.setDefaultValue(defaultValue);
+        table.addColumn(column);
+    }
+}
@@ -0,0 +1,407 @@
+package cc.cc1234.mybatis.generator;
+
+import org.mybatis.generator.api.IntrospectedColumn;
+import org.mybatis.generator.api.IntrospectedTable;
+import org.mybatis.generator.api.dom.java.*;
+import org.mybatis.generator.internal.util.JavaBeansUtil;
+
+import java.util.regex.Pattern;
+
+/**
+ * a read-through cache in front of the mapper of a table, the rows read by <b>selectByPrimaryKey</b> and
+ * <b>selectByPrimaryKeys</b> are kept in a size bounded LRU map, optionally with a time to live:
+ * <pre>
+ *     CachingUserMapper userMapper = new CachingUserMapper(sqlSession.getMapper(UserMapper.class), 1000, 60_000);
+ * </pre>
+ * the decorator implements the BaseMapper only, the methods added to UserMapper by hand are called on
+ * <b>getDelegate()</b> and do not touch the cache.
+ * <p>
+ * every insert, update and delete of the mapper invalidates the keys of its rows, the writes by example and the
+ * unknown writes invalidate the whole cache. the cached rows are shared, they must not be modified by the caller.
+ * </p>
+ * <p>
+ * every invalidation bumps a generation, and a row read from the delegate is cached only if no invalidation happened
+ * since the read started, so a read racing with a write does not cache the row written over. the cache does not know
+ * the transactions though: a row written by an uncommitted transaction is invalidated at once, and may be read and
+ * cached again by another thread before the commit. callers sharing the decorator across transactions should call
+ * <b>invalidate(id)</b> or <b>invalidateAll()</b> after the commit or the rollback.
+ * </p>
+ */
+public class CachingMapperGenerator {
+
+    private static final String DECORATOR_PREFIX = "Caching";
+
+    private static final Pattern ROW_TYPE = Pattern.compile("\\bT\\b");
+
+    private static final Pattern EXAMPLE_TYPE = Pattern.compile("\\bE\\b");
+
+    private final int defaultMaxSize;
+
+    private final long defaultTtlMillis;
+
+    public CachingMapperGenerator(int defaultMaxSize, long defaultTtlMillis) {
+        this.defaultMaxSize = defaultMaxSize;
+        this.defaultTtlMillis = defaultTtlMillis;
+    }
+
+    /**
+     * UserMapper -&gt; CachingUserMapper
+     */
+    public static String decoratorType(String mapperType) {
+        int idx = mapperType.lastIndexOf('.');
+        return mapperType.substring(0, idx + 1) + DECORATOR_PREFIX + mapperType.substring(idx + 1);
+    }
+
+    /**
+     * the BaseMapper caches by a Long id, so only the tables with a single Long primary key are supported
+     */
+    public static boolean isSupported(IntrospectedTable introspectedTable) {
+        return introspectedTable.getPrimaryKeyColumns().size() == 1
+                && introspectedTable.getPrimaryKeyColumns().get(0).getFullyQualifiedJavaType().getFullyQualifiedName()
+                .equals(Long.class.getName())
+                && introspectedTable.getRules().generateSelectByPrimaryKey();
+    }
+
+    /**
+     * implements every method of the BaseMapper, the abstract methods of the BaseMapper are delegated and the default
+     * ones end up in the overridden abstract methods
+     *
+     * @param upsertByPrimaryKey false if the upserts may update a row found by another unique key, whose id is unknown
+     * @param dirtyTracking      true if the mapper declares updateChangedByPrimaryKey too
+     */
+    public TopLevelClass generate(IntrospectedTable introspectedTable,
+                                  Interface baseMapperInterface,
+                                  FullyQualifiedJavaType mapperType,
+                                  FullyQualifiedJavaType decoratorType,
+                                  boolean upsertByPrimaryKey,
+                                  boolean dirtyTracking) {
+        FullyQualifiedJavaType rowType = new FullyQualifiedJavaType(introspectedTable.getBaseRecordType());
+        FullyQualifiedJavaType exampleType = new FullyQualifiedJavaType(introspectedTable.getExampleType());
+        IntrospectedColumn keyColumn = introspectedTable.getPrimaryKeyColumns().get(0);
+        String keyGetter = JavaBeansUtil.getGetterMethodName(keyColumn.getJavaProperty(),
+                keyColumn.getFullyQualifiedJavaType()) + "()";
+
+        TopLevelClass decorator = new TopLevelClass(decoratorType);
+        decorator.setVisibility(JavaVisibility.PUBLIC);
+        FullyQualifiedJavaType baseMapperType =
+                new FullyQualifiedJavaType(baseMapperInterface.getType().getFullyQualifiedNameWithoutTypeParameters());
+        decorator.addImportedType(baseMapperType);
+        baseMapperType.addTypeArgument(rowType);
+        baseMapperType.addTypeArgument(exampleType);
+        decorator.addSuperInterface(baseMapperType);
+        decorator.addImportedType(mapperType);
+        decorator.addImportedType(rowType);
+        decorator.addImportedType(exampleType);
+        for (FullyQualifiedJavaType importedType : baseMapperInterface.getImportedTypes()) {
+            // the annotations stay on the BaseMapper
+            if (!importedType.getPackageName().equals("org.apache.ibatis.annotations")
+                    && !importedType.getShortName().endsWith("SqlProvider")) {
+                decorator.addImportedType(importedType);
+            }
+        }
+        decorator.addImportedType(new FullyQualifiedJavaType("java.util.ArrayList"));
+        decorator.addImportedType(new FullyQualifiedJavaType("java.util.Iterator"));
+        decorator.addImportedType(new FullyQualifiedJavaType("java.util.LinkedHashMap"));
+        decorator.addImportedType(new FullyQualifiedJavaType("java.util.List"));
+        decorator.addImportedType(new FullyQualifiedJavaType("java.util.Map"));
+        decorator.addImportedType(new FullyQualifiedJavaType("java.util.concurrent.TimeUnit"));
+        decorator.addImportedType(new FullyQualifiedJavaType("java.util.concurrent.atomic.LongAdder"));
+
+        addFields(decorator, mapperType, rowType);
+        addConstructors(decorator, mapperType);
+        addStatistics(decorator);
+        addCacheMethods(decorator, rowType, keyGetter);
+
+        String rowName = rowType.getShortName();
+        String exampleName = exampleType.getShortName();
+        for (Method baseMethod : baseMapperInterface.getMethods()) {
+            if (baseMethod.isDefault() && !baseMethod.getName().equals("selectByPrimaryKeys")) {
+                continue;
+            }
+            Method method = new Method(baseMethod.getName());
+            method.addAnnotation("@Override");
+            method.setVisibility(JavaVisibility.PUBLIC);
+            baseMethod.getReturnType().ifPresent(type -> method.setReturnType(resolve(type, rowName, exampleName)));
+            StringBuilder arguments = new StringBuilder();
+            for (Parameter baseParameter : baseMethod.getParameters()) {
+                method.addParameter(new Parameter(resolve(baseParameter.getType(), rowName, exampleName),
+                        baseParameter.getName()));
+                if (arguments.length() > 0) {
+                    arguments.append(", ");
+                }
+                arguments.append(baseParameter.getName());
+            }
+            addDelegateBodyLines(method, arguments.toString(), rowName, keyGetter, upsertByPrimaryKey);
+            decorator.addMethod(method);
+        }
+        if (dirtyTracking) {
+            Method updateChanged = MapperPlusPlugin.updateChangedByPrimaryKey(rowType);
+            updateChanged.setVisibility(JavaVisibility.PUBLIC);
+            addDelegateBodyLines(updateChanged, "row", rowName, keyGetter, upsertByPrimaryKey);
+            decorator.addMethod(updateChanged);
+        }
+        return decorator;
+    }
+
+    private void addFields(TopLevelClass decorator, FullyQualifiedJavaType mapperType, FullyQualifiedJavaType rowType) {
+        Field delegate = new Field("delegate", mapperType);
+        delegate.setVisibility(JavaVisibility.PRIVATE);
+        delegate.setFinal(true);
+        decorator.addField(delegate);
+
+        Field maxSize = new Field("maxSize", FullyQualifiedJavaType.getIntInstance());
+        maxSize.setVisibility(JavaVisibility.PRIVATE);
+        maxSize.setFinal(true);
+        decorator.addField(maxSize);
+
+        Field ttlNanos = new Field("ttlNanos", new FullyQualifiedJavaType("long"));
+        ttlNanos.setVisibility(JavaVisibility.PRIVATE);
+        ttlNanos.setFinal(true);
+        decorator.addField(ttlNanos);
+
+        // access ordered, the eldest entry is the least recently used one
+        Field cache = new Field("cache", new FullyQualifiedJavaType("Map<Long, CachedRow>"));
+        cache.setVisibility(JavaVisibility.PRIVATE);
+        cache.setFinal(true);
+        cache.setInitializationString("new LinkedHashMap<>(16, 0.75f, true)");
+        decorator.addField(cache);
+
+        // bumped by every invalidation, guarded by the cache
+        Field generation = new Field("generation", new FullyQualifiedJavaType("long"));
+        generation.setVisibility(JavaVisibility.PRIVATE);
+        decorator.addField(generation);
+
+        for (String name : new String[]{"hits", "misses", "evictions"}) {
+            Field counter = new Field(name, new FullyQualifiedJavaType("LongAdder"));
+            counter.setVisibility(JavaVisibility.PRIVATE);
+            counter.setFinal(true);
+            counter.setInitializationString("new LongAdder()");
+            decorator.addField(counter);
+        }
+
+        InnerClass cachedRow = new InnerClass("CachedRow");
+        cachedRow.setVisibility(JavaVisibility.PRIVATE);
+        cachedRow.setStatic(true);
+        Field row = new Field("row", rowType);
+        row.setVisibility(JavaVisibility.PRIVATE);
+        row.setFinal(true);
+        cachedRow.addField(row);
+        Field expiresAt = new Field("expiresAt", new FullyQualifiedJavaType("long"));
+        expiresAt.setVisibility(JavaVisibility.PRIVATE);
+        expiresAt.setFinal(true);
+        cachedRow.addField(expiresAt);
+        Method constructor = new Method("CachedRow");
+        constructor.setConstructor(true);
+        constructor.addParameter(new Parameter(rowType, "row"));
+        constructor.addParameter(new Parameter(new FullyQualifiedJavaType("long"), "expiresAt"));
+        constructor.addBodyLine("this.row = row;");
+        constructor.addBodyLine("this.expiresAt = expiresAt;");
+        cachedRow.addMethod(constructor);
+        decorator.addInnerClass(cachedRow);
+    }
+
+    private void addConstructors(TopLevelClass decorator, FullyQualifiedJavaType mapperType) {
+        Method defaults = new Method(decorator.getType().getShortName());
+        defaults.setConstructor(true);
+        defaults.setVisibility(JavaVisibility.PUBLIC);
+        defaults.addParameter(new Parameter(mapperType, "delegate"));
+        defaults.addBodyLine("this(delegate, " + defaultMaxSize + ", " + defaultTtlMillis + "L);");
+        decorator.addMethod(defaults);
+
+        Method getDelegate = new Method("getDelegate");
+        getDelegate.setVisibility(JavaVisibility.PUBLIC);
+        getDelegate.setReturnType(mapperType);
+        getDelegate.addBodyLine("return delegate;");
+        decorator.addMethod(getDelegate);
+
+        Method constructor = new Method(decorator.getType().getShortName());
+        constructor.addJavaDocLine("/**");
+        constructor.addJavaDocLine(" * @param maxSize   the least recently used row is evicted when the cache is full");
+        constructor.addJavaDocLine(" * @param ttlMillis the time to live of a cached row, 0 if the rows never expire");
+        constructor.addJavaDocLine(" */");
+        constructor.setConstructor(true);
+        constructor.setVisibility(JavaVisibility.PUBLIC);
+        constructor.addParameter(new Parameter(mapperType, "delegate"));
+        constructor.addParameter(new Parameter(FullyQualifiedJavaType.getIntInstance(), "maxSize"));
+        constructor.addParameter(new Parameter(new FullyQualifiedJavaType("long"), "ttlMillis"));
+        constructor.addBodyLine("if (maxSize <= 0) {");
+        constructor.addBodyLine("throw new IllegalArgumentException(\"maxSize must be positive: \" + maxSize);");
+        constructor.addBodyLine("}");
+        constructor.addBodyLine("this.delegate = delegate;");
+        constructor.addBodyLine("this.maxSize = maxSize;");
+        constructor.addBodyLine("this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);");
+        decorator.addMethod(constructor);
+    }
+
+    private void addStatistics(TopLevelClass decorator) {
+        String[][] counters = {{"getHitCount", "hits"}, {"getMissCount", "misses"}, {"getEvictionCount", "evictions"}};
+        for (String[] counter : counters) {
+            Method method = new Method(counter[0]);
+            method.setVisibility(JavaVisibility.PUBLIC);
+            method.setReturnType(new FullyQualifiedJavaType("long"));
+            method.addBodyLine("return " + counter[1] + ".sum();");
+            decorator.addMethod(method);
+        }
+
+        Method size = new Method("size");
+        size.setVisibility(JavaVisibility.PUBLIC);
+        size.setReturnType(FullyQualifiedJavaType.getIntInstance());
+        size.addBodyLine("synchronized (cache) {");
+        size.addBodyLine("return cache.size();");
+        size.addBodyLine("}");
+        decorator.addMethod(size);
+
+        Method invalidateAll = new Method("invalidateAll");
+        invalidateAll.setVisibility(JavaVisibility.PUBLIC);
+        invalidateAll.addBodyLine("synchronized (cache) {");
+        invalidateAll.addBodyLine("generation++;");
+        invalidateAll.addBodyLine("cache.clear();");
+        invalidateAll.addBodyLine("}");
+        decorator.addMethod(invalidateAll);
+
+        Method invalidate = new Method("invalidate");
+        invalidate.setVisibility(JavaVisibility.PUBLIC);
+        invalidate.addParameter(new Parameter(new FullyQualifiedJavaType("Long"), "id"));
+        invalidate.addBodyLine("if (id == null) {");
+        invalidate.addBodyLine("return;");
+        invalidate.addBodyLine("}");
+        invalidate.addBodyLine("synchronized (cache) {");
+        invalidate.addBodyLine("generation++;");
+        invalidate.addBodyLine("cache.remove(id);");
+        invalidate.addBodyLine("}");
+        decorator.addMethod(invalidate);
+    }
+
+    private void addCacheMethods(TopLevelClass decorator, FullyQualifiedJavaType rowType, String keyGetter) {
+        Method get = new Method("getCached");
+        get.setVisibility(JavaVisibility.PRIVATE);
+        get.setReturnType(rowType);
+        get.addParameter(new Parameter(new FullyQualifiedJavaType("Long"), "id"));
+        get.addBodyLine("synchronized (cache) {");
+        get.addBodyLine("CachedRow cached = cache.get(id);");
+        get.addBodyLine("if (cached != null && ttlNanos > 0 && System.nanoTime() - cached.expiresAt > 0) {");
+        get.addBodyLine("cache.remove(id);");
+        get.addBodyLine("evictions.increment();");
+        get.addBodyLine("cached = null;");
+        get.addBodyLine("}");
+        get.addBodyLine("if (cached == null) {");
+        get.addBodyLine("misses.increment();");
+        get.addBodyLine("return null;");
+        get.addBodyLine("}");
+        get.addBodyLine("hits.increment();");
+        get.addBodyLine("return cached.row;");
+        get.addBodyLine("}");
+        decorator.addMethod(get);
+
+        Method generation = new Method("generation");
+        generation.setVisibility(JavaVisibility.PRIVATE);
+        generation.setReturnType(new FullyQualifiedJavaType("long"));
+        generation.addBodyLine("synchronized (cache) {");
+        generation.addBodyLine("return generation;");
+        generation.addBodyLine("}");
+        decorator.addMethod(generation);
+
+        // null rows are not cached, so an insert never has to invalidate a missing row
+        Method put = new Method("putCached");
+        put.setVisibility(JavaVisibility.PRIVATE);
+        put.addParameter(new Parameter(rowType, "row"));
+        put.addParameter(new Parameter(new FullyQualifiedJavaType("long"), "readGeneration"));
+        put.addBodyLine("if (row == null || row." + keyGetter + " == null) {");
+        put.addBodyLine("return;");
+        put.addBodyLine("}");
+        put.addBodyLine("synchronized (cache) {");
+        // invalidated while the row was read, it may be the row written over
+        put.addBodyLine("if (generation != readGeneration) {");
+        put.addBodyLine("return;");
+        put.addBodyLine("}");
+        put.addBodyLine("cache.put(row." + keyGetter + ", new CachedRow(row, System.nanoTime() + ttlNanos));");
+        put.addBodyLine("if (cache.size() > maxSize) {");
+        put.addBodyLine("Iterator<CachedRow> eldest = cache.values().iterator();");
+        put.addBodyLine("eldest.next();");
+        put.addBodyLine("eldest.remove();");
+        put.addBodyLine("evictions.increment();");
+        put.addBodyLine("}");
+        put.addBodyLine("}");
+        decorator.addMethod(put);
+    }
+
+    /**
+     * the reads take the generation before calling the delegate and the writes invalidate after it, a read overlapping
+     * a write is then not cached whatever the order of the two is
+     */
+    private void addDelegateBodyLines(Method method,
+                                      String arguments,
+                                      String rowName,
+                                      String keyGetter,
+                                      boolean upsertByPrimaryKey) {
+        String name = method.getName();
+        String call = "delegate." + name + "(" + arguments + ")";
+        boolean hasResult = method.getReturnType().isPresent();
+        if (name.equals("selectByPrimaryKey")) {
+            method.addBodyLine(rowName + " row = getCached(id);");
+            method.addBodyLine("if (row == null) {");
+            method.addBodyLine("long generation = generation();");
+            method.addBodyLine("row = " + call + ";");
+            method.addBodyLine("putCached(row, generation);");
+            method.addBodyLine("}");
+            method.addBodyLine("return row;");
+            return;
+        }
+        if (name.equals("selectByPrimaryKeys")) {
+            method.addBodyLine("List<" + rowName + "> rows = new ArrayList<>(ids.size());");
+            method.addBodyLine("List<Long> missed = new ArrayList<>();");
+            method.addBodyLine("for (Long id : ids) {");
+            method.addBodyLine(rowName + " row = getCached(id);");
+            method.addBodyLine("if (row == null) {");
+            method.addBodyLine("missed.add(id);");
+            method.addBodyLine("} else {");
+            method.addBodyLine("rows.add(row);");
+            method.addBodyLine("}");
+            method.addBodyLine("}");
+            method.addBodyLine("if (!missed.isEmpty()) {");
+            method.addBodyLine("long generation = generation();");
+            method.addBodyLine("for (" + rowName + " row : " + "delegate.selectByPrimaryKeys(missed)" + ") {");
+            method.addBodyLine("putCached(row, generation);");
+            method.addBodyLine("rows.add(row);");
+            method.addBodyLine("}");
+            method.addBodyLine("}");
+            method.addBodyLine("return rows;");
+            return;
+        }
+        if (name.startsWith("select") || name.startsWith("count") || name.startsWith("exists")) {
+            method.addBodyLine("return " + call + ";");
+            return;
+        }
+
+        method.addBodyLine((hasResult ? method.getReturnType().get().getShortName() + " result = " : "") + call + ";");
+        Parameter first = method.getParameters().isEmpty() ? null : method.getParameters().get(0);
+        String firstType = first == null ? "" : first.getType().getShortName();
+        if (name.startsWith("upsert") && !upsertByPrimaryKey) {
+            method.addBodyLine("invalidateAll();");
+        } else if (firstType.equals(rowName) && !name.endsWith("ByExample") && !name.endsWith("ByExampleSelective")) {
+            // insert, upsert and update by primary key
+            method.addBodyLine("invalidate(" + first.getName() + "." + keyGetter + ");");
+        } else if (firstType.equals("List<" + rowName + ">")) {
+            method.addBodyLine("for (" + rowName + " row : " + first.getName() + ") {");
+            method.addBodyLine("invalidate(row." + keyGetter + ");");
+            method.addBodyLine("}");
+        } else if (firstType.equals("Long")) {
+            method.addBodyLine("invalidate(" + first.getName() + ");");
+        } else if (firstType.equals("Collection<Long>")) {
+            method.addBodyLine("for (Long id : " + first.getName() + ") {");
+            method.addBodyLine("invalidate(id);");
+            method.addBodyLine("}");
+        } else {
+            // by example, the affected keys are unknown
+            method.addBodyLine("invalidateAll();");
+        }
+        if (hasResult) {
+            method.addBodyLine("return result;");
+        }
+    }
+
+    private static FullyQualifiedJavaType resolve(FullyQualifiedJavaType type, String rowName, String exampleName) {
+        String name = ROW_TYPE.matcher(type.getShortName()).replaceAll(rowName);
+        return new FullyQualifiedJavaType(EXAMPLE_TYPE.matcher(name).replaceAll(exampleName));
+    }
+}
@@ -0,0 +1,115 @@
+package cc.cc1234.mybatis.generator;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * a comma separated list of ${table_pattern}.${column_pattern}, such as: *.create_time, audit_*.*_time, user.id.
+ * both sides are the same as {@link NamePattern}, the column pattern is split at the last dot so it must not
+ * contain one, such as: regex:log_\d+.regex:(create|update)_time.
+ * the rules of the exact table names are indexed by the table, and the column pattern of a table is memoized,
+ * so matching the columns of many tables doesn't scan the whole list for every column.
+ */
+public class ColumnPattern {
+
+    private static final ColumnPattern NONE = new ColumnPattern(new HashMap<>(), new ArrayList<>());
+
+    /**
+     * the column patterns of the exact table names, keyed by the lower case table name
+     */
+    private final Map<String, List<NamePattern>> exactTables;
+
+    private final List<Rule> rules;
+
+    private final ConcurrentMap<String, NamePattern> tables = new ConcurrentHashMap<>();
+
+    private ColumnPattern(Map<String, List<NamePattern>> exactTables, List<Rule> rules) {
+        this.exactTables = exactTables;
+        this.rules = rules;
+    }
+
+    /**
+     * @param prop  the property name, used by the warnings
+     * @param value null or blank matches nothing
+     */
+    public static ColumnPattern compile(String prop, String value, List<String> warnings) {
+        if (value == null || value.trim().isEmpty()) {
+            return NONE;
+        }
+        Map<String, List<NamePattern>> exactTables = new HashMap<>();
+        List<Rule> rules = new ArrayList<>();
+        for (String rule : value.split(",")) {
+            rule = rule.trim();
+            if (rule.isEmpty()) {
+                continue;
+            }
+            int dotIndex = rule.lastIndexOf('.');
+            if (dotIndex <= 0 || dotIndex == rule.length() - 1) {
+                warnings.add("The rule '" + rule + "' of property '" + prop + "' is invalid and ignored, "
+                        + "expected ${table_pattern}.${column_pattern}.");
+                continue;
+            }
+            String table = rule.substring(0, dotIndex).trim();
+            NamePattern columns;
+            NamePattern tables;
+            try {
+                columns = NamePattern.compile(rule.substring(dotIndex + 1));
+                tables = NamePattern.compile(table);
+            } catch (PatternSyntaxException e) {
+                warnings.add("The rule '" + rule + "' of property '" + prop + "' is invalid and ignored, "
+                        + e.getDescription() + ".");
+                continue;
+            }
+            if (table.indexOf('*') == -1 && !table.startsWith("regex:")) {
+                exactTables.computeIfAbsent(table.toLowerCase(Locale.ENGLISH), k -> new ArrayList<>()).add(columns);
+            } else {
+                rules.add(new Rule(tables, columns));
+            }
+        }
+        return new ColumnPattern(exactTables, rules);
+    }
+
+    /**
+     * @return the columns of the table, compiled once for every table
+     */
+    public NamePattern forTable(String tableName) {
+        return tables.computeIfAbsent(tableName, this::compileTable);
+    }
+
+    public boolean matches(String tableName, String columnName) {
+        return forTable(tableName).matches(columnName);
+    }
+
+    public boolean isEmpty() {
+        return exactTables.isEmpty() && rules.isEmpty();
+    }
+
+    private NamePattern compileTable(String tableName) {
+        List<NamePattern> columns = new ArrayList<>(
+                exactTables.getOrDefault(tableName.toLowerCase(Locale.ENGLISH), new ArrayList<>()));
+        for (Rule rule : rules) {
+            if (rule.tables.matches(tableName)) {
+                columns.add(rule.columns);
+            }
+        }
+        return NamePattern.union(columns);
+    }
+
+    private static class Rule {
+
+        private final NamePattern tables;
+
+        private final NamePattern columns;
+
+        Rule(NamePattern tables, NamePattern columns) {
+            this.tables = tables;
+            this.columns = columns;
+        }
+    }
+}
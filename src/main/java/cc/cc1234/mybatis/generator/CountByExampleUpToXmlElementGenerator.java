@@ -0,0 +1,47 @@
+package cc.cc1234.mybatis.generator;
+
+import org.mybatis.generator.api.dom.xml.Attribute;
+import org.mybatis.generator.api.dom.xml.TextElement;
+import org.mybatis.generator.api.dom.xml.XmlElement;
+import org.mybatis.generator.codegen.mybatis3.xmlmapper.elements.AbstractXmlElementGenerator;
+
+/**
+ * count the matched rows, but stop counting at <b>cap</b>, such as a "999+" badge
+ * <pre>
+ *     select count(*) from (select 1 as found from ${table_name} where ... limit #{cap}) t
+ * </pre>
+ */
+public class CountByExampleUpToXmlElementGenerator extends AbstractXmlElementGenerator {
+
+    public static final String STATEMENT_ID = "countByExampleUpTo";
+
+    private final Dialect dialect;
+
+    public CountByExampleUpToXmlElementGenerator(Dialect dialect) {
+        this.dialect = dialect;
+    }
+
+    @Override
+    public void addElements(XmlElement parentElement) {
+        // <select id="?" parameterType="map" resultType="java.lang.Long">
+        XmlElement answer = new XmlElement("select");
+        answer.addAttribute(new Attribute("id", STATEMENT_ID));
+        answer.addAttribute(new Attribute("parameterType", "map"));
+        answer.addAttribute(new Attribute("resultType", "java.lang.Long"));
+        context.getCommentGenerator().addComment(answer);
+
+        // select 1 as found from ${table_name} where ... limit #{cap}
+        XmlElement subQuery = new XmlElement("select");
+        subQuery.addElement(new TextElement("select"));
+        subQuery.addElement(new TextElement("1 as found"));
+        subQuery.addElement(new TextElement("from " + introspectedTable.getAliasedFullyQualifiedTableNameAtRuntime()));
+        subQuery.addElement(getUpdateByExampleIncludeElement());
+        dialect.addRowLimit(subQuery, "cap", null);
+
+        answer.addElement(new TextElement("select count(*) from ("));
+        subQuery.getElements().forEach(answer::addElement);
+        answer.addElement(new TextElement(") t"));
+
+        parentElement.addElement(answer);
+    }
+}
@@ -0,0 +1,35 @@
+package cc.cc1234.mybatis.generator;
+
+import org.mybatis.generator.api.IntrospectedColumn;
+import org.mybatis.generator.api.dom.xml.Attribute;
+import org.mybatis.generator.api.dom.xml.TextElement;
+import org.mybatis.generator.api.dom.xml.XmlElement;
+import org.mybatis.generator.codegen.mybatis3.xmlmapper.elements.AbstractXmlElementGenerator;
+
+import static org.mybatis.generator.codegen.mybatis3.MyBatis3FormattingUtilities.getEscapedColumnName;
+
+/**
+ * delete rows by a chunk of primary keys, only tables with a single primary key column are supported
+ */
+public class DeleteByPrimaryKeysXmlElementGenerator extends AbstractXmlElementGenerator {
+
+    public static final String STATEMENT_ID = "deleteByPrimaryKeysChunk";
+
+    @Override
+    public void addElements(XmlElement parentElement) {
+        // <delete id="?" parameterType="map">
+        XmlElement answer = new XmlElement("delete");
+        answer.addAttribute(new Attribute("id", STATEMENT_ID));
+        answer.addAttribute(new Attribute("parameterType", "map"));
+        context.getCommentGenerator().addComment(answer);
+
+        answer.addElement(new TextElement("delete from " + introspectedTable.getFullyQualifiedTableNameAtRuntime()));
+
+        // where ${pk} in (?, ?)
+        IntrospectedColumn primaryKeyColumn = introspectedTable.getPrimaryKeyColumns().get(0);
+        answer.addElement(new TextElement("where " + getEscapedColumnName(primaryKeyColumn) + " in"));
+        answer.addElement(SelectByPrimaryKeysXmlElementGenerator.primaryKeysForeachElement(primaryKeyColumn));
+
+        parentElement.addElement(answer);
+    }
+}
@@ -0,0 +1,250 @@
+package cc.cc1234.mybatis.generator;
+
+import org.mybatis.generator.api.dom.java.Method;
+import org.mybatis.generator.api.dom.xml.Attribute;
+import org.mybatis.generator.api.dom.xml.TextElement;
+import org.mybatis.generator.api.dom.xml.VisitableElement;
+import org.mybatis.generator.api.dom.xml.XmlElement;
+import org.mybatis.generator.config.Context;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+
+/**
+ * the databases supported by the generated statements, each one decides how the rows of a select are limited
+ * and how a row is inserted or updated on conflict.
+ * <p>
+ * set property <b>dialect</b> on the plugin or on the context, such as: mysql, postgresql, oracle, sqlserver.
+ * </p>
+ */
+public enum Dialect {
+
+    MYSQL(RowLimit.LIMIT, UpsertSyntax.ON_DUPLICATE_KEY),
+
+    MARIADB(RowLimit.LIMIT, UpsertSyntax.ON_DUPLICATE_KEY),
+
+    POSTGRESQL(RowLimit.LIMIT, UpsertSyntax.ON_CONFLICT),
+
+    SQLITE(RowLimit.LIMIT, UpsertSyntax.ON_CONFLICT),
+
+    HSQLDB(RowLimit.LIMIT, UpsertSyntax.MERGE_USING_VALUES),
+
+    H2(RowLimit.FETCH_FIRST, UpsertSyntax.MERGE_USING_VALUES),
+
+    ORACLE(RowLimit.FETCH_FIRST, UpsertSyntax.MERGE_USING_DUAL),
+
+    DB2(RowLimit.FETCH_FIRST, UpsertSyntax.MERGE_USING_VALUES),
+
+    DERBY(RowLimit.FETCH_FIRST, UpsertSyntax.UNSUPPORTED),
+
+    SQLSERVER(RowLimit.TOP, UpsertSyntax.MERGE_USING_VALUES);
+
+    public static final String DIALECT_PROP = "dialect";
+
+    private enum RowLimit {
+        // limit ? offset ?
+        LIMIT,
+        // offset ? rows fetch first ? rows only
+        FETCH_FIRST,
+        // select top ?, or offset ? rows fetch next ? rows only when there is an offset
+        TOP
+    }
+
+    enum UpsertSyntax {
+        // insert into ... on duplicate key update
+        ON_DUPLICATE_KEY,
+        // insert into ... on conflict (${conflict_columns}) do update set
+        ON_CONFLICT,
+        // merge into ... using (values (?, ?)) s (${columns})
+        MERGE_USING_VALUES,
+        // merge into ... using (select ? as ${column} from dual) s
+        MERGE_USING_DUAL,
+        UNSUPPORTED
+    }
+
+    private final RowLimit rowLimit;
+
+    private final UpsertSyntax upsertSyntax;
+
+    Dialect(RowLimit rowLimit, UpsertSyntax upsertSyntax) {
+        this.rowLimit = rowLimit;
+        this.upsertSyntax = upsertSyntax;
+    }
+
+    UpsertSyntax getUpsertSyntax() {
+        return upsertSyntax;
+    }
+
+    /**
+     * sql server requires the merge statement to be terminated by a semicolon
+     */
+    boolean isMergeTerminated() {
+        return this == SQLSERVER;
+    }
+
+    /**
+     * the plugin property takes precedence over the context property, default is {@link #MYSQL}
+     */
+    public static Dialect of(Properties properties, Context context, List<String> warnings) {
+        String value = properties.getProperty(DIALECT_PROP);
+        if (value == null && context != null) {
+            value = context.getProperty(DIALECT_PROP);
+        }
+        if (value == null) {
+            return MYSQL;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ENGLISH));
+        } catch (IllegalArgumentException e) {
+            warnings.add("Unknown dialect '" + value + "', " + MYSQL.name().toLowerCase(Locale.ENGLISH)
+                    + " is used instead.");
+            return MYSQL;
+        }
+    }
+
+    /**
+     * limit the select element to a fixed number of rows
+     */
+    public void addRowLimit(XmlElement selectElement, int rows) {
+        switch (rowLimit) {
+        case TOP:
+            selectElement.addElement(selectListIndex(selectElement), new TextElement("top " + rows));
+            break;
+        case FETCH_FIRST:
+            selectElement.addElement(new TextElement("fetch first " + rows + " rows only"));
+            break;
+        default:
+            selectElement.addElement(new TextElement("limit " + rows));
+            break;
+        }
+    }
+
+    /**
+     * limit the select element by the <b>limit</b> and <b>offset</b> properties of the parameter,
+     * the offset only takes effect together with the limit
+     *
+     * @param offsetProperty null if the statement has no offset
+     */
+    public void addRowLimit(XmlElement selectElement, String limitProperty, String offsetProperty) {
+        String limitTest = limitProperty + " != null";
+        String offsetTest = offsetProperty == null ? null : limitTest + " and " + offsetProperty + " != null";
+        switch (rowLimit) {
+        case TOP:
+            // top does not support offset, the offset fetch syntax requires order by
+            String topTest = offsetTest == null ? limitTest : limitTest + " and " + offsetProperty + " == null";
+            selectElement.addElement(selectListIndex(selectElement),
+                    ifElement(topTest, "top (#{" + limitProperty + "})"));
+            if (offsetTest != null) {
+                selectElement.addElement(ifElement(offsetTest,
+                        "offset #{" + offsetProperty + "} rows fetch next #{" + limitProperty + "} rows only"));
+            }
+            break;
+        case FETCH_FIRST:
+            if (offsetTest != null) {
+                selectElement.addElement(ifElement(offsetTest, "offset #{" + offsetProperty + "} rows"));
+            }
+            selectElement.addElement(ifElement(limitTest, "fetch first #{" + limitProperty + "} rows only"));
+            break;
+        default:
+            XmlElement limitElement = ifElement(limitTest, "limit #{" + limitProperty + "}");
+            if (offsetProperty != null) {
+                limitElement.addElement(ifElement(offsetProperty + " != null", "offset #{" + offsetProperty + "}"));
+            }
+            selectElement.addElement(limitElement);
+            break;
+        }
+    }
+
+    /**
+     * same as {@link #addRowLimit(XmlElement, int)}, for a generated sql provider method which appends to <b>sql</b>
+     *
+     * @param selectList true at the position right after select and distinct, false at the end of the statement
+     */
+    public void addRowLimitBodyLines(Method method, boolean selectList, int rows) {
+        if (selectList == (rowLimit == RowLimit.TOP)) {
+            String text = rowLimit == RowLimit.TOP ? "top " + rows
+                    : rowLimit == RowLimit.FETCH_FIRST ? "fetch first " + rows + " rows only" : "limit " + rows;
+            method.addBodyLine("sql.append(\" " + text + "\");");
+        }
+    }
+
+    /**
+     * same as {@link #addRowLimit(XmlElement, String, String)}, for a generated sql provider method which appends
+     * to <b>sql</b>
+     *
+     * @param selectList  true at the position right after select and distinct, false at the end of the statement
+     * @param limitValue  java expression of the limit, such as example.getLimit()
+     * @param offsetValue java expression of the offset, null if the statement has no offset
+     */
+    public void addRowLimitBodyLines(Method method, boolean selectList,
+                                     String limitValue, String limitProperty,
+                                     String offsetValue, String offsetProperty) {
+        String limitTest = limitValue + " != null";
+        String offsetTest = offsetValue == null ? null : limitTest + " && " + offsetValue + " != null";
+        switch (rowLimit) {
+        case TOP:
+            if (selectList) {
+                String topTest = offsetTest == null ? limitTest : limitTest + " && " + offsetValue + " == null";
+                appendIf(method, topTest, "top (#{" + limitProperty + "})");
+            } else if (offsetTest != null) {
+                appendIf(method, offsetTest,
+                        "offset #{" + offsetProperty + "} rows fetch next #{" + limitProperty + "} rows only");
+            }
+            break;
+        case FETCH_FIRST:
+            if (!selectList) {
+                if (offsetTest != null) {
+                    appendIf(method, offsetTest, "offset #{" + offsetProperty + "} rows");
+                }
+                appendIf(method, limitTest, "fetch first #{" + limitProperty + "} rows only");
+            }
+            break;
+        default:
+            if (!selectList) {
+                appendIf(method, limitTest, "limit #{" + limitProperty + "}");
+                if (offsetTest != null) {
+                    appendIf(method, offsetTest, "offset #{" + offsetProperty + "}");
+                }
+            }
+            break;
+        }
+    }
+
+    private static void appendIf(Method method, String test, String text) {
+        method.addBodyLine("if (" + test + ") {");
+        method.addBodyLine("sql.append(\" " + text + "\");");
+        method.addBodyLine("}");
+    }
+
+    private static XmlElement ifElement(String test, String text) {
+        XmlElement ifElement = new XmlElement("if");
+        ifElement.addAttribute(new Attribute("test", test));
+        ifElement.addElement(new TextElement(text));
+        return ifElement;
+    }
+
+    /**
+     * the position right after <b>select</b> and the optional <b>distinct</b>
+     */
+    private static int selectListIndex(XmlElement selectElement) {
+        List<VisitableElement> elements = selectElement.getElements();
+        for (int i = 0; i < elements.size(); i++) {
+            VisitableElement element = elements.get(i);
+            if (element instanceof TextElement && ((TextElement) element).getContent().trim().equals("select")) {
+                if (i + 1 < elements.size() && isDistinctElement(elements.get(i + 1))) {
+                    return i + 2;
+                }
+                return i + 1;
+            }
+        }
+        throw new IllegalStateException("The select list of element " + selectElement.getName() + " is not found.");
+    }
+
+    private static boolean isDistinctElement(VisitableElement element) {
+        return element instanceof XmlElement
+                && ((XmlElement) element).getAttributes()
+                .stream()
+                .anyMatch(attribute -> attribute.getName().equals("test") && attribute.getValue().equals("distinct"));
+    }
+}
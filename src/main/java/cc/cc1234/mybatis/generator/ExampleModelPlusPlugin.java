@@ -4,15 +4,33 @@ import org.mybatis.generator.api.IntrospectedColumn;
 import org.mybatis.generator.api.IntrospectedTable;
 import org.mybatis.generator.api.PluginAdapter;
 import org.mybatis.generator.api.dom.java.*;
+import org.mybatis.generator.api.dom.xml.Attribute;
+import org.mybatis.generator.api.dom.xml.TextElement;
+import org.mybatis.generator.api.dom.xml.VisitableElement;
+import org.mybatis.generator.api.dom.xml.XmlElement;
+import org.mybatis.generator.codegen.mybatis3.MyBatis3FormattingUtilities;
+import org.mybatis.generator.internal.util.JavaBeansUtil;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import static org.mybatis.generator.internal.util.StringUtility.stringHasValue;
 
 /**
  * 1. add <b>example()</b> method in Criteria
  * 2. add miss <b>orderBy</b> type
  * 3. add miss <b>selectOneByExample(Example)</b> method
  * 4. add static factory <b>create()</b> method in Example
+ * 5. add <b>limit(n)</b> and <b>offset(n)</b> methods in Example, the row limit is pushed down to the database
+ * 6. add seek pagination <b>after(lastRow)</b> method in Example
+ * 7. add column projection <b>select()</b> method in Example, only the selected columns are fetched
+ * 8. add structural <b>equals()</b> and <b>hashCode()</b> in Example, so identical queries are equal
+ * 9. add <b>reset()</b> method in Example, which reuses the internal lists of a long-lived instance
  */
 public class ExampleModelPlusPlugin extends PluginAdapter {
 
@@ -22,14 +40,60 @@ public class ExampleModelPlusPlugin extends PluginAdapter {
 
     private static final String DISABLE_EXAMPLE_PROP = "criteria.example.disabled";
 
+    private static final String DISABLE_LIMIT_PROP = "example.limit.disabled";
+
+    private static final String DISABLE_SEEK_PROP = "example.seek.disabled";
+
+    private static final String DISABLE_SELECT_PROP = "example.select.disabled";
+
+    private static final String DISABLE_EQUALS_PROP = "example.equals.disabled";
+
+    private static final String DISABLE_RESET_PROP = "example.reset.disabled";
+
+    /**
+     * set on the tables whose Example has <b>limit</b> and <b>offset</b>, the generated selects depend on it
+     */
+    static final String LIMIT_ATTRIBUTE = ExampleModelPlusPlugin.class.getName() + ".limit";
+
+    /**
+     * set on the tables whose Example supports seek pagination, the <b>selectPageAfter</b> statement depends on it
+     */
+    static final String SEEK_ATTRIBUTE = ExampleModelPlusPlugin.class.getName() + ".seek";
+
+    /**
+     * set on the tables whose Example supports column projection, the selects by example depend on it
+     */
+    static final String SELECT_ATTRIBUTE = ExampleModelPlusPlugin.class.getName() + ".select";
+
     private List<String> warnings;
 
+    private Dialect dialect;
+
     @Override
     public boolean validate(List<String> warnings) {
-        this.warnings = warnings;
+        this.warnings = TableWarnings.of(warnings);
+        this.dialect = Dialect.of(properties, context, warnings);
         return true;
     }
 
+    @Override
+    public void initialized(IntrospectedTable introspectedTable) {
+        boolean limitEnabled = "false".equals(properties.getProperty(DISABLE_LIMIT_PROP, "false"));
+        if (limitEnabled) {
+            introspectedTable.setAttribute(LIMIT_ATTRIBUTE, Boolean.TRUE);
+        }
+        // seek pagination is built on the order by columns, and the primary key makes the order unique
+        if (limitEnabled
+                && "false".equals(properties.getProperty(DISABLE_ORDER_BY_PROP, "false"))
+                && "false".equals(properties.getProperty(DISABLE_SEEK_PROP, "false"))
+                && introspectedTable.hasPrimaryKeyColumns()) {
+            introspectedTable.setAttribute(SEEK_ATTRIBUTE, Boolean.TRUE);
+        }
+        if ("false".equals(properties.getProperty(DISABLE_SELECT_PROP, "false"))) {
+            introspectedTable.setAttribute(SELECT_ATTRIBUTE, Boolean.TRUE);
+        }
+    }
+
     @Override
     public boolean modelExampleClassGenerated(TopLevelClass topLevelClass, IntrospectedTable introspectedTable) {
         if ("false".equals(properties.getProperty(DISABLE_EXAMPLE_PROP, "false"))) {
@@ -48,9 +112,103 @@ public class ExampleModelPlusPlugin extends PluginAdapter {
             updateGetOrderByClause(topLevelClass);
             updateSetOrderByClause(topLevelClass);
         }
+
+        if (introspectedTable.getAttribute(LIMIT_ATTRIBUTE) != null) {
+            addLimitInExample(topLevelClass);
+        }
+
+        if (introspectedTable.getAttribute(SEEK_ATTRIBUTE) != null) {
+            addSeekInExample(topLevelClass, introspectedTable);
+        }
+
+        if (introspectedTable.getAttribute(SELECT_ATTRIBUTE) != null) {
+            addSelectInExample(topLevelClass, introspectedTable);
+        }
+
+        // after all the other fields are added
+        if ("false".equals(properties.getProperty(DISABLE_EQUALS_PROP, "false"))) {
+            addEqualsAndHashCodeInExample(topLevelClass);
+        }
+
+        if ("false".equals(properties.getProperty(DISABLE_RESET_PROP, "false"))) {
+            addResetInExample(topLevelClass, introspectedTable);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean sqlMapSelectByExampleWithoutBLOBsElementGenerated(XmlElement element,
+                                                                     IntrospectedTable introspectedTable) {
+        if (introspectedTable.getAttribute(LIMIT_ATTRIBUTE) != null) {
+            dialect.addRowLimit(element, "limit", "offset");
+        }
+        addSelectColumns(element, introspectedTable);
         return true;
     }
 
+    @Override
+    public boolean sqlMapSelectByExampleWithBLOBsElementGenerated(XmlElement element,
+                                                                  IntrospectedTable introspectedTable) {
+        if (introspectedTable.getAttribute(LIMIT_ATTRIBUTE) != null) {
+            dialect.addRowLimit(element, "limit", "offset");
+        }
+        addSelectColumns(element, introspectedTable);
+        return true;
+    }
+
+    /**
+     * render the selected columns of the Example instead of the full column list:
+     * <pre>
+     *     &lt;choose&gt;
+     *         &lt;when test="selectClause != null"&gt;${selectClause}&lt;/when&gt;
+     *         &lt;otherwise&gt;&lt;include refid="Base_Column_List"/&gt;, &lt;include refid="Blob_Column_List"/&gt;&lt;/otherwise&gt;
+     *     &lt;/choose&gt;
+     * </pre>
+     * the select clause only contains generated column names, so it is safe to be rendered by ${}
+     */
+    static void addSelectColumns(XmlElement selectElement, IntrospectedTable introspectedTable) {
+        if (introspectedTable.getAttribute(SELECT_ATTRIBUTE) == null) {
+            return;
+        }
+        List<VisitableElement> elements = selectElement.getElements();
+        int from = indexOfInclude(elements, introspectedTable.getBaseColumnListId(), 0);
+        if (from == -1) {
+            return;
+        }
+        int to = from + 1;
+        int blob = indexOfInclude(elements, introspectedTable.getBlobColumnListId(), to);
+        if (blob != -1 && blob <= to + 1) {
+            to = blob + 1;
+        }
+
+        XmlElement whenElement = new XmlElement("when");
+        whenElement.addAttribute(new Attribute("test", "selectClause != null"));
+        whenElement.addElement(new TextElement("${selectClause}"));
+        XmlElement otherwiseElement = new XmlElement("otherwise");
+        List<VisitableElement> columnListElements = elements.subList(from, to);
+        columnListElements.forEach(otherwiseElement::addElement);
+        columnListElements.clear();
+
+        XmlElement chooseElement = new XmlElement("choose");
+        chooseElement.addElement(whenElement);
+        chooseElement.addElement(otherwiseElement);
+        selectElement.addElement(from, chooseElement);
+    }
+
+    private static int indexOfInclude(List<VisitableElement> elements, String refid, int from) {
+        for (int i = from; i < elements.size(); i++) {
+            VisitableElement element = elements.get(i);
+            if (element instanceof XmlElement
+                    && ((XmlElement) element).getName().equals("include")
+                    && ((XmlElement) element).getAttributes()
+                    .stream()
+                    .anyMatch(attribute -> attribute.getName().equals("refid") && attribute.getValue().equals(refid))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
     private void addStaticFactoryInExample(TopLevelClass exampleModel) {
         Method method = new Method("create");
         method.setStatic(true);
@@ -127,6 +285,7 @@ public class ExampleModelPlusPlugin extends PluginAdapter {
                 .findFirst()
                 .ifPresent(method -> {
                     method.addBodyLine("orderBy.clear();");
+                    method.addBodyLine("cachedOrderByClause = null;");
                 });
     }
 
@@ -137,10 +296,14 @@ public class ExampleModelPlusPlugin extends PluginAdapter {
                 .findFirst()
                 .ifPresent(method -> {
                     method.getBodyLines().clear();
-                    method.addBodyLine("this.orderBy.add(orderByClause);");
+                    method.addBodyLine("addOrderBy(orderByClause);");
                 });
     }
 
+    /**
+     * the clause is joined once and cached until the order by list is modified,
+     * mybatis calls the getter several times for each statement
+     */
     private void updateGetOrderByClause(TopLevelClass topLevelClass) {
         topLevelClass.getMethods()
                 .stream()
@@ -149,11 +312,23 @@ public class ExampleModelPlusPlugin extends PluginAdapter {
                 .ifPresent(method -> {
                     method.getBodyLines().clear();
                     method.addBodyLine("if (orderBy.isEmpty()) {");
-                    method.addBodyLine("    return this.orderByClause;");
+                    method.addBodyLine("return this.orderByClause;");
+                    method.addBodyLine("}");
+                    method.addBodyLine("if (cachedOrderByClause == null) {");
+                    method.addBodyLine("int length = orderBy.size() - 1;");
+                    method.addBodyLine("for (int i = 0; i < orderBy.size(); i++) {");
+                    method.addBodyLine("length += orderBy.get(i).length();");
+                    method.addBodyLine("}");
+                    method.addBodyLine("StringBuilder sb = new StringBuilder(length);");
+                    method.addBodyLine("for (int i = 0; i < orderBy.size(); i++) {");
+                    method.addBodyLine("if (i > 0) {");
+                    method.addBodyLine("sb.append(',');");
+                    method.addBodyLine("}");
+                    method.addBodyLine("sb.append(orderBy.get(i));");
                     method.addBodyLine("}");
-                    method.addBodyLine("else {");
-                    method.addBodyLine("    return String.join(\",\", orderBy);");
+                    method.addBodyLine("cachedOrderByClause = sb.toString();");
                     method.addBodyLine("}");
+                    method.addBodyLine("return cachedOrderByClause;");
                 });
     }
 
@@ -165,6 +340,17 @@ public class ExampleModelPlusPlugin extends PluginAdapter {
         orderByField.setVisibility(JavaVisibility.PRIVATE);
         orderByField.setFinal(true);
         topLevelClass.addField(orderByField);
+
+        Field cachedField = new Field("cachedOrderByClause", FullyQualifiedJavaType.getStringInstance());
+        cachedField.setVisibility(JavaVisibility.PRIVATE);
+        topLevelClass.addField(cachedField);
+
+        Method addOrderBy = new Method("addOrderBy");
+        addOrderBy.setVisibility(JavaVisibility.PRIVATE);
+        addOrderBy.addParameter(new Parameter(FullyQualifiedJavaType.getStringInstance(), "orderByFragment"));
+        addOrderBy.addBodyLine("orderBy.add(orderByFragment);");
+        addOrderBy.addBodyLine("cachedOrderByClause = null;");
+        topLevelClass.addMethod(addOrderBy);
     }
 
     private void addOrderByCriteriaClassInExample(TopLevelClass topLevelClass, IntrospectedTable table) {
@@ -191,21 +377,416 @@ public class ExampleModelPlusPlugin extends PluginAdapter {
         orderByCriteria.addMethod(exampleMethod);
 
         table.getAllColumns().forEach(column -> {
-            orderByCriteria.addMethod(columnOrderMethod(column, "Asc"));
-            orderByCriteria.addMethod(columnOrderMethod(column, "Desc"));
+            for (String sort : new String[]{"Asc", "Desc"}) {
+                orderByCriteria.addField(columnOrderField(column, sort));
+                orderByCriteria.addMethod(columnOrderMethod(column, sort));
+            }
         });
 
         topLevelClass.addInnerClass(orderByCriteria);
     }
 
+    /**
+     * <pre>
+     *     private static final String CREATE_TIME_DESC = "create_time DESC";
+     * </pre>
+     */
+    private Field columnOrderField(IntrospectedColumn column, String sort) {
+        Field field = new Field(columnOrderFieldName(column, sort), FullyQualifiedJavaType.getStringInstance());
+        field.setVisibility(JavaVisibility.PRIVATE);
+        field.setStatic(true);
+        field.setFinal(true);
+        field.setInitializationString("\"" + column.getActualColumnName() + " " + sort.toUpperCase() + "\"");
+        return field;
+    }
+
     private Method columnOrderMethod(IntrospectedColumn column, String sort) {
-        String columnName = column.getActualColumnName();
         String propName = column.getJavaProperty();
         Method method = new Method(propName + sort);
         method.setVisibility(JavaVisibility.PUBLIC);
         method.setReturnType(new FullyQualifiedJavaType("OrderByCriteria"));
-        method.addBodyLine("this.example.orderBy.add(\"" + columnName + " " + sort.toUpperCase() + "\");");
+        method.addBodyLine("this.example.addOrderBy(" + columnOrderFieldName(column, sort) + ");");
         method.addBodyLine("return this;");
         return method;
     }
+
+    /**
+     * createTime, Desc -&gt; CREATE_TIME_DESC
+     */
+    private static String columnOrderFieldName(IntrospectedColumn column, String sort) {
+        String propName = column.getJavaProperty();
+        StringBuilder sb = new StringBuilder(propName.length() + sort.length() + 4);
+        for (int i = 0; i < propName.length(); i++) {
+            char c = propName.charAt(i);
+            if (Character.isUpperCase(c) && i > 0) {
+                sb.append('_');
+            }
+            sb.append(Character.toUpperCase(c));
+        }
+        return sb.append('_').append(sort.toUpperCase()).toString();
+    }
+
+    private void addLimitInExample(TopLevelClass topLevelClass) {
+        for (String name : new String[]{"limit", "offset"}) {
+            Field field = new Field(name, new FullyQualifiedJavaType("java.lang.Integer"));
+            field.setVisibility(JavaVisibility.PRIVATE);
+            topLevelClass.addField(field);
+
+            Method method = new Method(name);
+            method.setVisibility(JavaVisibility.PUBLIC);
+            method.setReturnType(topLevelClass.getType());
+            method.addParameter(new Parameter(FullyQualifiedJavaType.getIntInstance(), name));
+            method.addBodyLine("this." + name + " = " + name + ";");
+            method.addBodyLine("return this;");
+            topLevelClass.addMethod(method);
+
+            Method getter = new Method(JavaBeansUtil.getGetterMethodName(name, field.getType()));
+            getter.setVisibility(JavaVisibility.PUBLIC);
+            getter.setReturnType(field.getType());
+            getter.addBodyLine("return this." + name + ";");
+            topLevelClass.addMethod(getter);
+        }
+
+        topLevelClass.getMethods()
+                .stream()
+                .filter(method -> method.getName().equals("clear"))
+                .findFirst()
+                .ifPresent(method -> {
+                    method.addBodyLine("limit = null;");
+                    method.addBodyLine("offset = null;");
+                });
+    }
+
+    /**
+     * <pre>
+     *     example.orderBy().createTimeDesc().example().after(lastRow).limit(20);
+     *     // where (create_time &lt; ?) or (create_time = ? and id &gt; ?) order by create_time DESC, id ASC limit 20
+     * </pre>
+     */
+    private void addSeekInExample(TopLevelClass topLevelClass, IntrospectedTable table) {
+        FullyQualifiedJavaType recordType = new FullyQualifiedJavaType(table.getBaseRecordType());
+        topLevelClass.addImportedType(recordType);
+
+        Field afterRowField = new Field("afterRow", recordType);
+        afterRowField.setVisibility(JavaVisibility.PRIVATE);
+        topLevelClass.addField(afterRowField);
+
+        Method after = new Method("after");
+        after.setVisibility(JavaVisibility.PUBLIC);
+        after.setReturnType(topLevelClass.getType());
+        after.addParameter(new Parameter(recordType, "lastRow"));
+        after.addBodyLine("this.afterRow = lastRow;");
+        after.addBodyLine("return this;");
+        topLevelClass.addMethod(after);
+
+        topLevelClass.getMethods()
+                .stream()
+                .filter(method -> method.getName().equals("clear"))
+                .findFirst()
+                .ifPresent(method -> method.addBodyLine("afterRow = null;"));
+
+        // order by columns + primary key columns which are not ordered yet,
+        // a clause of setOrderByClause may hold several columns: "a desc, b"
+        topLevelClass.addImportedType(new FullyQualifiedJavaType("java.util.Locale"));
+        Method seekKeys = new Method("seekKeys");
+        seekKeys.setVisibility(JavaVisibility.PRIVATE);
+        seekKeys.setReturnType(new FullyQualifiedJavaType("java.util.List<String>"));
+        seekKeys.addBodyLine("List<String> seekKeys = new ArrayList<>(orderBy.size() + 1);");
+        seekKeys.addBodyLine("for (String orderByFragment : orderBy) {");
+        seekKeys.addBodyLine("for (String seekKey : orderByFragment.split(\",\")) {");
+        seekKeys.addBodyLine("seekKey = seekKey.trim().replaceAll(\"\\\\s+\", \" \");");
+        seekKeys.addBodyLine("if (!seekKey.isEmpty()) {");
+        seekKeys.addBodyLine("seekKeys.add(seekKey);");
+        seekKeys.addBodyLine("}");
+        seekKeys.addBodyLine("}");
+        seekKeys.addBodyLine("}");
+        for (IntrospectedColumn column : table.getPrimaryKeyColumns()) {
+            String columnName = column.getActualColumnName();
+            seekKeys.addBodyLine("if (seekKeys.stream().noneMatch(key -> seekColumn(key).equalsIgnoreCase(\""
+                    + columnName + "\"))) {");
+            seekKeys.addBodyLine("seekKeys.add(\"" + columnName + " ASC\");");
+            seekKeys.addBodyLine("}");
+        }
+        seekKeys.addBodyLine("return seekKeys;");
+        topLevelClass.addMethod(seekKeys);
+
+        Method seekColumn = new Method("seekColumn");
+        seekColumn.setVisibility(JavaVisibility.PRIVATE);
+        seekColumn.setStatic(true);
+        seekColumn.setReturnType(FullyQualifiedJavaType.getStringInstance());
+        seekColumn.addParameter(new Parameter(FullyQualifiedJavaType.getStringInstance(), "seekKey"));
+        seekColumn.addBodyLine("int idx = seekKey.lastIndexOf(' ');");
+        seekColumn.addBodyLine("return idx == -1 ? seekKey : seekKey.substring(0, idx);");
+        topLevelClass.addMethod(seekColumn);
+
+        Method seekValue = new Method("seekValue");
+        seekValue.setVisibility(JavaVisibility.PRIVATE);
+        seekValue.setReturnType(FullyQualifiedJavaType.getObjectInstance());
+        seekValue.addParameter(new Parameter(FullyQualifiedJavaType.getStringInstance(), "column"));
+        seekValue.addBodyLine("Object value;");
+        seekValue.addBodyLine("switch (column.toUpperCase(Locale.ENGLISH)) {");
+        Set<String> seekColumns = new HashSet<>();
+        for (IntrospectedColumn column : table.getNonBLOBColumns()) {
+            String columnName = column.getActualColumnName().toUpperCase(Locale.ENGLISH);
+            if (!seekColumns.add(columnName)) {
+                continue;
+            }
+            String getter = JavaBeansUtil.getGetterMethodName(
+                    column.getJavaProperty(), column.getFullyQualifiedJavaType());
+            seekValue.addBodyLine("case \"" + columnName + "\":");
+            seekValue.addBodyLine("value = afterRow." + getter + "();");
+            seekValue.addBodyLine("break;");
+        }
+        seekValue.addBodyLine("default:");
+        seekValue.addBodyLine("throw new IllegalStateException(\"The order by column '\" + column"
+                + " + \"' can not be used for seek pagination.\");");
+        seekValue.addBodyLine("}");
+        seekValue.addBodyLine("if (value == null) {");
+        seekValue.addBodyLine("throw new IllegalStateException(\"The seek column '\" + column"
+                + " + \"' of the last row is null.\");");
+        seekValue.addBodyLine("}");
+        seekValue.addBodyLine("return value;");
+        topLevelClass.addMethod(seekValue);
+
+        Method getSeekOrderByClause = new Method("getSeekOrderByClause");
+        getSeekOrderByClause.setVisibility(JavaVisibility.PUBLIC);
+        getSeekOrderByClause.setReturnType(FullyQualifiedJavaType.getStringInstance());
+        getSeekOrderByClause.addBodyLine("return String.join(\", \", seekKeys());");
+        topLevelClass.addMethod(getSeekOrderByClause);
+
+        // (k1 > ?) or (k1 = ? and k2 > ?) or ...
+        Method getSeekCriteria = new Method("getSeekCriteria");
+        getSeekCriteria.setVisibility(JavaVisibility.PUBLIC);
+        getSeekCriteria.setReturnType(new FullyQualifiedJavaType("java.util.List<java.util.List<Criterion>>"));
+        getSeekCriteria.addBodyLine("List<List<Criterion>> seekCriteria = new ArrayList<>();");
+        getSeekCriteria.addBodyLine("if (afterRow == null) {");
+        getSeekCriteria.addBodyLine("return seekCriteria;");
+        getSeekCriteria.addBodyLine("}");
+        getSeekCriteria.addBodyLine("List<String> seekKeys = seekKeys();");
+        getSeekCriteria.addBodyLine("for (int i = 0; i < seekKeys.size(); i++) {");
+        getSeekCriteria.addBodyLine("List<Criterion> criteria = new ArrayList<>(i + 1);");
+        getSeekCriteria.addBodyLine("for (int j = 0; j < i; j++) {");
+        getSeekCriteria.addBodyLine("String column = seekColumn(seekKeys.get(j));");
+        getSeekCriteria.addBodyLine("criteria.add(new Criterion(column + \" =\", seekValue(column)));");
+        getSeekCriteria.addBodyLine("}");
+        getSeekCriteria.addBodyLine("String seekKey = seekKeys.get(i);");
+        getSeekCriteria.addBodyLine("String column = seekColumn(seekKey);");
+        getSeekCriteria.addBodyLine("boolean desc = seekKey.length() > column.length()");
+        getSeekCriteria.addBodyLine("        && seekKey.substring(column.length() + 1).equalsIgnoreCase(\"DESC\");");
+        getSeekCriteria.addBodyLine("criteria.add(new Criterion(column + (desc ? \" <\" : \" >\"), seekValue(column)));");
+        getSeekCriteria.addBodyLine("seekCriteria.add(criteria);");
+        getSeekCriteria.addBodyLine("}");
+        getSeekCriteria.addBodyLine("return seekCriteria;");
+        topLevelClass.addMethod(getSeekCriteria);
+    }
+
+    /**
+     * <pre>
+     *     example.select().idCol().emailCol().example();
+     *     // select ID, EMAIL from user ...
+     * </pre>
+     */
+    private void addSelectInExample(TopLevelClass topLevelClass, IntrospectedTable table) {
+        FullyQualifiedJavaType columnsType = new FullyQualifiedJavaType("java.util.Set<String>");
+        topLevelClass.addImportedType(new FullyQualifiedJavaType("java.util.Set"));
+        topLevelClass.addImportedType(new FullyQualifiedJavaType("java.util.LinkedHashSet"));
+        Field selectColumnsField = new Field("selectColumns", columnsType);
+        selectColumnsField.setInitializationString("new LinkedHashSet<>()");
+        selectColumnsField.setVisibility(JavaVisibility.PRIVATE);
+        selectColumnsField.setFinal(true);
+        topLevelClass.addField(selectColumnsField);
+
+        Method select = new Method("select");
+        select.setVisibility(JavaVisibility.PUBLIC);
+        select.setReturnType(new FullyQualifiedJavaType("SelectCriteria"));
+        select.addBodyLine("return new SelectCriteria(this);");
+        topLevelClass.addMethod(select);
+
+        Method getSelectClause = new Method("getSelectClause");
+        getSelectClause.setVisibility(JavaVisibility.PUBLIC);
+        getSelectClause.setReturnType(FullyQualifiedJavaType.getStringInstance());
+        getSelectClause.addBodyLine("if (selectColumns.isEmpty()) {");
+        getSelectClause.addBodyLine("return null;");
+        getSelectClause.addBodyLine("}");
+        getSelectClause.addBodyLine("return String.join(\", \", selectColumns);");
+        topLevelClass.addMethod(getSelectClause);
+
+        topLevelClass.getMethods()
+                .stream()
+                .filter(method -> method.getName().equals("clear"))
+                .findFirst()
+                .ifPresent(method -> method.addBodyLine("selectColumns.clear();"));
+
+        TopLevelClass selectCriteria = new TopLevelClass("SelectCriteria");
+        selectCriteria.setVisibility(JavaVisibility.PUBLIC);
+        selectCriteria.setStatic(true);
+
+        Field exampleField = new Field("example", topLevelClass.getType());
+        exampleField.setVisibility(JavaVisibility.PRIVATE);
+        exampleField.setFinal(true);
+        selectCriteria.addField(exampleField);
+
+        Method constructor = new Method("SelectCriteria");
+        constructor.setVisibility(JavaVisibility.PROTECTED);
+        constructor.setConstructor(true);
+        constructor.addBodyLine("this.example = example;");
+        constructor.addParameter(new Parameter(topLevelClass.getType(), "example"));
+        selectCriteria.addMethod(constructor);
+
+        Method exampleMethod = new Method("example");
+        exampleMethod.setVisibility(JavaVisibility.PUBLIC);
+        exampleMethod.setReturnType(topLevelClass.getType());
+        exampleMethod.addBodyLine("return this.example;");
+        selectCriteria.addMethod(exampleMethod);
+
+        table.getAllColumns().forEach(column -> {
+            Method method = new Method(column.getJavaProperty() + "Col");
+            method.setVisibility(JavaVisibility.PUBLIC);
+            method.setReturnType(new FullyQualifiedJavaType("SelectCriteria"));
+            String selectListPhrase = MyBatis3FormattingUtilities.getSelectListPhrase(column).replace("\"", "\\\"");
+            method.addBodyLine("this.example.selectColumns.add(\"" + selectListPhrase + "\");");
+            method.addBodyLine("return this;");
+            selectCriteria.addMethod(method);
+        });
+
+        topLevelClass.addInnerClass(selectCriteria);
+    }
+
+    /**
+     * the fingerprint of an Example is the structure of the query it describes: distinct, the ored criteria
+     * with their conditions and values, order by, limit, offset, seek row and selected columns.
+     * the Criteria and the Criterion are compared the same way, the cached order by clause is not.
+     */
+    private void addEqualsAndHashCodeInExample(TopLevelClass topLevelClass) {
+        addEqualsAndHashCode(topLevelClass, topLevelClass, "cachedOrderByClause", "reusableCriteria");
+        for (InnerClass inner : topLevelClass.getInnerClasses()) {
+            String name = inner.getType().getShortName();
+            if (name.equals("GeneratedCriteria") || name.equals("Criterion")) {
+                addEqualsAndHashCode(topLevelClass, inner);
+            } else if (name.equals("OrderByCriteria")) {
+                // a view of the order by list of its Example
+                Method equals = equalsMethod(inner);
+                equals.addBodyLine("return this.example.orderBy.equals(((OrderByCriteria) that).example.orderBy);");
+                inner.addMethod(equals);
+
+                Method hashCode = hashCodeMethod();
+                hashCode.addBodyLine("return this.example.orderBy.hashCode();");
+                inner.addMethod(hashCode);
+            }
+        }
+    }
+
+    private void addEqualsAndHashCode(TopLevelClass topLevelClass, InnerClass clazz, String... excludedFields) {
+        List<Field> fields = new ArrayList<>();
+        for (Field field : clazz.getFields()) {
+            if (!field.isStatic() && !Arrays.asList(excludedFields).contains(field.getName())) {
+                fields.add(field);
+            }
+        }
+        String type = clazz.getType().getShortName();
+
+        Method equals = equalsMethod(clazz);
+        if (fields.isEmpty()) {
+            equals.addBodyLine("return true;");
+        } else {
+            equals.addBodyLine(type + " other = (" + type + ") that;");
+            for (int i = 0; i < fields.size(); i++) {
+                Field field = fields.get(i);
+                String name = field.getName();
+                String line = field.getType().isPrimitive()
+                        ? name + " == other." + name
+                        : "Objects.equals(" + name + ", other." + name + ")";
+                equals.addBodyLine((i == 0 ? "return " : "        && ") + line + (i + 1 == fields.size() ? ";" : ""));
+            }
+        }
+        clazz.addMethod(equals);
+
+        // no varargs array and no boxing as Objects.hash() does
+        Method hashCode = hashCodeMethod();
+        hashCode.addBodyLine("int result = 1;");
+        for (Field field : fields) {
+            String name = field.getName();
+            String hash = field.getType().isPrimitive()
+                    ? field.getType().getPrimitiveTypeWrapper().getShortName() + ".hashCode(" + name + ")"
+                    : "Objects.hashCode(" + name + ")";
+            hashCode.addBodyLine("result = 31 * result + " + hash + ";");
+        }
+        hashCode.addBodyLine("return result;");
+        clazz.addMethod(hashCode);
+
+        topLevelClass.addImportedType(new FullyQualifiedJavaType("java.util.Objects"));
+    }
+
+    private Method equalsMethod(InnerClass clazz) {
+        Method equals = new Method("equals");
+        equals.addAnnotation("@Override");
+        equals.setVisibility(JavaVisibility.PUBLIC);
+        equals.setReturnType(FullyQualifiedJavaType.getBooleanPrimitiveInstance());
+        equals.addParameter(new Parameter(FullyQualifiedJavaType.getObjectInstance(), "that"));
+        equals.addBodyLine("if (this == that) {");
+        equals.addBodyLine("return true;");
+        equals.addBodyLine("}");
+        equals.addBodyLine("if (that == null || getClass() != that.getClass()) {");
+        equals.addBodyLine("return false;");
+        equals.addBodyLine("}");
+        return equals;
+    }
+
+    private Method hashCodeMethod() {
+        Method hashCode = new Method("hashCode");
+        hashCode.addAnnotation("@Override");
+        hashCode.setVisibility(JavaVisibility.PUBLIC);
+        hashCode.setReturnType(FullyQualifiedJavaType.getIntInstance());
+        return hashCode;
+    }
+
+    /**
+     * <pre>
+     *     private static final ThreadLocal&lt;UserExample&gt; EXAMPLE = ThreadLocal.withInitial(UserExample::new);
+     *
+     *     UserExample example = EXAMPLE.get().reset();
+     * </pre>
+     * same as <b>clear()</b>, but the first Criteria is kept and handed out again by the next <b>createCriteria()</b>
+     * or <b>or()</b>, the Criteria obtained before the reset must not be used any more. the criteria of the columns
+     * with a typeHandler are kept in their own lists, which are cleared too.
+     */
+    private void addResetInExample(TopLevelClass topLevelClass, IntrospectedTable introspectedTable) {
+        Field reusableCriteria = new Field("reusableCriteria", new FullyQualifiedJavaType("Criteria"));
+        reusableCriteria.setVisibility(JavaVisibility.PRIVATE);
+        topLevelClass.addField(reusableCriteria);
+
+        Method reset = new Method("reset");
+        reset.setVisibility(JavaVisibility.PUBLIC);
+        reset.setReturnType(topLevelClass.getType());
+        reset.addBodyLine("if (!oredCriteria.isEmpty()) {");
+        reset.addBodyLine("reusableCriteria = oredCriteria.get(0);");
+        reset.addBodyLine("reusableCriteria.criteria.clear();");
+        boolean hasTypeHandler = false;
+        for (IntrospectedColumn introspectedColumn : introspectedTable.getNonBLOBColumns()) {
+            if (stringHasValue(introspectedColumn.getTypeHandler())) {
+                reset.addBodyLine("reusableCriteria." + introspectedColumn.getJavaProperty() + "Criteria.clear();");
+                hasTypeHandler = true;
+            }
+        }
+        if (hasTypeHandler) {
+            // getAllCriteria() caches the criteria of every list
+            reset.addBodyLine("reusableCriteria.allCriteria = null;");
+        }
+        reset.addBodyLine("}");
+        reset.addBodyLine("clear();");
+        reset.addBodyLine("return this;");
+        topLevelClass.addMethod(reset);
+
+        topLevelClass.getMethods()
+                .stream()
+                .filter(method -> method.getName().equals("createCriteriaInternal"))
+                .findFirst()
+                .ifPresent(method -> {
+                    method.addBodyLine(0, "if (reusableCriteria != null) {");
+                    method.addBodyLine(1, "Criteria reused = reusableCriteria;");
+                    method.addBodyLine(2, "reusableCriteria = null;");
+                    method.addBodyLine(3, "return reused;");
+                    method.addBodyLine(4, "}");
+                });
+    }
 }
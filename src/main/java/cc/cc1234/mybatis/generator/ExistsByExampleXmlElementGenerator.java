@@ -0,0 +1,48 @@
+package cc.cc1234.mybatis.generator;
+
+import org.mybatis.generator.api.dom.xml.Attribute;
+import org.mybatis.generator.api.dom.xml.TextElement;
+import org.mybatis.generator.api.dom.xml.XmlElement;
+import org.mybatis.generator.codegen.mybatis3.xmlmapper.elements.AbstractXmlElementGenerator;
+
+/**
+ * stops at the first matched row instead of counting all of them
+ * <pre>
+ *     select count(*) from (select 1 as found from ${table_name} where ... limit 1) t
+ * </pre>
+ * the outer count makes the result 0 or 1, which is never null and maps to boolean.
+ */
+public class ExistsByExampleXmlElementGenerator extends AbstractXmlElementGenerator {
+
+    public static final String STATEMENT_ID = "existsByExample";
+
+    private final Dialect dialect;
+
+    public ExistsByExampleXmlElementGenerator(Dialect dialect) {
+        this.dialect = dialect;
+    }
+
+    @Override
+    public void addElements(XmlElement parentElement) {
+        // <select id="?" parameterType="?" resultType="java.lang.Boolean">
+        XmlElement answer = new XmlElement("select");
+        answer.addAttribute(new Attribute("id", STATEMENT_ID));
+        answer.addAttribute(new Attribute("parameterType", introspectedTable.getExampleType()));
+        answer.addAttribute(new Attribute("resultType", "java.lang.Boolean"));
+        context.getCommentGenerator().addComment(answer);
+
+        // select 1 as found from ${table_name} where ... limit 1
+        XmlElement subQuery = new XmlElement("select");
+        subQuery.addElement(new TextElement("select"));
+        subQuery.addElement(new TextElement("1 as found"));
+        subQuery.addElement(new TextElement("from " + introspectedTable.getAliasedFullyQualifiedTableNameAtRuntime()));
+        subQuery.addElement(getExampleIncludeElement());
+        dialect.addRowLimit(subQuery, 1);
+
+        answer.addElement(new TextElement("select count(*) from ("));
+        subQuery.getElements().forEach(answer::addElement);
+        answer.addElement(new TextElement(") t"));
+
+        parentElement.addElement(answer);
+    }
+}
@@ -0,0 +1,356 @@
+package cc.cc1234.mybatis.generator;
+
+import org.mybatis.generator.api.IntrospectedColumn;
+import org.mybatis.generator.api.IntrospectedTable;
+import org.mybatis.generator.config.Context;
+import org.mybatis.generator.config.JavaModelGeneratorConfiguration;
+import org.mybatis.generator.config.PluginConfiguration;
+import org.mybatis.generator.config.PropertyHolder;
+import org.mybatis.generator.config.TableConfiguration;
+import org.mybatis.generator.config.TypedPropertyHolder;
+import org.mybatis.generator.internal.ObjectFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.CodeSource;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * skips the tables which are not changed since the last generation.
+ * <p>
+ * the fingerprint of a table is the sha-256 of its columns (types, nullability, keys, defaults, remarks), its table
+ * configuration and the configuration of the context, including the properties of every plugin and the code of the
+ * plugins and of the generator. it is kept in ${directory}/${context_id}/${table}.fingerprint, along with the files
+ * generated for the table, and the table is skipped if the fingerprint is the same and every file still exists.
+ * delete the directory to generate every table again.
+ * </p>
+ * <p>
+ * the generator has no hook after the files are written, so the fingerprints are saved when every table is generated,
+ * and a file which failed to be written is found missing by the next generation.
+ * </p>
+ * <p>
+ * the plugins validate the configuration before any table is initialized, so the skipped tables are removed from
+ * the context there, and no plugin hook runs and no file is generated for them.
+ * </p>
+ */
+public class IncrementalGeneration {
+
+    /**
+     * changed when the format of the fingerprint files changes
+     */
+    private static final String FINGERPRINT_VERSION = "2";
+
+    private final File directory;
+
+    private final Context context;
+
+    /**
+     * the fingerprints of the generated tables, saved after the generation
+     */
+    private final Map<File, String> fingerprints = new LinkedHashMap<>();
+
+    /**
+     * the files generated for the tables by the fingerprint files, the tables may be generated in parallel
+     */
+    private final Map<File, Set<String>> generatedFiles = new ConcurrentHashMap<>();
+
+    public IncrementalGeneration(String directory, Context context) {
+        this.directory = new File(directory, context.getId());
+        this.context = context;
+    }
+
+    /**
+     * @return the number of the skipped tables
+     */
+    public int skipUnchangedTables(List<String> warnings) {
+        String contextFingerprint = contextFingerprint(warnings);
+        int skipped = 0;
+        Iterator<IntrospectedTable> iterator = context.getIntrospectedTables().iterator();
+        while (iterator.hasNext()) {
+            IntrospectedTable introspectedTable = iterator.next();
+            File file = fingerprintFile(introspectedTable);
+            String fingerprint = fingerprint(contextFingerprint, introspectedTable);
+            List<String> lines = read(file);
+            if (!lines.isEmpty() && fingerprint.equals(lines.get(0)) && filesExist(lines.subList(1, lines.size()))) {
+                iterator.remove();
+                skipped++;
+            } else {
+                fingerprints.put(file, fingerprint);
+            }
+        }
+        return skipped;
+    }
+
+    /**
+     * adds a file generated for the table, the table is generated again if the file is missing
+     */
+    public void addGeneratedFile(IntrospectedTable introspectedTable,
+                                 String targetProject,
+                                 String targetPackage,
+                                 String fileName) {
+        if (targetProject == null) {
+            return;
+        }
+        File file = new File(targetProject, targetPackage == null ? "" : targetPackage.replace('.', File.separatorChar));
+        generatedFiles.computeIfAbsent(fingerprintFile(introspectedTable), key -> Collections.synchronizedSet(
+                new LinkedHashSet<>())).add(new File(file, fileName).getPath());
+    }
+
+    /**
+     * the fingerprint of a table without any generated file is not saved
+     */
+    public void saveFingerprints(List<String> warnings) {
+        for (Map.Entry<File, String> entry : fingerprints.entrySet()) {
+            File file = entry.getKey();
+            Set<String> files = generatedFiles.get(file);
+            if (files == null) {
+                continue;
+            }
+            List<String> lines = new ArrayList<>();
+            lines.add(entry.getValue());
+            synchronized (files) {
+                lines.addAll(new TreeSet<>(files));
+            }
+            try {
+                Files.createDirectories(file.getParentFile().toPath());
+                Files.write(file.toPath(), lines, StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                warnings.add("The fingerprint " + file + " is not saved, the table will be generated again: "
+                        + e.getMessage());
+            }
+        }
+        fingerprints.clear();
+        generatedFiles.clear();
+    }
+
+    static String fingerprint(String contextFingerprint, IntrospectedTable introspectedTable) {
+        StringBuilder sb = new StringBuilder(contextFingerprint);
+        sb.append("\ntable=").append(introspectedTable.getFullyQualifiedTable())
+                .append(',').append(introspectedTable.getFullyQualifiedTable().getDomainObjectName());
+        TableConfiguration tableConfiguration = introspectedTable.getTableConfiguration();
+        if (tableConfiguration != null) {
+            sb.append("\nconfiguration=").append(tableConfiguration.getModelType())
+                    .append(',').append(tableConfiguration.getMapperName())
+                    .append(',').append(tableConfiguration.getSqlProviderName())
+                    .append(',').append(tableConfiguration.getAlias())
+                    .append(',').append(tableConfiguration.isInsertStatementEnabled())
+                    .append(',').append(tableConfiguration.isSelectByPrimaryKeyStatementEnabled())
+                    .append(',').append(tableConfiguration.isSelectByExampleStatementEnabled())
+                    .append(',').append(tableConfiguration.isUpdateByPrimaryKeyStatementEnabled())
+                    .append(',').append(tableConfiguration.isDeleteByPrimaryKeyStatementEnabled())
+                    .append(',').append(tableConfiguration.isDeleteByExampleStatementEnabled())
+                    .append(',').append(tableConfiguration.isCountByExampleStatementEnabled())
+                    .append(',').append(tableConfiguration.isUpdateByExampleStatementEnabled())
+                    .append(',').append(tableConfiguration.getSelectByExampleQueryId())
+                    .append(',').append(tableConfiguration.getSelectByPrimaryKeyQueryId())
+                    .append(',').append(tableConfiguration.isDelimitIdentifiers())
+                    .append(',').append(tableConfiguration.isAllColumnDelimitingEnabled());
+            tableConfiguration.getGeneratedKey().ifPresent(generatedKey ->
+                    sb.append("\ngeneratedKey=").append(generatedKey.getColumn())
+                            .append(',').append(generatedKey.getRuntimeSqlStatement())
+                            .append(',').append(generatedKey.isIdentity())
+                            .append(',').append(generatedKey.getMyBatis3Order()));
+            appendProperties(sb, "tableProperties", tableConfiguration);
+        }
+        appendColumns(sb, "primaryKey", introspectedTable.getPrimaryKeyColumns());
+        appendColumns(sb, "base", introspectedTable.getBaseColumns());
+        appendColumns(sb, "blob", introspectedTable.getBLOBColumns());
+        return sha256(sb.toString());
+    }
+
+    private String contextFingerprint(List<String> warnings) {
+        StringBuilder sb = new StringBuilder("version=").append(FINGERPRINT_VERSION);
+        // the version of a snapshot is not changed by its code
+        Set<CodeSource> codeSources = new LinkedHashSet<>();
+        codeSources.add(IncrementalGeneration.class.getProtectionDomain().getCodeSource());
+        codeSources.add(Context.class.getProtectionDomain().getCodeSource());
+        sb.append("\ncontext=").append(context.getId())
+                .append(',').append(context.getTargetRuntime())
+                .append(',').append(context.getDefaultModelType())
+                .append(',').append(context.getIntrospectedColumnImpl());
+        appendProperties(sb, "contextProperties", context);
+        JavaModelGeneratorConfiguration modelConfiguration = context.getJavaModelGeneratorConfiguration();
+        if (modelConfiguration != null) {
+            sb.append("\nmodel=").append(modelConfiguration.getTargetProject())
+                    .append(',').append(modelConfiguration.getTargetPackage());
+            appendProperties(sb, "modelProperties", modelConfiguration);
+        }
+        if (context.getSqlMapGeneratorConfiguration() != null) {
+            sb.append("\nsqlMap=").append(context.getSqlMapGeneratorConfiguration().getTargetProject())
+                    .append(',').append(context.getSqlMapGeneratorConfiguration().getTargetPackage());
+            appendProperties(sb, "sqlMapProperties", context.getSqlMapGeneratorConfiguration());
+        }
+        if (context.getJavaClientGeneratorConfiguration() != null) {
+            appendTyped(sb, "client", context.getJavaClientGeneratorConfiguration());
+            sb.append(',').append(context.getJavaClientGeneratorConfiguration().getTargetProject())
+                    .append(',').append(context.getJavaClientGeneratorConfiguration().getTargetPackage());
+        }
+        if (context.getJavaTypeResolverConfiguration() != null) {
+            appendTyped(sb, "javaTypeResolver", context.getJavaTypeResolverConfiguration());
+        }
+        if (context.getCommentGeneratorConfiguration() != null) {
+            appendTyped(sb, "commentGenerator", context.getCommentGeneratorConfiguration());
+        }
+        for (PluginConfiguration pluginConfiguration : pluginConfigurations(warnings)) {
+            appendTyped(sb, "plugin", pluginConfiguration);
+            try {
+                codeSources.add(ObjectFactory.externalClassForName(pluginConfiguration.getConfigurationType())
+                        .getProtectionDomain().getCodeSource());
+            } catch (ClassNotFoundException | RuntimeException e) {
+                // not a plugin then, the generator fails on it
+            }
+        }
+        for (CodeSource codeSource : codeSources) {
+            sb.append("\ncode=").append(codeFingerprint(codeSource));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * the sha-256 of a jar, or of the class files in a directory
+     */
+    static String codeFingerprint(CodeSource codeSource) {
+        if (codeSource == null || codeSource.getLocation() == null) {
+            return "unknown";
+        }
+        try {
+            Path location = Paths.get(codeSource.getLocation().toURI());
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            List<Path> files;
+            if (Files.isDirectory(location)) {
+                try (Stream<Path> paths = Files.walk(location)) {
+                    files = paths.filter(path -> path.toString().endsWith(".class")).sorted()
+                            .collect(Collectors.toList());
+                }
+            } else {
+                files = Collections.singletonList(location);
+            }
+            for (Path file : files) {
+                digest.update(location.relativize(file).toString().getBytes(StandardCharsets.UTF_8));
+                try (InputStream in = new DigestInputStream(Files.newInputStream(file), digest)) {
+                    byte[] buffer = new byte[8192];
+                    while (in.read(buffer) != -1) {
+                        // digested by the stream
+                    }
+                }
+            }
+            return hex(digest.digest());
+        } catch (Exception e) {
+            return codeSource.getLocation().toString();
+        }
+    }
+
+    private List<PluginConfiguration> pluginConfigurations(List<String> warnings) {
+        try {
+            return PluginConfigurations.of(context);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            warnings.add("The plugin configurations are not part of the fingerprints, delete the fingerprints "
+                    + "after changing the properties of a plugin: " + e);
+            return new ArrayList<>();
+        }
+    }
+
+    private File fingerprintFile(IntrospectedTable introspectedTable) {
+        return new File(directory, introspectedTable.getFullyQualifiedTable() + ".fingerprint");
+    }
+
+    /**
+     * the files saved by an older version are unknown
+     */
+    private static boolean filesExist(List<String> files) {
+        return !files.isEmpty() && files.stream().allMatch(file -> new File(file).isFile());
+    }
+
+    /**
+     * @return the fingerprint and the generated files, empty if the file is missing
+     */
+    private static List<String> read(File file) {
+        if (!file.isFile()) {
+            return Collections.emptyList();
+        }
+        try {
+            return Files.readAllLines(file.toPath(), StandardCharsets.UTF_8).stream()
+                    .map(String::trim)
+                    .filter(line -> !line.isEmpty())
+                    .collect(Collectors.toList());
+        } catch (IOException e) {
+            return Collections.emptyList();
+        }
+    }
+
+    private static void appendColumns(StringBuilder sb, String name, List<IntrospectedColumn> columns) {
+        for (IntrospectedColumn column : columns) {
+            sb.append('\n').append(name).append('=').append(column.getActualColumnName())
+                    .append(',').append(column.isColumnNameDelimited())
+                    .append(',').append(column.getJdbcType())
+                    .append(',').append(column.getJdbcTypeName())
+                    .append(',').append(column.getActualTypeName())
+                    .append(',').append(column.getFullyQualifiedJavaType().getFullyQualifiedName())
+                    .append(',').append(column.getJavaProperty())
+                    .append(',').append(column.getTypeHandler())
+                    .append(',').append(column.isNullable())
+                    .append(',').append(column.getLength())
+                    .append(',').append(column.getScale())
+                    .append(',').append(column.getDefaultValue())
+                    .append(',').append(column.isIdentity())
+                    .append(',').append(column.isSequenceColumn())
+                    .append(',').append(column.isAutoIncrement())
+                    .append(',').append(column.isGeneratedColumn())
+                    .append(',').append(column.isGeneratedAlways())
+                    .append(',').append(column.getRemarks());
+            appendProperties(sb, "columnProperties", column.getProperties());
+        }
+    }
+
+    private static void appendTyped(StringBuilder sb, String name, TypedPropertyHolder holder) {
+        sb.append('\n').append(name).append('=').append(holder.getConfigurationType());
+        appendProperties(sb, name + "Properties", holder);
+    }
+
+    private static void appendProperties(StringBuilder sb, String name, PropertyHolder holder) {
+        appendProperties(sb, name, holder.getProperties());
+    }
+
+    private static void appendProperties(StringBuilder sb, String name, Properties properties) {
+        // the properties are not ordered
+        for (String key : new TreeSet<>(properties.stringPropertyNames())) {
+            sb.append('\n').append(name).append('.').append(key).append('=').append(properties.getProperty(key));
+        }
+    }
+
+    private static String sha256(String value) {
+        try {
+            return hex(MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String hex(byte[] digest) {
+        StringBuilder sb = new StringBuilder(digest.length * 2);
+        for (byte b : digest) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,86 @@
+package cc.cc1234.mybatis.generator;
+
+import org.mybatis.generator.api.IntrospectedColumn;
+import org.mybatis.generator.api.dom.xml.Attribute;
+import org.mybatis.generator.api.dom.xml.TextElement;
+import org.mybatis.generator.api.dom.xml.XmlElement;
+import org.mybatis.generator.codegen.mybatis3.ListUtilities;
+import org.mybatis.generator.codegen.mybatis3.xmlmapper.elements.AbstractXmlElementGenerator;
+
+import java.util.List;
+
+import static org.mybatis.generator.codegen.mybatis3.MyBatis3FormattingUtilities.getEscapedColumnName;
+import static org.mybatis.generator.codegen.mybatis3.MyBatis3FormattingUtilities.getParameterClause;
+
+/**
+ * multi-row insert, the rows are split into chunks by the default <b>insertBatch(List)</b> method of BaseMapper
+ */
+public class InsertBatchXmlElementGenerator extends AbstractXmlElementGenerator {
+
+    public static final String STATEMENT_ID = "insertBatchChunk";
+
+    @Override
+    public void addElements(XmlElement parentElement) {
+        // <insert id="?" parameterType="map">
+        XmlElement answer = new XmlElement("insert");
+        answer.addAttribute(new Attribute("id", STATEMENT_ID));
+        answer.addAttribute(new Attribute("parameterType", "map"));
+        introspectedTable.getGeneratedKey().ifPresent(gk ->
+                introspectedTable.getColumn(gk.getColumn()).ifPresent(column -> {
+                    // 与 insert 一致, 只有 JDBC 标准的自增主键才能批量回填
+                    if (gk.isJdbcStandard()) {
+                        answer.addAttribute(new Attribute("useGeneratedKeys", "true"));
+                        answer.addAttribute(new Attribute("keyProperty", "rows." + column.getJavaProperty()));
+                        answer.addAttribute(new Attribute("keyColumn", column.getActualColumnName()));
+                    }
+                }));
+        context.getCommentGenerator().addComment(answer);
+
+        List<IntrospectedColumn> columns =
+                ListUtilities.removeIdentityAndGeneratedAlwaysColumns(introspectedTable.getAllColumns());
+
+        // insert into ${table_name} (${columns})
+        StringBuilder sb = new StringBuilder();
+        sb.append("insert into ");
+        sb.append(introspectedTable.getFullyQualifiedTableNameAtRuntime());
+        sb.append(" (");
+        for (int i = 0; i < columns.size(); i++) {
+            sb.append(getEscapedColumnName(columns.get(i)));
+            if (i + 1 < columns.size()) {
+                sb.append(", ");
+            }
+            if (sb.length() > 80 && i + 1 < columns.size()) {
+                answer.addElement(new TextElement(sb.toString()));
+                sb.setLength(0);
+                sb.append("  ");
+            }
+        }
+        sb.append(')');
+        answer.addElement(new TextElement(sb.toString()));
+        answer.addElement(new TextElement("values"));
+
+        // (#{row.x}, #{row.y}), (...)
+        XmlElement foreach = new XmlElement("foreach");
+        foreach.addAttribute(new Attribute("collection", "rows"));
+        foreach.addAttribute(new Attribute("item", "row"));
+        foreach.addAttribute(new Attribute("separator", ","));
+        sb.setLength(0);
+        sb.append('(');
+        for (int i = 0; i < columns.size(); i++) {
+            sb.append(getParameterClause(columns.get(i), "row."));
+            if (i + 1 < columns.size()) {
+                sb.append(", ");
+            }
+            if (sb.length() > 80 && i + 1 < columns.size()) {
+                foreach.addElement(new TextElement(sb.toString()));
+                sb.setLength(0);
+                sb.append("  ");
+            }
+        }
+        sb.append(')');
+        foreach.addElement(new TextElement(sb.toString()));
+        answer.addElement(foreach);
+
+        parentElement.addElement(answer);
+    }
+}
@@ -13,11 +13,21 @@ import java.util.List;
  */
 public class LombokPlugin extends PluginAdapter {
 
+    /**
+     * the record of the table is annotated by lombok
+     */
+    static final String LOMBOK_ATTRIBUTE = LombokPlugin.class.getName() + ".lombok";
+
     @Override
     public boolean validate(List<String> warnings) {
         return true;
     }
 
+    @Override
+    public void initialized(IntrospectedTable introspectedTable) {
+        introspectedTable.setAttribute(LOMBOK_ATTRIBUTE, Boolean.TRUE);
+    }
+
     @Override
     public boolean modelBaseRecordClassGenerated(TopLevelClass topLevelClass, IntrospectedTable introspectedTable) {
         // @Data
@@ -53,6 +63,8 @@ public class LombokPlugin extends PluginAdapter {
                                               IntrospectedColumn introspectedColumn,
                                               IntrospectedTable introspectedTable,
                                               ModelClassType modelClassType) {
-        return false;
+        // the dirty tracking setters of MapperPlusPlugin, lombok skips the existing setters
+        return introspectedTable != null
+                && introspectedTable.getAttribute(MapperPlusPlugin.DIRTY_TRACKING_ATTRIBUTE) != null;
     }
 }
\ No newline at end of file
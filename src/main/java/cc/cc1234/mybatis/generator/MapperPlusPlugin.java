@@ -1,17 +1,33 @@
 package cc.cc1234.mybatis.generator;
 
 import org.mybatis.generator.api.GeneratedJavaFile;
+import org.mybatis.generator.api.GeneratedXmlFile;
+import org.mybatis.generator.api.IntrospectedColumn;
 import org.mybatis.generator.api.IntrospectedTable;
 import org.mybatis.generator.api.PluginAdapter;
 import org.mybatis.generator.api.dom.DefaultJavaFormatter;
 import org.mybatis.generator.api.dom.java.*;
+import org.mybatis.generator.api.dom.xml.Attribute;
 import org.mybatis.generator.api.dom.xml.Document;
+import org.mybatis.generator.api.dom.xml.VisitableElement;
 import org.mybatis.generator.api.dom.xml.XmlElement;
+import org.mybatis.generator.codegen.mybatis3.ListUtilities;
+import org.mybatis.generator.codegen.mybatis3.xmlmapper.elements.AbstractXmlElementGenerator;
+import org.mybatis.generator.internal.ObjectFactory;
+import org.mybatis.generator.internal.util.JavaBeansUtil;
+import org.mybatis.generator.plugins.SerializablePlugin;
 
 import java.io.File;
-import java.util.Collections;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class MapperPlusPlugin extends PluginAdapter {
 
@@ -31,16 +47,248 @@ public class MapperPlusPlugin extends PluginAdapter {
 
     private static final String SELECT_ONE_BY_EXAMPLE_PROP = "select-one-by-example.disabled";
 
+    private static final String INSERT_BATCH_PROP = "insert-batch.disabled";
+
+    private static final String INSERT_BATCH_MAX_ROWS_PROP = "insert-batch.max-rows";
+
+    private static final String UPDATE_BATCH_PROP = "update-batch.disabled";
+
+    private static final String UPDATE_BATCH_MAX_ROWS_PROP = "update-batch.max-rows";
+
+    private static final String SELECT_BY_PRIMARY_KEYS_PROP = "select-by-primary-keys.disabled";
+
+    private static final String DELETE_BY_PRIMARY_KEYS_PROP = "delete-by-primary-keys.disabled";
+
+    private static final String BY_PRIMARY_KEYS_MAX_IDS_PROP = "by-primary-keys.max-ids";
+
+    private static final String SELECT_CURSOR_BY_EXAMPLE_PROP = "select-cursor-by-example.disabled";
+
+    private static final String SELECT_CURSOR_FETCH_SIZE_PROP = "select-cursor-by-example.fetch-size";
+
+    private static final String SELECT_PAGE_AFTER_PROP = "select-page-after.disabled";
+
+    private static final String EXISTS_BY_EXAMPLE_PROP = "exists-by-example.disabled";
+
+    private static final String COUNT_BY_EXAMPLE_UP_TO_PROP = "count-by-example-up-to.disabled";
+
+    private static final String SQL_PROVIDER_PROP = "sql-provider.enabled";
+
+    private static final String UPSERT_PROP = "upsert.disabled";
+
+    private static final String UPSERT_CONFLICT_COLUMNS_PROP = "upsert.conflict-columns";
+
+    private static final String UPSERT_BATCH_PROP = "upsert-batch.disabled";
+
+    private static final String UPSERT_BATCH_MAX_ROWS_PROP = "upsert-batch.max-rows";
+
+    private static final String CACHE_TABLES_PROP = "cache.tables";
+
+    private static final String CACHE_EVICTION_PROP = "cache.eviction";
+
+    private static final String CACHE_SIZE_PROP = "cache.size";
+
+    private static final String CACHE_FLUSH_INTERVAL_PROP = "cache.flush-interval";
+
+    private static final String CACHE_READ_ONLY_PROP = "cache.read-only";
+
+    private static final String CACHING_MAPPER_TABLES_PROP = "caching-mapper.tables";
+
+    private static final String CACHING_MAPPER_MAX_SIZE_PROP = "caching-mapper.max-size";
+
+    private static final String CACHING_MAPPER_TTL_MILLIS_PROP = "caching-mapper.ttl-millis";
+
+    private static final String DIRTY_TRACKING_TABLES_PROP = "dirty-tracking.tables";
+
+    private static final String METRICS_INTERCEPTOR_PROP = "metrics-interceptor.enabled";
+
+    private static final String STATEMENT_TIMEOUT_PROP = "statement.timeout";
+
+    private static final String STATEMENT_FETCH_SIZE_PROP = "statement.fetch-size";
+
+    private static final String STATEMENT_TYPE_PROP = "statement.type";
+
+    private static final String INCREMENTAL_PROP = "incremental.enabled";
+
+    private static final String INCREMENTAL_FINGERPRINT_DIR_PROP = "incremental.fingerprint-dir";
+
+    /**
+     * the columns tracked by the record of the table, by the order of their bits. the list is set if the table is
+     * dirty tracked and filled when the record is generated
+     */
+    static final String DIRTY_TRACKING_ATTRIBUTE = MapperPlusPlugin.class.getName() + ".dirtyTracking";
+
+    /**
+     * set if the record of the table is Serializable when it is generated
+     */
+    private static final String SERIALIZABLE_ATTRIBUTE = MapperPlusPlugin.class.getName() + ".serializable";
+
+    private static final FullyQualifiedJavaType SERIALIZABLE_TYPE = new FullyQualifiedJavaType("java.io.Serializable");
+
+    private static final List<String> CACHE_EVICTIONS = Arrays.asList("LRU", "FIFO", "SOFT", "WEAK");
+
+    private static final List<String> STATEMENT_TYPES = Arrays.asList("STATEMENT", "PREPARED", "CALLABLE");
+
+    private static final int DEFAULT_BATCH_MAX_ROWS = 500;
+
+    private static final int DEFAULT_MAX_IDS = 1000;
+
+    private static final int DEFAULT_FETCH_SIZE = 1000;
+
+    private static final int DEFAULT_CACHE_SIZE = 1024;
+
+    private static final int DEFAULT_CACHING_MAPPER_MAX_SIZE = 10000;
+
+    private static final String DEFAULT_FINGERPRINT_DIR = ".mybatis-generator";
+
     private List<String> warnings;
 
+    private Dialect dialect;
+
+    /**
+     * null if the *ByExample statements are generated in the xml mapper
+     */
+    private SqlProviderGenerator sqlProviderGenerator;
+
+    /**
+     * the tables whose xml mapper has a second level cache
+     */
+    private NamePattern cacheTables;
+
+    /**
+     * the tables which get a CachingXxxMapper decorator, null if no decorator is generated
+     */
+    private NamePattern cachingMapperTables;
+
+    private CachingMapperGenerator cachingMapperGenerator;
+
+    /**
+     * built once for the context, the caching mappers of the tables implement its methods
+     */
+    private Interface baseMapperInterface;
+
+    /**
+     * the tables whose records track the fields changed by the setters
+     */
+    private NamePattern dirtyTrackingTables;
+
+    /**
+     * the context wide values of the int properties, validated once instead of for every table
+     */
+    private int insertBatchMaxRows;
+
+    private int updateBatchMaxRows;
+
+    private int upsertBatchMaxRows;
+
+    private int byPrimaryKeysMaxIds;
+
+    private int selectCursorFetchSize;
+
+    private int cacheSize;
+
+    /**
+     * -1 if the caches are not flushed by an interval
+     */
+    private int cacheFlushInterval;
+
+    /**
+     * the timeout, fetchSize and statementType of the statements in the xml mapper
+     */
+    private StatementRules timeoutRules;
+
+    private StatementRules fetchSizeRules;
+
+    private StatementRules statementTypeRules;
+
+    /**
+     * null if every table is generated
+     */
+    private IncrementalGeneration incrementalGeneration;
+
+    /**
+     * the models are made Serializable by the SerializablePlugin, which may run after this plugin
+     */
+    private boolean serializablePlugin;
+
+    /**
+     * the unchanged files are skipped only along with the OutputPlugin, which skips the ones generated by MBG
+     */
+    private boolean skipUnchangedFiles;
+
+    /**
+     * the generated java files which are the same as the ones on disk
+     */
+    private final AtomicInteger unchangedFiles = new AtomicInteger();
+
     @Override
     public boolean validate(List<String> warnings) {
-        this.warnings = warnings;
+        this.warnings = TableWarnings.of(warnings);
+        this.dialect = Dialect.of(properties, context, warnings);
+        this.cacheTables = NamePattern.compile(super.properties.getProperty(CACHE_TABLES_PROP));
+        this.cachingMapperTables = NamePattern.compile(super.properties.getProperty(CACHING_MAPPER_TABLES_PROP));
+        if (!cachingMapperTables.isEmpty()) {
+            this.cachingMapperGenerator = new CachingMapperGenerator(
+                    getPositiveInt(CACHING_MAPPER_MAX_SIZE_PROP, DEFAULT_CACHING_MAPPER_MAX_SIZE),
+                    getPositiveInt(CACHING_MAPPER_TTL_MILLIS_PROP, 0));
+        }
+        this.dirtyTrackingTables = NamePattern.compile(super.properties.getProperty(DIRTY_TRACKING_TABLES_PROP));
+        this.insertBatchMaxRows = getPositiveInt(INSERT_BATCH_MAX_ROWS_PROP, DEFAULT_BATCH_MAX_ROWS);
+        this.updateBatchMaxRows = getPositiveInt(UPDATE_BATCH_MAX_ROWS_PROP, DEFAULT_BATCH_MAX_ROWS);
+        this.upsertBatchMaxRows = getPositiveInt(UPSERT_BATCH_MAX_ROWS_PROP, DEFAULT_BATCH_MAX_ROWS);
+        this.byPrimaryKeysMaxIds = getPositiveInt(BY_PRIMARY_KEYS_MAX_IDS_PROP, DEFAULT_MAX_IDS);
+        this.selectCursorFetchSize = getPositiveInt(SELECT_CURSOR_FETCH_SIZE_PROP, DEFAULT_FETCH_SIZE);
+        this.cacheSize = getPositiveInt(CACHE_SIZE_PROP, DEFAULT_CACHE_SIZE);
+        this.cacheFlushInterval = getPositiveInt(CACHE_FLUSH_INTERVAL_PROP, -1);
+        this.skipUnchangedFiles = PluginConfigurations.contains(context, OutputPlugin.class);
+        this.serializablePlugin = PluginConfigurations.contains(context, SerializablePlugin.class);
+        this.timeoutRules = StatementRules.compile(STATEMENT_TIMEOUT_PROP,
+                super.properties.getProperty(STATEMENT_TIMEOUT_PROP), MapperPlusPlugin::isPositiveInt, warnings);
+        this.fetchSizeRules = StatementRules.compile(STATEMENT_FETCH_SIZE_PROP,
+                super.properties.getProperty(STATEMENT_FETCH_SIZE_PROP), MapperPlusPlugin::isPositiveInt, warnings);
+        this.statementTypeRules = StatementRules.compile(STATEMENT_TYPE_PROP,
+                super.properties.getProperty(STATEMENT_TYPE_PROP),
+                value -> STATEMENT_TYPES.contains(value.toUpperCase(Locale.ENGLISH)), warnings);
+        if (Boolean.parseBoolean(super.properties.getProperty(SQL_PROVIDER_PROP, "false"))) {
+            Set<SqlProviderGenerator.Statement> statements = EnumSet.of(
+                    SqlProviderGenerator.Statement.COUNT_BY_EXAMPLE,
+                    SqlProviderGenerator.Statement.DELETE_BY_EXAMPLE,
+                    SqlProviderGenerator.Statement.SELECT_BY_EXAMPLE,
+                    SqlProviderGenerator.Statement.UPDATE_BY_EXAMPLE_SELECTIVE,
+                    SqlProviderGenerator.Statement.UPDATE_BY_EXAMPLE);
+            if (!isDisabled(SELECT_ONE_BY_EXAMPLE_PROP)) {
+                statements.add(SqlProviderGenerator.Statement.SELECT_ONE_BY_EXAMPLE);
+            }
+            if (!isDisabled(EXISTS_BY_EXAMPLE_PROP)) {
+                statements.add(SqlProviderGenerator.Statement.EXISTS_BY_EXAMPLE);
+            }
+            if (!isDisabled(COUNT_BY_EXAMPLE_UP_TO_PROP)) {
+                statements.add(SqlProviderGenerator.Statement.COUNT_BY_EXAMPLE_UP_TO);
+            }
+            this.sqlProviderGenerator = new SqlProviderGenerator(dialect, statements);
+        }
+        this.baseMapperInterface = generateBaseMapperInterface();
+        if (Boolean.parseBoolean(super.properties.getProperty(INCREMENTAL_PROP, "false"))) {
+            this.incrementalGeneration = new IncrementalGeneration(
+                    super.properties.getProperty(INCREMENTAL_FINGERPRINT_DIR_PROP, DEFAULT_FINGERPRINT_DIR), context);
+            int skipped = incrementalGeneration.skipUnchangedTables(warnings);
+            if (skipped > 0) {
+                warnings.add(skipped + " tables of context " + context.getId()
+                        + " are not changed since the last generation and skipped.");
+            }
+        }
         return true;
     }
 
     @Override
     public void initialized(IntrospectedTable introspectedTable) {
+        if (dirtyTrackingTables.matches(introspectedTable.getFullyQualifiedTable().getIntrospectedTableName())) {
+            if (!introspectedTable.hasPrimaryKeyColumns() || introspectedTable.isImmutable()) {
+                warnings.add("The dirty tracking is disabled for table " + introspectedTable.getFullyQualifiedTable()
+                        + " because it has no primary key or its record is immutable.");
+            } else {
+                introspectedTable.setAttribute(DIRTY_TRACKING_ATTRIBUTE, new ArrayList<IntrospectedColumn>());
+            }
+        }
         String isGenerateJavaMapper = super.properties.getProperty(JAVA_MAPPER_GENERATE_PROP, "true");
         if (!Objects.equals(isGenerateJavaMapper, "true")) {
             return;
@@ -51,6 +299,50 @@ public class MapperPlusPlugin extends PluginAdapter {
 
     @Override
     public List<GeneratedJavaFile> contextGenerateAdditionalJavaFiles() {
+        String targetProject = super.properties.getProperty(BASE_PROJECT_PROP);
+        List<GeneratedJavaFile> answer = new ArrayList<>();
+        answer.add(new GeneratedJavaFile(
+                baseMapperInterface,
+                targetProject,
+                new DefaultJavaFormatter()
+        ));
+
+        // @SelectProvider(type = BaseMapperSqlProvider.class, method = "?")
+        if (sqlProviderGenerator != null) {
+            FullyQualifiedJavaType dispatcherType = sqlProviderDispatcherType();
+            sqlProviderGenerator.addProviderAnnotations(baseMapperInterface, dispatcherType);
+            answer.add(new GeneratedJavaFile(
+                    sqlProviderGenerator.generateDispatcher(dispatcherType),
+                    targetProject,
+                    new DefaultJavaFormatter()
+            ));
+        }
+
+        // MapperMetricsInterceptor, next to the BaseMapper
+        if (Boolean.parseBoolean(super.properties.getProperty(METRICS_INTERCEPTOR_PROP, "false"))) {
+            FullyQualifiedJavaType interceptorType = new FullyQualifiedJavaType(
+                    baseMapperInterface.getType().getPackageName() + ".MapperMetricsInterceptor");
+            answer.add(new GeneratedJavaFile(
+                    new MetricsInterceptorGenerator().generate(interceptorType, baseMapperInterface),
+                    targetProject,
+                    new DefaultJavaFormatter()
+            ));
+        }
+
+        // every table is generated now
+        if (incrementalGeneration != null) {
+            incrementalGeneration.saveFingerprints(warnings);
+        }
+        if (skipUnchangedFiles) {
+            unchangedFiles.addAndGet(OutputPlugin.removeUnchanged(answer));
+            if (unchangedFiles.get() > 0) {
+                warnings.add(unchangedFiles.get() + " unchanged files of the mappers are skipped.");
+            }
+        }
+        return answer;
+    }
+
+    private Interface generateBaseMapperInterface() {
         String targetPackage = super.properties.getProperty(BASE_PACKAGE_PROP);
         String mapperName = super.properties.getProperty(BASE_MAPPER_NAME_PROP, "BaseMapper");
         String interfaceName = targetPackage + "." + mapperName;
@@ -61,35 +353,48 @@ public class MapperPlusPlugin extends PluginAdapter {
         baseMapperInterface.addTypeParameter(new TypeParameter("E"));
         // count
         addCountByExample(baseMapperInterface);
+        addCountByExampleUpTo(baseMapperInterface);
+        addExistsByExample(baseMapperInterface);
         // delete
         addDeleteByExample(baseMapperInterface);
         addDeleteByPrimaryKey(baseMapperInterface);
+        addDeleteByPrimaryKeys(baseMapperInterface);
         // insert
         addInsert(baseMapperInterface);
         addInsertSelective(baseMapperInterface);
+        addInsertBatch(baseMapperInterface);
+        addUpsert(baseMapperInterface);
+        addUpsertBatch(baseMapperInterface);
         // select
         addSelectByExample(baseMapperInterface);
         addSelectOneByExample(baseMapperInterface);
+        addSelectCursorByExample(baseMapperInterface);
+        addSelectPageAfter(baseMapperInterface);
         addSelectByPrimaryKey(baseMapperInterface);
+        addSelectByPrimaryKeys(baseMapperInterface);
         // update
         addUpdateByExampleSelective(baseMapperInterface);
         addUpdateByExample(baseMapperInterface);
         addUpdateByPrimaryKeySelective(baseMapperInterface);
         addUpdateByPrimaryKey(baseMapperInterface);
+        addUpdateBatchByPrimaryKeySelective(baseMapperInterface);
         // import
         baseMapperInterface.addImportedType(
                 new FullyQualifiedJavaType("org.apache.ibatis.annotations.Param"));
         baseMapperInterface.addImportedType(
                 new FullyQualifiedJavaType("java.util.List"));
+        baseMapperInterface.addImportedType(
+                new FullyQualifiedJavaType("java.util.ArrayList"));
+        baseMapperInterface.addImportedType(
+                new FullyQualifiedJavaType("java.util.Collection"));
         baseMapperInterface.setVisibility(JavaVisibility.PUBLIC);
+        return baseMapperInterface;
+    }
 
-        String targetProject = super.properties.getProperty(BASE_PROJECT_PROP);
-        GeneratedJavaFile baseMapperJavaFile = new GeneratedJavaFile(
-                baseMapperInterface,
-                targetProject,
-                new DefaultJavaFormatter()
-        );
-        return Collections.singletonList(baseMapperJavaFile);
+    private FullyQualifiedJavaType sqlProviderDispatcherType() {
+        String targetPackage = super.properties.getProperty(BASE_PACKAGE_PROP);
+        String mapperName = super.properties.getProperty(BASE_MAPPER_NAME_PROP, "BaseMapper");
+        return new FullyQualifiedJavaType(targetPackage + "." + mapperName + "SqlProvider");
     }
 
     protected void overrideXmlFileName(IntrospectedTable introspectedTable) {
@@ -117,6 +422,37 @@ public class MapperPlusPlugin extends PluginAdapter {
         baseMapperInterface.addMethod(updateByPrimaryKey);
     }
 
+    /**
+     * declared by the java mapper of a tracked table only, as the other tables have no such statement
+     */
+    static Method updateChangedByPrimaryKey(FullyQualifiedJavaType rowType) {
+        // int updateChangedByPrimaryKey(User row);
+        Method updateChangedByPrimaryKey = new Method(UpdateChangedByPrimaryKeyXmlElementGenerator.STATEMENT_ID);
+        updateChangedByPrimaryKey.setReturnType(new FullyQualifiedJavaType("int"));
+        updateChangedByPrimaryKey.addParameter(new Parameter(rowType, "row"));
+        return updateChangedByPrimaryKey;
+    }
+
+    /**
+     * the columns are collected when the record is generated, the statement is emitted only if there is one
+     */
+    private static boolean isDirtyTracked(IntrospectedTable introspectedTable) {
+        List<?> dirtyColumns = (List<?>) introspectedTable.getAttribute(DIRTY_TRACKING_ATTRIBUTE);
+        return dirtyColumns != null && !dirtyColumns.isEmpty();
+    }
+
+    private void addUpdateBatchByPrimaryKeySelective(Interface baseMapperInterface) {
+        if (isDisabled(UPDATE_BATCH_PROP)) {
+            return;
+        }
+        // int updateBatchByPrimaryKeySelectiveChunk(@Param("rows") List<T> rows);
+        // default int updateBatchByPrimaryKeySelective(List<T> rows) { ... }
+        addBatchMethods(baseMapperInterface,
+                "updateBatchByPrimaryKeySelective",
+                UpdateBatchByPrimaryKeySelectiveXmlElementGenerator.STATEMENT_ID,
+                updateBatchMaxRows);
+    }
+
     private void addUpdateByPrimaryKeySelective(Interface baseMapperInterface) {
         // int updateByPrimaryKeySelective(T row);
         Method updateByPrimaryKeySelective = new Method("updateByPrimaryKeySelective");
@@ -137,6 +473,41 @@ public class MapperPlusPlugin extends PluginAdapter {
         baseMapperInterface.addMethod(selectByPrimaryKey);
     }
 
+    private void addSelectByPrimaryKeys(Interface baseMapperInterface) {
+        if (isDisabled(SELECT_BY_PRIMARY_KEYS_PROP)) {
+            return;
+        }
+        // List<T> selectByPrimaryKeysChunk(@Param("ids") Collection<Long> ids);
+        Method selectByPrimaryKeysChunk = new Method(SelectByPrimaryKeysXmlElementGenerator.STATEMENT_ID);
+        selectByPrimaryKeysChunk.setReturnType(new FullyQualifiedJavaType("List<T>"));
+        Parameter idsParam = new Parameter(new FullyQualifiedJavaType("Collection<Long>"), "ids");
+        idsParam.addAnnotation("@Param(\"ids\")");
+        selectByPrimaryKeysChunk.addParameter(idsParam);
+        selectByPrimaryKeysChunk.setAbstract(true);
+        baseMapperInterface.addMethod(selectByPrimaryKeysChunk);
+
+        // default List<T> selectByPrimaryKeys(Collection<Long> ids) { ... }
+        int maxIds = byPrimaryKeysMaxIds;
+        Method selectByPrimaryKeys = new Method("selectByPrimaryKeys");
+        selectByPrimaryKeys.setReturnType(new FullyQualifiedJavaType("List<T>"));
+        selectByPrimaryKeys.addParameter(new Parameter(new FullyQualifiedJavaType("Collection<Long>"), "ids"));
+        selectByPrimaryKeys.setDefault(true);
+        selectByPrimaryKeys.addBodyLine("if (ids.isEmpty()) {");
+        selectByPrimaryKeys.addBodyLine("return new ArrayList<>();");
+        selectByPrimaryKeys.addBodyLine("}");
+        selectByPrimaryKeys.addBodyLine("if (ids.size() <= " + maxIds + ") {");
+        selectByPrimaryKeys.addBodyLine("return " + SelectByPrimaryKeysXmlElementGenerator.STATEMENT_ID + "(ids);");
+        selectByPrimaryKeys.addBodyLine("}");
+        selectByPrimaryKeys.addBodyLine("List<Long> idList = new ArrayList<>(ids);");
+        selectByPrimaryKeys.addBodyLine("List<T> rows = new ArrayList<>(idList.size());");
+        selectByPrimaryKeys.addBodyLine("for (int from = 0; from < idList.size(); from += " + maxIds + ") {");
+        selectByPrimaryKeys.addBodyLine("rows.addAll(" + SelectByPrimaryKeysXmlElementGenerator.STATEMENT_ID
+                + "(idList.subList(from, Math.min(from + " + maxIds + ", idList.size()))));");
+        selectByPrimaryKeys.addBodyLine("}");
+        selectByPrimaryKeys.addBodyLine("return rows;");
+        baseMapperInterface.addMethod(selectByPrimaryKeys);
+    }
+
     private void addSelectByExample(Interface baseMapperInterface) {
         // List<T> selectByExample(E example);
         Method selectByExample = new Method("selectByExample");
@@ -146,6 +517,31 @@ public class MapperPlusPlugin extends PluginAdapter {
         baseMapperInterface.addMethod(selectByExample);
     }
 
+    private void addSelectCursorByExample(Interface baseMapperInterface) {
+        if (isDisabled(SELECT_CURSOR_BY_EXAMPLE_PROP)) {
+            return;
+        }
+        // Cursor<T> selectCursorByExample(E example);
+        Method selectCursorByExample = new Method(SelectCursorByExampleXmlElementGenerator.STATEMENT_ID);
+        baseMapperInterface.addImportedType(new FullyQualifiedJavaType("org.apache.ibatis.cursor.Cursor"));
+        selectCursorByExample.setReturnType(new FullyQualifiedJavaType("Cursor<T>"));
+        selectCursorByExample.addParameter(new Parameter(new FullyQualifiedJavaType("E"), "example"));
+        selectCursorByExample.setAbstract(true);
+        baseMapperInterface.addMethod(selectCursorByExample);
+    }
+
+    private void addSelectPageAfter(Interface baseMapperInterface) {
+        if (isDisabled(SELECT_PAGE_AFTER_PROP)) {
+            return;
+        }
+        // List<T> selectPageAfter(E example);
+        Method selectPageAfter = new Method(SelectPageAfterXmlElementGenerator.STATEMENT_ID);
+        selectPageAfter.setReturnType(new FullyQualifiedJavaType("List<T>"));
+        selectPageAfter.addParameter(new Parameter(new FullyQualifiedJavaType("E"), "example"));
+        selectPageAfter.setAbstract(true);
+        baseMapperInterface.addMethod(selectPageAfter);
+    }
+
     private void addInsertSelective(Interface baseMapperInterface) {
         // int insertSelective(T row);
         Method insertSelective = new Method("insertSelective");
@@ -155,6 +551,75 @@ public class MapperPlusPlugin extends PluginAdapter {
         baseMapperInterface.addMethod(insertSelective);
     }
 
+    private void addInsertBatch(Interface baseMapperInterface) {
+        if (isDisabled(INSERT_BATCH_PROP)) {
+            return;
+        }
+        // int insertBatchChunk(@Param("rows") List<T> rows);
+        // default int insertBatch(List<T> rows) { ... }
+        addBatchMethods(baseMapperInterface,
+                "insertBatch",
+                InsertBatchXmlElementGenerator.STATEMENT_ID,
+                insertBatchMaxRows);
+    }
+
+    private void addUpsert(Interface baseMapperInterface) {
+        if (isDisabled(UPSERT_PROP)) {
+            return;
+        }
+        // int upsert(T row);
+        // int upsertSelective(T row);
+        for (UpsertXmlElementGenerator.Kind kind : new UpsertXmlElementGenerator.Kind[]{
+                UpsertXmlElementGenerator.Kind.UPSERT, UpsertXmlElementGenerator.Kind.UPSERT_SELECTIVE}) {
+            Method upsert = new Method(kind.getStatementId());
+            upsert.setReturnType(new FullyQualifiedJavaType("int"));
+            upsert.addParameter(new Parameter(new FullyQualifiedJavaType("T"), "row"));
+            upsert.setAbstract(true);
+            baseMapperInterface.addMethod(upsert);
+        }
+    }
+
+    private void addUpsertBatch(Interface baseMapperInterface) {
+        if (isDisabled(UPSERT_BATCH_PROP)) {
+            return;
+        }
+        // int upsertBatchChunk(@Param("rows") List<T> rows);
+        // default int upsertBatch(List<T> rows) { ... }
+        addBatchMethods(baseMapperInterface,
+                "upsertBatch",
+                UpsertXmlElementGenerator.Kind.UPSERT_BATCH.getStatementId(),
+                upsertBatchMaxRows);
+    }
+
+    /**
+     * add an abstract chunk method mapped to the xml statement, and a default method which splits the rows
+     * into chunks of at most <b>maxRows</b> rows, so a single statement never exceeds the driver limits
+     */
+    private void addBatchMethods(Interface baseMapperInterface,
+                                 String methodName,
+                                 String chunkMethodName,
+                                 int maxRows) {
+        Method chunkMethod = new Method(chunkMethodName);
+        chunkMethod.setReturnType(new FullyQualifiedJavaType("int"));
+        Parameter rowsParam = new Parameter(new FullyQualifiedJavaType("List<T>"), "rows");
+        rowsParam.addAnnotation("@Param(\"rows\")");
+        chunkMethod.addParameter(rowsParam);
+        chunkMethod.setAbstract(true);
+        baseMapperInterface.addMethod(chunkMethod);
+
+        Method method = new Method(methodName);
+        method.setReturnType(new FullyQualifiedJavaType("int"));
+        method.addParameter(new Parameter(new FullyQualifiedJavaType("List<T>"), "rows"));
+        method.setDefault(true);
+        method.addBodyLine("int count = 0;");
+        method.addBodyLine("for (int from = 0; from < rows.size(); from += " + maxRows + ") {");
+        method.addBodyLine("count += " + chunkMethodName
+                + "(rows.subList(from, Math.min(from + " + maxRows + ", rows.size())));");
+        method.addBodyLine("}");
+        method.addBodyLine("return count;");
+        baseMapperInterface.addMethod(method);
+    }
+
     private void addInsert(Interface baseMapperInterface) {
         // int insert(T row);
         Method insert = new Method("insert");
@@ -173,6 +638,41 @@ public class MapperPlusPlugin extends PluginAdapter {
         baseMapperInterface.addMethod(deleteByPrimaryKey);
     }
 
+    private void addDeleteByPrimaryKeys(Interface baseMapperInterface) {
+        if (isDisabled(DELETE_BY_PRIMARY_KEYS_PROP)) {
+            return;
+        }
+        // int deleteByPrimaryKeysChunk(@Param("ids") Collection<Long> ids);
+        Method deleteByPrimaryKeysChunk = new Method(DeleteByPrimaryKeysXmlElementGenerator.STATEMENT_ID);
+        deleteByPrimaryKeysChunk.setReturnType(new FullyQualifiedJavaType("int"));
+        Parameter idsParam = new Parameter(new FullyQualifiedJavaType("Collection<Long>"), "ids");
+        idsParam.addAnnotation("@Param(\"ids\")");
+        deleteByPrimaryKeysChunk.addParameter(idsParam);
+        deleteByPrimaryKeysChunk.setAbstract(true);
+        baseMapperInterface.addMethod(deleteByPrimaryKeysChunk);
+
+        // default int deleteByPrimaryKeys(Collection<Long> ids) { ... }
+        int maxIds = byPrimaryKeysMaxIds;
+        Method deleteByPrimaryKeys = new Method("deleteByPrimaryKeys");
+        deleteByPrimaryKeys.setReturnType(new FullyQualifiedJavaType("int"));
+        deleteByPrimaryKeys.addParameter(new Parameter(new FullyQualifiedJavaType("Collection<Long>"), "ids"));
+        deleteByPrimaryKeys.setDefault(true);
+        deleteByPrimaryKeys.addBodyLine("if (ids.isEmpty()) {");
+        deleteByPrimaryKeys.addBodyLine("return 0;");
+        deleteByPrimaryKeys.addBodyLine("}");
+        deleteByPrimaryKeys.addBodyLine("if (ids.size() <= " + maxIds + ") {");
+        deleteByPrimaryKeys.addBodyLine("return " + DeleteByPrimaryKeysXmlElementGenerator.STATEMENT_ID + "(ids);");
+        deleteByPrimaryKeys.addBodyLine("}");
+        deleteByPrimaryKeys.addBodyLine("List<Long> idList = new ArrayList<>(ids);");
+        deleteByPrimaryKeys.addBodyLine("int count = 0;");
+        deleteByPrimaryKeys.addBodyLine("for (int from = 0; from < idList.size(); from += " + maxIds + ") {");
+        deleteByPrimaryKeys.addBodyLine("count += " + DeleteByPrimaryKeysXmlElementGenerator.STATEMENT_ID
+                + "(idList.subList(from, Math.min(from + " + maxIds + ", idList.size())));");
+        deleteByPrimaryKeys.addBodyLine("}");
+        deleteByPrimaryKeys.addBodyLine("return count;");
+        baseMapperInterface.addMethod(deleteByPrimaryKeys);
+    }
+
     private void addDeleteByExample(Interface baseMapperInterface) {
         // int deleteByExample(E example);
         Method deleteByExample = new Method("deleteByExample");
@@ -192,6 +692,38 @@ public class MapperPlusPlugin extends PluginAdapter {
         baseMapperInterface.addMethod(countByExample);
     }
 
+    private void addCountByExampleUpTo(Interface baseMapperInterface) {
+        if (isDisabled(COUNT_BY_EXAMPLE_UP_TO_PROP)) {
+            return;
+        }
+        // long countByExampleUpTo(@Param("example") E example, @Param("cap") long cap);
+        Method countByExampleUpTo = new Method(CountByExampleUpToXmlElementGenerator.STATEMENT_ID);
+        countByExampleUpTo.setReturnType(new FullyQualifiedJavaType("long"));
+
+        Parameter exampleParam = new Parameter(new FullyQualifiedJavaType("E"), "example");
+        exampleParam.addAnnotation("@Param(\"example\")");
+        countByExampleUpTo.addParameter(exampleParam);
+
+        Parameter capParam = new Parameter(new FullyQualifiedJavaType("long"), "cap");
+        capParam.addAnnotation("@Param(\"cap\")");
+        countByExampleUpTo.addParameter(capParam);
+
+        countByExampleUpTo.setAbstract(true);
+        baseMapperInterface.addMethod(countByExampleUpTo);
+    }
+
+    private void addExistsByExample(Interface baseMapperInterface) {
+        if (isDisabled(EXISTS_BY_EXAMPLE_PROP)) {
+            return;
+        }
+        // boolean existsByExample(E example);
+        Method existsByExample = new Method(ExistsByExampleXmlElementGenerator.STATEMENT_ID);
+        existsByExample.setReturnType(new FullyQualifiedJavaType("boolean"));
+        existsByExample.addParameter(new Parameter(new FullyQualifiedJavaType("E"), "example"));
+        existsByExample.setAbstract(true);
+        baseMapperInterface.addMethod(existsByExample);
+    }
+
     private void addSelectOneByExample(Interface baseMapperInterface) {
         if ("false".equals(super.properties.getProperty(SELECT_ONE_BY_EXAMPLE_PROP, "false"))) {
             Method selectOneByExample = new Method("selectOneByExample");
@@ -245,23 +777,588 @@ public class MapperPlusPlugin extends PluginAdapter {
 
     @Override
     public boolean sqlMapDocumentGenerated(Document document, IntrospectedTable introspectedTable) {
+        XmlElement mapperParent = document.getRootElement();
         // selectOneByExample
-        if ("false".equals(super.properties.getProperty(SELECT_ONE_BY_EXAMPLE_PROP, "false"))) {
-            XmlElement mapperParent = document.getRootElement();
-            SelectOneByExampleXmlElementGenerator generator = new SelectOneByExampleXmlElementGenerator();
-            generator.setContext(context);
-            generator.setWarnings(warnings);
-            generator.setIntrospectedTable(introspectedTable);
-            generator.addElements(mapperParent);
+        if ("false".equals(super.properties.getProperty(SELECT_ONE_BY_EXAMPLE_PROP, "false"))
+                && !isProvided(SelectOneByExampleXmlElementGenerator.STATEMENT_ID)) {
+            addElements(new SelectOneByExampleXmlElementGenerator(dialect), mapperParent, introspectedTable);
+        }
+        // existsByExample
+        if (!isDisabled(EXISTS_BY_EXAMPLE_PROP)
+                && !isProvided(ExistsByExampleXmlElementGenerator.STATEMENT_ID)
+                && introspectedTable.getRules().generateCountByExample()) {
+            addElements(new ExistsByExampleXmlElementGenerator(dialect), mapperParent, introspectedTable);
+        }
+        // countByExampleUpTo, the example is a named parameter so it needs the update by example where clause
+        if (!isDisabled(COUNT_BY_EXAMPLE_UP_TO_PROP)
+                && !isProvided(CountByExampleUpToXmlElementGenerator.STATEMENT_ID)
+                && introspectedTable.getRules().generateCountByExample()) {
+            if (introspectedTable.getRules().generateMyBatis3UpdateByExampleWhereClause()) {
+                addElements(new CountByExampleUpToXmlElementGenerator(dialect), mapperParent, introspectedTable);
+            } else {
+                warnings.add("The 'countByExampleUpTo' statement is not generated for table "
+                        + introspectedTable.getFullyQualifiedTable()
+                        + " because the update by example statements are disabled.");
+            }
+        }
+        // insertBatch
+        if (!isDisabled(INSERT_BATCH_PROP) && introspectedTable.getRules().generateInsert()) {
+            addElements(new InsertBatchXmlElementGenerator(), mapperParent, introspectedTable);
+        }
+        // upsert, upsertSelective & upsertBatch
+        if ((!isDisabled(UPSERT_PROP) || !isDisabled(UPSERT_BATCH_PROP))
+                && introspectedTable.getRules().generateInsert()) {
+            addUpsertElements(mapperParent, introspectedTable);
+        }
+        // updateBatchByPrimaryKeySelective
+        if (!isDisabled(UPDATE_BATCH_PROP) && introspectedTable.getRules().generateUpdateByPrimaryKeySelective()) {
+            addElements(new UpdateBatchByPrimaryKeySelectiveXmlElementGenerator(), mapperParent, introspectedTable);
+        }
+        // updateChangedByPrimaryKey, only if the record of the table tracks its changes
+        if (isDirtyTracked(introspectedTable)) {
+            @SuppressWarnings("unchecked")
+            List<IntrospectedColumn> dirtyColumns =
+                    (List<IntrospectedColumn>) introspectedTable.getAttribute(DIRTY_TRACKING_ATTRIBUTE);
+            addElements(new UpdateChangedByPrimaryKeyXmlElementGenerator(dirtyColumns),
+                    mapperParent, introspectedTable);
+        }
+        // selectCursorByExample
+        if (!isDisabled(SELECT_CURSOR_BY_EXAMPLE_PROP)
+                && introspectedTable.getRules().generateSelectByExampleWithoutBLOBs()) {
+            // select-cursor-by-example.fetch-size.${table_name} takes precedence over the default fetch size
+            String tableName = introspectedTable.getFullyQualifiedTable().getIntrospectedTableName();
+            int fetchSize = getPositiveInt(SELECT_CURSOR_FETCH_SIZE_PROP + "." + tableName, selectCursorFetchSize);
+            addElements(new SelectCursorByExampleXmlElementGenerator(fetchSize, dialect),
+                    mapperParent, introspectedTable);
+        }
+        // selectPageAfter, only if the Example of the table supports seek pagination
+        if (!isDisabled(SELECT_PAGE_AFTER_PROP)
+                && introspectedTable.getRules().generateSelectByExampleWithoutBLOBs()
+                && introspectedTable.getAttribute(ExampleModelPlusPlugin.SEEK_ATTRIBUTE) != null) {
+            addElements(new SelectPageAfterXmlElementGenerator(dialect), mapperParent, introspectedTable);
+        }
+        // selectByPrimaryKeys & deleteByPrimaryKeys
+        if (introspectedTable.getPrimaryKeyColumns().size() == 1) {
+            if (!isDisabled(SELECT_BY_PRIMARY_KEYS_PROP) && introspectedTable.getRules().generateSelectByPrimaryKey()) {
+                addElements(new SelectByPrimaryKeysXmlElementGenerator(), mapperParent, introspectedTable);
+            }
+            if (!isDisabled(DELETE_BY_PRIMARY_KEYS_PROP) && introspectedTable.getRules().generateDeleteByPrimaryKey()) {
+                addElements(new DeleteByPrimaryKeysXmlElementGenerator(), mapperParent, introspectedTable);
+            }
+        } else if (introspectedTable.hasPrimaryKeyColumns()) {
+            warnings.add("The 'selectByPrimaryKeys' and 'deleteByPrimaryKeys' statements are not generated for table "
+                    + introspectedTable.getFullyQualifiedTable()
+                    + " because it has a composite primary key.");
+        }
+        // timeout, fetchSize & statementType, after all the statements are added
+        tuneStatements(mapperParent, introspectedTable);
+        // <cache>, after all the statements are added
+        if (isCached(introspectedTable)) {
+            addCache(mapperParent, introspectedTable);
         }
         return true;
     }
 
+    private boolean isCached(IntrospectedTable introspectedTable) {
+        return cacheTables.matches(introspectedTable.getFullyQualifiedTable().getIntrospectedTableName());
+    }
+
+    /**
+     * <pre>
+     *     &lt;cache eviction="LRU" size="1024" flushInterval="60000" readOnly="false"/&gt;
+     * </pre>
+     * every property can be set for a single table by the suffix .${table_name}, such as cache.size.country.
+     * the selects use the cache and the inserts, updates and deletes (including the *ByExample ones) flush it,
+     * a cursor is never cached.
+     */
+    private void addCache(XmlElement mapperParent, IntrospectedTable introspectedTable) {
+        String tableName = introspectedTable.getFullyQualifiedTable().getIntrospectedTableName();
+        XmlElement cache = new XmlElement("cache");
+
+        String eviction = getTableProperty(CACHE_EVICTION_PROP, tableName, CACHE_EVICTIONS.get(0))
+                .trim()
+                .toUpperCase(Locale.ENGLISH);
+        if (!CACHE_EVICTIONS.contains(eviction)) {
+            warnings.add("Unknown cache eviction '" + eviction + "' of table "
+                    + introspectedTable.getFullyQualifiedTable()
+                    + ", " + CACHE_EVICTIONS.get(0) + " is used instead.");
+            eviction = CACHE_EVICTIONS.get(0);
+        }
+        cache.addAttribute(new Attribute("eviction", eviction));
+
+        int size = getPositiveInt(CACHE_SIZE_PROP + "." + tableName, cacheSize);
+        cache.addAttribute(new Attribute("size", String.valueOf(size)));
+
+        // no flush interval by default, the cache is only flushed by the statements
+        int flushInterval = getPositiveInt(CACHE_FLUSH_INTERVAL_PROP + "." + tableName, cacheFlushInterval);
+        if (flushInterval > 0) {
+            cache.addAttribute(new Attribute("flushInterval", String.valueOf(flushInterval)));
+        }
+
+        // a read-write cache returns serialized copies, so the model must be Serializable
+        boolean readOnly = Boolean.parseBoolean(getTableProperty(CACHE_READ_ONLY_PROP, tableName, "false").trim());
+        cache.addAttribute(new Attribute("readOnly", String.valueOf(readOnly)));
+        if (!readOnly && !serializablePlugin && introspectedTable.getAttribute(SERIALIZABLE_ATTRIBUTE) == null) {
+            warnings.add("The cache of table " + introspectedTable.getFullyQualifiedTable()
+                    + " is read-write and stores serialized copies, but its model is not Serializable, "
+                    + "add the SerializablePlugin or set '" + CACHE_READ_ONLY_PROP + "." + tableName + "' to true.");
+        }
+        mapperParent.addElement(0, cache);
+
+        for (VisitableElement element : mapperParent.getElements()) {
+            if (!(element instanceof XmlElement)) {
+                continue;
+            }
+            XmlElement statement = (XmlElement) element;
+            switch (statement.getName()) {
+            case "select":
+                boolean cursor = statement.getAttributes()
+                        .stream()
+                        .anyMatch(attribute -> attribute.getName().equals("id")
+                                && attribute.getValue().equals(SelectCursorByExampleXmlElementGenerator.STATEMENT_ID));
+                statement.addAttribute(new Attribute("useCache", String.valueOf(!cursor)));
+                break;
+            case "insert":
+            case "update":
+            case "delete":
+                statement.addAttribute(new Attribute("flushCache", "true"));
+                break;
+            default:
+                break;
+            }
+        }
+    }
+
+    /**
+     * <pre>
+     *     &lt;select id="selectByExample" timeout="10" fetchSize="500" statementType="PREPARED"&gt;
+     * </pre>
+     * the attributes are set by the last matching rule of statement.timeout, statement.fetch-size and statement.type,
+     * the fetchSize only applies to the selects and overrides select-cursor-by-example.fetch-size.
+     */
+    private void tuneStatements(XmlElement mapperParent, IntrospectedTable introspectedTable) {
+        if (timeoutRules.isEmpty() && fetchSizeRules.isEmpty() && statementTypeRules.isEmpty()) {
+            return;
+        }
+        String tableName = introspectedTable.getFullyQualifiedTable().getIntrospectedTableName();
+        for (VisitableElement element : mapperParent.getElements()) {
+            if (!(element instanceof XmlElement)) {
+                continue;
+            }
+            XmlElement statement = (XmlElement) element;
+            String statementId = getAttribute(statement, "id");
+            if (statementId == null) {
+                continue;
+            }
+            switch (statement.getName()) {
+            case "select":
+                setAttribute(statement, "fetchSize", fetchSizeRules.valueOf(tableName, statementId));
+                // fall through
+            case "insert":
+            case "update":
+            case "delete":
+                setAttribute(statement, "timeout", timeoutRules.valueOf(tableName, statementId));
+                String statementType = statementTypeRules.valueOf(tableName, statementId);
+                if (statementType != null) {
+                    setAttribute(statement, "statementType", statementType.toUpperCase(Locale.ENGLISH));
+                }
+                break;
+            default:
+                break;
+            }
+        }
+    }
+
+    private String getAttribute(XmlElement element, String name) {
+        return element.getAttributes()
+                .stream()
+                .filter(attribute -> attribute.getName().equals(name))
+                .map(Attribute::getValue)
+                .findFirst()
+                .orElse(null);
+    }
+
+    /**
+     * replaces the attribute in place if it exists, does nothing if the value is null
+     */
+    private void setAttribute(XmlElement element, String name, String value) {
+        if (value == null) {
+            return;
+        }
+        List<Attribute> attributes = element.getAttributes();
+        for (int i = 0; i < attributes.size(); i++) {
+            if (attributes.get(i).getName().equals(name)) {
+                attributes.set(i, new Attribute(name, value));
+                return;
+            }
+        }
+        element.addAttribute(new Attribute(name, value));
+    }
+
+    private void addUpsertElements(XmlElement mapperParent, IntrospectedTable introspectedTable) {
+        if (dialect.getUpsertSyntax() == Dialect.UpsertSyntax.UNSUPPORTED) {
+            warnings.add("The upsert statements are not generated for table "
+                    + introspectedTable.getFullyQualifiedTable()
+                    + " because they are not supported by dialect " + dialect + ".");
+            return;
+        }
+        List<IntrospectedColumn> conflictColumns = getConflictColumns(introspectedTable);
+        if (conflictColumns == null) {
+            return;
+        }
+        if (conflictColumns.isEmpty()) {
+            warnings.add("The upsert statements are not generated for table "
+                    + introspectedTable.getFullyQualifiedTable()
+                    + " because it has neither a primary key nor the property '"
+                    + UPSERT_CONFLICT_COLUMNS_PROP + "." + introspectedTable.getFullyQualifiedTable().getIntrospectedTableName()
+                    + "'.");
+            return;
+        }
+        if (!isDisabled(UPSERT_PROP)) {
+            addElements(new UpsertXmlElementGenerator(dialect, conflictColumns, UpsertXmlElementGenerator.Kind.UPSERT),
+                    mapperParent, introspectedTable);
+            addElements(new UpsertXmlElementGenerator(dialect, conflictColumns,
+                    UpsertXmlElementGenerator.Kind.UPSERT_SELECTIVE), mapperParent, introspectedTable);
+        }
+        if (!isDisabled(UPSERT_BATCH_PROP)) {
+            addElements(new UpsertXmlElementGenerator(dialect, conflictColumns,
+                    UpsertXmlElementGenerator.Kind.UPSERT_BATCH), mapperParent, introspectedTable);
+        }
+    }
+
+    /**
+     * upsert.conflict-columns.${table_name} lists the columns of a unique index, the primary key by default
+     *
+     * @return null if a listed column is not found, which is warned
+     */
+    private List<IntrospectedColumn> getConflictColumns(IntrospectedTable introspectedTable) {
+        String tableName = introspectedTable.getFullyQualifiedTable().getIntrospectedTableName();
+        String value = super.properties.getProperty(UPSERT_CONFLICT_COLUMNS_PROP + "." + tableName);
+        if (value == null) {
+            return introspectedTable.getPrimaryKeyColumns();
+        }
+        List<IntrospectedColumn> answer = new ArrayList<>();
+        for (String columnName : value.split(",")) {
+            Optional<IntrospectedColumn> column = introspectedTable.getColumn(columnName.trim());
+            if (!column.isPresent()) {
+                warnings.add("The upsert statements are not generated for table "
+                        + introspectedTable.getFullyQualifiedTable() + " because its conflict column '"
+                        + columnName.trim() + "' of the property '" + UPSERT_CONFLICT_COLUMNS_PROP + "."
+                        + tableName + "' is not found.");
+                return null;
+            }
+            answer.add(column.get());
+        }
+        return answer;
+    }
+
+    @Override
+    public boolean modelBaseRecordClassGenerated(TopLevelClass topLevelClass, IntrospectedTable introspectedTable) {
+        @SuppressWarnings("unchecked")
+        List<IntrospectedColumn> dirtyColumns =
+                (List<IntrospectedColumn>) introspectedTable.getAttribute(DIRTY_TRACKING_ATTRIBUTE);
+        if (dirtyColumns != null) {
+            addDirtyTracking(topLevelClass, introspectedTable, dirtyColumns);
+        }
+        if (topLevelClass.getSuperInterfaceTypes().contains(SERIALIZABLE_TYPE)
+                || topLevelClass.getSuperClass().map(MapperPlusPlugin::isSerializable).orElse(false)) {
+            introspectedTable.setAttribute(SERIALIZABLE_ATTRIBUTE, Boolean.TRUE);
+        }
+        addGeneratedModel(topLevelClass, introspectedTable);
+        return true;
+    }
+
+    /**
+     * a root class may be Serializable too, the ones not on the class path of the generator are unknown
+     */
+    private static boolean isSerializable(FullyQualifiedJavaType superClass) {
+        try {
+            return Serializable.class.isAssignableFrom(
+                    ObjectFactory.externalClassForName(superClass.getFullyQualifiedNameWithoutTypeParameters()));
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    @Override
+    public boolean modelPrimaryKeyClassGenerated(TopLevelClass topLevelClass, IntrospectedTable introspectedTable) {
+        addGeneratedModel(topLevelClass, introspectedTable);
+        return true;
+    }
+
+    @Override
+    public boolean modelRecordWithBLOBsClassGenerated(TopLevelClass topLevelClass,
+                                                      IntrospectedTable introspectedTable) {
+        addGeneratedModel(topLevelClass, introspectedTable);
+        return true;
+    }
+
+    @Override
+    public boolean modelExampleClassGenerated(TopLevelClass topLevelClass, IntrospectedTable introspectedTable) {
+        addGeneratedModel(topLevelClass, introspectedTable);
+        return true;
+    }
+
+    @Override
+    public boolean clientGenerated(Interface interfaze, IntrospectedTable introspectedTable) {
+        if (incrementalGeneration != null && context.getJavaClientGeneratorConfiguration() != null) {
+            incrementalGeneration.addGeneratedFile(introspectedTable,
+                    context.getJavaClientGeneratorConfiguration().getTargetProject(),
+                    interfaze.getType().getPackageName(), interfaze.getType().getShortName() + ".java");
+        }
+        return true;
+    }
+
+    @Override
+    public boolean sqlMapGenerated(GeneratedXmlFile sqlMap, IntrospectedTable introspectedTable) {
+        if (incrementalGeneration != null) {
+            incrementalGeneration.addGeneratedFile(introspectedTable,
+                    sqlMap.getTargetProject(), sqlMap.getTargetPackage(), sqlMap.getFileName());
+        }
+        return true;
+    }
+
+    private void addGeneratedModel(TopLevelClass topLevelClass, IntrospectedTable introspectedTable) {
+        if (incrementalGeneration != null && context.getJavaModelGeneratorConfiguration() != null) {
+            incrementalGeneration.addGeneratedFile(introspectedTable,
+                    context.getJavaModelGeneratorConfiguration().getTargetProject(),
+                    topLevelClass.getType().getPackageName(), topLevelClass.getType().getShortName() + ".java");
+        }
+    }
+
+    /**
+     * <pre>
+     *     private final long[] dirtyFields = new long[1];
+     *
+     *     public void setEmail(String email) {
+     *         this.email = email;
+     *         dirtyFields[0] |= 1L &lt;&lt; 0;
+     *     }
+     *
+     *     public boolean isDirty(int field) { ... }
+     *
+     *     public boolean hasDirtyFields() { ... }
+     *
+     *     public void clearDirty() { ... }
+     * </pre>
+     * a bit per non primary key column of the record. the setters removed by LombokPlugin are kept for these tables,
+     * lombok doesn't generate the setters which already exist.
+     */
+    private void addDirtyTracking(TopLevelClass topLevelClass,
+                                  IntrospectedTable introspectedTable,
+                                  List<IntrospectedColumn> dirtyColumns) {
+        for (IntrospectedColumn column :
+                ListUtilities.removeGeneratedAlwaysColumns(introspectedTable.getNonPrimaryKeyColumns())) {
+            String property = column.getJavaProperty();
+            // the blob columns may be in the record with blobs
+            if (topLevelClass.getFields().stream().noneMatch(field -> field.getName().equals(property))) {
+                continue;
+            }
+            String setterName = JavaBeansUtil.getSetterMethodName(property);
+            Method setter = topLevelClass.getMethods()
+                    .stream()
+                    .filter(method -> method.getName().equals(setterName) && method.getParameters().size() == 1)
+                    .findFirst()
+                    .orElseGet(() -> {
+                        Method method = new Method(setterName);
+                        method.setVisibility(JavaVisibility.PUBLIC);
+                        method.addParameter(new Parameter(column.getFullyQualifiedJavaType(), property));
+                        method.addBodyLine("this." + property + " = " + property + ";");
+                        topLevelClass.addMethod(method);
+                        return method;
+                    });
+            int bit = dirtyColumns.size();
+            setter.addBodyLine("dirtyFields[" + (bit >>> 6) + "] |= 1L << " + (bit & 63) + ";");
+            dirtyColumns.add(column);
+        }
+
+        Field dirtyFields = new Field("dirtyFields", new FullyQualifiedJavaType("long[]"));
+        dirtyFields.addJavaDocLine("/**");
+        dirtyFields.addJavaDocLine(" * a bit per column of updateChangedByPrimaryKey, set by the setters");
+        dirtyFields.addJavaDocLine(" */");
+        dirtyFields.setVisibility(JavaVisibility.PRIVATE);
+        dirtyFields.setFinal(true);
+        // initialized and final, so it is not a parameter of the lombok constructors and builders
+        dirtyFields.setInitializationString("new long[" + Math.max(1, (dirtyColumns.size() + 63) / 64) + "]");
+        if (introspectedTable.getAttribute(LombokPlugin.LOMBOK_ATTRIBUTE) != null) {
+            topLevelClass.addImportedType("lombok.AccessLevel");
+            topLevelClass.addImportedType("lombok.EqualsAndHashCode");
+            topLevelClass.addImportedType("lombok.Getter");
+            topLevelClass.addImportedType("lombok.ToString");
+            dirtyFields.addAnnotation("@Getter(AccessLevel.NONE)");
+            dirtyFields.addAnnotation("@EqualsAndHashCode.Exclude");
+            dirtyFields.addAnnotation("@ToString.Exclude");
+        }
+        topLevelClass.addField(dirtyFields);
+        topLevelClass.addImportedType("java.util.Arrays");
+
+        Method isDirty = new Method("isDirty");
+        isDirty.addJavaDocLine("/**");
+        isDirty.addJavaDocLine(" * @param field the index of the column in updateChangedByPrimaryKey");
+        isDirty.addJavaDocLine(" */");
+        isDirty.setVisibility(JavaVisibility.PUBLIC);
+        isDirty.setReturnType(FullyQualifiedJavaType.getBooleanPrimitiveInstance());
+        isDirty.addParameter(new Parameter(FullyQualifiedJavaType.getIntInstance(), "field"));
+        isDirty.addBodyLine("return (dirtyFields[field >>> 6] & 1L << field) != 0;");
+        topLevelClass.addMethod(isDirty);
+
+        Method hasDirtyFields = new Method("hasDirtyFields");
+        hasDirtyFields.setVisibility(JavaVisibility.PUBLIC);
+        hasDirtyFields.setReturnType(FullyQualifiedJavaType.getBooleanPrimitiveInstance());
+        hasDirtyFields.addBodyLine("for (long word : dirtyFields) {");
+        hasDirtyFields.addBodyLine("if (word != 0) {");
+        hasDirtyFields.addBodyLine("return true;");
+        hasDirtyFields.addBodyLine("}");
+        hasDirtyFields.addBodyLine("}");
+        hasDirtyFields.addBodyLine("return false;");
+        topLevelClass.addMethod(hasDirtyFields);
+
+        Method clearDirty = new Method("clearDirty");
+        clearDirty.addJavaDocLine("/**");
+        clearDirty.addJavaDocLine(" * called after the row is loaded or updated, the setters called by mybatis mark it dirty");
+        clearDirty.addJavaDocLine(" */");
+        clearDirty.setVisibility(JavaVisibility.PUBLIC);
+        clearDirty.addBodyLine("Arrays.fill(dirtyFields, 0L);");
+        topLevelClass.addMethod(clearDirty);
+    }
+
+    @Override
+    public boolean sqlMapCountByExampleElementGenerated(XmlElement element, IntrospectedTable introspectedTable) {
+        return !isProvided("countByExample");
+    }
+
+    @Override
+    public boolean sqlMapDeleteByExampleElementGenerated(XmlElement element, IntrospectedTable introspectedTable) {
+        return !isProvided("deleteByExample");
+    }
+
+    @Override
+    public boolean sqlMapSelectByExampleWithoutBLOBsElementGenerated(XmlElement element,
+                                                                     IntrospectedTable introspectedTable) {
+        return !isProvided("selectByExample");
+    }
+
+    @Override
+    public boolean sqlMapUpdateByExampleSelectiveElementGenerated(XmlElement element,
+                                                                  IntrospectedTable introspectedTable) {
+        return !isProvided("updateByExampleSelective");
+    }
+
+    @Override
+    public boolean sqlMapUpdateByExampleWithoutBLOBsElementGenerated(XmlElement element,
+                                                                     IntrospectedTable introspectedTable) {
+        return !isProvided("updateByExample");
+    }
+
+    /**
+     * the statement is built by the sql provider instead of the xml mapper
+     */
+    private boolean isProvided(String statementId) {
+        return sqlProviderGenerator != null && sqlProviderGenerator.isProvided(statementId);
+    }
+
+    private void addElements(AbstractXmlElementGenerator generator,
+                             XmlElement mapperParent,
+                             IntrospectedTable introspectedTable) {
+        generator.setContext(context);
+        generator.setWarnings(warnings);
+        generator.setIntrospectedTable(introspectedTable);
+        generator.addElements(mapperParent);
+    }
+
+    /**
+     * ${prop}.${table_name} takes precedence over ${prop}
+     */
+    private String getTableProperty(String prop, String tableName, String defaultValue) {
+        return super.properties.getProperty(prop + "." + tableName, super.properties.getProperty(prop, defaultValue));
+    }
+
+    private boolean isDisabled(String disabledProp) {
+        return !"false".equals(super.properties.getProperty(disabledProp, "false"));
+    }
+
+    private static boolean isPositiveInt(String value) {
+        try {
+            return Integer.parseInt(value) > 0;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private int getPositiveInt(String prop, int defaultValue) {
+        String value = super.properties.getProperty(prop);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            int answer = Integer.parseInt(value.trim());
+            if (answer > 0) {
+                return answer;
+            }
+        } catch (NumberFormatException e) {
+            // fall through
+        }
+        warnings.add("The property '" + prop + "' must be a positive integer, "
+                + "but was '" + value + "', " + defaultValue + " is used instead.");
+        return defaultValue;
+    }
+
     @Override
     public List<GeneratedJavaFile> contextGenerateAdditionalJavaFiles(IntrospectedTable introspectedTable) {
+        List<GeneratedJavaFile> answer = generateTableJavaFiles(introspectedTable);
+        if (incrementalGeneration != null) {
+            for (GeneratedJavaFile javaFile : answer) {
+                incrementalGeneration.addGeneratedFile(introspectedTable,
+                        javaFile.getTargetProject(), javaFile.getTargetPackage(), javaFile.getFileName());
+            }
+        }
+        if (skipUnchangedFiles) {
+            unchangedFiles.addAndGet(OutputPlugin.removeUnchanged(answer));
+        }
+        return answer;
+    }
+
+    private List<GeneratedJavaFile> generateTableJavaFiles(IntrospectedTable introspectedTable) {
+        List<GeneratedJavaFile> answer = new ArrayList<>();
+        // the sql provider is named after the mapper, UserMapper -> UserExampleSqlProvider
+        if (sqlProviderGenerator != null) {
+            String providerType = SqlProviderGenerator.tableProviderType(introspectedTable.getMyBatis3SqlMapNamespace());
+            String providerProject = super.properties.getProperty(JAVA_MAPPER_PROJECT_PROP,
+                    super.properties.getProperty(BASE_PROJECT_PROP));
+            answer.add(new GeneratedJavaFile(
+                    sqlProviderGenerator.generateTableProvider(introspectedTable,
+                            new FullyQualifiedJavaType(providerType), sqlProviderDispatcherType()),
+                    providerProject,
+                    new DefaultJavaFormatter()
+            ));
+        }
+
+        // CachingUserMapper implements BaseMapper<User, UserExample>
+        String tableName = introspectedTable.getFullyQualifiedTable().getIntrospectedTableName();
+        if (cachingMapperGenerator != null && cachingMapperTables.matches(tableName)) {
+            if (CachingMapperGenerator.isSupported(introspectedTable)) {
+                String mapperType = introspectedTable.getMyBatis3SqlMapNamespace();
+                boolean upsertByPrimaryKey =
+                        super.properties.getProperty(UPSERT_CONFLICT_COLUMNS_PROP + "." + tableName) == null;
+                answer.add(new GeneratedJavaFile(
+                        cachingMapperGenerator.generate(introspectedTable, baseMapperInterface,
+                                new FullyQualifiedJavaType(mapperType),
+                                new FullyQualifiedJavaType(CachingMapperGenerator.decoratorType(mapperType)),
+                                upsertByPrimaryKey, isDirtyTracked(introspectedTable)),
+                        super.properties.getProperty(JAVA_MAPPER_PROJECT_PROP,
+                                super.properties.getProperty(BASE_PROJECT_PROP)),
+                        new DefaultJavaFormatter()
+                ));
+            } else {
+                warnings.add("The caching mapper is not generated for table "
+                        + introspectedTable.getFullyQualifiedTable()
+                        + " because it has no single Long primary key.");
+            }
+        }
+
         String isGenerateJavaMapper = super.properties.getProperty(JAVA_MAPPER_GENERATE_PROP, "true");
         if (!Objects.equals(isGenerateJavaMapper, "true")) {
-            return Collections.emptyList();
+            return answer;
         }
 
         String javaMapperProject = super.properties.getProperty(JAVA_MAPPER_PROJECT_PROP);
@@ -270,12 +1367,28 @@ public class MapperPlusPlugin extends PluginAdapter {
         String xmlNamespace = introspectedTable.getMyBatis3SqlMapNamespace();
         int idx = xmlNamespace.lastIndexOf(".");
         String interfaceName = xmlNamespace.substring(idx + 1);
+        // the existing one is kept, a missing one is generated again
+        if (incrementalGeneration != null) {
+            incrementalGeneration.addGeneratedFile(introspectedTable,
+                    javaMapperProject, javaMapperPackage, interfaceName + ".java");
+        }
 
         boolean allowOverride =
                 Boolean.parseBoolean(super.properties.getProperty(JAVA_MAPPER_OVERRIDE_PROP, "false"));
         if (javaMapperExists(javaMapperProject, javaMapperPackage, interfaceName)) {
             if (!allowOverride) {
-                return Collections.emptyList();
+                if (sqlProviderGenerator != null && isCached(introspectedTable)) {
+                    warnings.add("java mapper interface " + interfaceName + " is not overridden, annotate it with "
+                            + "@CacheNamespaceRef(" + interfaceName + ".class) so that the sql provider statements "
+                            + "use the cache of the xml mapper.");
+                }
+                if (isDirtyTracked(introspectedTable)) {
+                    warnings.add("java mapper interface " + interfaceName + " is not overridden, declare "
+                            + "int updateChangedByPrimaryKey(" + new FullyQualifiedJavaType(
+                            introspectedTable.getBaseRecordType()).getShortName()
+                            + " row) in it for the dirty tracking.");
+                }
+                return answer;
             }
             warnings.add("java mapper interface "
                     + interfaceName
@@ -304,13 +1417,25 @@ public class MapperPlusPlugin extends PluginAdapter {
         String simpleExampleType = exampleType.substring(exampleType.lastIndexOf(".") + 1);
         baseMapperInterface.addSuperInterface(new FullyQualifiedJavaType(
                 baseMapperName + "<" + simplePojoType + "," + simpleExampleType + ">"));
+        if (isDirtyTracked(introspectedTable)) {
+            Method updateChangedByPrimaryKey = updateChangedByPrimaryKey(new FullyQualifiedJavaType(simplePojoType));
+            updateChangedByPrimaryKey.setAbstract(true);
+            baseMapperInterface.addMethod(updateChangedByPrimaryKey);
+        }
+
+        // the statements of the sql provider are annotated ones, they only share the cache of the xml mapper by ref
+        if (sqlProviderGenerator != null && isCached(introspectedTable)) {
+            baseMapperInterface.addImportedType(
+                    new FullyQualifiedJavaType("org.apache.ibatis.annotations.CacheNamespaceRef"));
+            baseMapperInterface.addAnnotation("@CacheNamespaceRef(" + interfaceName + ".class)");
+        }
 
-        GeneratedJavaFile baseMapperJavaFile = new GeneratedJavaFile(
+        answer.add(new GeneratedJavaFile(
                 baseMapperInterface,
                 javaMapperProject,
                 new DefaultJavaFormatter()
-        );
-        return Collections.singletonList(baseMapperJavaFile);
+        ));
+        return answer;
     }
 
     private boolean javaMapperExists(String mapperProject, String mapperPackage, String mapperName) {
@@ -0,0 +1,438 @@
+package cc.cc1234.mybatis.generator;
+
+import org.mybatis.generator.api.dom.java.*;
+
+/**
+ * a mybatis interceptor which records the latency and the rows of the statements generated in the BaseMapper:
+ * <pre>
+ *     &lt;plugins&gt;
+ *         &lt;plugin interceptor="demo.mapper.MapperMetricsInterceptor"&gt;
+ *             &lt;property name="slowThresholdMillis" value="1000"/&gt;
+ *         &lt;/plugin&gt;
+ *     &lt;/plugins&gt;
+ * </pre>
+ * the metrics go to a pluggable Recorder, by default an in memory one with a log2 latency histogram per statement,
+ * so the generated code only depends on mybatis. the hot path is two System.nanoTime() calls and a few adders.
+ */
+public class MetricsInterceptorGenerator {
+
+    private static final String[] EXECUTOR_TYPES = {
+            "org.apache.ibatis.cache.CacheKey",
+            "org.apache.ibatis.executor.Executor",
+            "org.apache.ibatis.logging.Log",
+            "org.apache.ibatis.logging.LogFactory",
+            "org.apache.ibatis.mapping.BoundSql",
+            "org.apache.ibatis.mapping.MappedStatement",
+            "org.apache.ibatis.plugin.Interceptor",
+            "org.apache.ibatis.plugin.Intercepts",
+            "org.apache.ibatis.plugin.Invocation",
+            "org.apache.ibatis.plugin.Plugin",
+            "org.apache.ibatis.plugin.Signature",
+            "org.apache.ibatis.session.ResultHandler",
+            "org.apache.ibatis.session.RowBounds",
+            "java.util.Collections",
+            "java.util.HashSet",
+            "java.util.List",
+            "java.util.Map",
+            "java.util.Properties",
+            "java.util.Set",
+            "java.util.concurrent.ConcurrentHashMap",
+            "java.util.concurrent.ConcurrentMap",
+            "java.util.concurrent.TimeUnit",
+            "java.util.concurrent.atomic.AtomicLongArray",
+            "java.util.concurrent.atomic.LongAccumulator",
+            "java.util.concurrent.atomic.LongAdder"
+    };
+
+    private static final int BUCKETS = 64;
+
+    private static final long DEFAULT_SLOW_THRESHOLD_MILLIS = 1000;
+
+    /**
+     * @param baseMapperInterface its abstract methods are the generated statement ids
+     */
+    public TopLevelClass generate(FullyQualifiedJavaType interceptorType, Interface baseMapperInterface) {
+        TopLevelClass interceptor = new TopLevelClass(interceptorType);
+        interceptor.setVisibility(JavaVisibility.PUBLIC);
+        interceptor.addSuperInterface(new FullyQualifiedJavaType("Interceptor"));
+        for (String type : EXECUTOR_TYPES) {
+            interceptor.addImportedType(new FullyQualifiedJavaType(type));
+        }
+        // every entry of the executor, the 4 args query delegates to the 6 args one inside the executor
+        interceptor.addAnnotation("@Intercepts({");
+        interceptor.addAnnotation("        @Signature(type = Executor.class, method = \"update\", "
+                + "args = {MappedStatement.class, Object.class}),");
+        interceptor.addAnnotation("        @Signature(type = Executor.class, method = \"query\", "
+                + "args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class}),");
+        interceptor.addAnnotation("        @Signature(type = Executor.class, method = \"query\", "
+                + "args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class, "
+                + "CacheKey.class, BoundSql.class}),");
+        interceptor.addAnnotation("        @Signature(type = Executor.class, method = \"queryCursor\", "
+                + "args = {MappedStatement.class, Object.class, RowBounds.class})");
+        interceptor.addAnnotation("})");
+
+        addFields(interceptor, baseMapperInterface);
+        addIntercept(interceptor, baseMapperInterface);
+        addConfiguration(interceptor);
+        interceptor.addInnerInterface(generateRecorder());
+        interceptor.addInnerClass(generateInMemoryRecorder());
+        interceptor.addInnerClass(generateStatementMetrics());
+        return interceptor;
+    }
+
+    private void addFields(TopLevelClass interceptor, Interface baseMapperInterface) {
+        Field log = new Field("LOG", new FullyQualifiedJavaType("Log"));
+        log.setVisibility(JavaVisibility.PRIVATE);
+        log.setStatic(true);
+        log.setFinal(true);
+        log.setInitializationString("LogFactory.getLog(" + interceptor.getType().getShortName() + ".class)");
+        interceptor.addField(log);
+
+        Field generatedStatements = new Field("GENERATED_STATEMENTS", new FullyQualifiedJavaType("Set<String>"));
+        generatedStatements.addJavaDocLine("/**");
+        generatedStatements.addJavaDocLine(" * the method names of the BaseMapper, the ids of its statements");
+        generatedStatements.addJavaDocLine(" */");
+        generatedStatements.setVisibility(JavaVisibility.PRIVATE);
+        generatedStatements.setStatic(true);
+        generatedStatements.setFinal(true);
+        interceptor.addField(generatedStatements);
+        InitializationBlock statements = new InitializationBlock(true);
+        statements.addBodyLine("Set<String> statements = new HashSet<>();");
+        for (Method method : baseMapperInterface.getMethods()) {
+            if (!method.isDefault()) {
+                statements.addBodyLine("statements.add(\"" + method.getName() + "\");");
+            }
+        }
+        statements.addBodyLine("GENERATED_STATEMENTS = Collections.unmodifiableSet(statements);");
+        interceptor.addInitializationBlock(statements);
+
+        Field recordedStatements = new Field("recordedStatements",
+                new FullyQualifiedJavaType("ConcurrentMap<String, Boolean>"));
+        recordedStatements.addJavaDocLine("/**");
+        recordedStatements.addJavaDocLine(" * whether a full statement id is recorded, resolved once per statement");
+        recordedStatements.addJavaDocLine(" */");
+        recordedStatements.setVisibility(JavaVisibility.PRIVATE);
+        recordedStatements.setFinal(true);
+        recordedStatements.setInitializationString("new ConcurrentHashMap<>()");
+        interceptor.addField(recordedStatements);
+
+        Field recorder = new Field("recorder", new FullyQualifiedJavaType("Recorder"));
+        recorder.setVisibility(JavaVisibility.PRIVATE);
+        recorder.setVolatile(true);
+        recorder.setInitializationString("new InMemoryRecorder()");
+        interceptor.addField(recorder);
+
+        Field slowThresholdNanos = new Field("slowThresholdNanos", new FullyQualifiedJavaType("long"));
+        slowThresholdNanos.setVisibility(JavaVisibility.PRIVATE);
+        slowThresholdNanos.setVolatile(true);
+        slowThresholdNanos.setInitializationString(
+                "TimeUnit.MILLISECONDS.toNanos(" + DEFAULT_SLOW_THRESHOLD_MILLIS + ")");
+        interceptor.addField(slowThresholdNanos);
+
+        Field generatedOnly = new Field("generatedOnly", FullyQualifiedJavaType.getBooleanPrimitiveInstance());
+        generatedOnly.setVisibility(JavaVisibility.PRIVATE);
+        generatedOnly.setVolatile(true);
+        generatedOnly.setInitializationString("true");
+        interceptor.addField(generatedOnly);
+    }
+
+    private void addIntercept(TopLevelClass interceptor, Interface baseMapperInterface) {
+        Method intercept = new Method("intercept");
+        intercept.addAnnotation("@Override");
+        intercept.setVisibility(JavaVisibility.PUBLIC);
+        intercept.setReturnType(FullyQualifiedJavaType.getObjectInstance());
+        intercept.addParameter(new Parameter(new FullyQualifiedJavaType("Invocation"), "invocation"));
+        intercept.addException(new FullyQualifiedJavaType("java.lang.Throwable"));
+        intercept.addBodyLine("MappedStatement mappedStatement = (MappedStatement) invocation.getArgs()[0];");
+        intercept.addBodyLine("String statementId = mappedStatement.getId();");
+        intercept.addBodyLine("if (!isRecorded(mappedStatement)) {");
+        intercept.addBodyLine("return invocation.proceed();");
+        intercept.addBodyLine("}");
+        intercept.addBodyLine("long start = System.nanoTime();");
+        intercept.addBodyLine("Object result = null;");
+        intercept.addBodyLine("boolean failed = true;");
+        intercept.addBodyLine("try {");
+        intercept.addBodyLine("result = invocation.proceed();");
+        intercept.addBodyLine("failed = false;");
+        intercept.addBodyLine("return result;");
+        intercept.addBodyLine("} finally {");
+        intercept.addBodyLine("long elapsedNanos = System.nanoTime() - start;");
+        intercept.addBodyLine("int rows = rowsOf(result);");
+        intercept.addBodyLine("recorder.record(statementId, elapsedNanos, rows, failed);");
+        intercept.addBodyLine("if (elapsedNanos >= slowThresholdNanos) {");
+        intercept.addBodyLine("LOG.warn(\"Slow statement \" + statementId + \" took \"");
+        intercept.addBodyLine("        + TimeUnit.NANOSECONDS.toMillis(elapsedNanos) + \" ms, rows: \" + rows");
+        intercept.addBodyLine("        + (failed ? \", failed\" : \"\"));");
+        intercept.addBodyLine("}");
+        intercept.addBodyLine("}");
+        interceptor.addMethod(intercept);
+
+        Method isRecorded = new Method("isRecorded");
+        isRecorded.setVisibility(JavaVisibility.PRIVATE);
+        isRecorded.setReturnType(FullyQualifiedJavaType.getBooleanPrimitiveInstance());
+        isRecorded.addParameter(new Parameter(new FullyQualifiedJavaType("MappedStatement"), "mappedStatement"));
+        isRecorded.addBodyLine("if (!generatedOnly) {");
+        isRecorded.addBodyLine("return true;");
+        isRecorded.addBodyLine("}");
+        isRecorded.addBodyLine("Boolean recorded = recordedStatements.get(mappedStatement.getId());");
+        isRecorded.addBodyLine("if (recorded == null) {");
+        isRecorded.addBodyLine("recorded = isGenerated(mappedStatement);");
+        isRecorded.addBodyLine("recordedStatements.put(mappedStatement.getId(), recorded);");
+        isRecorded.addBodyLine("}");
+        isRecorded.addBodyLine("return recorded;");
+        interceptor.addMethod(isRecorded);
+
+        // a hand written mapper may declare a statement of the same name, so the namespace is checked as well
+        String baseMapperName = new FullyQualifiedJavaType(
+                baseMapperInterface.getType().getFullyQualifiedNameWithoutTypeParameters()).getShortName();
+        Method isGenerated = new Method("isGenerated");
+        isGenerated.addJavaDocLine("/**");
+        isGenerated.addJavaDocLine(" * a statement of the " + baseMapperName
+                + ", whose namespace is a registered mapper extending the " + baseMapperName);
+        isGenerated.addJavaDocLine(" */");
+        isGenerated.setVisibility(JavaVisibility.PRIVATE);
+        isGenerated.setStatic(true);
+        isGenerated.setReturnType(FullyQualifiedJavaType.getBooleanPrimitiveInstance());
+        isGenerated.addParameter(new Parameter(new FullyQualifiedJavaType("MappedStatement"), "mappedStatement"));
+        isGenerated.addBodyLine("String statementId = mappedStatement.getId();");
+        isGenerated.addBodyLine("int index = statementId.lastIndexOf('.');");
+        isGenerated.addBodyLine("if (index == -1 "
+                + "|| !GENERATED_STATEMENTS.contains(statementId.substring(index + 1))) {");
+        isGenerated.addBodyLine("return false;");
+        isGenerated.addBodyLine("}");
+        isGenerated.addBodyLine("String namespace = statementId.substring(0, index);");
+        isGenerated.addBodyLine("for (Class<?> mapperType : "
+                + "mappedStatement.getConfiguration().getMapperRegistry().getMappers()) {");
+        isGenerated.addBodyLine("if (mapperType.getName().equals(namespace)) {");
+        isGenerated.addBodyLine("return " + baseMapperName + ".class.isAssignableFrom(mapperType);");
+        isGenerated.addBodyLine("}");
+        isGenerated.addBodyLine("}");
+        isGenerated.addBodyLine("return false;");
+        interceptor.addMethod(isGenerated);
+
+        Method rowsOf = new Method("rowsOf");
+        rowsOf.addJavaDocLine("/**");
+        rowsOf.addJavaDocLine(" * the size of a query result or the update count, -1 for a cursor or a failure");
+        rowsOf.addJavaDocLine(" */");
+        rowsOf.setVisibility(JavaVisibility.PRIVATE);
+        rowsOf.setStatic(true);
+        rowsOf.setReturnType(FullyQualifiedJavaType.getIntInstance());
+        rowsOf.addParameter(new Parameter(FullyQualifiedJavaType.getObjectInstance(), "result"));
+        rowsOf.addBodyLine("if (result instanceof List) {");
+        rowsOf.addBodyLine("return ((List<?>) result).size();");
+        rowsOf.addBodyLine("}");
+        rowsOf.addBodyLine("if (result instanceof Integer) {");
+        rowsOf.addBodyLine("return (Integer) result;");
+        rowsOf.addBodyLine("}");
+        rowsOf.addBodyLine("return -1;");
+        interceptor.addMethod(rowsOf);
+    }
+
+    private void addConfiguration(TopLevelClass interceptor) {
+        Method plugin = new Method("plugin");
+        plugin.addAnnotation("@Override");
+        plugin.setVisibility(JavaVisibility.PUBLIC);
+        plugin.setReturnType(FullyQualifiedJavaType.getObjectInstance());
+        plugin.addParameter(new Parameter(FullyQualifiedJavaType.getObjectInstance(), "target"));
+        plugin.addBodyLine("return Plugin.wrap(target, this);");
+        interceptor.addMethod(plugin);
+
+        Method setProperties = new Method("setProperties");
+        setProperties.addJavaDocLine("/**");
+        setProperties.addJavaDocLine(" * slowThresholdMillis: the slower statements are logged, 1000 by default");
+        setProperties.addJavaDocLine(" * generatedOnly: false to also record the hand written statements");
+        setProperties.addJavaDocLine(" */");
+        setProperties.addAnnotation("@Override");
+        setProperties.setVisibility(JavaVisibility.PUBLIC);
+        setProperties.addParameter(new Parameter(new FullyQualifiedJavaType("Properties"), "properties"));
+        setProperties.addBodyLine("String slowThresholdMillis = properties.getProperty(\"slowThresholdMillis\");");
+        setProperties.addBodyLine("if (slowThresholdMillis != null) {");
+        setProperties.addBodyLine("setSlowThresholdMillis(Long.parseLong(slowThresholdMillis.trim()));");
+        setProperties.addBodyLine("}");
+        setProperties.addBodyLine("String generatedOnly = properties.getProperty(\"generatedOnly\");");
+        setProperties.addBodyLine("if (generatedOnly != null) {");
+        setProperties.addBodyLine("this.generatedOnly = Boolean.parseBoolean(generatedOnly.trim());");
+        setProperties.addBodyLine("}");
+        interceptor.addMethod(setProperties);
+
+        Method setSlowThresholdMillis = new Method("setSlowThresholdMillis");
+        setSlowThresholdMillis.setVisibility(JavaVisibility.PUBLIC);
+        setSlowThresholdMillis.addParameter(new Parameter(new FullyQualifiedJavaType("long"), "slowThresholdMillis"));
+        setSlowThresholdMillis.addBodyLine(
+                "this.slowThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowThresholdMillis);");
+        interceptor.addMethod(setSlowThresholdMillis);
+
+        Method getRecorder = new Method("getRecorder");
+        getRecorder.setVisibility(JavaVisibility.PUBLIC);
+        getRecorder.setReturnType(new FullyQualifiedJavaType("Recorder"));
+        getRecorder.addBodyLine("return recorder;");
+        interceptor.addMethod(getRecorder);
+
+        Method setRecorder = new Method("setRecorder");
+        setRecorder.addJavaDocLine("/**");
+        setRecorder.addJavaDocLine(" * replaces the in memory recorder, such as by one reporting to a metrics library");
+        setRecorder.addJavaDocLine(" */");
+        setRecorder.setVisibility(JavaVisibility.PUBLIC);
+        setRecorder.addParameter(new Parameter(new FullyQualifiedJavaType("Recorder"), "recorder"));
+        setRecorder.addBodyLine("if (recorder == null) {");
+        setRecorder.addBodyLine("throw new IllegalArgumentException(\"recorder must not be null\");");
+        setRecorder.addBodyLine("}");
+        setRecorder.addBodyLine("this.recorder = recorder;");
+        interceptor.addMethod(setRecorder);
+    }
+
+    private InnerInterface generateRecorder() {
+        InnerInterface recorder = new InnerInterface("Recorder");
+        recorder.addJavaDocLine("/**");
+        recorder.addJavaDocLine(" * called by every recorded statement, it must be thread safe and cheap");
+        recorder.addJavaDocLine(" */");
+        recorder.setVisibility(JavaVisibility.PUBLIC);
+        Method record = new Method("record");
+        record.addJavaDocLine("/**");
+        record.addJavaDocLine(" * @param statementId the full statement id, such as demo.UserMapper.selectByExample");
+        record.addJavaDocLine(" * @param rows        the rows returned or affected, -1 for a cursor or a failure");
+        record.addJavaDocLine(" */");
+        record.setAbstract(true);
+        record.addParameter(new Parameter(FullyQualifiedJavaType.getStringInstance(), "statementId"));
+        record.addParameter(new Parameter(new FullyQualifiedJavaType("long"), "elapsedNanos"));
+        record.addParameter(new Parameter(FullyQualifiedJavaType.getIntInstance(), "rows"));
+        record.addParameter(new Parameter(FullyQualifiedJavaType.getBooleanPrimitiveInstance(), "failed"));
+        recorder.addMethod(record);
+        return recorder;
+    }
+
+    private InnerClass generateInMemoryRecorder() {
+        InnerClass recorder = new InnerClass("InMemoryRecorder");
+        recorder.setVisibility(JavaVisibility.PUBLIC);
+        recorder.setStatic(true);
+        recorder.addSuperInterface(new FullyQualifiedJavaType("Recorder"));
+
+        Field metrics = new Field("metrics", new FullyQualifiedJavaType("ConcurrentMap<String, StatementMetrics>"));
+        metrics.setVisibility(JavaVisibility.PRIVATE);
+        metrics.setFinal(true);
+        metrics.setInitializationString("new ConcurrentHashMap<>()");
+        recorder.addField(metrics);
+
+        Method record = new Method("record");
+        record.addAnnotation("@Override");
+        record.setVisibility(JavaVisibility.PUBLIC);
+        record.addParameter(new Parameter(FullyQualifiedJavaType.getStringInstance(), "statementId"));
+        record.addParameter(new Parameter(new FullyQualifiedJavaType("long"), "elapsedNanos"));
+        record.addParameter(new Parameter(FullyQualifiedJavaType.getIntInstance(), "rows"));
+        record.addParameter(new Parameter(FullyQualifiedJavaType.getBooleanPrimitiveInstance(), "failed"));
+        // get first, computeIfAbsent locks the bin even if the key is present
+        record.addBodyLine("StatementMetrics statementMetrics = metrics.get(statementId);");
+        record.addBodyLine("if (statementMetrics == null) {");
+        record.addBodyLine(
+                "statementMetrics = metrics.computeIfAbsent(statementId, id -> new StatementMetrics());");
+        record.addBodyLine("}");
+        record.addBodyLine("statementMetrics.record(elapsedNanos, rows, failed);");
+        recorder.addMethod(record);
+
+        Method getMetrics = new Method("getMetrics");
+        getMetrics.addJavaDocLine("/**");
+        getMetrics.addJavaDocLine(" * the metrics by the full statement id");
+        getMetrics.addJavaDocLine(" */");
+        getMetrics.setVisibility(JavaVisibility.PUBLIC);
+        getMetrics.setReturnType(new FullyQualifiedJavaType("Map<String, StatementMetrics>"));
+        getMetrics.addBodyLine("return Collections.unmodifiableMap(metrics);");
+        recorder.addMethod(getMetrics);
+
+        Method reset = new Method("reset");
+        reset.setVisibility(JavaVisibility.PUBLIC);
+        reset.addBodyLine("metrics.clear();");
+        recorder.addMethod(reset);
+        return recorder;
+    }
+
+    private InnerClass generateStatementMetrics() {
+        InnerClass statementMetrics = new InnerClass("StatementMetrics");
+        statementMetrics.setVisibility(JavaVisibility.PUBLIC);
+        statementMetrics.setStatic(true);
+
+        Field buckets = new Field("buckets", new FullyQualifiedJavaType("AtomicLongArray"));
+        buckets.addJavaDocLine("/**");
+        buckets.addJavaDocLine(" * the bucket i counts the calls taking [2^i, 2^(i+1)) nanoseconds");
+        buckets.addJavaDocLine(" */");
+        buckets.setVisibility(JavaVisibility.PRIVATE);
+        buckets.setFinal(true);
+        buckets.setInitializationString("new AtomicLongArray(" + BUCKETS + ")");
+        statementMetrics.addField(buckets);
+        for (String name : new String[]{"calls", "failures", "rows", "totalNanos"}) {
+            Field adder = new Field(name, new FullyQualifiedJavaType("LongAdder"));
+            adder.setVisibility(JavaVisibility.PRIVATE);
+            adder.setFinal(true);
+            adder.setInitializationString("new LongAdder()");
+            statementMetrics.addField(adder);
+        }
+        Field maxNanos = new Field("maxNanos", new FullyQualifiedJavaType("LongAccumulator"));
+        maxNanos.setVisibility(JavaVisibility.PRIVATE);
+        maxNanos.setFinal(true);
+        maxNanos.setInitializationString("new LongAccumulator(Math::max, 0)");
+        statementMetrics.addField(maxNanos);
+
+        Method record = new Method("record");
+        record.addParameter(new Parameter(new FullyQualifiedJavaType("long"), "elapsedNanos"));
+        record.addParameter(new Parameter(FullyQualifiedJavaType.getIntInstance(), "rows"));
+        record.addParameter(new Parameter(FullyQualifiedJavaType.getBooleanPrimitiveInstance(), "failed"));
+        record.addBodyLine("buckets.incrementAndGet(" + (BUCKETS - 1)
+                + " - Long.numberOfLeadingZeros(Math.max(elapsedNanos, 1)));");
+        record.addBodyLine("calls.increment();");
+        record.addBodyLine("if (failed) {");
+        record.addBodyLine("failures.increment();");
+        record.addBodyLine("} else if (rows > 0) {");
+        record.addBodyLine("this.rows.add(rows);");
+        record.addBodyLine("}");
+        record.addBodyLine("totalNanos.add(elapsedNanos);");
+        record.addBodyLine("maxNanos.accumulate(elapsedNanos);");
+        statementMetrics.addMethod(record);
+
+        for (String name : new String[]{"calls", "failures", "rows", "totalNanos", "maxNanos"}) {
+            Method getter = new Method("get" + Character.toUpperCase(name.charAt(0)) + name.substring(1));
+            getter.setVisibility(JavaVisibility.PUBLIC);
+            getter.setReturnType(new FullyQualifiedJavaType("long"));
+            getter.addBodyLine("return " + name + (name.equals("maxNanos") ? ".get();" : ".sum();"));
+            statementMetrics.addMethod(getter);
+        }
+
+        Method getPercentileNanos = new Method("getPercentileNanos");
+        getPercentileNanos.addJavaDocLine("/**");
+        getPercentileNanos.addJavaDocLine(" * @param percentile such as 99 or 99.9");
+        getPercentileNanos.addJavaDocLine(" * @return the upper bound of the histogram bucket of the percentile, "
+                + "at most twice the real latency");
+        getPercentileNanos.addJavaDocLine(" */");
+        getPercentileNanos.setVisibility(JavaVisibility.PUBLIC);
+        getPercentileNanos.setReturnType(new FullyQualifiedJavaType("long"));
+        getPercentileNanos.addParameter(new Parameter(new FullyQualifiedJavaType("double"), "percentile"));
+        getPercentileNanos.addBodyLine("long[] counts = new long[" + BUCKETS + "];");
+        getPercentileNanos.addBodyLine("long total = 0;");
+        getPercentileNanos.addBodyLine("for (int i = 0; i < counts.length; i++) {");
+        getPercentileNanos.addBodyLine("counts[i] = buckets.get(i);");
+        getPercentileNanos.addBodyLine("total += counts[i];");
+        getPercentileNanos.addBodyLine("}");
+        getPercentileNanos.addBodyLine("long rank = Math.max(1, (long) Math.ceil(total * percentile / 100));");
+        getPercentileNanos.addBodyLine("long seen = 0;");
+        getPercentileNanos.addBodyLine("for (int i = 0; i < counts.length; i++) {");
+        getPercentileNanos.addBodyLine("seen += counts[i];");
+        getPercentileNanos.addBodyLine("if (seen >= rank) {");
+        getPercentileNanos.addBodyLine("return Math.min((2L << i) - 1, maxNanos.get());");
+        getPercentileNanos.addBodyLine("}");
+        getPercentileNanos.addBodyLine("}");
+        getPercentileNanos.addBodyLine("return 0;");
+        statementMetrics.addMethod(getPercentileNanos);
+
+        Method toString = new Method("toString");
+        toString.addAnnotation("@Override");
+        toString.setVisibility(JavaVisibility.PUBLIC);
+        toString.setReturnType(FullyQualifiedJavaType.getStringInstance());
+        toString.addBodyLine("long calls = getCalls();");
+        toString.addBodyLine("return \"calls=\" + calls");
+        toString.addBodyLine("        + \", failures=\" + getFailures()");
+        toString.addBodyLine("        + \", rows=\" + getRows()");
+        toString.addBodyLine("        + \", meanMicros=\" + (calls == 0 ? 0 : getTotalNanos() / calls / 1000)");
+        toString.addBodyLine("        + \", p99Micros=\" + getPercentileNanos(99) / 1000");
+        toString.addBodyLine("        + \", maxMicros=\" + getMaxNanos() / 1000;");
+        statementMetrics.addMethod(toString);
+        return statementMetrics;
+    }
+}
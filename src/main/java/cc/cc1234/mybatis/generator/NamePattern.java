@@ -0,0 +1,112 @@
+package cc.cc1234.mybatis.generator;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+
+/**
+ * a comma separated list of case insensitive names, where <b>*</b> matches any characters, such as: dict_*, country.
+ * a name starting with <b>regex:</b> is a java regex instead, such as: regex:log_\d+, and must not contain a comma.
+ * the patterns are compiled once and can be matched against every table, the exact names are looked up in a case
+ * insensitive set, so matching a name does not lower case it.
+ */
+public class NamePattern {
+
+    private static final String REGEX_PREFIX = "regex:";
+
+    private static final NamePattern NONE = new NamePattern(false, newNameSet(), new ArrayList<>());
+
+    private final boolean all;
+
+    private final Set<String> names;
+
+    private final List<Pattern> patterns;
+
+    private NamePattern(boolean all, Set<String> names, List<Pattern> patterns) {
+        this.all = all;
+        this.names = names;
+        this.patterns = patterns;
+    }
+
+    /**
+     * @param value null or blank matches nothing
+     * @throws java.util.regex.PatternSyntaxException if a regex is invalid
+     */
+    public static NamePattern compile(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return NONE;
+        }
+        boolean all = false;
+        Set<String> names = newNameSet();
+        List<Pattern> patterns = new ArrayList<>();
+        for (String name : value.split(",")) {
+            name = name.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            if (name.startsWith(REGEX_PREFIX)) {
+                patterns.add(Pattern.compile(name.substring(REGEX_PREFIX.length()),
+                        Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE));
+                continue;
+            }
+            if (name.equals("*")) {
+                all = true;
+                continue;
+            }
+            if (name.indexOf('*') == -1) {
+                names.add(name);
+                continue;
+            }
+            StringBuilder regex = new StringBuilder();
+            int from = 0;
+            for (int idx = name.indexOf('*'); idx != -1; idx = name.indexOf('*', from)) {
+                regex.append(Pattern.quote(name.substring(from, idx))).append(".*");
+                from = idx + 1;
+            }
+            regex.append(Pattern.quote(name.substring(from)));
+            patterns.add(Pattern.compile(regex.toString(), Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE));
+        }
+        return new NamePattern(all, names, patterns);
+    }
+
+    /**
+     * @return a pattern matching the names matched by any of the given patterns
+     */
+    public static NamePattern union(Collection<NamePattern> namePatterns) {
+        boolean all = false;
+        Set<String> names = newNameSet();
+        List<Pattern> patterns = new ArrayList<>();
+        for (NamePattern namePattern : namePatterns) {
+            all |= namePattern.all;
+            names.addAll(namePattern.names);
+            patterns.addAll(namePattern.patterns);
+        }
+        if (!all && names.isEmpty() && patterns.isEmpty()) {
+            return NONE;
+        }
+        return new NamePattern(all, names, patterns);
+    }
+
+    public boolean matches(String name) {
+        if (all || names.contains(name)) {
+            return true;
+        }
+        for (Pattern pattern : patterns) {
+            if (pattern.matcher(name).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean isEmpty() {
+        return !all && names.isEmpty() && patterns.isEmpty();
+    }
+
+    private static Set<String> newNameSet() {
+        return new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+    }
+}
@@ -4,12 +4,23 @@ import org.mybatis.generator.api.IntrospectedColumn;
 import org.mybatis.generator.api.IntrospectedTable;
 import org.mybatis.generator.api.PluginAdapter;
 import org.mybatis.generator.api.dom.java.*;
+import org.mybatis.generator.api.dom.xml.VisitableElement;
+import org.mybatis.generator.api.dom.xml.XmlElement;
 
 import java.util.*;
 
 /**
  * <p>
- * set property <b>ignoreColumns</b> to configure which columns should be ignored, such as: *.created, user.id.
+ * set property <b>ignore.columns</b> to configure which columns should be ignored, such as: *.created, user.id,
+ * audit_*.*_time, see {@link ColumnPattern}.
+ * </p>
+ * <p>
+ * set property <b>primitive.types</b> to true to use the primitive types for the not null numeric and boolean columns,
+ * the selective statements always write them.
+ * </p>
+ * <p>
+ * set property <b>or-else.getter</b> and <b>if-present.method</b> to true to generate the accessors of the nullable
+ * columns without allocating an Optional: getXOrElse(other) and ifXPresent(action).
  * </p>
  */
 public class NullSafePlugin extends PluginAdapter {
@@ -22,43 +33,142 @@ public class NullSafePlugin extends PluginAdapter {
 
     private static final String ADD_CUSTOMIZE_ANNOTATION = "customize.annotation";
 
-    private static final String ALL = "*";
+    private static final String PRIMITIVE_TYPES = "primitive.types";
 
-    private Map<String, Set<String>> ignoredTableColumns = new HashMap<>();
+    private static final String ADD_OR_ELSE_GETTER = "or-else.getter";
+
+    private static final String ADD_IF_PRESENT_METHOD = "if-present.method";
+
+    private static final Map<String, FullyQualifiedJavaType> PRIMITIVES = new HashMap<>();
+
+    static {
+        PRIMITIVES.put(Boolean.class.getName(), FullyQualifiedJavaType.getBooleanPrimitiveInstance());
+        PRIMITIVES.put(Byte.class.getName(), new FullyQualifiedJavaType("byte"));
+        PRIMITIVES.put(Short.class.getName(), new FullyQualifiedJavaType("short"));
+        PRIMITIVES.put(Integer.class.getName(), FullyQualifiedJavaType.getIntInstance());
+        PRIMITIVES.put(Long.class.getName(), new FullyQualifiedJavaType("long"));
+        PRIMITIVES.put(Float.class.getName(), new FullyQualifiedJavaType("float"));
+        PRIMITIVES.put(Double.class.getName(), new FullyQualifiedJavaType("double"));
+    }
+
+    private ColumnPattern ignoredColumns;
+
+    private String customizeAnnotation;
+
+    private boolean usePrimitiveTypes;
 
     private boolean addSpringNullableAnnotation;
 
     private boolean addOptionalGetter;
 
+    private boolean addOrElseGetter;
+
+    private boolean addIfPresentMethod;
+
     @Override
     public boolean validate(List<String> warnings) {
+        ignoredColumns = ColumnPattern.compile(IGNORE_COLUMN_PROP,
+                properties.getProperty(IGNORE_COLUMN_PROP), warnings);
+        customizeAnnotation = properties.getProperty(ADD_CUSTOMIZE_ANNOTATION);
+        usePrimitiveTypes = Boolean.parseBoolean(
+                properties.getOrDefault(PRIMITIVE_TYPES, "false").toString());
+        addSpringNullableAnnotation = Boolean.parseBoolean(
+                properties.getOrDefault(ADD_SPRING_NULLABLE_ANNOTATION, "false").toString());
+        addOptionalGetter = Boolean.parseBoolean(
+                properties.getOrDefault(ADD_OPTIONAL_GETTER, "true").toString());
+        addOrElseGetter = Boolean.parseBoolean(
+                properties.getOrDefault(ADD_OR_ELSE_GETTER, "false").toString());
+        addIfPresentMethod = Boolean.parseBoolean(
+                properties.getOrDefault(ADD_IF_PRESENT_METHOD, "false").toString());
         return true;
     }
 
     @Override
     public void initialized(IntrospectedTable introspectedTable) {
-        String ignoreColumns = (String) super.properties.getOrDefault(IGNORE_COLUMN_PROP, "");
-        if (ignoreColumns.isEmpty()) {
-            return;
+        if (usePrimitiveTypes) {
+            usePrimitiveTypes(introspectedTable);
         }
+    }
 
-        String[] ignoreColumnsArray = ignoreColumns.split(",");
-        for (String ignoreColumnPattern : ignoreColumnsArray) {
-            int separatorIndex = ignoreColumnPattern.lastIndexOf(".");
-            if (separatorIndex == -1) {
+    /**
+     * the type is changed before the model and the mapper are generated, the same as a columnOverride with a
+     * primitive javaType, so the result maps, the selective statements and the lombok builders use it too.
+     * the primary keys, the generated columns and the columns with a default value keep their wrapper types, as
+     * the selective statements would write 0 or false instead of null.
+     */
+    private void usePrimitiveTypes(IntrospectedTable introspectedTable) {
+        String tableName = introspectedTable.getFullyQualifiedTable().getIntrospectedTableName();
+        for (IntrospectedColumn column : introspectedTable.getNonPrimaryKeyColumns()) {
+            FullyQualifiedJavaType primitiveType =
+                    PRIMITIVES.get(column.getFullyQualifiedJavaType().getFullyQualifiedName());
+            if (primitiveType == null
+                    || column.isNullable()
+                    || column.isIdentity()
+                    || column.isAutoIncrement()
+                    || column.isGeneratedColumn()
+                    || column.isGeneratedAlways()
+                    || column.getDefaultValue() != null
+                    || ignore(tableName, column.getActualColumnName())) {
                 continue;
             }
+            column.setFullyQualifiedJavaType(primitiveType);
+        }
+    }
 
-            String tableName = ignoreColumnPattern.substring(0, separatorIndex).trim();
-            String columnName = ignoreColumnPattern.substring(separatorIndex + 1).trim();
-            Set<String> values = ignoredTableColumns.computeIfAbsent(tableName, k -> new HashSet<>());
-            values.add(columnName);
+    @Override
+    public boolean sqlMapInsertSelectiveElementGenerated(XmlElement element, IntrospectedTable introspectedTable) {
+        writePrimitiveColumns(element, introspectedTable);
+        return true;
+    }
+
+    @Override
+    public boolean sqlMapUpdateByPrimaryKeySelectiveElementGenerated(XmlElement element,
+                                                                     IntrospectedTable introspectedTable) {
+        writePrimitiveColumns(element, introspectedTable);
+        return true;
+    }
+
+    @Override
+    public boolean sqlMapUpdateByExampleSelectiveElementGenerated(XmlElement element,
+                                                                  IntrospectedTable introspectedTable) {
+        writePrimitiveColumns(element, introspectedTable);
+        return true;
+    }
+
+    /**
+     * a primitive is never null, so the {@code <if test="x != null">} of its column is replaced by the content
+     */
+    private void writePrimitiveColumns(XmlElement element, IntrospectedTable introspectedTable) {
+        Set<String> tests = new HashSet<>();
+        for (IntrospectedColumn column : introspectedTable.getAllColumns()) {
+            if (column.getFullyQualifiedJavaType().isPrimitive()) {
+                tests.add(column.getJavaProperty() + " != null");
+                tests.add(column.getJavaProperty("row.") + " != null");
+            }
+        }
+        if (!tests.isEmpty()) {
+            unwrapIfElements(element, tests);
         }
+    }
 
-        addSpringNullableAnnotation = Boolean.parseBoolean(
-                properties.getOrDefault(ADD_SPRING_NULLABLE_ANNOTATION, "false").toString());
-        addOptionalGetter = Boolean.parseBoolean(
-                properties.getOrDefault(ADD_OPTIONAL_GETTER, "true").toString());
+    private static void unwrapIfElements(XmlElement element, Set<String> tests) {
+        List<VisitableElement> elements = new ArrayList<>();
+        for (VisitableElement child : element.getElements()) {
+            if (!(child instanceof XmlElement)) {
+                elements.add(child);
+                continue;
+            }
+            XmlElement childElement = (XmlElement) child;
+            unwrapIfElements(childElement, tests);
+            if (childElement.getName().equals("if") && childElement.getAttributes().stream()
+                    .anyMatch(attribute -> attribute.getName().equals("test") && tests.contains(attribute.getValue()))) {
+                elements.addAll(childElement.getElements());
+            } else {
+                elements.add(childElement);
+            }
+        }
+        element.getElements().clear();
+        element.getElements().addAll(elements);
     }
 
     @Override
@@ -89,6 +199,8 @@ public class NullSafePlugin extends PluginAdapter {
         }
 
         addOptionalGetter(method, topLevelClass, introspectedColumn);
+        addOrElseGetter(method, topLevelClass, introspectedColumn);
+        addIfPresentMethod(method, topLevelClass, introspectedColumn);
         addSpringNullableAnnotation(method, topLevelClass, introspectedColumn);
         addCustomizeAnnotation(method, topLevelClass, introspectedColumn);
         return true;
@@ -112,20 +224,7 @@ public class NullSafePlugin extends PluginAdapter {
     }
 
     protected boolean ignore(String tableName, String columnName) {
-        if (ignoredTableColumns.containsKey(tableName)) {
-            Set<String> ignoredColumns = ignoredTableColumns.get(tableName);
-            if (ignoredColumns.contains(columnName)) {
-                return true;
-            }
-        }
-
-        if (ignoredTableColumns.containsKey(ALL)) {
-            Set<String> ignoredColumns = ignoredTableColumns.get(ALL);
-            if (ignoredColumns.contains(columnName)) {
-                return true;
-            }
-        }
-        return false;
+        return ignoredColumns.matches(tableName, columnName);
     }
 
     private void addOptionalGetter(Method method,
@@ -145,6 +244,57 @@ public class NullSafePlugin extends PluginAdapter {
         }
     }
 
+    /**
+     * getXOrElse(other) returns the field itself, the numeric and boolean columns get a primitive overload too,
+     * which unboxes the field instead of boxing the default value.
+     */
+    private void addOrElseGetter(Method method,
+                                 TopLevelClass topLevelClass,
+                                 IntrospectedColumn introspectedColumn) {
+        if (addOrElseGetter && introspectedColumn.isNullable()) {
+            method.getReturnType().ifPresent(returnType -> {
+                String property = introspectedColumn.getJavaProperty();
+                Method orElseGetter = new Method(method.getName() + "OrElse");
+                orElseGetter.setVisibility(method.getVisibility());
+                orElseGetter.setReturnType(returnType);
+                orElseGetter.addParameter(new Parameter(returnType, "other"));
+                orElseGetter.addBodyLine("return " + property + " != null ? " + property + " : other;");
+                topLevelClass.addMethod(orElseGetter);
+
+                FullyQualifiedJavaType primitiveType = PRIMITIVES.get(returnType.getFullyQualifiedName());
+                if (primitiveType != null) {
+                    Method primitiveGetter = new Method(orElseGetter.getName());
+                    primitiveGetter.setVisibility(method.getVisibility());
+                    primitiveGetter.setReturnType(primitiveType);
+                    primitiveGetter.addParameter(new Parameter(primitiveType, "other"));
+                    primitiveGetter.addBodyLine("return " + property + " != null ? " + property + " : other;");
+                    topLevelClass.addMethod(primitiveGetter);
+                }
+            });
+        }
+    }
+
+    private void addIfPresentMethod(Method method,
+                                    TopLevelClass topLevelClass,
+                                    IntrospectedColumn introspectedColumn) {
+        if (addIfPresentMethod && introspectedColumn.isNullable()) {
+            method.getReturnType().ifPresent(returnType -> {
+                topLevelClass.addImportedType(new FullyQualifiedJavaType("java.util.function.Consumer"));
+                String property = introspectedColumn.getJavaProperty();
+                String getterName = method.getName();
+                Method ifPresent = new Method("if"
+                        + getterName.substring(getterName.startsWith("is") ? 2 : 3) + "Present");
+                ifPresent.setVisibility(method.getVisibility());
+                ifPresent.addParameter(new Parameter(
+                        new FullyQualifiedJavaType("Consumer<? super " + returnType.getShortName() + ">"), "action"));
+                ifPresent.addBodyLine("if (" + property + " != null) {");
+                ifPresent.addBodyLine("action.accept(" + property + ");");
+                ifPresent.addBodyLine("}");
+                topLevelClass.addMethod(ifPresent);
+            });
+        }
+    }
+
     private void addSpringNullableAnnotation(Method method,
                                              TopLevelClass topLevelClass,
                                              IntrospectedColumn introspectedColumn) {
@@ -175,7 +325,6 @@ public class NullSafePlugin extends PluginAdapter {
     private void addCustomizeAnnotation(Method method,
                                         TopLevelClass topLevelClass,
                                         IntrospectedColumn introspectedColumn) {
-        String customizeAnnotation = properties.getProperty(ADD_CUSTOMIZE_ANNOTATION);
         if (customizeAnnotation != null && introspectedColumn.isNullable()) {
             method.addAnnotation(customizeAnnotation);
         }
@@ -184,7 +333,6 @@ public class NullSafePlugin extends PluginAdapter {
     private void addCustomizeAnnotation(Field field,
                                         TopLevelClass topLevelClass,
                                         IntrospectedColumn introspectedColumn) {
-        String customizeAnnotation = properties.getProperty(ADD_CUSTOMIZE_ANNOTATION);
         if (customizeAnnotation != null && introspectedColumn.isNullable()) {
             field.addAnnotation(customizeAnnotation);
         }
@@ -193,7 +341,6 @@ public class NullSafePlugin extends PluginAdapter {
     private void addCustomizeAnnotation(Parameter parameter,
                                         TopLevelClass topLevelClass,
                                         IntrospectedColumn introspectedColumn) {
-        String customizeAnnotation = properties.getProperty(ADD_CUSTOMIZE_ANNOTATION);
         if (customizeAnnotation != null && introspectedColumn.isNullable()) {
             parameter.addAnnotation(customizeAnnotation);
         }
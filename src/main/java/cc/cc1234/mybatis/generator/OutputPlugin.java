@@ -0,0 +1,299 @@
+package cc.cc1234.mybatis.generator;
+
+import org.mybatis.generator.api.GeneratedJavaFile;
+import org.mybatis.generator.api.GeneratedXmlFile;
+import org.mybatis.generator.api.IntrospectedTable;
+import org.mybatis.generator.api.PluginAdapter;
+import org.mybatis.generator.api.dom.java.CompilationUnit;
+import org.mybatis.generator.api.dom.java.Interface;
+import org.mybatis.generator.api.dom.java.TopLevelClass;
+import org.mybatis.generator.config.PluginConfiguration;
+import org.mybatis.generator.config.PropertyRegistry;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * the output stage of the models, the examples, the java clients and the xml mappers, configure it as the second to
+ * last plugin, before the {@link ParallelGenerationPlugin}, so the other plugins have changed the files before. the
+ * plugins after it are not called for the files written by it.
+ * <p>
+ * the files are compared with the files on disk, and the unchanged files are not written, so their timestamps are
+ * kept and the build tool or the ide doesn't compile them again. the new and the changed files are formatted and
+ * written in parallel by a bounded pool. an existing xml mapper which is changed is left to the generator, so it is
+ * merged as usual.
+ * </p>
+ * <p>
+ * set property <b>output.overwrite</b> to the same value as the overwrite flag of the generator, false by default as
+ * the generator's, the changed existing files are left to the generator then. set property <b>output.threads</b> to
+ * configure the size of the pool.
+ * </p>
+ * <p>
+ * the files are written when every table is generated, before the generator writes its own files, so they are
+ * written even if the generator is run with writeFiles false.
+ * </p>
+ */
+public class OutputPlugin extends PluginAdapter {
+
+    private static final String THREADS_PROP = "output.threads";
+
+    private static final String OVERWRITE_PROP = "output.overwrite";
+
+    private static final int DEFAULT_THREADS = Math.min(4, Runtime.getRuntime().availableProcessors());
+
+    private List<String> warnings;
+
+    private int threads;
+
+    private boolean overwrite;
+
+    /**
+     * the files written by this plugin when every table is generated, the tables may be generated in parallel
+     */
+    private final List<OutputFile> files = Collections.synchronizedList(new ArrayList<>());
+
+    private final AtomicInteger skipped = new AtomicInteger();
+
+    @Override
+    public boolean validate(List<String> warnings) {
+        this.warnings = TableWarnings.of(warnings);
+        this.overwrite = Boolean.parseBoolean(properties.getProperty(OVERWRITE_PROP, "false"));
+        checkPluginOrder(warnings);
+        this.threads = DEFAULT_THREADS;
+        String value = properties.getProperty(THREADS_PROP);
+        if (value != null) {
+            try {
+                this.threads = Integer.parseInt(value.trim());
+            } catch (NumberFormatException e) {
+                this.threads = 0;
+            }
+            if (this.threads <= 0) {
+                warnings.add("The value '" + value + "' of property '" + THREADS_PROP
+                        + "' is invalid, use the default value " + DEFAULT_THREADS + ".");
+                this.threads = DEFAULT_THREADS;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * the hooks return false for the files written by this plugin, which stops the hooks of the plugins after it
+     */
+    private void checkPluginOrder(List<String> warnings) {
+        List<PluginConfiguration> pluginConfigurations;
+        try {
+            pluginConfigurations = PluginConfigurations.of(context);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return;
+        }
+        boolean after = false;
+        for (PluginConfiguration pluginConfiguration : pluginConfigurations) {
+            String type = pluginConfiguration.getConfigurationType();
+            if (getClass().getName().equals(type)) {
+                after = true;
+            } else if (after && !ParallelGenerationPlugin.class.getName().equals(type)) {
+                warnings.add("The plugin " + type + " is configured after the " + getClass().getSimpleName()
+                        + " of context " + context.getId() + ", it is not called for the files written by the "
+                        + getClass().getSimpleName() + ", configure it before.");
+            }
+        }
+    }
+
+    @Override
+    public boolean modelBaseRecordClassGenerated(TopLevelClass topLevelClass, IntrospectedTable introspectedTable) {
+        return output(topLevelClass, context.getJavaModelGeneratorConfiguration().getTargetProject());
+    }
+
+    @Override
+    public boolean modelPrimaryKeyClassGenerated(TopLevelClass topLevelClass, IntrospectedTable introspectedTable) {
+        return output(topLevelClass, context.getJavaModelGeneratorConfiguration().getTargetProject());
+    }
+
+    @Override
+    public boolean modelRecordWithBLOBsClassGenerated(TopLevelClass topLevelClass,
+                                                      IntrospectedTable introspectedTable) {
+        return output(topLevelClass, context.getJavaModelGeneratorConfiguration().getTargetProject());
+    }
+
+    @Override
+    public boolean modelExampleClassGenerated(TopLevelClass topLevelClass, IntrospectedTable introspectedTable) {
+        return output(topLevelClass, context.getJavaModelGeneratorConfiguration().getTargetProject());
+    }
+
+    @Override
+    public boolean clientGenerated(Interface interfaze, IntrospectedTable introspectedTable) {
+        return output(interfaze, context.getJavaClientGeneratorConfiguration().getTargetProject());
+    }
+
+    @Override
+    public boolean sqlMapGenerated(GeneratedXmlFile sqlMap, IntrospectedTable introspectedTable) {
+        File directory = directory(sqlMap.getTargetProject(), sqlMap.getTargetPackage());
+        if (directory == null) {
+            return true;
+        }
+        return output(new File(directory, sqlMap.getFileName()), sqlMap::getFormattedContent,
+                StandardCharsets.UTF_8, sqlMap.isMergeable());
+    }
+
+    /**
+     * every table is generated now, write the files before the generator writes the others
+     */
+    @Override
+    public List<GeneratedJavaFile> contextGenerateAdditionalJavaFiles() {
+        int written = 0;
+        // by the path, as the order of the tables generated in parallel is undefined
+        files.sort(Comparator.comparing(file -> file.path));
+        if (!files.isEmpty()) {
+            ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, files.size()));
+            try {
+                List<Future<Boolean>> futures = new ArrayList<>(files.size());
+                for (OutputFile file : files) {
+                    futures.add(executor.submit(file::write));
+                }
+                for (int i = 0; i < futures.size(); i++) {
+                    try {
+                        if (futures.get(i).get()) {
+                            written++;
+                        } else {
+                            skipped.incrementAndGet();
+                        }
+                    } catch (ExecutionException e) {
+                        warnings.add("The file " + files.get(i).path + " is not written: " + e.getCause());
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        warnings.add("The file " + files.get(i).path + " is not written: " + e);
+                    }
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+        warnings.add("The output of context " + context.getId() + ": " + written + " files written, "
+                + skipped.get() + " unchanged files skipped.");
+        files.clear();
+        skipped.set(0);
+        return new ArrayList<>();
+    }
+
+    /**
+     * removes the files which are the same as the ones on disk, for the additional files of the other plugins,
+     * which don't go through this plugin
+     *
+     * @return the number of the removed files
+     */
+    public static int removeUnchanged(List<GeneratedJavaFile> javaFiles) {
+        int size = javaFiles.size();
+        javaFiles.removeIf(javaFile -> {
+            File directory = directory(javaFile.getTargetProject(), javaFile.getTargetPackage());
+            if (directory == null) {
+                return false;
+            }
+            String encoding = javaFile.getFileEncoding();
+            OutputFile outputFile = new OutputFile(new File(directory, javaFile.getFileName()).toPath(),
+                    javaFile::getFormattedContent,
+                    encoding == null ? Charset.defaultCharset() : Charset.forName(encoding));
+            try {
+                return outputFile.isUnchanged(outputFile.content());
+            } catch (IOException e) {
+                return false;
+            }
+        });
+        return size - javaFiles.size();
+    }
+
+    private boolean output(CompilationUnit compilationUnit, String targetProject) {
+        File directory = directory(targetProject, compilationUnit.getType().getPackageName());
+        if (directory == null) {
+            return true;
+        }
+        String encoding = context.getProperty(PropertyRegistry.CONTEXT_JAVA_FILE_ENCODING);
+        return output(new File(directory, compilationUnit.getType().getShortNameWithoutTypeArguments() + ".java"),
+                () -> context.getJavaFormatter().getFormattedContent(compilationUnit),
+                encoding == null ? Charset.defaultCharset() : Charset.forName(encoding), false);
+    }
+
+    /**
+     * @return false if the file is written by this plugin or unchanged, true to leave it to the generator
+     */
+    private boolean output(File file, Supplier<String> content, Charset charset, boolean mergeable) {
+        OutputFile outputFile = new OutputFile(file.toPath(), content, charset);
+        if (file.exists() && (mergeable || !overwrite)) {
+            try {
+                if (outputFile.isUnchanged(outputFile.content())) {
+                    skipped.incrementAndGet();
+                    return false;
+                }
+            } catch (IOException e) {
+                // the generator reports it
+            }
+            return true;
+        }
+        files.add(outputFile);
+        return false;
+    }
+
+    /**
+     * the same as the DefaultShellCallback, which requires the target project to exist
+     *
+     * @return null if the target project doesn't exist
+     */
+    private static File directory(String targetProject, String targetPackage) {
+        if (targetProject == null || targetPackage == null || !new File(targetProject).isDirectory()) {
+            return null;
+        }
+        return new File(targetProject, targetPackage.replace(".", File.separator));
+    }
+
+    private static class OutputFile {
+
+        private final Path path;
+
+        private final Supplier<String> content;
+
+        private final Charset charset;
+
+        OutputFile(Path path, Supplier<String> content, Charset charset) {
+            this.path = path;
+            this.content = content;
+            this.charset = charset;
+        }
+
+        byte[] content() {
+            return content.get().getBytes(charset);
+        }
+
+        boolean isUnchanged(byte[] bytes) throws IOException {
+            return Files.isRegularFile(path)
+                    && Files.size(path) == bytes.length
+                    && Arrays.equals(Files.readAllBytes(path), bytes);
+        }
+
+        /**
+         * @return false if the file is unchanged
+         */
+        boolean write() throws IOException {
+            byte[] bytes = content();
+            if (isUnchanged(bytes)) {
+                return false;
+            }
+            Files.createDirectories(path.getParent());
+            Files.write(path, bytes);
+            return true;
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package cc.cc1234.mybatis.generator;
+
+import org.mybatis.generator.api.GeneratedFile;
+import org.mybatis.generator.api.GeneratedJavaFile;
+import org.mybatis.generator.api.GeneratedKotlinFile;
+import org.mybatis.generator.api.GeneratedXmlFile;
+import org.mybatis.generator.api.IntrospectedTable;
+import org.mybatis.generator.api.Plugin;
+import org.mybatis.generator.api.PluginAdapter;
+import org.mybatis.generator.api.ProgressCallback;
+import org.mybatis.generator.config.PluginConfiguration;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.BiFunction;
+
+/**
+ * generates the tables of the context in parallel, configure it as the last plugin.
+ * <p>
+ * the generator validates every plugin before it generates the tables one by one, so this plugin, validated after
+ * all the others, takes the tables out of the context and generates them on a fork join pool instead: every table is
+ * initialized first, then the files of every table are generated, the same two phases as the generator. the files
+ * and the warnings are collected by the table and returned in the order of the tables, so the output is the same as
+ * a serial generation, and the context level hooks of the plugins still run after every table is generated.
+ * </p>
+ * <p>
+ * every plugin of the context must be thread safe, as the plugins of this package are. set property
+ * <b>parallelism</b> to configure the size of the pool, 1 generates the tables serially.
+ * </p>
+ * <p>
+ * the tables are generated inside <b>validate()</b>, where the generator passes no progress callback, so
+ * <b>ProgressCallback.checkCancel()</b> is not honored while they are generated, a cancellation is only seen by the
+ * generator after all the tables are done.
+ * </p>
+ */
+public class ParallelGenerationPlugin extends PluginAdapter {
+
+    private static final String PARALLELISM_PROP = "parallelism";
+
+    /**
+     * the progress of the generator is reported by the table, not by the steps of the tables
+     */
+    private static final ProgressCallback NO_PROGRESS = new ProgressCallback() {
+    };
+
+    /**
+     * null if the tables are generated serially by the generator
+     */
+    private List<IntrospectedTable> tables;
+
+    private final List<GeneratedJavaFile> javaFiles = new ArrayList<>();
+
+    private final List<GeneratedXmlFile> xmlFiles = new ArrayList<>();
+
+    private final List<GeneratedKotlinFile> kotlinFiles = new ArrayList<>();
+
+    private final List<GeneratedFile> otherFiles = new ArrayList<>();
+
+    @Override
+    public boolean validate(List<String> warnings) {
+        int parallelism = Runtime.getRuntime().availableProcessors();
+        String value = properties.getProperty(PARALLELISM_PROP);
+        if (value != null) {
+            try {
+                parallelism = Integer.parseInt(value.trim());
+            } catch (NumberFormatException e) {
+                parallelism = 0;
+            }
+            if (parallelism <= 0) {
+                warnings.add("The property '" + PARALLELISM_PROP + "' must be a positive integer, but was '" + value
+                        + "', the tables are generated serially.");
+                return true;
+            }
+        }
+        if (parallelism == 1 || context.getIntrospectedTables().size() <= 1 || !isLastPlugin(warnings)) {
+            return true;
+        }
+
+        tables = new ArrayList<>(context.getIntrospectedTables());
+        context.getIntrospectedTables().clear();
+        // created lazily, and shared by the tables
+        context.getCommentGenerator();
+        context.getJavaFormatter();
+        context.getXmlFormatter();
+        context.getKotlinFormatter();
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            forEachTable(pool, warnings, (introspectedTable, tableWarnings) -> {
+                introspectedTable.initialize();
+                introspectedTable.calculateGenerators(tableWarnings, NO_PROGRESS);
+                return null;
+            });
+            List<TableFiles> tableFiles = forEachTable(pool, warnings, (introspectedTable, tableWarnings) ->
+                    generate(introspectedTable));
+            for (TableFiles files : tableFiles) {
+                javaFiles.addAll(files.javaFiles);
+                xmlFiles.addAll(files.xmlFiles);
+                kotlinFiles.addAll(files.kotlinFiles);
+                otherFiles.addAll(files.otherFiles);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        return true;
+    }
+
+    /**
+     * the tables are put back after they are generated, as the generator doesn't generate them again now
+     */
+    @Override
+    public List<GeneratedJavaFile> contextGenerateAdditionalJavaFiles() {
+        if (tables != null) {
+            context.getIntrospectedTables().addAll(tables);
+            tables = null;
+        }
+        return javaFiles;
+    }
+
+    @Override
+    public List<GeneratedXmlFile> contextGenerateAdditionalXmlFiles() {
+        return xmlFiles;
+    }
+
+    @Override
+    public List<GeneratedKotlinFile> contextGenerateAdditionalKotlinFiles() {
+        return kotlinFiles;
+    }
+
+    @Override
+    public List<GeneratedFile> contextGenerateAdditionalFiles() {
+        return otherFiles;
+    }
+
+    /**
+     * the other plugins are not called for the tables if they are validated after this plugin
+     */
+    private boolean isLastPlugin(List<String> warnings) {
+        try {
+            List<PluginConfiguration> pluginConfigurations = PluginConfigurations.of(context);
+            PluginConfiguration last = pluginConfigurations.get(pluginConfigurations.size() - 1);
+            if (getClass().getName().equals(last.getConfigurationType())) {
+                return true;
+            }
+            warnings.add("The " + getClass().getSimpleName() + " is not the last plugin of context " + context.getId()
+                    + ", the tables are generated serially.");
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            warnings.add("The plugins of context " + context.getId() + " are unknown, the tables are generated "
+                    + "serially: " + e);
+        }
+        return false;
+    }
+
+    /**
+     * the same as the generator does for every table
+     */
+    private TableFiles generate(IntrospectedTable introspectedTable) {
+        Plugin plugins = context.getPlugins();
+        TableFiles files = new TableFiles();
+        files.javaFiles.addAll(introspectedTable.getGeneratedJavaFiles());
+        files.xmlFiles.addAll(introspectedTable.getGeneratedXmlFiles());
+        files.kotlinFiles.addAll(introspectedTable.getGeneratedKotlinFiles());
+        files.javaFiles.addAll(plugins.contextGenerateAdditionalJavaFiles(introspectedTable));
+        files.xmlFiles.addAll(plugins.contextGenerateAdditionalXmlFiles(introspectedTable));
+        files.kotlinFiles.addAll(plugins.contextGenerateAdditionalKotlinFiles(introspectedTable));
+        files.otherFiles.addAll(plugins.contextGenerateAdditionalFiles(introspectedTable));
+        return files;
+    }
+
+    /**
+     * @return the results by the order of the tables, the warnings of the tables are added by the same order
+     */
+    private <T> List<T> forEachTable(ForkJoinPool pool,
+                                     List<String> warnings,
+                                     BiFunction<IntrospectedTable, List<String>, T> action) {
+        List<List<String>> tableWarnings = new ArrayList<>(tables.size());
+        List<Callable<T>> tasks = new ArrayList<>(tables.size());
+        for (IntrospectedTable introspectedTable : tables) {
+            List<String> currentWarnings = new ArrayList<>();
+            tableWarnings.add(currentWarnings);
+            tasks.add(() -> {
+                TableWarnings.bind(currentWarnings);
+                try {
+                    return action.apply(introspectedTable, currentWarnings);
+                } finally {
+                    TableWarnings.unbind();
+                }
+            });
+        }
+
+        List<T> results = new ArrayList<>(tables.size());
+        for (Future<T> future : pool.invokeAll(tasks)) {
+            try {
+                results.add(future.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("The generation is interrupted", e);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw new IllegalStateException(cause);
+            }
+        }
+        for (List<String> currentWarnings : tableWarnings) {
+            warnings.addAll(currentWarnings);
+        }
+        return results;
+    }
+
+    private static class TableFiles {
+
+        private final List<GeneratedJavaFile> javaFiles = new ArrayList<>();
+
+        private final List<GeneratedXmlFile> xmlFiles = new ArrayList<>();
+
+        private final List<GeneratedKotlinFile> kotlinFiles = new ArrayList<>();
+
+        private final List<GeneratedFile> otherFiles = new ArrayList<>();
+    }
+}
@@ -0,0 +1,38 @@
+package cc.cc1234.mybatis.generator;
+
+import org.mybatis.generator.config.Context;
+import org.mybatis.generator.config.PluginConfiguration;
+
+import java.lang.reflect.Field;
+import java.util.List;
+
+/**
+ * the context has no getter of the plugin configurations, they are read reflectively
+ */
+final class PluginConfigurations {
+
+    private PluginConfigurations() {
+    }
+
+    /**
+     * @return the plugin configurations by their order in the context
+     */
+    @SuppressWarnings("unchecked")
+    static List<PluginConfiguration> of(Context context) throws ReflectiveOperationException {
+        Field field = Context.class.getDeclaredField("pluginConfigurations");
+        field.setAccessible(true);
+        return (List<PluginConfiguration>) field.get(context);
+    }
+
+    /**
+     * @return false if the plugin is not configured, or the plugin configurations are unknown
+     */
+    static boolean contains(Context context, Class<?> pluginType) {
+        try {
+            return of(context).stream()
+                    .anyMatch(configuration -> pluginType.getName().equals(configuration.getConfigurationType()));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package cc.cc1234.mybatis.generator;
+
+import org.mybatis.generator.api.IntrospectedColumn;
+import org.mybatis.generator.api.dom.xml.Attribute;
+import org.mybatis.generator.api.dom.xml.TextElement;
+import org.mybatis.generator.api.dom.xml.XmlElement;
+import org.mybatis.generator.codegen.mybatis3.xmlmapper.elements.AbstractXmlElementGenerator;
+
+import static org.mybatis.generator.codegen.mybatis3.MyBatis3FormattingUtilities.getEscapedColumnName;
+import static org.mybatis.generator.internal.util.StringUtility.stringHasValue;
+
+/**
+ * select rows by a chunk of primary keys, only tables with a single primary key column are supported
+ */
+public class SelectByPrimaryKeysXmlElementGenerator extends AbstractXmlElementGenerator {
+
+    public static final String STATEMENT_ID = "selectByPrimaryKeysChunk";
+
+    @Override
+    public void addElements(XmlElement parentElement) {
+        // <select id="?" resultMap="?" parameterType="map">
+        XmlElement answer = new XmlElement("select");
+        answer.addAttribute(new Attribute("id", STATEMENT_ID));
+        if (introspectedTable.getRules().generateResultMapWithBLOBs()) {
+            answer.addAttribute(new Attribute("resultMap", introspectedTable.getResultMapWithBLOBsId()));
+        } else {
+            answer.addAttribute(new Attribute("resultMap", introspectedTable.getBaseResultMapId()));
+        }
+        answer.addAttribute(new Attribute("parameterType", "map"));
+        context.getCommentGenerator().addComment(answer);
+
+        // statement
+        answer.addElement(new TextElement("select"));
+        if (stringHasValue(introspectedTable.getSelectByPrimaryKeyQueryId())) {
+            answer.addElement(new TextElement("'" + introspectedTable.getSelectByPrimaryKeyQueryId() + "' as QUERYID,"));
+        }
+        answer.addElement(getBaseColumnListElement());
+        if (introspectedTable.hasBLOBColumns()) {
+            answer.addElement(new TextElement(","));
+            answer.addElement(getBlobColumnListElement());
+        }
+        answer.addElement(new TextElement("from " + introspectedTable.getAliasedFullyQualifiedTableNameAtRuntime()));
+
+        // where ${pk} in (?, ?)
+        IntrospectedColumn primaryKeyColumn = introspectedTable.getPrimaryKeyColumns().get(0);
+        answer.addElement(new TextElement("where " + getEscapedColumnName(primaryKeyColumn) + " in"));
+        answer.addElement(primaryKeysForeachElement(primaryKeyColumn));
+
+        parentElement.addElement(answer);
+    }
+
+    static XmlElement primaryKeysForeachElement(IntrospectedColumn primaryKeyColumn) {
+        // <foreach collection="ids" item="id" open="(" separator="," close=")">
+        XmlElement foreach = new XmlElement("foreach");
+        foreach.addAttribute(new Attribute("collection", "ids"));
+        foreach.addAttribute(new Attribute("item", "id"));
+        foreach.addAttribute(new Attribute("open", "("));
+        foreach.addAttribute(new Attribute("separator", ","));
+        foreach.addAttribute(new Attribute("close", ")"));
+        // #{id,jdbcType=?}
+        StringBuilder sb = new StringBuilder();
+        sb.append("#{id,jdbcType=");
+        sb.append(primaryKeyColumn.getJdbcTypeName());
+        if (stringHasValue(primaryKeyColumn.getTypeHandler())) {
+            sb.append(",typeHandler=");
+            sb.append(primaryKeyColumn.getTypeHandler());
+        }
+        sb.append('}');
+        foreach.addElement(new TextElement(sb.toString()));
+        return foreach;
+    }
+}
@@ -0,0 +1,69 @@
+package cc.cc1234.mybatis.generator;
+
+import org.mybatis.generator.api.dom.xml.Attribute;
+import org.mybatis.generator.api.dom.xml.TextElement;
+import org.mybatis.generator.api.dom.xml.XmlElement;
+import org.mybatis.generator.codegen.mybatis3.xmlmapper.elements.AbstractXmlElementGenerator;
+
+import static org.mybatis.generator.internal.util.StringUtility.stringHasValue;
+
+/**
+ * streaming select, rows are fetched from a forward only result set <b>fetchSize</b> rows at a time
+ */
+public class SelectCursorByExampleXmlElementGenerator extends AbstractXmlElementGenerator {
+
+    public static final String STATEMENT_ID = "selectCursorByExample";
+
+    private final int fetchSize;
+
+    private final Dialect dialect;
+
+    public SelectCursorByExampleXmlElementGenerator(int fetchSize, Dialect dialect) {
+        this.fetchSize = fetchSize;
+        this.dialect = dialect;
+    }
+
+    @Override
+    public void addElements(XmlElement parentElement) {
+        // <select id="?" resultMap="?" parameterType="?" fetchSize="?" resultSetType="FORWARD_ONLY">
+        XmlElement answer = new XmlElement("select");
+        answer.addAttribute(new Attribute("id", STATEMENT_ID));
+        answer.addAttribute(new Attribute("resultMap", introspectedTable.getBaseResultMapId()));
+        answer.addAttribute(new Attribute("parameterType", introspectedTable.getExampleType()));
+        answer.addAttribute(new Attribute("fetchSize", String.valueOf(fetchSize)));
+        answer.addAttribute(new Attribute("resultSetType", "FORWARD_ONLY"));
+        context.getCommentGenerator().addComment(answer);
+
+        // statement
+        answer.addElement(new TextElement("select"));
+        XmlElement ifElement = new XmlElement("if");
+        ifElement.addAttribute(new Attribute("test", "distinct"));
+        ifElement.addElement(new TextElement("distinct"));
+        answer.addElement(ifElement);
+
+        if (stringHasValue(introspectedTable.getSelectByExampleQueryId())) {
+            answer.addElement(new TextElement("'" + introspectedTable.getSelectByExampleQueryId() + "' as QUERYID,"));
+        }
+        answer.addElement(getBaseColumnListElement());
+
+        // from ${table_name}
+        answer.addElement(new TextElement("from " + introspectedTable.getAliasedFullyQualifiedTableNameAtRuntime()));
+        answer.addElement(getExampleIncludeElement());
+
+        // order by ${orderByClause}
+        ifElement = new XmlElement("if");
+        ifElement.addAttribute(new Attribute("test", "orderByClause != null"));
+        ifElement.addElement(new TextElement("order by ${orderByClause}"));
+        answer.addElement(ifElement);
+
+        // limit ${limit} offset ${offset}, if the Example has them
+        if (introspectedTable.getAttribute(ExampleModelPlusPlugin.LIMIT_ATTRIBUTE) != null) {
+            dialect.addRowLimit(answer, "limit", "offset");
+        }
+
+        // ${selectClause} if the Example has selected columns
+        ExampleModelPlusPlugin.addSelectColumns(answer, introspectedTable);
+
+        parentElement.addElement(answer);
+    }
+}
@@ -9,11 +9,23 @@ import static org.mybatis.generator.internal.util.StringUtility.stringHasValue;
 
 public class SelectOneByExampleXmlElementGenerator extends AbstractXmlElementGenerator {
 
+    public static final String STATEMENT_ID = "selectOneByExample";
+
+    private final Dialect dialect;
+
+    public SelectOneByExampleXmlElementGenerator() {
+        this(Dialect.MYSQL);
+    }
+
+    public SelectOneByExampleXmlElementGenerator(Dialect dialect) {
+        this.dialect = dialect;
+    }
+
     @Override
     public void addElements(XmlElement parentElement) {
         // <select id="?" resultMap="?" parameterType="?">
         XmlElement answer = new XmlElement("select");
-        answer.addAttribute(new Attribute("id", "selectOneByExample"));
+        answer.addAttribute(new Attribute("id", STATEMENT_ID));
         answer.addAttribute(new Attribute("resultMap", introspectedTable.getBaseResultMapId()));
         answer.addAttribute(new Attribute("parameterType", introspectedTable.getExampleType()));
         context.getCommentGenerator().addComment(answer);
@@ -47,8 +59,11 @@ public class SelectOneByExampleXmlElementGenerator extends AbstractXmlElementGen
         ifElement.addElement(new TextElement("order by ${orderByClause}"));
         answer.addElement(ifElement);
 
-        // limit 1
-        answer.addElement(new TextElement(" limit 1"));
+        // limit 1, fetch first 1 rows only or top 1
+        dialect.addRowLimit(answer, 1);
+
+        // ${selectClause} if the Example has selected columns
+        ExampleModelPlusPlugin.addSelectColumns(answer, introspectedTable);
 
         // 借用 selectByExampleWithoutBLOBs 的规则来决定是否生成 selectOneByExample 方法
         parentElement.addElement(answer);
@@ -0,0 +1,173 @@
+package cc.cc1234.mybatis.generator;
+
+import org.mybatis.generator.api.IntrospectedColumn;
+import org.mybatis.generator.api.dom.xml.Attribute;
+import org.mybatis.generator.api.dom.xml.TextElement;
+import org.mybatis.generator.api.dom.xml.XmlElement;
+import org.mybatis.generator.codegen.mybatis3.xmlmapper.elements.AbstractXmlElementGenerator;
+
+import static org.mybatis.generator.internal.util.StringUtility.stringHasValue;
+
+/**
+ * seek pagination, the page starts after the <b>afterRow</b> of Example, so the cost of a page does not depend on
+ * how deep it is.
+ * <pre>
+ *     select ... from ${table_name}
+ *     where (${example_criteria}) and ((k1 &gt; ?) or (k1 = ? and k2 &gt; ?))
+ *     order by ${seekOrderByClause}
+ *     limit ?
+ * </pre>
+ * the row limiting clause depends on the {@link Dialect}.
+ * depends on the seek support which is generated into Example by {@link ExampleModelPlusPlugin}
+ */
+public class SelectPageAfterXmlElementGenerator extends AbstractXmlElementGenerator {
+
+    public static final String STATEMENT_ID = "selectPageAfter";
+
+    private final Dialect dialect;
+
+    public SelectPageAfterXmlElementGenerator(Dialect dialect) {
+        this.dialect = dialect;
+    }
+
+    @Override
+    public void addElements(XmlElement parentElement) {
+        // <select id="?" resultMap="?" parameterType="?">
+        XmlElement answer = new XmlElement("select");
+        answer.addAttribute(new Attribute("id", STATEMENT_ID));
+        answer.addAttribute(new Attribute("resultMap", introspectedTable.getBaseResultMapId()));
+        answer.addAttribute(new Attribute("parameterType", introspectedTable.getExampleType()));
+        context.getCommentGenerator().addComment(answer);
+
+        // statement
+        answer.addElement(new TextElement("select"));
+        XmlElement ifElement = new XmlElement("if");
+        ifElement.addAttribute(new Attribute("test", "distinct"));
+        ifElement.addElement(new TextElement("distinct"));
+        answer.addElement(ifElement);
+
+        if (stringHasValue(introspectedTable.getSelectByExampleQueryId())) {
+            answer.addElement(new TextElement("'" + introspectedTable.getSelectByExampleQueryId() + "' as QUERYID,"));
+        }
+        answer.addElement(getBaseColumnListElement());
+
+        // from ${table_name}
+        answer.addElement(new TextElement("from " + introspectedTable.getAliasedFullyQualifiedTableNameAtRuntime()));
+
+        // where (${example_criteria}) and (${seek_criteria})
+        XmlElement whereElement = new XmlElement("where");
+        whereElement.addElement(buildExampleCriteriaElement());
+        whereElement.addElement(buildSeekCriteriaElement());
+        answer.addElement(whereElement);
+
+        // order by ${seekOrderByClause}
+        answer.addElement(new TextElement("order by ${seekOrderByClause}"));
+
+        // limit ${limit}, the offset makes no sense for seek pagination
+        dialect.addRowLimit(answer, "limit", null);
+
+        // ${selectClause} if the Example has selected columns
+        ExampleModelPlusPlugin.addSelectColumns(answer, introspectedTable);
+
+        parentElement.addElement(answer);
+    }
+
+    /**
+     * same as the <b>Example_Where_Clause</b>, but wrapped by parentheses so it can be combined with the seek criteria
+     */
+    private XmlElement buildExampleCriteriaElement() {
+        // the whole element is dropped when there is no valid criteria
+        XmlElement outerTrim = new XmlElement("trim");
+        outerTrim.addAttribute(new Attribute("prefix", "("));
+        outerTrim.addAttribute(new Attribute("suffix", ")"));
+        outerTrim.addAttribute(new Attribute("prefixOverrides", "or"));
+
+        XmlElement outerForEach = new XmlElement("foreach");
+        outerForEach.addAttribute(new Attribute("collection", "oredCriteria"));
+        outerForEach.addAttribute(new Attribute("item", "criteria"));
+        outerTrim.addElement(outerForEach);
+
+        XmlElement ifElement = new XmlElement("if");
+        ifElement.addAttribute(new Attribute("test", "criteria.valid"));
+        ifElement.addElement(new TextElement("or"));
+        outerForEach.addElement(ifElement);
+
+        XmlElement trimElement = new XmlElement("trim");
+        trimElement.addAttribute(new Attribute("prefix", "("));
+        trimElement.addAttribute(new Attribute("suffix", ")"));
+        trimElement.addAttribute(new Attribute("prefixOverrides", "and"));
+        ifElement.addElement(trimElement);
+
+        trimElement.addElement(buildCriterionForEachElement("criteria.criteria", null));
+        for (IntrospectedColumn column : introspectedTable.getNonBLOBColumns()) {
+            if (stringHasValue(column.getTypeHandler())) {
+                trimElement.addElement(buildCriterionForEachElement(
+                        "criteria." + column.getJavaProperty() + "Criteria", column.getTypeHandler()));
+            }
+        }
+        return outerTrim;
+    }
+
+    private XmlElement buildCriterionForEachElement(String collection, String typeHandler) {
+        String valueSuffix = typeHandler == null ? "}" : ",typeHandler=" + typeHandler + "}";
+
+        XmlElement forEach = new XmlElement("foreach");
+        forEach.addAttribute(new Attribute("collection", collection));
+        forEach.addAttribute(new Attribute("item", "criterion"));
+
+        XmlElement chooseElement = new XmlElement("choose");
+        forEach.addElement(chooseElement);
+
+        XmlElement when = new XmlElement("when");
+        when.addAttribute(new Attribute("test", "criterion.noValue"));
+        when.addElement(new TextElement("and ${criterion.condition}"));
+        chooseElement.addElement(when);
+
+        when = new XmlElement("when");
+        when.addAttribute(new Attribute("test", "criterion.singleValue"));
+        when.addElement(new TextElement("and ${criterion.condition} #{criterion.value" + valueSuffix));
+        chooseElement.addElement(when);
+
+        when = new XmlElement("when");
+        when.addAttribute(new Attribute("test", "criterion.betweenValue"));
+        when.addElement(new TextElement("and ${criterion.condition} #{criterion.value" + valueSuffix
+                + " and #{criterion.secondValue" + valueSuffix));
+        chooseElement.addElement(when);
+
+        when = new XmlElement("when");
+        when.addAttribute(new Attribute("test", "criterion.listValue"));
+        when.addElement(new TextElement("and ${criterion.condition}"));
+        XmlElement listForEach = new XmlElement("foreach");
+        listForEach.addAttribute(new Attribute("collection", "criterion.value"));
+        listForEach.addAttribute(new Attribute("item", "listItem"));
+        listForEach.addAttribute(new Attribute("open", "("));
+        listForEach.addAttribute(new Attribute("close", ")"));
+        listForEach.addAttribute(new Attribute("separator", ","));
+        listForEach.addElement(new TextElement("#{listItem" + valueSuffix));
+        when.addElement(listForEach);
+        chooseElement.addElement(when);
+
+        return forEach;
+    }
+
+    private XmlElement buildSeekCriteriaElement() {
+        // foreach outputs nothing, not even the open text, when the last row is not set
+        XmlElement outerForEach = new XmlElement("foreach");
+        outerForEach.addAttribute(new Attribute("collection", "seekCriteria"));
+        outerForEach.addAttribute(new Attribute("item", "criteria"));
+        outerForEach.addAttribute(new Attribute("open", "and ("));
+        outerForEach.addAttribute(new Attribute("close", ")"));
+        outerForEach.addAttribute(new Attribute("separator", "or"));
+
+        XmlElement forEach = new XmlElement("foreach");
+        forEach.addAttribute(new Attribute("collection", "criteria"));
+        forEach.addAttribute(new Attribute("item", "criterion"));
+        forEach.addAttribute(new Attribute("open", "("));
+        forEach.addAttribute(new Attribute("close", ")"));
+        forEach.addAttribute(new Attribute("separator", "and"));
+        forEach.addElement(new TextElement("${criterion.condition} #{criterion.value}"));
+        outerForEach.addElement(forEach);
+
+        return outerForEach;
+    }
+}
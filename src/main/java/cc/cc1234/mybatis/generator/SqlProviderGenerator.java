@@ -0,0 +1,447 @@
+package cc.cc1234.mybatis.generator;
+
+import org.mybatis.generator.api.IntrospectedColumn;
+import org.mybatis.generator.api.IntrospectedTable;
+import org.mybatis.generator.api.dom.java.*;
+import org.mybatis.generator.codegen.mybatis3.ListUtilities;
+import org.mybatis.generator.internal.util.JavaBeansUtil;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.mybatis.generator.codegen.mybatis3.MyBatis3FormattingUtilities.getAliasedEscapedColumnName;
+import static org.mybatis.generator.codegen.mybatis3.MyBatis3FormattingUtilities.getParameterClause;
+import static org.mybatis.generator.codegen.mybatis3.MyBatis3FormattingUtilities.getSelectListPhrase;
+import static org.mybatis.generator.internal.util.StringUtility.stringHasValue;
+
+/**
+ * build the sql of the <b>*ByExample</b> statements by a plain StringBuilder instead of the OGNL evaluated
+ * dynamic sql of the xml mapper, the rendered sql is the same as the xml mapper:
+ * <pre>
+ *     BaseMapper --@SelectProvider--&gt; BaseMapperSqlProvider --mapper type--&gt; UserExampleSqlProvider
+ * </pre>
+ * the sql provider of a table is found by the name of its mapper, <b>UserMapper</b> uses <b>UserExampleSqlProvider</b>,
+ * so it never overwrites the <b>UserSqlProvider</b> generated by MBG for an ANNOTATEDMAPPER client.
+ */
+public class SqlProviderGenerator {
+
+    private static final String TABLE_PROVIDER_NAME = "TableSqlProvider";
+
+    private static final String MAPPER_SUFFIX = "Mapper";
+
+    private static final String PROVIDER_SUFFIX = "ExampleSqlProvider";
+
+    enum Statement {
+
+        COUNT_BY_EXAMPLE("countByExample", "SelectProvider", false),
+
+        COUNT_BY_EXAMPLE_UP_TO(CountByExampleUpToXmlElementGenerator.STATEMENT_ID, "SelectProvider", true),
+
+        EXISTS_BY_EXAMPLE(ExistsByExampleXmlElementGenerator.STATEMENT_ID, "SelectProvider", false),
+
+        DELETE_BY_EXAMPLE("deleteByExample", "DeleteProvider", false),
+
+        SELECT_BY_EXAMPLE("selectByExample", "SelectProvider", false),
+
+        SELECT_ONE_BY_EXAMPLE("selectOneByExample", "SelectProvider", false),
+
+        UPDATE_BY_EXAMPLE_SELECTIVE("updateByExampleSelective", "UpdateProvider", true),
+
+        UPDATE_BY_EXAMPLE("updateByExample", "UpdateProvider", true);
+
+        private final String methodName;
+
+        private final String annotation;
+
+        /**
+         * the mapper method has more than one @Param, mybatis passes them as a map
+         */
+        private final boolean mapParameter;
+
+        Statement(String methodName, String annotation, boolean mapParameter) {
+            this.methodName = methodName;
+            this.annotation = annotation;
+            this.mapParameter = mapParameter;
+        }
+    }
+
+    private final Dialect dialect;
+
+    private final Set<Statement> statements;
+
+    public SqlProviderGenerator(Dialect dialect, Set<Statement> statements) {
+        this.dialect = dialect;
+        this.statements = statements;
+    }
+
+    /**
+     * UserMapper -&gt; UserExampleSqlProvider
+     */
+    public static String tableProviderType(String mapperType) {
+        String name = mapperType.endsWith(MAPPER_SUFFIX)
+                ? mapperType.substring(0, mapperType.length() - MAPPER_SUFFIX.length())
+                : mapperType;
+        return name + PROVIDER_SUFFIX;
+    }
+
+    public boolean isProvided(String methodName) {
+        return statements.stream().anyMatch(statement -> statement.methodName.equals(methodName));
+    }
+
+    /**
+     * <pre>
+     *     &#64;SelectProvider(type = BaseMapperSqlProvider.class, method = "selectByExample")
+     *     &#64;ResultMap("BaseResultMap")
+     *     List&lt;T&gt; selectByExample(E example);
+     * </pre>
+     */
+    public void addProviderAnnotations(Interface baseMapperInterface, FullyQualifiedJavaType dispatcherType) {
+        for (Method method : baseMapperInterface.getMethods()) {
+            for (Statement statement : statements) {
+                if (!statement.methodName.equals(method.getName())) {
+                    continue;
+                }
+                baseMapperInterface.addImportedType(
+                        new FullyQualifiedJavaType("org.apache.ibatis.annotations." + statement.annotation));
+                method.addAnnotation("@" + statement.annotation + "(type = " + dispatcherType.getShortName()
+                        + ".class, method = \"" + statement.methodName + "\")");
+                if (statement == Statement.SELECT_BY_EXAMPLE || statement == Statement.SELECT_ONE_BY_EXAMPLE) {
+                    baseMapperInterface.addImportedType(
+                            new FullyQualifiedJavaType("org.apache.ibatis.annotations.ResultMap"));
+                    method.addAnnotation("@ResultMap(\"BaseResultMap\")");
+                }
+            }
+        }
+        baseMapperInterface.addImportedType(dispatcherType);
+    }
+
+    /**
+     * the shared provider referenced by the BaseMapper, it delegates to the sql provider of the mapper's table
+     */
+    public TopLevelClass generateDispatcher(FullyQualifiedJavaType dispatcherType) {
+        TopLevelClass dispatcher = new TopLevelClass(dispatcherType);
+        dispatcher.setVisibility(JavaVisibility.PUBLIC);
+        dispatcher.addImportedType(new FullyQualifiedJavaType("java.util.Map"));
+        dispatcher.addImportedType(new FullyQualifiedJavaType("java.util.concurrent.ConcurrentHashMap"));
+        dispatcher.addImportedType(new FullyQualifiedJavaType("org.apache.ibatis.builder.annotation.ProviderContext"));
+
+        FullyQualifiedJavaType tableProviderType = new FullyQualifiedJavaType(TABLE_PROVIDER_NAME);
+        Field providers = new Field("PROVIDERS",
+                new FullyQualifiedJavaType("Map<Class<?>, " + TABLE_PROVIDER_NAME + ">"));
+        providers.setVisibility(JavaVisibility.PRIVATE);
+        providers.setStatic(true);
+        providers.setFinal(true);
+        providers.setInitializationString("new ConcurrentHashMap<>()");
+        dispatcher.addField(providers);
+
+        InnerInterface tableProvider = new InnerInterface(tableProviderType);
+        tableProvider.setVisibility(JavaVisibility.PUBLIC);
+        for (Statement statement : statements) {
+            Method method = new Method(statement.methodName);
+            method.setVisibility(JavaVisibility.PUBLIC);
+            method.setStatic(true);
+            method.setReturnType(FullyQualifiedJavaType.getStringInstance());
+            method.addParameter(new Parameter(new FullyQualifiedJavaType("ProviderContext"), "context"));
+            method.addParameter(parameter(statement));
+            method.addBodyLine("return provider(context)." + statement.methodName + "(parameter);");
+            dispatcher.addMethod(method);
+
+            Method tableMethod = new Method(statement.methodName);
+            tableMethod.setReturnType(FullyQualifiedJavaType.getStringInstance());
+            tableMethod.addParameter(parameter(statement));
+            tableMethod.setAbstract(true);
+            tableProvider.addMethod(tableMethod);
+        }
+
+        Method provider = new Method("provider");
+        provider.setVisibility(JavaVisibility.PRIVATE);
+        provider.setStatic(true);
+        provider.setReturnType(tableProviderType);
+        provider.addParameter(new Parameter(new FullyQualifiedJavaType("ProviderContext"), "context"));
+        provider.addBodyLine("return PROVIDERS.computeIfAbsent(context.getMapperType(), "
+                + dispatcherType.getShortName() + "::newProvider);");
+        dispatcher.addMethod(provider);
+
+        // same as tableProviderType(String)
+        Method newProvider = new Method("newProvider");
+        newProvider.setVisibility(JavaVisibility.PRIVATE);
+        newProvider.setStatic(true);
+        newProvider.setReturnType(tableProviderType);
+        newProvider.addParameter(new Parameter(new FullyQualifiedJavaType("Class<?>"), "mapperType"));
+        newProvider.addBodyLine("String mapperName = mapperType.getName();");
+        newProvider.addBodyLine("String providerName = (mapperName.endsWith(\"" + MAPPER_SUFFIX + "\")");
+        newProvider.addBodyLine("        ? mapperName.substring(0, mapperName.length() - " + MAPPER_SUFFIX.length()
+                + ") : mapperName) + \"" + PROVIDER_SUFFIX + "\";");
+        newProvider.addBodyLine("try {");
+        newProvider.addBodyLine("Class<?> providerType = Class.forName(providerName, true, mapperType.getClassLoader());");
+        newProvider.addBodyLine("return (" + TABLE_PROVIDER_NAME + ") providerType.getDeclaredConstructor().newInstance();");
+        newProvider.addBodyLine("} catch (ReflectiveOperationException e) {");
+        newProvider.addBodyLine("throw new IllegalStateException(\"The sql provider \" + providerName"
+                + " + \" of mapper \" + mapperName + \" can not be created.\", e);");
+        newProvider.addBodyLine("}");
+        dispatcher.addMethod(newProvider);
+
+        dispatcher.addInnerInterface(tableProvider);
+        return dispatcher;
+    }
+
+    public TopLevelClass generateTableProvider(IntrospectedTable table,
+                                               FullyQualifiedJavaType providerType,
+                                               FullyQualifiedJavaType dispatcherType) {
+        TopLevelClass provider = new TopLevelClass(providerType);
+        provider.setVisibility(JavaVisibility.PUBLIC);
+        provider.addSuperInterface(new FullyQualifiedJavaType(
+                dispatcherType.getFullyQualifiedName() + "." + TABLE_PROVIDER_NAME));
+        provider.addImportedType(new FullyQualifiedJavaType(
+                dispatcherType.getFullyQualifiedName() + "." + TABLE_PROVIDER_NAME));
+        provider.addImportedType(new FullyQualifiedJavaType(table.getBaseRecordType()));
+        provider.addImportedType(new FullyQualifiedJavaType(table.getExampleType()));
+        provider.addImportedType(new FullyQualifiedJavaType(table.getExampleType() + ".Criteria"));
+        provider.addImportedType(new FullyQualifiedJavaType(table.getExampleType() + ".Criterion"));
+        provider.addImportedType(FullyQualifiedJavaType.getNewListInstance());
+
+        for (Statement statement : statements) {
+            Method method = new Method(statement.methodName);
+            method.setVisibility(JavaVisibility.PUBLIC);
+            method.addAnnotation("@Override");
+            method.setReturnType(FullyQualifiedJavaType.getStringInstance());
+            method.addParameter(parameter(statement));
+            if (statement.mapParameter) {
+                provider.addImportedType(new FullyQualifiedJavaType("java.util.Map"));
+            }
+            addStatementBodyLines(method, statement, table);
+            provider.addMethod(method);
+        }
+
+        provider.addMethod(applyWhereMethod(table));
+        provider.addMethod(applyCriteriaMethod());
+        return provider;
+    }
+
+    private Parameter parameter(Statement statement) {
+        FullyQualifiedJavaType type = statement.mapParameter
+                ? new FullyQualifiedJavaType("Map<String, Object>")
+                : FullyQualifiedJavaType.getObjectInstance();
+        return new Parameter(type, "parameter");
+    }
+
+    private void addStatementBodyLines(Method method, Statement statement, IntrospectedTable table) {
+        String exampleType = new FullyQualifiedJavaType(table.getExampleType()).getShortName();
+        String recordType = new FullyQualifiedJavaType(table.getBaseRecordType()).getShortName();
+        if (statement.mapParameter) {
+            method.addBodyLine(exampleType + " example = (" + exampleType + ") parameter.get(\"example\");");
+        } else {
+            method.addBodyLine(exampleType + " example = (" + exampleType + ") parameter;");
+        }
+        if (statement == Statement.COUNT_BY_EXAMPLE_UP_TO) {
+            method.addBodyLine("Object cap = parameter.get(\"cap\");");
+        } else if (statement == Statement.UPDATE_BY_EXAMPLE_SELECTIVE || statement == Statement.UPDATE_BY_EXAMPLE) {
+            method.addBodyLine(recordType + " row = (" + recordType + ") parameter.get(\"row\");");
+        }
+        String prefix = statement.mapParameter ? "example." : "";
+
+        method.addBodyLine("StringBuilder sql = new StringBuilder(256);");
+        switch (statement) {
+        case COUNT_BY_EXAMPLE:
+            method.addBodyLine("sql.append(\"select count(*) from "
+                    + table.getAliasedFullyQualifiedTableNameAtRuntime() + "\");");
+            method.addBodyLine("applyWhere(sql, example, \"" + prefix + "\");");
+            break;
+        case COUNT_BY_EXAMPLE_UP_TO:
+        case EXISTS_BY_EXAMPLE:
+            // select count(*) from (select 1 as found from ${table_name} where ... limit ?) t
+            boolean upTo = statement == Statement.COUNT_BY_EXAMPLE_UP_TO;
+            method.addBodyLine("sql.append(\"select count(*) from (select\");");
+            addRowLimitBodyLines(method, true, upTo);
+            method.addBodyLine("sql.append(\" 1 as found from "
+                    + table.getAliasedFullyQualifiedTableNameAtRuntime() + "\");");
+            method.addBodyLine("applyWhere(sql, example, \"" + prefix + "\");");
+            addRowLimitBodyLines(method, false, upTo);
+            method.addBodyLine("sql.append(\") t\");");
+            break;
+        case DELETE_BY_EXAMPLE:
+            method.addBodyLine("sql.append(\"delete from " + table.getFullyQualifiedTableNameAtRuntime() + "\");");
+            method.addBodyLine("applyWhere(sql, example, \"" + prefix + "\");");
+            break;
+        case SELECT_BY_EXAMPLE:
+        case SELECT_ONE_BY_EXAMPLE:
+            addSelectBodyLines(method, table, statement == Statement.SELECT_ONE_BY_EXAMPLE);
+            break;
+        case UPDATE_BY_EXAMPLE_SELECTIVE:
+        case UPDATE_BY_EXAMPLE:
+            boolean selective = statement == Statement.UPDATE_BY_EXAMPLE_SELECTIVE;
+            method.addBodyLine("sql.append(\"update " + table.getAliasedFullyQualifiedTableNameAtRuntime() + "\");");
+            if (selective) {
+                // same as <set>, only the non null properties are updated
+                method.addBodyLine("String separator = \" set \";");
+            }
+            List<IntrospectedColumn> columns = ListUtilities.removeGeneratedAlwaysColumns(
+                    selective ? table.getAllColumns() : table.getNonBLOBColumns());
+            for (int i = 0; i < columns.size(); i++) {
+                IntrospectedColumn column = columns.get(i);
+                String assignment = escape(getAliasedEscapedColumnName(column)
+                        + " = " + getParameterClause(column, "row."));
+                if (!selective) {
+                    method.addBodyLine("sql.append(\"" + (i == 0 ? " set " : ", ") + assignment + "\");");
+                } else if (column.getFullyQualifiedJavaType().isPrimitive()) {
+                    // a primitive is never null, same as the <if test="? != null"> of the xml
+                    method.addBodyLine("sql.append(separator).append(\"" + assignment + "\");");
+                    method.addBodyLine("separator = \", \";");
+                } else {
+                    String getter = JavaBeansUtil.getGetterMethodName(
+                            column.getJavaProperty(), column.getFullyQualifiedJavaType());
+                    method.addBodyLine("if (row." + getter + "() != null) {");
+                    method.addBodyLine("sql.append(separator).append(\"" + assignment + "\");");
+                    method.addBodyLine("separator = \", \";");
+                    method.addBodyLine("}");
+                }
+            }
+            method.addBodyLine("applyWhere(sql, example, \"" + prefix + "\");");
+            break;
+        default:
+            throw new IllegalStateException("Unknown statement " + statement);
+        }
+        method.addBodyLine("return sql.toString();");
+    }
+
+    /**
+     * select [distinct] [top ?] ${columns} from ${table_name} where ... [order by ...] [limit ?]
+     */
+    private void addSelectBodyLines(Method method, IntrospectedTable table, boolean selectOne) {
+        boolean limit = !selectOne && table.getAttribute(ExampleModelPlusPlugin.LIMIT_ATTRIBUTE) != null;
+        if (limit) {
+            method.addBodyLine("Integer limit = example == null ? null : example.getLimit();");
+            method.addBodyLine("Integer offset = example == null ? null : example.getOffset();");
+        }
+        method.addBodyLine("sql.append(\"select\");");
+        method.addBodyLine("if (example != null && example.isDistinct()) {");
+        method.addBodyLine("sql.append(\" distinct\");");
+        method.addBodyLine("}");
+        if (selectOne) {
+            dialect.addRowLimitBodyLines(method, true, 1);
+        } else if (limit) {
+            dialect.addRowLimitBodyLines(method, true, "limit", "limit", "offset", "offset");
+        }
+        if (stringHasValue(table.getSelectByExampleQueryId())) {
+            method.addBodyLine("sql.append(\" '" + table.getSelectByExampleQueryId() + "' as QUERYID,\");");
+        }
+
+        String columnList = " " + table.getNonBLOBColumns()
+                .stream()
+                .map(column -> escape(getSelectListPhrase(column)))
+                .collect(Collectors.joining(", "));
+        if (table.getAttribute(ExampleModelPlusPlugin.SELECT_ATTRIBUTE) != null) {
+            method.addBodyLine("String selectClause = example == null ? null : example.getSelectClause();");
+            method.addBodyLine("if (selectClause != null) {");
+            method.addBodyLine("sql.append(' ').append(selectClause);");
+            method.addBodyLine("} else {");
+            method.addBodyLine("sql.append(\"" + columnList + "\");");
+            method.addBodyLine("}");
+        } else {
+            method.addBodyLine("sql.append(\"" + columnList + "\");");
+        }
+
+        method.addBodyLine("sql.append(\" from " + table.getAliasedFullyQualifiedTableNameAtRuntime() + "\");");
+        method.addBodyLine("applyWhere(sql, example, \"\");");
+        method.addBodyLine("if (example != null && example.getOrderByClause() != null) {");
+        method.addBodyLine("sql.append(\" order by \").append(example.getOrderByClause());");
+        method.addBodyLine("}");
+        if (selectOne) {
+            dialect.addRowLimitBodyLines(method, false, 1);
+        } else if (limit) {
+            dialect.addRowLimitBodyLines(method, false, "limit", "limit", "offset", "offset");
+        }
+    }
+
+    private void addRowLimitBodyLines(Method method, boolean selectList, boolean upTo) {
+        if (upTo) {
+            dialect.addRowLimitBodyLines(method, selectList, "cap", "cap", null, null);
+        } else {
+            dialect.addRowLimitBodyLines(method, selectList, 1);
+        }
+    }
+
+    /**
+     * same as the <b>Example_Where_Clause</b>, the values are bound by their property path:
+     * <pre>
+     *     where (ID = #{oredCriteria[0].criteria[0].value}) or (...)
+     * </pre>
+     */
+    private Method applyWhereMethod(IntrospectedTable table) {
+        String exampleType = new FullyQualifiedJavaType(table.getExampleType()).getShortName();
+        Method method = new Method("applyWhere");
+        method.setVisibility(JavaVisibility.PRIVATE);
+        method.setStatic(true);
+        method.addParameter(new Parameter(new FullyQualifiedJavaType("StringBuilder"), "sql"));
+        method.addParameter(new Parameter(new FullyQualifiedJavaType(exampleType), "example"));
+        method.addParameter(new Parameter(FullyQualifiedJavaType.getStringInstance(), "prefix"));
+        method.addBodyLine("if (example == null) {");
+        method.addBodyLine("return;");
+        method.addBodyLine("}");
+        method.addBodyLine("String separator = \" where \";");
+        method.addBodyLine("List<Criteria> oredCriteria = example.getOredCriteria();");
+        method.addBodyLine("for (int i = 0; i < oredCriteria.size(); i++) {");
+        method.addBodyLine("Criteria criteria = oredCriteria.get(i);");
+        method.addBodyLine("if (!criteria.isValid()) {");
+        method.addBodyLine("continue;");
+        method.addBodyLine("}");
+        method.addBodyLine("sql.append(separator).append('(');");
+        method.addBodyLine("int start = sql.length();");
+        method.addBodyLine("String criteriaPrefix = prefix + \"oredCriteria[\" + i + \"].\";");
+        method.addBodyLine("applyCriteria(sql, start, criteria.getCriteria(), criteriaPrefix + \"criteria\", \"}\");");
+        for (IntrospectedColumn column : table.getNonBLOBColumns()) {
+            if (stringHasValue(column.getTypeHandler())) {
+                String property = column.getJavaProperty() + "Criteria";
+                String getter = JavaBeansUtil.getGetterMethodName(property, FullyQualifiedJavaType.getNewListInstance());
+                method.addBodyLine("applyCriteria(sql, start, criteria." + getter + "(), criteriaPrefix + \""
+                        + property + "\", \",typeHandler=" + column.getTypeHandler() + "}\");");
+            }
+        }
+        method.addBodyLine("sql.append(')');");
+        method.addBodyLine("separator = \" or \";");
+        method.addBodyLine("}");
+        return method;
+    }
+
+    private Method applyCriteriaMethod() {
+        Method method = new Method("applyCriteria");
+        method.setVisibility(JavaVisibility.PRIVATE);
+        method.setStatic(true);
+        method.addParameter(new Parameter(new FullyQualifiedJavaType("StringBuilder"), "sql"));
+        method.addParameter(new Parameter(FullyQualifiedJavaType.getIntInstance(), "start"));
+        method.addParameter(new Parameter(new FullyQualifiedJavaType("List<Criterion>"), "criteria"));
+        method.addParameter(new Parameter(FullyQualifiedJavaType.getStringInstance(), "property"));
+        method.addParameter(new Parameter(FullyQualifiedJavaType.getStringInstance(), "valueSuffix"));
+        method.addBodyLine("for (int i = 0; i < criteria.size(); i++) {");
+        method.addBodyLine("Criterion criterion = criteria.get(i);");
+        method.addBodyLine("if (sql.length() > start) {");
+        method.addBodyLine("sql.append(\" and \");");
+        method.addBodyLine("}");
+        method.addBodyLine("sql.append(criterion.getCondition());");
+        method.addBodyLine("if (criterion.isSingleValue()) {");
+        method.addBodyLine("sql.append(\" #{\").append(property).append('[').append(i).append(\"].value\")"
+                + ".append(valueSuffix);");
+        method.addBodyLine("} else if (criterion.isBetweenValue()) {");
+        method.addBodyLine("sql.append(\" #{\").append(property).append('[').append(i).append(\"].value\")"
+                + ".append(valueSuffix);");
+        method.addBodyLine("sql.append(\" and #{\").append(property).append('[').append(i).append(\"].secondValue\")"
+                + ".append(valueSuffix);");
+        method.addBodyLine("} else if (criterion.isListValue()) {");
+        method.addBodyLine("int size = ((List<?>) criterion.getValue()).size();");
+        method.addBodyLine("for (int j = 0; j < size; j++) {");
+        method.addBodyLine("sql.append(j == 0 ? \" (#{\" : \", #{\").append(property).append('[').append(i)"
+                + ".append(\"].value[\").append(j).append(']').append(valueSuffix);");
+        method.addBodyLine("}");
+        method.addBodyLine("if (size > 0) {");
+        method.addBodyLine("sql.append(')');");
+        method.addBodyLine("}");
+        method.addBodyLine("}");
+        method.addBodyLine("}");
+        return method;
+    }
+
+    private static String escape(String text) {
+        return text.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+}
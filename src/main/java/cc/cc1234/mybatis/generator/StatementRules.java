@@ -0,0 +1,85 @@
+package cc.cc1234.mybatis.generator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * a comma separated list of ${table_pattern}.${statement_id_pattern}=${value},
+ * such as: *.*ByExample=10, order.selectByExample=30.
+ * the patterns are the same as {@link NamePattern}, and the last matching rule wins, so the general rules go first.
+ */
+public class StatementRules {
+
+    private static final StatementRules NONE = new StatementRules(new ArrayList<>());
+
+    private final List<Rule> rules;
+
+    private StatementRules(List<Rule> rules) {
+        this.rules = rules;
+    }
+
+    /**
+     * @param prop      the property name, used by the warnings
+     * @param value     null or blank has no rules
+     * @param validator the invalid values are skipped with a warning
+     */
+    public static StatementRules compile(String prop, String value, Predicate<String> validator,
+                                         List<String> warnings) {
+        if (value == null || value.trim().isEmpty()) {
+            return NONE;
+        }
+        List<Rule> rules = new ArrayList<>();
+        for (String rule : value.split(",")) {
+            rule = rule.trim();
+            if (rule.isEmpty()) {
+                continue;
+            }
+            int equalIndex = rule.indexOf('=');
+            // the statement id never contains a dot, but the table pattern might
+            int dotIndex = equalIndex == -1 ? -1 : rule.lastIndexOf('.', equalIndex);
+            String ruleValue = equalIndex == -1 ? "" : rule.substring(equalIndex + 1).trim();
+            if (dotIndex <= 0 || dotIndex == equalIndex - 1 || !validator.test(ruleValue)) {
+                warnings.add("The rule '" + rule + "' of property '" + prop + "' is invalid and ignored, "
+                        + "expected ${table_pattern}.${statement_id_pattern}=${value}.");
+                continue;
+            }
+            rules.add(new Rule(NamePattern.compile(rule.substring(0, dotIndex)),
+                    NamePattern.compile(rule.substring(dotIndex + 1, equalIndex)),
+                    ruleValue));
+        }
+        return new StatementRules(rules);
+    }
+
+    /**
+     * @return the value of the last matching rule, null if no rule matches
+     */
+    public String valueOf(String tableName, String statementId) {
+        for (int i = rules.size() - 1; i >= 0; i--) {
+            Rule rule = rules.get(i);
+            if (rule.table.matches(tableName) && rule.statement.matches(statementId)) {
+                return rule.value;
+            }
+        }
+        return null;
+    }
+
+    public boolean isEmpty() {
+        return rules.isEmpty();
+    }
+
+    private static class Rule {
+
+        private final NamePattern table;
+
+        private final NamePattern statement;
+
+        private final String value;
+
+        Rule(NamePattern table, NamePattern statement, String value) {
+            this.table = table;
+            this.statement = statement;
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package cc.cc1234.mybatis.generator;
+
+import java.util.AbstractList;
+import java.util.List;
+
+/**
+ * the warnings of a context, which the plugins may add concurrently while the tables are generated in parallel.
+ * the warnings added while a table is generated by the {@link ParallelGenerationPlugin} are kept by the table, and
+ * added in the order of the tables afterwards, so they are the same as the ones of a serial generation.
+ */
+public class TableWarnings extends AbstractList<String> {
+
+    /**
+     * the warnings of the table generated by the current thread
+     */
+    private static final ThreadLocal<List<String>> CURRENT_TABLE = new ThreadLocal<>();
+
+    private final List<String> warnings;
+
+    private TableWarnings(List<String> warnings) {
+        this.warnings = warnings;
+    }
+
+    /**
+     * wraps the warnings passed to {@link org.mybatis.generator.api.Plugin#validate(List)}
+     */
+    public static List<String> of(List<String> warnings) {
+        return warnings instanceof TableWarnings ? warnings : new TableWarnings(warnings);
+    }
+
+    /**
+     * adds the warnings of the current thread to the given list until {@link #unbind()}
+     */
+    static void bind(List<String> tableWarnings) {
+        CURRENT_TABLE.set(tableWarnings);
+    }
+
+    static void unbind() {
+        CURRENT_TABLE.remove();
+    }
+
+    @Override
+    public boolean add(String warning) {
+        List<String> tableWarnings = CURRENT_TABLE.get();
+        if (tableWarnings != null) {
+            return tableWarnings.add(warning);
+        }
+        synchronized (warnings) {
+            return warnings.add(warning);
+        }
+    }
+
+    @Override
+    public String get(int index) {
+        synchronized (warnings) {
+            return warnings.get(index);
+        }
+    }
+
+    @Override
+    public int size() {
+        synchronized (warnings) {
+            return warnings.size();
+        }
+    }
+}
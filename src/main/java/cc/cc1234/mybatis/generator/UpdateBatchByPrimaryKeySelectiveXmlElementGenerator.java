@@ -0,0 +1,110 @@
+package cc.cc1234.mybatis.generator;
+
+import org.mybatis.generator.api.IntrospectedColumn;
+import org.mybatis.generator.api.dom.xml.Attribute;
+import org.mybatis.generator.api.dom.xml.TextElement;
+import org.mybatis.generator.api.dom.xml.XmlElement;
+import org.mybatis.generator.codegen.mybatis3.ListUtilities;
+import org.mybatis.generator.codegen.mybatis3.xmlmapper.elements.AbstractXmlElementGenerator;
+
+import java.util.List;
+
+import static org.mybatis.generator.codegen.mybatis3.MyBatis3FormattingUtilities.getEscapedColumnName;
+import static org.mybatis.generator.codegen.mybatis3.MyBatis3FormattingUtilities.getParameterClause;
+
+/**
+ * update the rows of a chunk by primary key in one statement:
+ * <pre>
+ *     update ${table_name}
+ *     set ${column} = case when ${pk} = ? then ? when ${pk} = ? then ? else ${column} end, ..., ${pk} = ${pk}
+ *     where ${pk} in (?, ?)
+ * </pre>
+ * columns which are null in every row of the chunk are skipped, ${pk} = ${pk} keeps the set valid when every column
+ * is skipped.
+ */
+public class UpdateBatchByPrimaryKeySelectiveXmlElementGenerator extends AbstractXmlElementGenerator {
+
+    public static final String STATEMENT_ID = "updateBatchByPrimaryKeySelectiveChunk";
+
+    @Override
+    public void addElements(XmlElement parentElement) {
+        // <update id="?" parameterType="map">
+        XmlElement answer = new XmlElement("update");
+        answer.addAttribute(new Attribute("id", STATEMENT_ID));
+        answer.addAttribute(new Attribute("parameterType", "map"));
+        context.getCommentGenerator().addComment(answer);
+
+        answer.addElement(new TextElement("update " + introspectedTable.getFullyQualifiedTableNameAtRuntime()));
+
+        // set ${column} = case ... end,
+        XmlElement setElement = new XmlElement("trim");
+        setElement.addAttribute(new Attribute("prefix", "set"));
+        setElement.addAttribute(new Attribute("suffixOverrides", ","));
+        String rowPrimaryKeyCondition = primaryKeyCondition();
+        List<IntrospectedColumn> columns =
+                ListUtilities.removeGeneratedAlwaysColumns(introspectedTable.getNonPrimaryKeyColumns());
+        for (IntrospectedColumn column : columns) {
+            String columnName = getEscapedColumnName(column);
+            // trim 的内容为空时不会输出 prefix, 即整个 chunk 中都为 null 的列不会出现在 set 中
+            XmlElement caseElement = new XmlElement("trim");
+            caseElement.addAttribute(new Attribute("prefix", columnName + " = case"));
+            caseElement.addAttribute(new Attribute("suffix", "else " + columnName + " end,"));
+
+            XmlElement foreach = new XmlElement("foreach");
+            foreach.addAttribute(new Attribute("collection", "rows"));
+            foreach.addAttribute(new Attribute("item", "row"));
+
+            TextElement when = new TextElement("when " + rowPrimaryKeyCondition
+                    + " then " + getParameterClause(column, "row."));
+            if (column.getFullyQualifiedJavaType().isPrimitive()) {
+                // a primitive is never null, such as the primitive.types of the NullSafePlugin
+                foreach.addElement(when);
+            } else {
+                XmlElement ifElement = new XmlElement("if");
+                ifElement.addAttribute(new Attribute("test", column.getJavaProperty("row.") + " != null"));
+                ifElement.addElement(when);
+                foreach.addElement(ifElement);
+            }
+
+            caseElement.addElement(foreach);
+            setElement.addElement(caseElement);
+        }
+        String firstKey = getEscapedColumnName(introspectedTable.getPrimaryKeyColumns().get(0));
+        setElement.addElement(new TextElement(firstKey + " = " + firstKey));
+        answer.addElement(setElement);
+
+        // where ${pk} in (?, ?) or where (${pk1} = ? and ${pk2} = ?) or (...)
+        List<IntrospectedColumn> primaryKeyColumns = introspectedTable.getPrimaryKeyColumns();
+        XmlElement foreach = new XmlElement("foreach");
+        foreach.addAttribute(new Attribute("collection", "rows"));
+        foreach.addAttribute(new Attribute("item", "row"));
+        if (primaryKeyColumns.size() == 1) {
+            IntrospectedColumn primaryKeyColumn = primaryKeyColumns.get(0);
+            answer.addElement(new TextElement("where " + getEscapedColumnName(primaryKeyColumn) + " in"));
+            foreach.addAttribute(new Attribute("open", "("));
+            foreach.addAttribute(new Attribute("separator", ","));
+            foreach.addAttribute(new Attribute("close", ")"));
+            foreach.addElement(new TextElement(getParameterClause(primaryKeyColumn, "row.")));
+        } else {
+            answer.addElement(new TextElement("where"));
+            foreach.addAttribute(new Attribute("separator", "or"));
+            foreach.addElement(new TextElement("(" + rowPrimaryKeyCondition + ")"));
+        }
+        answer.addElement(foreach);
+
+        parentElement.addElement(answer);
+    }
+
+    private String primaryKeyCondition() {
+        StringBuilder sb = new StringBuilder();
+        for (IntrospectedColumn primaryKeyColumn : introspectedTable.getPrimaryKeyColumns()) {
+            if (sb.length() > 0) {
+                sb.append(" and ");
+            }
+            sb.append(getEscapedColumnName(primaryKeyColumn));
+            sb.append(" = ");
+            sb.append(getParameterClause(primaryKeyColumn, "row."));
+        }
+        return sb.toString();
+    }
+}
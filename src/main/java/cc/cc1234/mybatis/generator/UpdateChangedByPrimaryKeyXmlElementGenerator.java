@@ -0,0 +1,71 @@
+package cc.cc1234.mybatis.generator;
+
+import org.mybatis.generator.api.IntrospectedColumn;
+import org.mybatis.generator.api.dom.xml.Attribute;
+import org.mybatis.generator.api.dom.xml.TextElement;
+import org.mybatis.generator.api.dom.xml.XmlElement;
+import org.mybatis.generator.codegen.mybatis3.xmlmapper.elements.AbstractXmlElementGenerator;
+
+import java.util.List;
+
+import static org.mybatis.generator.codegen.mybatis3.MyBatis3FormattingUtilities.getEscapedColumnName;
+import static org.mybatis.generator.codegen.mybatis3.MyBatis3FormattingUtilities.getParameterClause;
+
+/**
+ * update the columns whose setters are called since the row is loaded, a column set to null is updated to null:
+ * <pre>
+ *     update ${table_name}
+ *     set ${column} = ?, ...
+ *     where ${pk} = ?
+ * </pre>
+ * a row without changes updates its primary key to itself, as the statement can't be skipped.
+ */
+public class UpdateChangedByPrimaryKeyXmlElementGenerator extends AbstractXmlElementGenerator {
+
+    public static final String STATEMENT_ID = "updateChangedByPrimaryKey";
+
+    /**
+     * the tracked columns, by the order of their bits in the row
+     */
+    private final List<IntrospectedColumn> columns;
+
+    public UpdateChangedByPrimaryKeyXmlElementGenerator(List<IntrospectedColumn> columns) {
+        this.columns = columns;
+    }
+
+    @Override
+    public void addElements(XmlElement parentElement) {
+        // <update id="?" parameterType="?">
+        XmlElement answer = new XmlElement("update");
+        answer.addAttribute(new Attribute("id", STATEMENT_ID));
+        answer.addAttribute(new Attribute("parameterType", introspectedTable.getBaseRecordType()));
+        context.getCommentGenerator().addComment(answer);
+
+        answer.addElement(new TextElement("update " + introspectedTable.getFullyQualifiedTableNameAtRuntime()));
+
+        XmlElement setElement = new XmlElement("set");
+        for (int i = 0; i < columns.size(); i++) {
+            IntrospectedColumn column = columns.get(i);
+            XmlElement ifElement = new XmlElement("if");
+            ifElement.addAttribute(new Attribute("test", "_parameter.isDirty(" + i + ")"));
+            ifElement.addElement(new TextElement(getEscapedColumnName(column)
+                    + " = " + getParameterClause(column) + ","));
+            setElement.addElement(ifElement);
+        }
+        String firstKeyColumn = getEscapedColumnName(introspectedTable.getPrimaryKeyColumns().get(0));
+        XmlElement unchanged = new XmlElement("if");
+        unchanged.addAttribute(new Attribute("test", "!_parameter.hasDirtyFields()"));
+        unchanged.addElement(new TextElement(firstKeyColumn + " = " + firstKeyColumn));
+        setElement.addElement(unchanged);
+        answer.addElement(setElement);
+
+        boolean and = false;
+        for (IntrospectedColumn primaryKeyColumn : introspectedTable.getPrimaryKeyColumns()) {
+            answer.addElement(new TextElement((and ? "  and " : "where ")
+                    + getEscapedColumnName(primaryKeyColumn) + " = " + getParameterClause(primaryKeyColumn)));
+            and = true;
+        }
+
+        parentElement.addElement(answer);
+    }
+}
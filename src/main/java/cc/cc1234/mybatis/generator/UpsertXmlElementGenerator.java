@@ -0,0 +1,275 @@
+package cc.cc1234.mybatis.generator;
+
+import org.mybatis.generator.api.IntrospectedColumn;
+import org.mybatis.generator.api.dom.xml.Attribute;
+import org.mybatis.generator.api.dom.xml.TextElement;
+import org.mybatis.generator.api.dom.xml.VisitableElement;
+import org.mybatis.generator.api.dom.xml.XmlElement;
+import org.mybatis.generator.codegen.mybatis3.xmlmapper.elements.AbstractXmlElementGenerator;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.mybatis.generator.codegen.mybatis3.MyBatis3FormattingUtilities.getEscapedColumnName;
+import static org.mybatis.generator.codegen.mybatis3.MyBatis3FormattingUtilities.getParameterClause;
+
+/**
+ * insert a row, or update it when a row with the same conflict key exists, in the native syntax of the dialect:
+ * <pre>
+ *     insert into ${table_name} (...) values (...) on duplicate key update ${column} = values(${column})
+ *     insert into ${table_name} (...) values (...) on conflict (${key}) do update set ${column} = excluded.${column}
+ *     merge into ${table_name} t using (values (...)) s (...) on (t.${key} = s.${key})
+ *     when matched then update set ${column} = s.${column} when not matched then insert (...) values (...)
+ * </pre>
+ * the conflict key columns are never updated, neither are the primary key columns.
+ */
+public class UpsertXmlElementGenerator extends AbstractXmlElementGenerator {
+
+    public enum Kind {
+
+        UPSERT("upsert"),
+
+        UPSERT_SELECTIVE("upsertSelective"),
+
+        UPSERT_BATCH("upsertBatchChunk");
+
+        private final String statementId;
+
+        Kind(String statementId) {
+            this.statementId = statementId;
+        }
+
+        public String getStatementId() {
+            return statementId;
+        }
+    }
+
+    private final Dialect dialect;
+
+    private final List<IntrospectedColumn> conflictColumns;
+
+    private final Kind kind;
+
+    public UpsertXmlElementGenerator(Dialect dialect, List<IntrospectedColumn> conflictColumns, Kind kind) {
+        this.dialect = dialect;
+        this.conflictColumns = conflictColumns;
+        this.kind = kind;
+    }
+
+    @Override
+    public void addElements(XmlElement parentElement) {
+        // <insert id="?" parameterType="?">
+        XmlElement answer = new XmlElement("insert");
+        answer.addAttribute(new Attribute("id", kind.getStatementId()));
+        answer.addAttribute(new Attribute("parameterType", kind == Kind.UPSERT_BATCH
+                ? "map"
+                : introspectedTable.getRules().calculateAllFieldsClass().getFullyQualifiedName()));
+        context.getCommentGenerator().addComment(answer);
+
+        // a null identity column is left to the database, unless it is the conflict key
+        boolean selective = kind == Kind.UPSERT_SELECTIVE;
+        List<IntrospectedColumn> insertColumns = introspectedTable.getAllColumns()
+                .stream()
+                .filter(column -> !column.isGeneratedAlways())
+                .filter(column -> selective || !column.isIdentity() || conflictColumns.contains(column))
+                .collect(Collectors.toList());
+        List<IntrospectedColumn> updateColumns = insertColumns.stream()
+                .filter(column -> !conflictColumns.contains(column))
+                .filter(column -> !introspectedTable.getPrimaryKeyColumns().contains(column))
+                .collect(Collectors.toList());
+        String prefix = kind == Kind.UPSERT_BATCH ? "row." : "";
+        String tableName = introspectedTable.getFullyQualifiedTableNameAtRuntime();
+        String firstKey = getEscapedColumnName(conflictColumns.get(0));
+
+        switch (dialect.getUpsertSyntax()) {
+        case ON_DUPLICATE_KEY:
+            answer.addElement(new TextElement("insert into " + tableName));
+            addInsertValues(answer, insertColumns, prefix);
+            // ${key} = ${key} keeps the statement valid when there is nothing to update
+            answer.addElement(new TextElement("on duplicate key update"));
+            addAssignments(answer, updateColumns, prefix,
+                    column -> getEscapedColumnName(column) + " = values(" + getEscapedColumnName(column) + ")",
+                    firstKey + " = " + firstKey);
+            break;
+        case ON_CONFLICT:
+            answer.addElement(new TextElement("insert into " + tableName));
+            addInsertValues(answer, insertColumns, prefix);
+            String conflictTarget = conflictColumns.stream()
+                    .map(column -> getEscapedColumnName(column))
+                    .collect(Collectors.joining(", ", "on conflict (", ")"));
+            if (updateColumns.isEmpty()) {
+                answer.addElement(new TextElement(conflictTarget + " do nothing"));
+            } else {
+                answer.addElement(new TextElement(conflictTarget + " do update set"));
+                addAssignments(answer, updateColumns, prefix,
+                        column -> getEscapedColumnName(column) + " = excluded." + getEscapedColumnName(column),
+                        firstKey + " = excluded." + firstKey);
+            }
+            break;
+        case MERGE_USING_VALUES:
+        case MERGE_USING_DUAL:
+            addMerge(answer, insertColumns, updateColumns, prefix);
+            break;
+        default:
+            throw new IllegalStateException("The upsert statement is not supported by dialect " + dialect);
+        }
+
+        parentElement.addElement(answer);
+    }
+
+    /**
+     * (${columns}) values (?, ?), (?, ?)
+     */
+    private void addInsertValues(XmlElement answer, List<IntrospectedColumn> columns, String prefix) {
+        addColumns(answer, "(", ")", columns, prefix, column -> getEscapedColumnName(column));
+        answer.addElement(new TextElement("values"));
+        if (kind == Kind.UPSERT_BATCH) {
+            XmlElement foreach = rowsForEach(",");
+            addColumns(foreach, "(", ")", columns, prefix, column -> getParameterClause(column, prefix));
+            answer.addElement(foreach);
+        } else {
+            addColumns(answer, "(", ")", columns, prefix, column -> getParameterClause(column, prefix));
+        }
+    }
+
+    private void addMerge(XmlElement answer,
+                          List<IntrospectedColumn> insertColumns,
+                          List<IntrospectedColumn> updateColumns,
+                          String prefix) {
+        answer.addElement(new TextElement("merge into " + introspectedTable.getFullyQualifiedTableNameAtRuntime() + " t"));
+
+        // using (values (?, ?)) s (${columns}) or using (select ? as ${column} from dual) s
+        if (dialect.getUpsertSyntax() == Dialect.UpsertSyntax.MERGE_USING_DUAL) {
+            answer.addElement(new TextElement("using ("));
+            XmlElement parent = answer;
+            if (kind == Kind.UPSERT_BATCH) {
+                parent = rowsForEach("union all");
+                answer.addElement(parent);
+            }
+            parent.addElement(new TextElement("select"));
+            addColumns(parent, "", "", insertColumns, prefix,
+                    column -> getParameterClause(column, prefix) + " as " + getEscapedColumnName(column));
+            parent.addElement(new TextElement("from dual"));
+            answer.addElement(new TextElement(") s"));
+        } else {
+            answer.addElement(new TextElement("using (values"));
+            if (kind == Kind.UPSERT_BATCH) {
+                XmlElement foreach = rowsForEach(",");
+                addColumns(foreach, "(", ")", insertColumns, prefix, column -> getParameterClause(column, prefix));
+                answer.addElement(foreach);
+            } else {
+                addColumns(answer, "(", ")", insertColumns, prefix, column -> getParameterClause(column, prefix));
+            }
+            answer.addElement(new TextElement(") s"));
+            addColumns(answer, "(", ")", insertColumns, prefix, column -> getEscapedColumnName(column));
+        }
+
+        // on (t.${key} = s.${key})
+        answer.addElement(new TextElement(conflictColumns.stream()
+                .map(column -> "t." + getEscapedColumnName(column) + " = s." + getEscapedColumnName(column))
+                .collect(Collectors.joining(" and ", "on (", ")"))));
+
+        // the trim drops the whole clause when there is nothing to update
+        XmlElement matched = new XmlElement("trim");
+        matched.addAttribute(new Attribute("prefix", "when matched then update set"));
+        matched.addAttribute(new Attribute("suffixOverrides", ","));
+        for (IntrospectedColumn column : updateColumns) {
+            String text = getEscapedColumnName(column) + " = s." + getEscapedColumnName(column) + ",";
+            matched.addElement(kind == Kind.UPSERT_SELECTIVE
+                    ? ifNotNull(column, prefix, text)
+                    : new TextElement(text));
+        }
+        answer.addElement(matched);
+
+        answer.addElement(new TextElement("when not matched then insert"));
+        addColumns(answer, "(", ")", insertColumns, prefix, column -> getEscapedColumnName(column));
+        answer.addElement(new TextElement("values"));
+        addColumns(answer, "(", ")", insertColumns, prefix, column -> "s." + getEscapedColumnName(column));
+        if (dialect.isMergeTerminated()) {
+            answer.addElement(new TextElement(";"));
+        }
+    }
+
+    /**
+     * the conflict key columns are always rendered, the other columns of the selective statement only when not null
+     */
+    private void addColumns(XmlElement parent,
+                            String open,
+                            String close,
+                            List<IntrospectedColumn> columns,
+                            String prefix,
+                            Function<IntrospectedColumn, String> text) {
+        if (kind == Kind.UPSERT_SELECTIVE) {
+            XmlElement trim = new XmlElement("trim");
+            if (!open.isEmpty()) {
+                trim.addAttribute(new Attribute("prefix", open));
+                trim.addAttribute(new Attribute("suffix", close));
+            }
+            trim.addAttribute(new Attribute("suffixOverrides", ","));
+            for (IntrospectedColumn column : columns) {
+                trim.addElement(conflictColumns.contains(column)
+                        ? new TextElement(text.apply(column) + ",")
+                        : ifNotNull(column, prefix, text.apply(column) + ","));
+            }
+            parent.addElement(trim);
+            return;
+        }
+
+        StringBuilder sb = new StringBuilder(open);
+        for (int i = 0; i < columns.size(); i++) {
+            sb.append(text.apply(columns.get(i)));
+            if (i + 1 < columns.size()) {
+                sb.append(", ");
+            }
+            if (sb.length() > 80 && i + 1 < columns.size()) {
+                parent.addElement(new TextElement(sb.toString()));
+                sb.setLength(0);
+                sb.append("  ");
+            }
+        }
+        sb.append(close);
+        parent.addElement(new TextElement(sb.toString()));
+    }
+
+    /**
+     * @param noop rendered when there is nothing else to update
+     */
+    private void addAssignments(XmlElement parent,
+                                List<IntrospectedColumn> columns,
+                                String prefix,
+                                Function<IntrospectedColumn, String> text,
+                                String noop) {
+        if (kind == Kind.UPSERT_SELECTIVE) {
+            for (IntrospectedColumn column : columns) {
+                parent.addElement(ifNotNull(column, prefix, text.apply(column) + ","));
+            }
+            parent.addElement(new TextElement(noop));
+        } else if (columns.isEmpty()) {
+            parent.addElement(new TextElement(noop));
+        } else {
+            for (int i = 0; i < columns.size(); i++) {
+                parent.addElement(new TextElement(text.apply(columns.get(i)) + (i + 1 < columns.size() ? "," : "")));
+            }
+        }
+    }
+
+    private VisitableElement ifNotNull(IntrospectedColumn column, String prefix, String text) {
+        if (column.getFullyQualifiedJavaType().isPrimitive()) {
+            // a primitive is never null, such as the primitive.types of the NullSafePlugin
+            return new TextElement(text);
+        }
+        XmlElement ifElement = new XmlElement("if");
+        ifElement.addAttribute(new Attribute("test", column.getJavaProperty(prefix) + " != null"));
+        ifElement.addElement(new TextElement(text));
+        return ifElement;
+    }
+
+    private XmlElement rowsForEach(String separator) {
+        XmlElement foreach = new XmlElement("foreach");
+        foreach.addAttribute(new Attribute("collection", "rows"));
+        foreach.addAttribute(new Attribute("item", "row"));
+        foreach.addAttribute(new Attribute("separator", separator));
+        return foreach;
+    }
+}
@@ -0,0 +1,46 @@
+package cc.cc1234.mybatis.generator;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+class ColumnPatternTest {
+
+    @Test
+    public void testMatches() {
+        List<String> warnings = new ArrayList<>();
+        ColumnPattern pattern = ColumnPattern.compile("ignore.columns",
+                "*.create_time, audit_*.*_time, user.id, user.email, regex:log_\\d+.regex:(create|update)_by",
+                warnings);
+        Assertions.assertTrue(warnings.isEmpty());
+
+        Assertions.assertTrue(pattern.matches("order", "CREATE_TIME"));
+        Assertions.assertTrue(pattern.matches("audit_login", "logout_time"));
+        Assertions.assertFalse(pattern.matches("order", "logout_time"));
+        Assertions.assertTrue(pattern.matches("USER", "id"));
+        Assertions.assertTrue(pattern.matches("user", "email"));
+        Assertions.assertFalse(pattern.matches("user", "nickname"));
+        Assertions.assertFalse(pattern.matches("order", "id"));
+        Assertions.assertTrue(pattern.matches("log_2024", "update_by"));
+        Assertions.assertFalse(pattern.matches("log_x", "update_by"));
+    }
+
+    @Test
+    public void testForTableMemoized() {
+        ColumnPattern pattern = ColumnPattern.compile("ignore.columns", "user.id, *.create_time", new ArrayList<>());
+        Assertions.assertSame(pattern.forTable("user"), pattern.forTable("user"));
+        Assertions.assertTrue(pattern.forTable("user").matches("create_time"));
+        Assertions.assertFalse(pattern.forTable("order").matches("id"));
+    }
+
+    @Test
+    public void testInvalidRules() {
+        List<String> warnings = new ArrayList<>();
+        ColumnPattern pattern = ColumnPattern.compile("ignore.columns", "create_time, user., *.regex:(", warnings);
+        Assertions.assertEquals(3, warnings.size());
+        Assertions.assertTrue(pattern.isEmpty());
+        Assertions.assertTrue(ColumnPattern.compile("ignore.columns", null, warnings).isEmpty());
+    }
+}
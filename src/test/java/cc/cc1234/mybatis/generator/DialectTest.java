@@ -0,0 +1,79 @@
+package cc.cc1234.mybatis.generator;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mybatis.generator.api.dom.xml.Attribute;
+import org.mybatis.generator.api.dom.xml.TextElement;
+import org.mybatis.generator.api.dom.xml.XmlElement;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+class DialectTest {
+
+    @Test
+    public void testOf() {
+        List<String> warnings = new ArrayList<>();
+        Properties properties = new Properties();
+        Assertions.assertEquals(Dialect.MYSQL, Dialect.of(properties, null, warnings));
+
+        properties.setProperty("dialect", " SqlServer ");
+        Assertions.assertEquals(Dialect.SQLSERVER, Dialect.of(properties, null, warnings));
+        Assertions.assertTrue(warnings.isEmpty());
+
+        properties.setProperty("dialect", "unknown");
+        Assertions.assertEquals(Dialect.MYSQL, Dialect.of(properties, null, warnings));
+        Assertions.assertEquals(1, warnings.size());
+    }
+
+    @Test
+    public void testFixedRowLimit() {
+        XmlElement select = selectElement();
+        Dialect.MYSQL.addRowLimit(select, 1);
+        Assertions.assertEquals("limit 1", lastText(select));
+
+        select = selectElement();
+        Dialect.ORACLE.addRowLimit(select, 1);
+        Assertions.assertEquals("fetch first 1 rows only", lastText(select));
+
+        select = selectElement();
+        Dialect.SQLSERVER.addRowLimit(select, 1);
+        // select, <if test="distinct">, top 1, columns
+        Assertions.assertEquals("top 1", ((TextElement) select.getElements().get(2)).getContent());
+    }
+
+    @Test
+    public void testDynamicRowLimit() {
+        XmlElement select = selectElement();
+        Dialect.POSTGRESQL.addRowLimit(select, "limit", "offset");
+        XmlElement limitElement = (XmlElement) select.getElements().get(select.getElements().size() - 1);
+        Assertions.assertEquals("limit != null", limitElement.getAttributes().get(0).getValue());
+        Assertions.assertEquals(2, limitElement.getElements().size());
+
+        select = selectElement();
+        Dialect.DB2.addRowLimit(select, "limit", null);
+        Assertions.assertEquals(5, select.getElements().size());
+
+        select = selectElement();
+        Dialect.SQLSERVER.addRowLimit(select, "limit", "offset");
+        XmlElement topElement = (XmlElement) select.getElements().get(2);
+        Assertions.assertEquals("limit != null and offset == null", topElement.getAttributes().get(0).getValue());
+    }
+
+    private XmlElement selectElement() {
+        XmlElement select = new XmlElement("select");
+        select.addElement(new TextElement("select"));
+        XmlElement distinct = new XmlElement("if");
+        distinct.addAttribute(new Attribute("test", "distinct"));
+        distinct.addElement(new TextElement("distinct"));
+        select.addElement(distinct);
+        select.addElement(new TextElement("ID, EMAIL"));
+        select.addElement(new TextElement("from USER"));
+        return select;
+    }
+
+    private String lastText(XmlElement element) {
+        return ((TextElement) element.getElements().get(element.getElements().size() - 1)).getContent();
+    }
+}
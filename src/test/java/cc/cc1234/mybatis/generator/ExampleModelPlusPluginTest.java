@@ -0,0 +1,317 @@
+package cc.cc1234.mybatis.generator;
+
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mybatis.generator.api.FullyQualifiedTable;
+import org.mybatis.generator.api.IntrospectedColumn;
+import org.mybatis.generator.api.IntrospectedTable;
+import org.mybatis.generator.api.Plugin;
+import org.mybatis.generator.api.PluginAdapter;
+import org.mybatis.generator.api.ProgressCallback;
+import org.mybatis.generator.api.dom.DefaultJavaFormatter;
+import org.mybatis.generator.api.dom.java.FullyQualifiedJavaType;
+import org.mybatis.generator.api.dom.java.TopLevelClass;
+import org.mybatis.generator.codegen.AbstractJavaGenerator;
+import org.mybatis.generator.codegen.mybatis3.IntrospectedTableMyBatis3Impl;
+import org.mybatis.generator.codegen.mybatis3.model.BaseRecordGenerator;
+import org.mybatis.generator.codegen.mybatis3.model.ExampleGenerator;
+import org.mybatis.generator.config.Context;
+import org.mybatis.generator.config.JavaModelGeneratorConfiguration;
+import org.mybatis.generator.config.ModelType;
+import org.mybatis.generator.config.TableConfiguration;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+class ExampleModelPlusPluginTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testOrderByClauseIsCached() throws Exception {
+        Class<?> exampleClass = compileExample(new Properties());
+        Object example = exampleClass.getConstructor().newInstance();
+        Method orderBy = exampleClass.getMethod("orderBy");
+        Method getOrderByClause = exampleClass.getMethod("getOrderByClause");
+
+        Object orderByCriteria = orderBy.invoke(example);
+        orderByCriteria.getClass().getMethod("createTimeDesc").invoke(orderByCriteria);
+        orderByCriteria.getClass().getMethod("idAsc").invoke(orderByCriteria);
+        String clause = (String) getOrderByClause.invoke(example);
+        Assertions.assertEquals("CREATE_TIME DESC,ID ASC", clause);
+        Assertions.assertSame(clause, getOrderByClause.invoke(example));
+
+        // modified after the clause is cached
+        exampleClass.getMethod("setOrderByClause", String.class).invoke(example, "EMAIL ASC");
+        Assertions.assertEquals("CREATE_TIME DESC,ID ASC,EMAIL ASC", getOrderByClause.invoke(example));
+        exampleClass.getMethod("clear").invoke(example);
+        Assertions.assertNull(getOrderByClause.invoke(example));
+    }
+
+    /**
+     * repeated calls of getOrderByClause() must not allocate, as mybatis calls it several times per statement
+     */
+    @Test
+    public void testOrderByClauseAllocation() throws Exception {
+        Class<?> exampleClass = compileExample(new Properties());
+        Object example = exampleClass.getConstructor().newInstance();
+        Object orderByCriteria = exampleClass.getMethod("orderBy").invoke(example);
+        orderByCriteria.getClass().getMethod("createTimeDesc").invoke(orderByCriteria);
+        orderByCriteria.getClass().getMethod("emailAsc").invoke(orderByCriteria);
+        Method getOrderByClause = exampleClass.getMethod("getOrderByClause");
+        getOrderByClause.setAccessible(true);
+
+        // the reflective call itself allocates the arguments array and may box, warm it up and measure it
+        Object[] noArgs = new Object[0];
+        for (int i = 0; i < 20_000; i++) {
+            getOrderByClause.invoke(example, noArgs);
+        }
+        com.sun.management.ThreadMXBean threadMXBean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long before = threadMXBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < 100_000; i++) {
+            getOrderByClause.invoke(example, noArgs);
+        }
+        long allocated = threadMXBean.getThreadAllocatedBytes(threadId) - before;
+
+        // a join on every call would allocate several megabytes here
+        Assertions.assertTrue(allocated < 64 * 1024, "allocated " + allocated + " bytes");
+    }
+
+    @Test
+    public void testEqualsAndHashCode() throws Exception {
+        Class<?> exampleClass = compileExample(new Properties());
+        Object example = newExample(exampleClass, "a@x", 10);
+        Object same = newExample(exampleClass, "a@x", 10);
+        Assertions.assertNotSame(example, same);
+        Assertions.assertEquals(example, same);
+        Assertions.assertEquals(example.hashCode(), same.hashCode());
+
+        Assertions.assertNotEquals(example, newExample(exampleClass, "b@x", 10));
+        Assertions.assertNotEquals(example, newExample(exampleClass, "a@x", 20));
+        Assertions.assertNotEquals(example, exampleClass.getConstructor().newInstance());
+    }
+
+    @Test
+    public void testReset() throws Exception {
+        Class<?> exampleClass = compileExample(new Properties());
+        Object example = newExample(exampleClass, "a@x", 10);
+        Object criteria = ((List<?>) exampleClass.getMethod("getOredCriteria").invoke(example)).get(0);
+
+        Assertions.assertSame(example, exampleClass.getMethod("reset").invoke(example));
+        Assertions.assertEquals(exampleClass.getConstructor().newInstance(), example);
+        Assertions.assertNull(exampleClass.getMethod("getOrderByClause").invoke(example));
+        Assertions.assertNull(exampleClass.getMethod("getLimit").invoke(example));
+
+        // the criteria of the previous query is reused
+        Object reused = exampleClass.getMethod("createCriteria").invoke(example);
+        Assertions.assertSame(criteria, reused);
+        reused.getClass().getMethod("andEmailEqualTo", String.class).invoke(reused, "b@x");
+        exampleClass.getMethod("limit", int.class).invoke(example, 10);
+        Object orderByCriteria = exampleClass.getMethod("orderBy").invoke(example);
+        orderByCriteria.getClass().getMethod("createTimeDesc").invoke(orderByCriteria);
+        Assertions.assertEquals(newExample(exampleClass, "b@x", 10), example);
+    }
+
+    @Test
+    public void testResetWithTypeHandler() throws Exception {
+        Class<?> exampleClass = compileExample(new Properties(), "demo.TagsTypeHandler");
+        Object example = exampleClass.getConstructor().newInstance();
+        Object criteria = exampleClass.getMethod("createCriteria").invoke(example);
+        criteria.getClass().getMethod("andTagsEqualTo", String.class).invoke(criteria, "a");
+        Method getAllCriteria = criteria.getClass().getMethod("getAllCriteria");
+        Assertions.assertEquals(1, ((List<?>) getAllCriteria.invoke(criteria)).size());
+
+        exampleClass.getMethod("reset").invoke(example);
+        Object reused = exampleClass.getMethod("createCriteria").invoke(example);
+        Assertions.assertSame(criteria, reused);
+        Assertions.assertFalse((Boolean) reused.getClass().getMethod("isValid").invoke(reused));
+        Assertions.assertTrue(((List<?>) reused.getClass().getMethod("getTagsCriteria").invoke(reused)).isEmpty());
+        Assertions.assertTrue(((List<?>) getAllCriteria.invoke(reused)).isEmpty());
+
+        reused.getClass().getMethod("andEmailEqualTo", String.class).invoke(reused, "b@x");
+        Assertions.assertEquals(1, ((List<?>) getAllCriteria.invoke(reused)).size());
+    }
+
+    @Test
+    public void testSelectColumns() throws Exception {
+        Path dir = Files.createDirectories(tempDir.resolve("select"));
+        try (GeneratedCode code = new GeneratedCode(dir,
+                "create table CITY (ID bigint primary key, NAME varchar(50), POPULATION int, NOTE clob)",
+                "insert into CITY values (1, 'A', 10, 'a'), (2, 'B', 20, 'b')")) {
+            Context context = code.newContext();
+            GeneratedCode.addTable(context, "CITY", null);
+            code.generate(context);
+            SqlSessionFactory sqlSessionFactory = code.sqlSessionFactory();
+            org.apache.ibatis.session.Configuration configuration = sqlSessionFactory.getConfiguration();
+            MappedStatement selectByExample =
+                    configuration.getMappedStatement("demo.mapper.CityMapper.selectByExample");
+            MappedStatement selectByExampleWithBLOBs =
+                    configuration.getMappedStatement("demo.mapper.CityMapper.selectByExampleWithBLOBs");
+            Assertions.assertEquals("demo.mapper.CityMapper.BaseResultMap",
+                    selectByExample.getResultMaps().get(0).getId());
+            Assertions.assertEquals("demo.mapper.CityMapper.ResultMapWithBLOBs",
+                    selectByExampleWithBLOBs.getResultMaps().get(0).getId());
+
+            Object example = code.load("demo.model.CityExample").getConstructor().newInstance();
+            GeneratedCode.invoke(GeneratedCode.invoke(example, "createCriteria"), "andIdEqualTo", 2L);
+            Assertions.assertEquals("select ID, NAME, POPULATION from CITY WHERE ( ID = ? )",
+                    sql(selectByExample, example));
+            Assertions.assertEquals("select ID, NAME, POPULATION , NOTE from CITY WHERE ( ID = ? )",
+                    sql(selectByExampleWithBLOBs, example));
+
+            // the columns not selected are left null by the result map
+            GeneratedCode.invoke(GeneratedCode.invoke(example, "select"), "nameCol");
+            Assertions.assertEquals("select NAME from CITY WHERE ( ID = ? )", sql(selectByExample, example));
+            GeneratedCode.invoke(GeneratedCode.invoke(example, "select"), "noteCol");
+            Assertions.assertEquals("select NAME, NOTE from CITY WHERE ( ID = ? )",
+                    sql(selectByExampleWithBLOBs, example));
+            try (SqlSession session = sqlSessionFactory.openSession()) {
+                Object row = session.selectOne(selectByExampleWithBLOBs.getId(), example);
+                Assertions.assertNull(GeneratedCode.invoke(row, "getId"));
+                Assertions.assertEquals("B", GeneratedCode.invoke(row, "getName"));
+                Assertions.assertNull(GeneratedCode.invoke(row, "getPopulation"));
+                Assertions.assertEquals("b", GeneratedCode.invoke(row, "getNote"));
+            }
+
+            GeneratedCode.invoke(example, "clear");
+            Assertions.assertEquals("select ID, NAME, POPULATION from CITY", sql(selectByExample, example));
+        }
+    }
+
+    private static String sql(MappedStatement statement, Object example) {
+        return statement.getBoundSql(example).getSql().replaceAll("\\s+", " ").trim();
+    }
+
+    /**
+     * where EMAIL = ? order by CREATE_TIME DESC limit ?
+     */
+    private Object newExample(Class<?> exampleClass, String email, int limit) throws Exception {
+        Object example = exampleClass.getConstructor().newInstance();
+        Object criteria = exampleClass.getMethod("createCriteria").invoke(example);
+        criteria.getClass().getMethod("andEmailEqualTo", String.class).invoke(criteria, email);
+        Object orderByCriteria = exampleClass.getMethod("orderBy").invoke(example);
+        orderByCriteria.getClass().getMethod("createTimeDesc").invoke(orderByCriteria);
+        exampleClass.getMethod("limit", int.class).invoke(example, limit);
+        return example;
+    }
+
+    private Class<?> compileExample(Properties properties) throws Exception {
+        return compileExample(properties, null);
+    }
+
+    /**
+     * @param tagsTypeHandler the typeHandler of column TAGS, or null if the table has no such column
+     */
+    private Class<?> compileExample(Properties properties, String tagsTypeHandler) throws Exception {
+        List<String> arguments = new ArrayList<>();
+        Path classes = tempDir.resolve("classes");
+        Files.createDirectories(classes);
+        arguments.add("-d");
+        arguments.add(classes.toString());
+        for (TopLevelClass topLevelClass : generateModels(properties, tagsTypeHandler)) {
+            Path source = tempDir.resolve("src/demo/model/" + topLevelClass.getType().getShortName() + ".java");
+            Files.createDirectories(source.getParent());
+            Files.write(source, new DefaultJavaFormatter().getFormattedContent(topLevelClass)
+                    .getBytes(StandardCharsets.UTF_8));
+            arguments.add(source.toString());
+        }
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        int result = compiler.run(null, null, null, arguments.toArray(new String[0]));
+        Assertions.assertEquals(0, result);
+
+        URLClassLoader classLoader = new URLClassLoader(new URL[]{classes.toUri().toURL()},
+                getClass().getClassLoader());
+        return classLoader.loadClass("demo.model.UserAccountExample");
+    }
+
+    /**
+     * the record and the example generated for table USER_ACCOUNT (ID, EMAIL, CREATE_TIME)
+     */
+    private List<TopLevelClass> generateModels(Properties properties, String tagsTypeHandler) {
+        // the plugins are only aggregated when the context generates files
+        Context context = new Context(ModelType.FLAT) {
+            @Override
+            public Plugin getPlugins() {
+                return new PluginAdapter() {
+                    @Override
+                    public boolean validate(List<String> warnings) {
+                        return true;
+                    }
+                };
+            }
+        };
+        context.setId("test");
+        context.setTargetRuntime("MyBatis3");
+        JavaModelGeneratorConfiguration modelConfiguration = new JavaModelGeneratorConfiguration();
+        modelConfiguration.setTargetPackage("demo.model");
+        modelConfiguration.setTargetProject("src");
+        context.setJavaModelGeneratorConfiguration(modelConfiguration);
+
+        IntrospectedTable table = new IntrospectedTableMyBatis3Impl();
+        table.setContext(context);
+        table.setTableConfiguration(new TableConfiguration(context));
+        table.setFullyQualifiedTable(new FullyQualifiedTable(null, null, "USER_ACCOUNT", null, null, false,
+                null, null, null, false, null, context));
+        addColumn(table, "ID", "id", Types.BIGINT, "java.lang.Long", true);
+        addColumn(table, "EMAIL", "email", Types.VARCHAR, "java.lang.String", false);
+        addColumn(table, "CREATE_TIME", "createTime", Types.TIMESTAMP, "java.util.Date", false);
+        if (tagsTypeHandler != null) {
+            addColumn(table, "TAGS", "tags", Types.VARCHAR, "java.lang.String", false);
+            table.getColumn("TAGS").ifPresent(column -> column.setTypeHandler(tagsTypeHandler));
+        }
+        table.initialize();
+
+        ExampleModelPlusPlugin plugin = new ExampleModelPlusPlugin();
+        plugin.setContext(context);
+        plugin.setProperties(properties);
+        plugin.validate(new ArrayList<>());
+        plugin.initialized(table);
+
+        List<TopLevelClass> models = new ArrayList<>();
+        for (AbstractJavaGenerator generator : new AbstractJavaGenerator[]{
+                new BaseRecordGenerator("src"), new ExampleGenerator("src")}) {
+            generator.setContext(context);
+            generator.setIntrospectedTable(table);
+            generator.setWarnings(new ArrayList<>());
+            generator.setProgressCallback(new ProgressCallback() {
+            });
+            models.add((TopLevelClass) generator.getCompilationUnits().get(0));
+        }
+        Assertions.assertTrue(plugin.modelExampleClassGenerated(models.get(1), table));
+        return models;
+    }
+
+    private void addColumn(IntrospectedTable table, String name, String property, int jdbcType, String javaType,
+                           boolean primaryKey) {
+        IntrospectedColumn column = new IntrospectedColumn();
+        column.setContext(table.getContext());
+        column.setIntrospectedTable(table);
+        column.setActualColumnName(name);
+        column.setJavaProperty(property);
+        column.setJdbcType(jdbcType);
+        column.setFullyQualifiedJavaType(new FullyQualifiedJavaType(javaType));
+        table.addColumn(column);
+        if (primaryKey) {
+            table.addPrimaryKeyColumn(name);
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package cc.cc1234.mybatis.generator;
+
+import org.apache.ibatis.builder.xml.XMLMapperBuilder;
+import org.apache.ibatis.datasource.unpooled.UnpooledDataSource;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.session.LocalCacheScope;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.junit.jupiter.api.Assertions;
+import org.mybatis.generator.api.MyBatisGenerator;
+import org.mybatis.generator.config.CommentGeneratorConfiguration;
+import org.mybatis.generator.config.Configuration;
+import org.mybatis.generator.config.Context;
+import org.mybatis.generator.config.GeneratedKey;
+import org.mybatis.generator.config.JDBCConnectionConfiguration;
+import org.mybatis.generator.config.JavaModelGeneratorConfiguration;
+import org.mybatis.generator.config.ModelType;
+import org.mybatis.generator.config.PluginConfiguration;
+import org.mybatis.generator.config.SqlMapGeneratorConfiguration;
+import org.mybatis.generator.config.TableConfiguration;
+import org.mybatis.generator.internal.DefaultShellCallback;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * the code generated by the plugins for the tables of an in-memory h2 database, compiled, loaded and run by mybatis
+ */
+final class GeneratedCode implements AutoCloseable {
+
+    static final String MODEL_PACKAGE = "demo.model";
+
+    static final String MAPPER_PACKAGE = "demo.mapper";
+
+    private final Path directory;
+
+    private final String url;
+
+    /**
+     * the in-memory database is dropped with its last connection
+     */
+    private final Connection connection;
+
+    private URLClassLoader classLoader;
+
+    GeneratedCode(Path directory, String... ddl) throws SQLException {
+        this.directory = directory;
+        this.url = "jdbc:h2:mem:" + directory.getFileName() + System.nanoTime() + ";MODE=MySQL";
+        this.connection = DriverManager.getConnection(url, "sa", "");
+        try (Statement statement = connection.createStatement()) {
+            for (String sql : ddl) {
+                statement.execute(sql);
+            }
+        }
+    }
+
+    Connection getConnection() {
+        return connection;
+    }
+
+    Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * a context with MapperPlusPlugin and ExampleModelPlusPlugin, the mappers and the models are generated into the
+     * directory
+     *
+     * @param mapperPlusProperties the names and the values of the properties of MapperPlusPlugin
+     */
+    Context newContext(String... mapperPlusProperties) {
+        Context context = new Context(ModelType.FLAT);
+        context.setId("test");
+        context.setTargetRuntime("MyBatis3");
+        PluginConfiguration mapperPlus = plugin(MapperPlusPlugin.class,
+                "base-mapper.target.project", directory.toString(),
+                "base-mapper.target.package", MAPPER_PACKAGE,
+                "java-mapper.target.project", directory.toString(),
+                "java-mapper.target.package", MAPPER_PACKAGE);
+        for (int i = 0; i < mapperPlusProperties.length; i += 2) {
+            mapperPlus.addProperty(mapperPlusProperties[i], mapperPlusProperties[i + 1]);
+        }
+        context.addPluginConfiguration(mapperPlus);
+        context.addPluginConfiguration(plugin(ExampleModelPlusPlugin.class));
+        CommentGeneratorConfiguration commentConfiguration = new CommentGeneratorConfiguration();
+        commentConfiguration.addProperty("suppressAllComments", "true");
+        context.setCommentGeneratorConfiguration(commentConfiguration);
+        JDBCConnectionConfiguration jdbcConfiguration = new JDBCConnectionConfiguration();
+        jdbcConfiguration.setDriverClass("org.h2.Driver");
+        jdbcConfiguration.setConnectionURL(url);
+        jdbcConfiguration.setUserId("sa");
+        jdbcConfiguration.setPassword("");
+        context.setJdbcConnectionConfiguration(jdbcConfiguration);
+        JavaModelGeneratorConfiguration modelConfiguration = new JavaModelGeneratorConfiguration();
+        modelConfiguration.setTargetPackage(MODEL_PACKAGE);
+        modelConfiguration.setTargetProject(directory.toString());
+        context.setJavaModelGeneratorConfiguration(modelConfiguration);
+        SqlMapGeneratorConfiguration sqlMapConfiguration = new SqlMapGeneratorConfiguration();
+        sqlMapConfiguration.setTargetPackage(MAPPER_PACKAGE);
+        sqlMapConfiguration.setTargetProject(directory.toString());
+        context.setSqlMapGeneratorConfiguration(sqlMapConfiguration);
+        return context;
+    }
+
+    static PluginConfiguration plugin(Class<?> type, String... properties) {
+        PluginConfiguration pluginConfiguration = new PluginConfiguration();
+        pluginConfiguration.setConfigurationType(type.getName());
+        for (int i = 0; i < properties.length; i += 2) {
+            pluginConfiguration.addProperty(properties[i], properties[i + 1]);
+        }
+        return pluginConfiguration;
+    }
+
+    /**
+     * @param identity the auto increment primary key ID, or null
+     */
+    static TableConfiguration addTable(Context context, String tableName, String identity) {
+        TableConfiguration tableConfiguration = new TableConfiguration(context);
+        tableConfiguration.setTableName(tableName);
+        if (identity != null) {
+            tableConfiguration.setGeneratedKey(new GeneratedKey(identity, "JDBC", true, null));
+        }
+        context.addTableConfiguration(tableConfiguration);
+        return tableConfiguration;
+    }
+
+    /**
+     * @return the warnings of the generator
+     */
+    List<String> generate(Context context) throws Exception {
+        Configuration configuration = new Configuration();
+        configuration.addContext(context);
+        List<String> warnings = new ArrayList<>();
+        new MyBatisGenerator(configuration, new DefaultShellCallback(true), warnings).generate(null);
+        return warnings;
+    }
+
+    String read(String path) throws Exception {
+        return new String(Files.readAllBytes(directory.resolve(path)), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * compiles the generated java files once, against mybatis
+     */
+    Class<?> load(String name) throws Exception {
+        if (classLoader == null) {
+            Path classes = directory.resolve("classes");
+            Files.createDirectories(classes);
+            List<String> arguments = new ArrayList<>();
+            arguments.add("-proc:none");
+            arguments.add("-encoding");
+            arguments.add("UTF-8");
+            arguments.add("-classpath");
+            arguments.add(location(SqlSession.class));
+            arguments.add("-d");
+            arguments.add(classes.toString());
+            try (Stream<Path> files = Files.walk(directory)) {
+                files.filter(file -> file.toString().endsWith(".java"))
+                        .forEach(file -> arguments.add(file.toString()));
+            }
+            JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+            Assertions.assertEquals(0, compiler.run(null, null, null, arguments.toArray(new String[0])));
+            classLoader = new URLClassLoader(new URL[]{classes.toUri().toURL()}, getClass().getClassLoader());
+        }
+        return classLoader.loadClass(name);
+    }
+
+    /**
+     * the xml mappers in a new configuration, whose local cache is scoped to the statement
+     */
+    SqlSessionFactory sqlSessionFactory(Interceptor... interceptors) throws Exception {
+        load(Object.class.getName());
+        org.apache.ibatis.session.Configuration configuration = new org.apache.ibatis.session.Configuration(
+                new Environment("test", new JdbcTransactionFactory(),
+                        new UnpooledDataSource("org.h2.Driver", url, "sa", "")));
+        configuration.setLocalCacheScope(LocalCacheScope.STATEMENT);
+        for (Interceptor interceptor : interceptors) {
+            configuration.addInterceptor(interceptor);
+        }
+        // the types of the mappers are resolved by the default class loader of mybatis
+        Resources.setDefaultClassLoader(classLoader);
+        List<Path> xmlFiles;
+        try (Stream<Path> files = Files.walk(directory)) {
+            xmlFiles = files.filter(file -> file.toString().endsWith(".xml")).sorted().collect(Collectors.toList());
+        }
+        for (Path xmlFile : xmlFiles) {
+            try (InputStream in = Files.newInputStream(xmlFile)) {
+                new XMLMapperBuilder(in, configuration, xmlFile.toString(), configuration.getSqlFragments()).parse();
+            }
+        }
+        return new SqlSessionFactoryBuilder().build(configuration);
+    }
+
+    /**
+     * the methods of the criteria are declared by the non public GeneratedCriteria, so they are only reachable by the
+     * bridges of Criteria
+     */
+    static Object invoke(Object target, String name, Object... args) throws Exception {
+        Method bridge = null;
+        for (Method method : target.getClass().getMethods()) {
+            if (method.getName().equals(name) && method.getParameterCount() == args.length) {
+                if (!method.isBridge()) {
+                    return method.invoke(target, args);
+                }
+                bridge = method;
+            }
+        }
+        if (bridge == null) {
+            throw new NoSuchMethodException(name);
+        }
+        return bridge.invoke(target, args);
+    }
+
+    @Override
+    public void close() throws Exception {
+        Resources.setDefaultClassLoader(null);
+        if (classLoader != null) {
+            classLoader.close();
+        }
+        connection.close();
+    }
+
+    private static String location(Class<?> type) throws Exception {
+        return new File(type.getProtectionDomain().getCodeSource().getLocation().toURI()).getPath();
+    }
+}
@@ -0,0 +1,131 @@
+package cc.cc1234.mybatis.generator;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mybatis.generator.api.FullyQualifiedTable;
+import org.mybatis.generator.api.IntrospectedColumn;
+import org.mybatis.generator.api.IntrospectedTable;
+import org.mybatis.generator.api.dom.java.FullyQualifiedJavaType;
+import org.mybatis.generator.codegen.mybatis3.IntrospectedTableMyBatis3Impl;
+import org.mybatis.generator.config.Context;
+import org.mybatis.generator.config.ModelType;
+import org.mybatis.generator.config.TableConfiguration;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Statement;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+class IncrementalGenerationTest {
+
+    @Test
+    public void testFingerprint() {
+        String fingerprint = IncrementalGeneration.fingerprint("context", newTable(true, "email"));
+        Assertions.assertEquals(64, fingerprint.length());
+        Assertions.assertEquals(fingerprint, IncrementalGeneration.fingerprint("context", newTable(true, "email")));
+
+        Assertions.assertNotEquals(fingerprint, IncrementalGeneration.fingerprint("context", newTable(false, "email")));
+        Assertions.assertNotEquals(fingerprint, IncrementalGeneration.fingerprint("context", newTable(true, "mail")));
+        Assertions.assertNotEquals(fingerprint, IncrementalGeneration.fingerprint("plugin", newTable(true, "email")));
+
+        IntrospectedTable table = newTable(true, "email");
+        table.getTableConfiguration().addProperty("useActualColumnNames", "true");
+        Assertions.assertNotEquals(fingerprint, IncrementalGeneration.fingerprint("context", table));
+    }
+
+    @Test
+    public void testCodeFingerprint() {
+        String fingerprint = IncrementalGeneration.codeFingerprint(
+                IncrementalGeneration.class.getProtectionDomain().getCodeSource());
+        Assertions.assertEquals(64, fingerprint.length());
+        Assertions.assertEquals(fingerprint, IncrementalGeneration.codeFingerprint(
+                IncrementalGeneration.class.getProtectionDomain().getCodeSource()));
+        Assertions.assertNotEquals(fingerprint, IncrementalGeneration.codeFingerprint(
+                Context.class.getProtectionDomain().getCodeSource()));
+        Assertions.assertEquals("unknown", IncrementalGeneration.codeFingerprint(null));
+    }
+
+    @Test
+    public void testSkipUnchangedTables(@TempDir Path dir) throws Exception {
+        try (GeneratedCode code = new GeneratedCode(dir,
+                "create table COUNTRY (ID bigint primary key, NAME varchar(50))",
+                "create table CITY (ID bigint primary key, NAME varchar(50))")) {
+            String[] properties = {"incremental.enabled", "true",
+                    "incremental.fingerprint-dir", dir.resolve("fingerprints").toString()};
+            Assertions.assertEquals(-1, skippedTables(code, properties));
+            Assertions.assertTrue(Files.isRegularFile(dir.resolve("fingerprints/test/COUNTRY.fingerprint")));
+            Assertions.assertEquals(2, skippedTables(code, properties));
+
+            // a deleted file of any kind
+            List<Path> countryFiles;
+            try (Stream<Path> files = Files.walk(dir.resolve("demo"))) {
+                countryFiles = files.filter(file -> file.getFileName().toString().startsWith("Country"))
+                        .collect(Collectors.toList());
+            }
+            Assertions.assertEquals(4, countryFiles.size(), countryFiles.toString());
+            for (Path countryFile : countryFiles) {
+                Files.delete(countryFile);
+                Assertions.assertEquals(1, skippedTables(code, properties), countryFile.toString());
+                Assertions.assertTrue(Files.isRegularFile(countryFile));
+            }
+
+            // a changed column
+            try (Statement statement = code.getConnection().createStatement()) {
+                statement.execute("alter table CITY add column POPULATION bigint");
+            }
+            Assertions.assertEquals(1, skippedTables(code, properties));
+            Assertions.assertTrue(code.read("demo/model/City.java").contains("population"));
+            Assertions.assertEquals(2, skippedTables(code, properties));
+
+            // a changed property of a plugin
+            Assertions.assertEquals(-1, skippedTables(code, properties[0], properties[1], properties[2],
+                    properties[3], "exists-by-example.disabled", "true"));
+        }
+    }
+
+    /**
+     * @return the number of the skipped tables, -1 if no table is skipped
+     */
+    private int skippedTables(GeneratedCode code, String... properties) throws Exception {
+        Context context = code.newContext(properties);
+        GeneratedCode.addTable(context, "COUNTRY", null);
+        GeneratedCode.addTable(context, "CITY", null);
+        for (String warning : code.generate(context)) {
+            if (warning.endsWith(" tables of context test are not changed since the last generation and skipped.")) {
+                return Integer.parseInt(warning.substring(0, warning.indexOf(' ')));
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * USER (ID, EMAIL), ID is the primary key
+     */
+    private IntrospectedTable newTable(boolean nullable, String emailProperty) {
+        Context context = new Context(ModelType.FLAT);
+        context.setId("test");
+        TableConfiguration tableConfiguration = new TableConfiguration(context);
+        tableConfiguration.setTableName("USER");
+        IntrospectedTable table = new IntrospectedTableMyBatis3Impl();
+        table.setContext(context);
+        table.setTableConfiguration(tableConfiguration);
+        table.setFullyQualifiedTable(new FullyQualifiedTable(null, null, "USER", null, null, false,
+                null, null, null, false, null, context));
+        String[][] columns = {{"ID", "id", "java.lang.Long"}, {"EMAIL", emailProperty, "java.lang.String"}};
+        for (String[] column : columns) {
+            IntrospectedColumn introspectedColumn = new IntrospectedColumn();
+            introspectedColumn.setContext(context);
+            introspectedColumn.setIntrospectedTable(table);
+            introspectedColumn.setActualColumnName(column[0]);
+            introspectedColumn.setJavaProperty(column[1]);
+            introspectedColumn.setFullyQualifiedJavaType(new FullyQualifiedJavaType(column[2]));
+            introspectedColumn.setNullable(nullable);
+            table.addColumn(introspectedColumn);
+        }
+        table.addPrimaryKeyColumn("ID");
+        return table;
+    }
+}
@@ -7,6 +7,7 @@ import org.mybatis.generator.api.dom.java.FullyQualifiedJavaType;
 import org.mybatis.generator.api.dom.java.TopLevelClass;
 import org.mybatis.generator.codegen.mybatis3.IntrospectedTableMyBatis3Impl;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -26,6 +27,14 @@ class LombokPluginTest {
         Assertions.assertFalse(result);
     }
 
+    @Test
+    public void testDirtyTrackingSetterKept() {
+        LombokPlugin lombokPlugin = new LombokPlugin();
+        IntrospectedTable table = new IntrospectedTableMyBatis3Impl();
+        table.setAttribute(MapperPlusPlugin.DIRTY_TRACKING_ATTRIBUTE, new ArrayList<>());
+        Assertions.assertTrue(lombokPlugin.modelSetterMethodGenerated(null, null, null, table, null));
+    }
+
     @Test
     public void testModelLombokAnnotations() {
         LombokPlugin lombokPlugin = new LombokPlugin();
@@ -0,0 +1,741 @@
+package cc.cc1234.mybatis.generator;
+
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mybatis.generator.api.FullyQualifiedTable;
+import org.mybatis.generator.api.GeneratedJavaFile;
+import org.mybatis.generator.api.IntrospectedColumn;
+import org.mybatis.generator.api.IntrospectedTable;
+import org.mybatis.generator.api.dom.java.Field;
+import org.mybatis.generator.api.dom.java.FullyQualifiedJavaType;
+import org.mybatis.generator.api.dom.java.Interface;
+import org.mybatis.generator.api.dom.java.Method;
+import org.mybatis.generator.api.dom.java.Parameter;
+import org.mybatis.generator.api.dom.java.TopLevelClass;
+import org.mybatis.generator.codegen.mybatis3.IntrospectedTableMyBatis3Impl;
+import org.mybatis.generator.config.Context;
+import org.mybatis.generator.config.JavaModelGeneratorConfiguration;
+import org.mybatis.generator.config.ModelType;
+import org.mybatis.generator.config.TableConfiguration;
+import org.mybatis.generator.plugins.SerializablePlugin;
+
+import java.lang.reflect.InvocationTargetException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+class MapperPlusPluginTest {
+
+    @Test
+    public void testInsertBatchSplitByMaxRows() {
+        Properties properties = new Properties();
+        properties.setProperty("insert-batch.max-rows", "100");
+        Interface baseMapper = generateBaseMapper(properties, new ArrayList<>());
+
+        Method insertBatchChunk = findMethod(baseMapper, "insertBatchChunk").orElseThrow(AssertionError::new);
+        Assertions.assertTrue(insertBatchChunk.isAbstract());
+        Assertions.assertEquals("@Param(\"rows\")",
+                insertBatchChunk.getParameters().get(0).getAnnotations().get(0));
+
+        Method insertBatch = findMethod(baseMapper, "insertBatch").orElseThrow(AssertionError::new);
+        Assertions.assertTrue(insertBatch.isDefault());
+        Assertions.assertTrue(insertBatch.getBodyLines().stream().anyMatch(line -> line.contains("from += 100")));
+    }
+
+    @Test
+    public void testInsertBatchInvalidMaxRows() {
+        Properties properties = new Properties();
+        properties.setProperty("insert-batch.max-rows", "-1");
+        List<String> warnings = new ArrayList<>();
+        Interface baseMapper = generateBaseMapper(properties, warnings);
+
+        Method insertBatch = findMethod(baseMapper, "insertBatch").orElseThrow(AssertionError::new);
+        Assertions.assertTrue(insertBatch.getBodyLines().stream().anyMatch(line -> line.contains("from += 500")));
+        Assertions.assertEquals(1, warnings.size());
+    }
+
+    @Test
+    public void testInsertBatchDisabled() {
+        Properties properties = new Properties();
+        properties.setProperty("insert-batch.disabled", "true");
+        Interface baseMapper = generateBaseMapper(properties, new ArrayList<>());
+
+        Assertions.assertFalse(findMethod(baseMapper, "insertBatch").isPresent());
+        Assertions.assertFalse(findMethod(baseMapper, "insertBatchChunk").isPresent());
+    }
+
+    @Test
+    public void testUpdateBatchByPrimaryKeySelective() {
+        Properties properties = new Properties();
+        properties.setProperty("update-batch.max-rows", "200");
+        Interface baseMapper = generateBaseMapper(properties, new ArrayList<>());
+
+        Assertions.assertTrue(findMethod(baseMapper, "updateBatchByPrimaryKeySelectiveChunk").isPresent());
+        Method updateBatch = findMethod(baseMapper, "updateBatchByPrimaryKeySelective")
+                .orElseThrow(AssertionError::new);
+        Assertions.assertTrue(updateBatch.isDefault());
+        Assertions.assertTrue(updateBatch.getBodyLines().stream().anyMatch(line -> line.contains("from += 200")));
+    }
+
+    /**
+     * a chunk whose rows have no non null column still renders a valid set
+     */
+    @Test
+    public void testUpdateBatchByPrimaryKeySelectiveAllNull(@TempDir Path dir) throws Exception {
+        try (GeneratedCode code = new GeneratedCode(dir,
+                "create table COUNTRY (ID bigint primary key, NAME varchar(50), CODE varchar(10))",
+                "insert into COUNTRY values (1, 'China', 'CN'), (2, 'France', 'FR'), (3, 'Japan', 'JP')")) {
+            Context context = code.newContext("update-batch.max-rows", "2");
+            GeneratedCode.addTable(context, "COUNTRY", null);
+            code.generate(context);
+
+            SqlSessionFactory sqlSessionFactory = code.sqlSessionFactory();
+            Class<?> mapperType = code.load("demo.mapper.CountryMapper");
+            Class<?> rowType = code.load("demo.model.Country");
+            try (SqlSession session = sqlSessionFactory.openSession(true)) {
+                Object mapper = session.getMapper(mapperType);
+                List<Object> rows = new ArrayList<>();
+                for (long id = 1; id <= 3; id++) {
+                    Object row = rowType.getConstructor().newInstance();
+                    GeneratedCode.invoke(row, "setId", id);
+                    rows.add(row);
+                }
+                // the first chunk has no value, the second one a name
+                GeneratedCode.invoke(rows.get(2), "setName", "Nippon");
+                Assertions.assertEquals(3, GeneratedCode.invoke(mapper, "updateBatchByPrimaryKeySelective", rows));
+
+                Object china = GeneratedCode.invoke(mapper, "selectByPrimaryKey", 1L);
+                Assertions.assertEquals("China", GeneratedCode.invoke(china, "getName"));
+                Assertions.assertEquals("CN", GeneratedCode.invoke(china, "getCode"));
+                Object japan = GeneratedCode.invoke(mapper, "selectByPrimaryKey", 3L);
+                Assertions.assertEquals("Nippon", GeneratedCode.invoke(japan, "getName"));
+                Assertions.assertEquals("JP", GeneratedCode.invoke(japan, "getCode"));
+            }
+        }
+    }
+
+    @Test
+    public void testByPrimaryKeysSplitByMaxIds() {
+        Properties properties = new Properties();
+        properties.setProperty("by-primary-keys.max-ids", "300");
+        Interface baseMapper = generateBaseMapper(properties, new ArrayList<>());
+
+        Assertions.assertTrue(findMethod(baseMapper, "selectByPrimaryKeysChunk").isPresent());
+        Assertions.assertTrue(findMethod(baseMapper, "deleteByPrimaryKeysChunk").isPresent());
+        for (String name : new String[]{"selectByPrimaryKeys", "deleteByPrimaryKeys"}) {
+            Method method = findMethod(baseMapper, name).orElseThrow(AssertionError::new);
+            Assertions.assertTrue(method.isDefault());
+            Assertions.assertEquals("Collection<Long>",
+                    method.getParameters().get(0).getType().getShortName());
+            Assertions.assertTrue(method.getBodyLines().stream().anyMatch(line -> line.contains("from += 300")));
+        }
+    }
+
+    @Test
+    public void testSelectCursorByExample() {
+        Interface baseMapper = generateBaseMapper(new Properties(), new ArrayList<>());
+
+        Method selectCursorByExample = findMethod(baseMapper, "selectCursorByExample")
+                .orElseThrow(AssertionError::new);
+        Assertions.assertEquals("Cursor<T>", selectCursorByExample.getReturnType().get().getShortName());
+        Assertions.assertTrue(baseMapper.getImportedTypes()
+                .stream()
+                .anyMatch(type -> type.getFullyQualifiedName().equals("org.apache.ibatis.cursor.Cursor")));
+    }
+
+    @Test
+    public void testExistsAndCountByExampleUpTo() {
+        Interface baseMapper = generateBaseMapper(new Properties(), new ArrayList<>());
+
+        Method existsByExample = findMethod(baseMapper, "existsByExample").orElseThrow(AssertionError::new);
+        Assertions.assertEquals("boolean", existsByExample.getReturnType().get().getShortName());
+        Method countByExampleUpTo = findMethod(baseMapper, "countByExampleUpTo").orElseThrow(AssertionError::new);
+        Assertions.assertEquals("@Param(\"cap\")",
+                countByExampleUpTo.getParameters().get(1).getAnnotations().get(0));
+
+        Properties properties = new Properties();
+        properties.setProperty("exists-by-example.disabled", "true");
+        properties.setProperty("count-by-example-up-to.disabled", "true");
+        baseMapper = generateBaseMapper(properties, new ArrayList<>());
+        Assertions.assertFalse(findMethod(baseMapper, "existsByExample").isPresent());
+        Assertions.assertFalse(findMethod(baseMapper, "countByExampleUpTo").isPresent());
+    }
+
+    @Test
+    public void testUpsert() {
+        Interface baseMapper = generateBaseMapper(new Properties(), new ArrayList<>());
+
+        Assertions.assertTrue(findMethod(baseMapper, "upsert").isPresent());
+        Assertions.assertTrue(findMethod(baseMapper, "upsertSelective").isPresent());
+        Assertions.assertTrue(findMethod(baseMapper, "upsertBatchChunk").isPresent());
+        Method upsertBatch = findMethod(baseMapper, "upsertBatch").orElseThrow(AssertionError::new);
+        Assertions.assertTrue(upsertBatch.isDefault());
+        Assertions.assertTrue(upsertBatch.getBodyLines().stream().anyMatch(line -> line.contains("from += 500")));
+
+        Properties properties = new Properties();
+        properties.setProperty("upsert.disabled", "true");
+        properties.setProperty("upsert-batch.disabled", "true");
+        baseMapper = generateBaseMapper(properties, new ArrayList<>());
+        Assertions.assertFalse(findMethod(baseMapper, "upsert").isPresent());
+        Assertions.assertFalse(findMethod(baseMapper, "upsertBatch").isPresent());
+    }
+
+    @Test
+    public void testSqlProviderMode() {
+        Properties properties = new Properties();
+        properties.setProperty("sql-provider.enabled", "true");
+        properties.setProperty("exists-by-example.disabled", "true");
+        List<GeneratedJavaFile> files = generateFiles(properties, new ArrayList<>());
+        Assertions.assertEquals(2, files.size());
+        Assertions.assertEquals("cc.cc1234.mapper.BaseMapperSqlProvider",
+                files.get(1).getCompilationUnit().getType().getFullyQualifiedName());
+
+        Interface baseMapper = (Interface) files.get(0).getCompilationUnit();
+        Method selectByExample = findMethod(baseMapper, "selectByExample").orElseThrow(AssertionError::new);
+        Assertions.assertEquals("@SelectProvider(type = BaseMapperSqlProvider.class, method = \"selectByExample\")",
+                selectByExample.getAnnotations().get(0));
+        Assertions.assertEquals("@ResultMap(\"BaseResultMap\")", selectByExample.getAnnotations().get(1));
+        Method updateByExample = findMethod(baseMapper, "updateByExample").orElseThrow(AssertionError::new);
+        Assertions.assertEquals("@UpdateProvider(type = BaseMapperSqlProvider.class, method = \"updateByExample\")",
+                updateByExample.getAnnotations().get(0));
+        Assertions.assertFalse(findMethod(baseMapper, "existsByExample").isPresent());
+        // the statements which stay in the xml mapper
+        Assertions.assertTrue(findMethod(baseMapper, "selectCursorByExample")
+                .orElseThrow(AssertionError::new)
+                .getAnnotations()
+                .isEmpty());
+    }
+
+    @Test
+    public void testMetricsInterceptor() {
+        Properties properties = new Properties();
+        properties.setProperty("metrics-interceptor.enabled", "true");
+        List<GeneratedJavaFile> files = generateFiles(properties, new ArrayList<>());
+        Assertions.assertEquals(2, files.size());
+        TopLevelClass interceptor = (TopLevelClass) files.get(1).getCompilationUnit();
+        Assertions.assertEquals("cc.cc1234.mapper.MapperMetricsInterceptor",
+                interceptor.getType().getFullyQualifiedName());
+        Assertions.assertEquals("Recorder", interceptor.getInnerInterfaces().get(0).getType().getShortName());
+    }
+
+    @Test
+    public void testMetricsInterceptorRuntime(@TempDir Path dir) throws Exception {
+        try (GeneratedCode code = new GeneratedCode(dir,
+                "create table COUNTRY (ID bigint auto_increment primary key, NAME varchar(50))",
+                "insert into COUNTRY (NAME) values ('China'), ('France')")) {
+            Context context = code.newContext("metrics-interceptor.enabled", "true");
+            GeneratedCode.addTable(context, "COUNTRY", "ID");
+            code.generate(context);
+            // a method added to the java mapper by hand, and a hand written mapper with a statement of the same name
+            // as a generated one
+            Path mapperFile = dir.resolve("demo/mapper/CountryMapper.java");
+            String mapperSource = code.read("demo/mapper/CountryMapper.java");
+            int end = mapperSource.lastIndexOf('}');
+            Files.write(mapperFile, (mapperSource.substring(0, end)
+                    + "@org.apache.ibatis.annotations.Select(\"select count(*) from COUNTRY\") long countAll();\n}")
+                    .getBytes(StandardCharsets.UTF_8));
+            Files.write(dir.resolve("demo/mapper/ReportMapper.java"), ("package demo.mapper;\n"
+                    + "public interface ReportMapper {\n"
+                    + "@org.apache.ibatis.annotations.Select(\"select count(*) from COUNTRY\")\n"
+                    + "long countByExample(Object example);\n}")
+                    .getBytes(StandardCharsets.UTF_8));
+
+            Interceptor interceptor = (Interceptor) code.load("demo.mapper.MapperMetricsInterceptor")
+                    .getConstructor()
+                    .newInstance();
+            SqlSessionFactory sqlSessionFactory = code.sqlSessionFactory(interceptor);
+            Class<?> reportMapperType = code.load("demo.mapper.ReportMapper");
+            sqlSessionFactory.getConfiguration().addMapper(reportMapperType);
+            Class<?> mapperType = code.load("demo.mapper.CountryMapper");
+            Object example = code.load("demo.model.CountryExample").getConstructor().newInstance();
+            Object row = code.load("demo.model.Country").getConstructor().newInstance();
+            GeneratedCode.invoke(row, "setName", "Japan");
+            try (SqlSession session = sqlSessionFactory.openSession()) {
+                Object mapper = session.getMapper(mapperType);
+                Assertions.assertEquals(2L, GeneratedCode.invoke(mapper, "countByExample", example));
+                Assertions.assertEquals(2L, GeneratedCode.invoke(mapper, "countAll"));
+                Assertions.assertEquals(2L, GeneratedCode.invoke(session.getMapper(reportMapperType),
+                        "countByExample", example));
+                Assertions.assertEquals(1, GeneratedCode.invoke(mapper, "insertBatch",
+                        Collections.singletonList(row)));
+                Assertions.assertEquals(3, ((List<?>) GeneratedCode.invoke(mapper, "selectByExample", example))
+                        .size());
+                session.rollback(true);
+            }
+
+            // the statements of the BaseMapper in the namespace of CountryMapper, the default insertBatch is
+            // recorded as the insertBatchChunk it calls
+            Object recorder = GeneratedCode.invoke(interceptor, "getRecorder");
+            Map<?, ?> metrics = (Map<?, ?>) GeneratedCode.invoke(recorder, "getMetrics");
+            Assertions.assertEquals(new TreeSet<>(Arrays.asList(
+                            "demo.mapper.CountryMapper.countByExample",
+                            "demo.mapper.CountryMapper.insertBatchChunk",
+                            "demo.mapper.CountryMapper.selectByExample")),
+                    new TreeSet<>(metrics.keySet()));
+            Object selectByExample = metrics.get("demo.mapper.CountryMapper.selectByExample");
+            Assertions.assertEquals(1L, GeneratedCode.invoke(selectByExample, "getCalls"));
+            Assertions.assertEquals(3L, GeneratedCode.invoke(selectByExample, "getRows"));
+            Assertions.assertEquals(1L, GeneratedCode.invoke(
+                    metrics.get("demo.mapper.CountryMapper.insertBatchChunk"), "getRows"));
+
+            // every statement
+            Properties properties = new Properties();
+            properties.setProperty("generatedOnly", "false");
+            interceptor.setProperties(properties);
+            GeneratedCode.invoke(recorder, "reset");
+            try (SqlSession session = sqlSessionFactory.openSession()) {
+                GeneratedCode.invoke(session.getMapper(mapperType), "countAll");
+                GeneratedCode.invoke(session.getMapper(reportMapperType), "countByExample", example);
+            }
+            Assertions.assertEquals(new TreeSet<>(Arrays.asList(
+                            "demo.mapper.CountryMapper.countAll",
+                            "demo.mapper.ReportMapper.countByExample")),
+                    new TreeSet<>(metrics.keySet()));
+        }
+    }
+
+    @Test
+    public void testDirtyTracking() {
+        Properties properties = new Properties();
+        properties.setProperty("java-mapper.generate", "false");
+        properties.setProperty("dirty-tracking.tables", "user_*");
+        MapperPlusPlugin plugin = new MapperPlusPlugin();
+        plugin.setProperties(properties);
+        plugin.validate(new ArrayList<>());
+        IntrospectedTable table = newTable("USER_ACCOUNT");
+        plugin.initialized(table);
+
+        // the setter of nickname is removed, such as by LombokPlugin
+        TopLevelClass record = new TopLevelClass("demo.model.UserAccount");
+        for (IntrospectedColumn column : table.getAllColumns()) {
+            record.addField(new Field(column.getJavaProperty(), column.getFullyQualifiedJavaType()));
+        }
+        Method setEmail = new Method("setEmail");
+        setEmail.addParameter(new Parameter(FullyQualifiedJavaType.getStringInstance(), "email"));
+        setEmail.addBodyLine("this.email = email;");
+        record.addMethod(setEmail);
+        Assertions.assertTrue(plugin.modelBaseRecordClassGenerated(record, table));
+
+        Assertions.assertEquals("dirtyFields[0] |= 1L << 0;", setEmail.getBodyLines().get(1));
+        Method setNickname = record.getMethods()
+                .stream()
+                .filter(method -> method.getName().equals("setNickname"))
+                .findFirst()
+                .orElseThrow(AssertionError::new);
+        Assertions.assertEquals("dirtyFields[0] |= 1L << 1;", setNickname.getBodyLines().get(1));
+        Assertions.assertFalse(record.getMethods().stream().anyMatch(method -> method.getName().equals("setId")));
+        Assertions.assertTrue(record.getFields().stream().anyMatch(field -> field.getName().equals("dirtyFields")));
+        Assertions.assertEquals(2, ((List<?>) table.getAttribute(MapperPlusPlugin.DIRTY_TRACKING_ATTRIBUTE)).size());
+
+        // the other tables are not tracked
+        IntrospectedTable country = newTable("COUNTRY");
+        plugin.initialized(country);
+        Assertions.assertNull(country.getAttribute(MapperPlusPlugin.DIRTY_TRACKING_ATTRIBUTE));
+    }
+
+    /**
+     * only the mapper of a tracked table declares updateChangedByPrimaryKey, every method of the other mappers is bound
+     */
+    @Test
+    public void testDirtyTrackingRuntime(@TempDir Path dir) throws Exception {
+        try (GeneratedCode code = new GeneratedCode(dir,
+                "create table USER_ACCOUNT (ID bigint primary key, EMAIL varchar(50), NICKNAME varchar(50))",
+                "create table COUNTRY (ID bigint primary key, NAME varchar(50))",
+                "insert into USER_ACCOUNT values (1, 'a@cc', 'a')",
+                "insert into COUNTRY values (1, 'China')")) {
+            Context context = code.newContext("dirty-tracking.tables", "USER_ACCOUNT",
+                    "caching-mapper.tables", "USER_ACCOUNT,COUNTRY");
+            GeneratedCode.addTable(context, "USER_ACCOUNT", null);
+            GeneratedCode.addTable(context, "COUNTRY", null);
+            code.generate(context);
+            Assertions.assertFalse(code.read("demo/mapper/BaseMapper.java").contains("updateChangedByPrimaryKey"));
+            Assertions.assertFalse(code.read("demo/mapper/CountryGeneratedMapper.xml")
+                    .contains("updateChangedByPrimaryKey"));
+
+            SqlSessionFactory sqlSessionFactory = code.sqlSessionFactory();
+            Class<?> userMapperType = code.load("demo.mapper.UserAccountMapper");
+            Class<?> countryMapperType = code.load("demo.mapper.CountryMapper");
+            for (Class<?> mapperType : new Class<?>[]{userMapperType, countryMapperType}) {
+                for (java.lang.reflect.Method method : mapperType.getMethods()) {
+                    if (!method.isDefault()) {
+                        Assertions.assertTrue(sqlSessionFactory.getConfiguration()
+                                .hasStatement(mapperType.getName() + "." + method.getName()), method.getName());
+                    }
+                }
+            }
+            Assertions.assertThrows(NoSuchMethodException.class, () -> countryMapperType.getMethod(
+                    "updateChangedByPrimaryKey", code.load("demo.model.Country")));
+            Assertions.assertThrows(NoSuchMethodException.class, () -> code.load("demo.mapper.CachingCountryMapper")
+                    .getMethod("updateChangedByPrimaryKey", code.load("demo.model.Country")));
+
+            Class<?> decoratorType = code.load("demo.mapper.CachingUserAccountMapper");
+            try (SqlSession session = sqlSessionFactory.openSession(true)) {
+                Object decorator = decoratorType.getConstructor(userMapperType)
+                        .newInstance(session.getMapper(userMapperType));
+                Object row = GeneratedCode.invoke(decorator, "selectByPrimaryKey", 1L);
+                GeneratedCode.invoke(row, "clearDirty");
+                GeneratedCode.invoke(row, "setNickname", "b");
+                Assertions.assertEquals(1, GeneratedCode.invoke(decorator, "updateChangedByPrimaryKey", row));
+                Assertions.assertEquals(0, GeneratedCode.invoke(decorator, "size"));
+                row = GeneratedCode.invoke(decorator, "selectByPrimaryKey", 1L);
+                Assertions.assertEquals("b", GeneratedCode.invoke(row, "getNickname"));
+                Assertions.assertEquals("a@cc", GeneratedCode.invoke(row, "getEmail"));
+            }
+        }
+    }
+
+    @Test
+    public void testTableProviderType() {
+        Assertions.assertEquals("cc.cc1234.mapper.UserExampleSqlProvider",
+                SqlProviderGenerator.tableProviderType("cc.cc1234.mapper.UserMapper"));
+        Assertions.assertEquals("cc.cc1234.mapper.UserDaoExampleSqlProvider",
+                SqlProviderGenerator.tableProviderType("cc.cc1234.mapper.UserDao"));
+    }
+
+    @Test
+    public void testCachingMapperType() {
+        Assertions.assertEquals("cc.cc1234.mapper.CachingUserMapper",
+                CachingMapperGenerator.decoratorType("cc.cc1234.mapper.UserMapper"));
+        Assertions.assertEquals("CachingUserMapper", CachingMapperGenerator.decoratorType("UserMapper"));
+    }
+
+    @Test
+    public void testCachingMapperRuntime(@TempDir Path dir) throws Exception {
+        try (GeneratedCode code = new GeneratedCode(dir,
+                "create table COUNTRY (ID bigint auto_increment primary key, NAME varchar(50))",
+                "insert into COUNTRY (NAME) values ('China'), ('France')")) {
+            Context context = code.newContext("caching-mapper.tables", "COUNTRY");
+            GeneratedCode.addTable(context, "COUNTRY", "ID");
+            code.generate(context);
+            // a method added to the java mapper by hand
+            Path mapperFile = dir.resolve("demo/mapper/CountryMapper.java");
+            String mapperSource = code.read("demo/mapper/CountryMapper.java");
+            int end = mapperSource.lastIndexOf('}');
+            Files.write(mapperFile, (mapperSource.substring(0, end)
+                    + "@org.apache.ibatis.annotations.Select(\"select count(*) from COUNTRY\") long countAll();\n}")
+                    .getBytes(StandardCharsets.UTF_8));
+
+            SqlSessionFactory sqlSessionFactory = code.sqlSessionFactory();
+            Class<?> mapperType = code.load("demo.mapper.CountryMapper");
+            Class<?> decoratorType = code.load("demo.mapper.CachingCountryMapper");
+            Class<?> rowType = code.load("demo.model.Country");
+            Class<?> exampleType = code.load("demo.model.CountryExample");
+            try (SqlSession session = sqlSessionFactory.openSession(true)) {
+                Object mapper = session.getMapper(mapperType);
+                Object decorator = decoratorType.getConstructor(mapperType).newInstance(mapper);
+                Assertions.assertSame(mapper, GeneratedCode.invoke(decorator, "getDelegate"));
+                Assertions.assertEquals(2L, GeneratedCode.invoke(GeneratedCode.invoke(decorator, "getDelegate"),
+                        "countAll"));
+
+                // read through
+                Object china = GeneratedCode.invoke(decorator, "selectByPrimaryKey", 1L);
+                Assertions.assertEquals("China", GeneratedCode.invoke(china, "getName"));
+                Assertions.assertSame(china, GeneratedCode.invoke(decorator, "selectByPrimaryKey", 1L));
+                Assertions.assertEquals(1L, GeneratedCode.invoke(decorator, "getHitCount"));
+                Assertions.assertEquals(1L, GeneratedCode.invoke(decorator, "getMissCount"));
+                List<?> rows = (List<?>) GeneratedCode.invoke(decorator, "selectByPrimaryKeys",
+                        Arrays.asList(1L, 2L));
+                Assertions.assertEquals(2, rows.size());
+                Assertions.assertEquals(2, GeneratedCode.invoke(decorator, "size"));
+
+                // invalidated by the update by primary key
+                Object update = rowType.getConstructor().newInstance();
+                GeneratedCode.invoke(update, "setId", 1L);
+                GeneratedCode.invoke(update, "setName", "PRC");
+                Assertions.assertEquals(1, GeneratedCode.invoke(decorator, "updateByPrimaryKeySelective", update));
+                Assertions.assertEquals(1, GeneratedCode.invoke(decorator, "size"));
+                Assertions.assertEquals("PRC", GeneratedCode.invoke(
+                        GeneratedCode.invoke(decorator, "selectByPrimaryKey", 1L), "getName"));
+
+                // invalidated by the delete
+                Assertions.assertEquals(1, GeneratedCode.invoke(decorator, "deleteByPrimaryKey", 2L));
+                Assertions.assertEquals(1, GeneratedCode.invoke(decorator, "size"));
+                Assertions.assertNull(GeneratedCode.invoke(decorator, "selectByPrimaryKey", 2L));
+
+                // cleared by the write by example
+                Object all = rowType.getConstructor().newInstance();
+                GeneratedCode.invoke(all, "setName", "Earth");
+                GeneratedCode.invoke(decorator, "updateByExampleSelective", all,
+                        exampleType.getConstructor().newInstance());
+                Assertions.assertEquals(0, GeneratedCode.invoke(decorator, "size"));
+                Assertions.assertEquals("Earth", GeneratedCode.invoke(
+                        GeneratedCode.invoke(decorator, "selectByPrimaryKey", 1L), "getName"));
+            }
+        }
+    }
+
+    @Test
+    public void testUpsertConflictColumns(@TempDir Path dir) throws Exception {
+        try (GeneratedCode code = new GeneratedCode(dir,
+                "create table USER_ACCOUNT (ID bigint primary key, EMAIL varchar(100) not null unique)",
+                "create table DICT (CODE varchar(20) not null unique, LABEL varchar(50))")) {
+            Context context = code.newContext(
+                    "upsert.conflict-columns.USER_ACCOUNT", "EMAIL, NICKNAME",
+                    "upsert.conflict-columns.DICT", "CODE");
+            GeneratedCode.addTable(context, "USER_ACCOUNT", null);
+            GeneratedCode.addTable(context, "DICT", null);
+            List<String> warnings = code.generate(context);
+
+            // a single warning naming the column and the table
+            List<String> upsertWarnings = warnings.stream()
+                    .filter(warning -> warning.contains("USER_ACCOUNT"))
+                    .collect(Collectors.toList());
+            Assertions.assertEquals(Collections.singletonList("The upsert statements are not generated for table "
+                    + "USER_ACCOUNT because its conflict column 'NICKNAME' of the property "
+                    + "'upsert.conflict-columns.USER_ACCOUNT' is not found."), upsertWarnings);
+            Assertions.assertFalse(code.read("demo/mapper/UserAccountGeneratedMapper.xml").contains("id=\"upsert\""));
+            Assertions.assertTrue(code.read("demo/mapper/DictGeneratedMapper.xml").contains("id=\"upsert\""));
+        }
+    }
+
+    @Test
+    public void testInvalidIntPropertiesWarnedOnce(@TempDir Path dir) throws Exception {
+        try (GeneratedCode code = new GeneratedCode(dir,
+                "create table COUNTRY (ID bigint primary key, NAME varchar(50))",
+                "create table CITY (ID bigint primary key, NAME varchar(50))")) {
+            Context context = code.newContext(
+                    "select-cursor-by-example.fetch-size", "many",
+                    "select-cursor-by-example.fetch-size.CITY", "200",
+                    "cache.tables", "*",
+                    "cache.read-only", "true",
+                    "cache.size", "0",
+                    "caching-mapper.tables", "*",
+                    "insert-batch.max-rows", "-1");
+            GeneratedCode.addTable(context, "COUNTRY", null);
+            GeneratedCode.addTable(context, "CITY", null);
+            List<String> warnings = code.generate(context);
+
+            Assertions.assertEquals(Arrays.asList(
+                    "The property 'insert-batch.max-rows' must be a positive integer, but was '-1', "
+                            + "500 is used instead.",
+                    "The property 'select-cursor-by-example.fetch-size' must be a positive integer, "
+                            + "but was 'many', 1000 is used instead.",
+                    "The property 'cache.size' must be a positive integer, but was '0', 1024 is used instead."),
+                    warnings.stream()
+                            .filter(warning -> warning.startsWith("The property"))
+                            .collect(Collectors.toList()));
+            Assertions.assertTrue(statement(code.read("demo/mapper/CountryGeneratedMapper.xml"),
+                    "selectCursorByExample").contains("fetchSize=\"1000\""));
+            Assertions.assertTrue(statement(code.read("demo/mapper/CityGeneratedMapper.xml"),
+                    "selectCursorByExample").contains("fetchSize=\"200\""));
+        }
+    }
+
+    @Test
+    public void testSelectPageAfter(@TempDir Path dir) throws Exception {
+        try (GeneratedCode code = new GeneratedCode(dir,
+                "create table CITY (ID bigint primary key, NAME varchar(50) not null)",
+                "insert into CITY values (1, 'A'), (2, 'B'), (3, 'B'), (4, 'C'), (5, 'B')")) {
+            Context context = code.newContext();
+            GeneratedCode.addTable(context, "CITY", null);
+            code.generate(context);
+            SqlSessionFactory sqlSessionFactory = code.sqlSessionFactory();
+            Class<?> exampleType = code.load("demo.model.CityExample");
+            Object lastRow = code.load("demo.model.City").getConstructor().newInstance();
+            GeneratedCode.invoke(lastRow, "setId", 3L);
+            GeneratedCode.invoke(lastRow, "setName", "B");
+
+            // order by NAME DESC, the primary key is appended as the last order column
+            Object example = exampleType.getConstructor().newInstance();
+            Object criteria = GeneratedCode.invoke(example, "createCriteria");
+            GeneratedCode.invoke(criteria, "andIdLessThan", 5L);
+            GeneratedCode.invoke(GeneratedCode.invoke(example, "orderBy"), "nameDesc");
+            GeneratedCode.invoke(example, "after", lastRow);
+            GeneratedCode.invoke(example, "limit", 10);
+
+            BoundSql boundSql = sqlSessionFactory.getConfiguration()
+                    .getMappedStatement("demo.mapper.CityMapper.selectPageAfter")
+                    .getBoundSql(example);
+            Assertions.assertEquals("select ID, NAME from CITY WHERE ( ( ID < ? ) ) and "
+                    + "( ( NAME < ? ) or( NAME = ? and ID > ? ) ) order by NAME DESC, ID ASC limit ?",
+                    boundSql.getSql().replaceAll("\\s+", " ").trim());
+            List<Object> parameters = new ArrayList<>();
+            for (ParameterMapping parameterMapping : boundSql.getParameterMappings()) {
+                String property = parameterMapping.getProperty();
+                parameters.add(boundSql.hasAdditionalParameter(property)
+                        ? boundSql.getAdditionalParameter(property)
+                        : sqlSessionFactory.getConfiguration().newMetaObject(example).getValue(property));
+            }
+            Assertions.assertEquals(Arrays.asList(5L, "B", "B", 3L, 10), parameters);
+
+            try (SqlSession session = sqlSessionFactory.openSession()) {
+                List<?> rows = session.selectList("demo.mapper.CityMapper.selectPageAfter", example);
+                List<Object> ids = new ArrayList<>();
+                for (Object row : rows) {
+                    ids.add(GeneratedCode.invoke(row, "getId"));
+                }
+                // C 4, B 2, B 3 are before the last row, B 5 is filtered out by the criteria
+                Assertions.assertEquals(Collections.singletonList(1L), ids);
+            }
+
+            // a free-form clause is split into its columns
+            example = exampleType.getConstructor().newInstance();
+            GeneratedCode.invoke(example, "setOrderByClause", "name  desc, id");
+            GeneratedCode.invoke(example, "after", lastRow);
+            boundSql = sqlSessionFactory.getConfiguration()
+                    .getMappedStatement("demo.mapper.CityMapper.selectPageAfter")
+                    .getBoundSql(example);
+            Assertions.assertEquals("select ID, NAME from CITY WHERE ( ( name < ? ) or( name = ? and id > ? ) ) "
+                    + "order by name desc, id", boundSql.getSql().replaceAll("\\s+", " ").trim());
+
+            // an expression is not a seek column
+            Object expressionExample = exampleType.getConstructor().newInstance();
+            GeneratedCode.invoke(expressionExample, "setOrderByClause", "lower(NAME) desc");
+            GeneratedCode.invoke(expressionExample, "after", lastRow);
+            InvocationTargetException e = Assertions.assertThrows(InvocationTargetException.class,
+                    () -> GeneratedCode.invoke(expressionExample, "getSeekCriteria"));
+            Assertions.assertEquals("The order by column 'lower(NAME)' can not be used for seek pagination.",
+                    e.getCause().getMessage());
+        }
+    }
+
+    @Test
+    public void testCache(@TempDir Path dir) throws Exception {
+        try (GeneratedCode code = new GeneratedCode(dir,
+                "create table COUNTRY (ID bigint primary key, NAME varchar(50))",
+                "create table CITY (ID bigint primary key, NAME varchar(50))")) {
+            String[] properties = {"cache.tables", "COUNTRY", "cache.eviction", "fifo", "cache.size", "512",
+                    "cache.size.COUNTRY", "256", "cache.flush-interval", "60000"};
+            Context context = code.newContext(properties);
+            GeneratedCode.addTable(context, "COUNTRY", null);
+            GeneratedCode.addTable(context, "CITY", null);
+            List<String> warnings = code.generate(context);
+            Assertions.assertTrue(warnings.contains("The cache of table COUNTRY is read-write and stores serialized "
+                    + "copies, but its model is not Serializable, add the SerializablePlugin or set "
+                    + "'cache.read-only.COUNTRY' to true."), warnings.toString());
+            Assertions.assertTrue(warnings.stream().noneMatch(warning -> warning.contains("CITY")),
+                    warnings.toString());
+
+            String country = code.read("demo/mapper/CountryGeneratedMapper.xml");
+            Assertions.assertTrue(country.contains(
+                    "<cache eviction=\"FIFO\" flushInterval=\"60000\" readOnly=\"false\" size=\"256\" />"),
+                    country);
+            Assertions.assertTrue(statement(country, "selectByExample").contains("useCache=\"true\""));
+            Assertions.assertTrue(statement(country, "selectByPrimaryKey").contains("useCache=\"true\""));
+            Assertions.assertTrue(statement(country, "selectCursorByExample").contains("useCache=\"false\""));
+            for (String id : new String[]{"insert", "updateByPrimaryKey", "updateByExampleSelective",
+                    "deleteByExample", "insertBatchChunk"}) {
+                Assertions.assertTrue(statement(country, id).contains("flushCache=\"true\""), id);
+            }
+            String city = code.read("demo/mapper/CityGeneratedMapper.xml");
+            Assertions.assertFalse(city.contains("<cache"));
+            Assertions.assertFalse(city.contains("useCache"));
+            Assertions.assertFalse(city.contains("flushCache"));
+
+            // Serializable, or read only
+            context = code.newContext(properties);
+            context.addPluginConfiguration(GeneratedCode.plugin(SerializablePlugin.class));
+            GeneratedCode.addTable(context, "COUNTRY", null);
+            warnings = code.generate(context);
+            Assertions.assertTrue(warnings.stream().noneMatch(warning -> warning.contains("Serializable")),
+                    warnings.toString());
+            context = code.newContext("cache.tables", "COUNTRY", "cache.read-only", "true");
+            GeneratedCode.addTable(context, "COUNTRY", null);
+            warnings = code.generate(context);
+            Assertions.assertTrue(warnings.stream().noneMatch(warning -> warning.contains("Serializable")),
+                    warnings.toString());
+            Assertions.assertTrue(code.read("demo/mapper/CountryGeneratedMapper.xml").contains("readOnly=\"true\""));
+
+            // only a Serializable root class
+            for (String rootClass : new String[]{"java.lang.Number", "java.lang.Object", "demo.model.Missing"}) {
+                context = code.newContext(properties);
+                GeneratedCode.addTable(context, "COUNTRY", null).addProperty("rootClass", rootClass);
+                warnings = code.generate(context);
+                Assertions.assertEquals(!rootClass.equals("java.lang.Number"),
+                        warnings.stream().anyMatch(warning -> warning.contains("is not Serializable")),
+                        rootClass + " " + warnings);
+            }
+        }
+    }
+
+    /**
+     * the start tag of the statement
+     */
+    private String statement(String xml, String id) {
+        int idIndex = xml.indexOf("id=\"" + id + "\"");
+        Assertions.assertTrue(idIndex > 0, id);
+        return xml.substring(xml.lastIndexOf('<', idIndex), xml.indexOf('>', idIndex) + 1);
+    }
+
+    @Test
+    public void testUnchangedFilesSkippedWithOutputPluginOnly(@TempDir Path dir) throws Exception {
+        try (GeneratedCode code = new GeneratedCode(dir, "create table COUNTRY (ID bigint primary key)")) {
+            for (int i = 0; i < 2; i++) {
+                Context context = code.newContext();
+                GeneratedCode.addTable(context, "COUNTRY", null);
+                List<String> warnings = code.generate(context);
+                Assertions.assertTrue(warnings.stream().noneMatch(warning -> warning.contains("unchanged")),
+                        warnings.toString());
+            }
+
+            Context context = code.newContext();
+            context.addPluginConfiguration(GeneratedCode.plugin(OutputPlugin.class));
+            GeneratedCode.addTable(context, "COUNTRY", null);
+            List<String> warnings = code.generate(context);
+            Assertions.assertTrue(warnings.stream().anyMatch(warning -> warning.endsWith(
+                    " unchanged files of the mappers are skipped.")), warnings.toString());
+        }
+    }
+
+    /**
+     * ${table_name} (ID, EMAIL, NICKNAME)
+     */
+    private IntrospectedTable newTable(String tableName) {
+        Context context = new Context(ModelType.FLAT);
+        context.setJavaModelGeneratorConfiguration(new JavaModelGeneratorConfiguration());
+        IntrospectedTable table = new IntrospectedTableMyBatis3Impl();
+        table.setContext(context);
+        table.setTableConfiguration(new TableConfiguration(context));
+        table.setFullyQualifiedTable(new FullyQualifiedTable(null, null, tableName, null, null, false,
+                null, null, null, false, null, context));
+        String[][] columns = {{"ID", "id", "java.lang.Long"}, {"EMAIL", "email", "java.lang.String"},
+                {"NICKNAME", "nickname", "java.lang.String"}};
+        for (String[] column : columns) {
+            IntrospectedColumn introspectedColumn = new IntrospectedColumn();
+            introspectedColumn.setContext(context);
+            introspectedColumn.setIntrospectedTable(table);
+            introspectedColumn.setActualColumnName(column[0]);
+            introspectedColumn.setJavaProperty(column[1]);
+            introspectedColumn.setFullyQualifiedJavaType(new FullyQualifiedJavaType(column[2]));
+            table.addColumn(introspectedColumn);
+        }
+        table.addPrimaryKeyColumn("ID");
+        return table;
+    }
+
+    private Interface generateBaseMapper(Properties properties, List<String> warnings) {
+        List<GeneratedJavaFile> files = generateFiles(properties, warnings);
+        Assertions.assertEquals(1, files.size());
+        return (Interface) files.get(0).getCompilationUnit();
+    }
+
+    private List<GeneratedJavaFile> generateFiles(Properties properties, List<String> warnings) {
+        properties.setProperty("base-mapper.target.package", "cc.cc1234.mapper");
+        MapperPlusPlugin plugin = new MapperPlusPlugin();
+        plugin.setProperties(properties);
+        plugin.validate(warnings);
+        return plugin.contextGenerateAdditionalJavaFiles();
+    }
+
+    private Optional<Method> findMethod(Interface interfaze, String name) {
+        return interfaze.getMethods()
+                .stream()
+                .filter(method -> method.getName().equals(name))
+                .findFirst();
+    }
+}
@@ -0,0 +1,57 @@
+package cc.cc1234.mybatis.generator;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+class NamePatternTest {
+
+    @Test
+    public void testMatches() {
+        NamePattern pattern = NamePattern.compile("dict_*, country ,*_log");
+        Assertions.assertTrue(pattern.matches("dict_city"));
+        Assertions.assertTrue(pattern.matches("DICT_CITY"));
+        Assertions.assertTrue(pattern.matches("Country"));
+        Assertions.assertTrue(NamePattern.compile("Country").matches("COUNTRY"));
+        Assertions.assertTrue(pattern.matches("login_log"));
+        Assertions.assertFalse(pattern.matches("country_code"));
+        Assertions.assertFalse(pattern.matches("user"));
+    }
+
+    @Test
+    public void testSpecialCharacters() {
+        NamePattern pattern = NamePattern.compile("t.a$");
+        Assertions.assertTrue(pattern.matches("t.a$"));
+        Assertions.assertFalse(pattern.matches("txa$"));
+    }
+
+    @Test
+    public void testRegex() {
+        NamePattern pattern = NamePattern.compile("regex:log_\\d+, user");
+        Assertions.assertTrue(pattern.matches("LOG_2024"));
+        Assertions.assertTrue(pattern.matches("User"));
+        Assertions.assertFalse(pattern.matches("log_"));
+        Assertions.assertFalse(pattern.matches("log_2024_bak"));
+    }
+
+    @Test
+    public void testUnion() {
+        NamePattern pattern = NamePattern.union(Arrays.asList(NamePattern.compile("user"),
+                NamePattern.compile("dict_*"), NamePattern.compile(null)));
+        Assertions.assertTrue(pattern.matches("user"));
+        Assertions.assertTrue(pattern.matches("USER"));
+        Assertions.assertTrue(pattern.matches("dict_city"));
+        Assertions.assertFalse(pattern.matches("order"));
+        Assertions.assertTrue(NamePattern.union(new ArrayList<>()).isEmpty());
+    }
+
+    @Test
+    public void testEmpty() {
+        Assertions.assertTrue(NamePattern.compile(null).isEmpty());
+        Assertions.assertTrue(NamePattern.compile(" , ").isEmpty());
+        Assertions.assertFalse(NamePattern.compile("").matches("user"));
+        Assertions.assertTrue(NamePattern.compile("*").matches("user"));
+    }
+}
@@ -0,0 +1,182 @@
+package cc.cc1234.mybatis.generator;
+
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mybatis.generator.api.FullyQualifiedTable;
+import org.mybatis.generator.api.IntrospectedColumn;
+import org.mybatis.generator.api.IntrospectedTable;
+import org.mybatis.generator.api.dom.java.FullyQualifiedJavaType;
+import org.mybatis.generator.api.dom.java.Method;
+import org.mybatis.generator.api.dom.java.TopLevelClass;
+import org.mybatis.generator.codegen.mybatis3.IntrospectedTableMyBatis3Impl;
+import org.mybatis.generator.config.Context;
+import org.mybatis.generator.config.ModelType;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.stream.Collectors;
+
+class NullSafePluginTest {
+
+    @Test
+    public void testPrimitiveTypes() {
+        Properties properties = new Properties();
+        properties.setProperty("primitive.types", "true");
+        properties.setProperty("ignore.columns", "*.score");
+        NullSafePlugin plugin = new NullSafePlugin();
+        plugin.setProperties(properties);
+        plugin.validate(new ArrayList<>());
+
+        IntrospectedTable table = newTable();
+        plugin.initialized(table);
+
+        Assertions.assertEquals("java.lang.Long", javaType(table, "ID"));
+        Assertions.assertEquals("int", javaType(table, "AGE"));
+        Assertions.assertEquals("boolean", javaType(table, "ACTIVE"));
+        // nullable, ignored, with a default value, not a number
+        Assertions.assertEquals("java.lang.Integer", javaType(table, "LEVEL"));
+        Assertions.assertEquals("java.lang.Long", javaType(table, "SCORE"));
+        Assertions.assertEquals("java.lang.Integer", javaType(table, "VERSION"));
+        Assertions.assertEquals("java.math.BigDecimal", javaType(table, "BALANCE"));
+    }
+
+    /**
+     * the selective statements are kept, and always write the primitive columns
+     */
+    @Test
+    public void testSelectiveStatementsWritePrimitives(@TempDir Path dir) throws Exception {
+        try (GeneratedCode code = new GeneratedCode(dir,
+                "create table USER_ACCOUNT (ID bigint primary key, AGE int not null, NICKNAME varchar(50))",
+                "insert into USER_ACCOUNT values (1, 30, 'a'), (2, 40, 'b')")) {
+            Context context = code.newContext();
+            context.addPluginConfiguration(GeneratedCode.plugin(NullSafePlugin.class, "primitive.types", "true"));
+            GeneratedCode.addTable(context, "USER_ACCOUNT", null);
+            List<String> warnings = code.generate(context);
+            Assertions.assertTrue(warnings.isEmpty(), warnings.toString());
+
+            String xml = code.read("demo/mapper/UserAccountGeneratedMapper.xml");
+            Assertions.assertFalse(xml.contains("age != null"), xml);
+            Assertions.assertTrue(xml.contains("nickname != null"), xml);
+            Assertions.assertTrue(code.read("demo/model/UserAccount.java").contains("private int age;"));
+
+            SqlSessionFactory sqlSessionFactory = code.sqlSessionFactory();
+            Class<?> mapperType = code.load("demo.mapper.UserAccountMapper");
+            Class<?> rowType = code.load("demo.model.UserAccount");
+            for (String statement : new String[]{"insertSelective", "updateByPrimaryKeySelective",
+                    "updateByExampleSelective", "updateBatchByPrimaryKeySelectiveChunk", "upsertSelective"}) {
+                Assertions.assertTrue(sqlSessionFactory.getConfiguration()
+                        .hasStatement(mapperType.getName() + "." + statement), statement);
+            }
+            try (SqlSession session = sqlSessionFactory.openSession(true)) {
+                Object mapper = session.getMapper(mapperType);
+                Object row = rowType.getConstructor().newInstance();
+                GeneratedCode.invoke(row, "setId", 1L);
+                GeneratedCode.invoke(row, "setNickname", "c");
+                Assertions.assertEquals(1, GeneratedCode.invoke(mapper, "updateByPrimaryKeySelective", row));
+                Object other = rowType.getConstructor().newInstance();
+                GeneratedCode.invoke(other, "setId", 2L);
+                GeneratedCode.invoke(other, "setAge", 41);
+                Assertions.assertEquals(2, GeneratedCode.invoke(mapper, "updateBatchByPrimaryKeySelective",
+                        Arrays.asList(row, other)));
+
+                Object updated = GeneratedCode.invoke(mapper, "selectByPrimaryKey", 1L);
+                Assertions.assertEquals(0, GeneratedCode.invoke(updated, "getAge"));
+                Assertions.assertEquals("c", GeneratedCode.invoke(updated, "getNickname"));
+                updated = GeneratedCode.invoke(mapper, "selectByPrimaryKey", 2L);
+                Assertions.assertEquals(41, GeneratedCode.invoke(updated, "getAge"));
+                Assertions.assertEquals("b", GeneratedCode.invoke(updated, "getNickname"));
+            }
+        }
+    }
+
+    @Test
+    public void testPrimitiveTypesDisabled() {
+        NullSafePlugin plugin = new NullSafePlugin();
+        plugin.setProperties(new Properties());
+        plugin.validate(new ArrayList<>());
+
+        IntrospectedTable table = newTable();
+        plugin.initialized(table);
+
+        Assertions.assertEquals("java.lang.Integer", javaType(table, "AGE"));
+        Assertions.assertEquals("java.lang.Boolean", javaType(table, "ACTIVE"));
+    }
+
+    @Test
+    public void testAllocationFreeAccessors() {
+        Properties properties = new Properties();
+        properties.setProperty("optional.getter", "false");
+        properties.setProperty("or-else.getter", "true");
+        properties.setProperty("if-present.method", "true");
+        NullSafePlugin plugin = new NullSafePlugin();
+        plugin.setProperties(properties);
+        plugin.validate(new ArrayList<>());
+
+        IntrospectedTable table = newTable();
+        plugin.initialized(table);
+        TopLevelClass topLevelClass = new TopLevelClass("User");
+        IntrospectedColumn level = table.getColumn("LEVEL").orElseThrow(AssertionError::new);
+        Method getter = new Method("getLevel");
+        getter.setReturnType(level.getFullyQualifiedJavaType());
+        plugin.modelGetterMethodGenerated(getter, topLevelClass, level, table, null);
+
+        List<String> methods = topLevelClass.getMethods()
+                .stream()
+                .map(method -> method.getReturnType().map(FullyQualifiedJavaType::getShortName).orElse("void")
+                        + " " + method.getName() + "(" + method.getParameters().get(0).getType().getShortName() + ")")
+                .collect(Collectors.toList());
+        Assertions.assertEquals(Arrays.asList("Integer getLevelOrElse(Integer)", "int getLevelOrElse(int)",
+                "void ifLevelPresent(Consumer<? super Integer>)"), methods);
+        Assertions.assertTrue(topLevelClass.getImportedTypes()
+                .contains(new FullyQualifiedJavaType("java.util.function.Consumer")));
+
+        // the not null columns have nothing to fall back
+        IntrospectedColumn age = table.getColumn("AGE").orElseThrow(AssertionError::new);
+        getter = new Method("getAge");
+        getter.setReturnType(age.getFullyQualifiedJavaType());
+        plugin.modelGetterMethodGenerated(getter, topLevelClass, age, table, null);
+        Assertions.assertEquals(3, topLevelClass.getMethods().size());
+    }
+
+    private String javaType(IntrospectedTable table, String columnName) {
+        return table.getColumn(columnName)
+                .orElseThrow(AssertionError::new)
+                .getFullyQualifiedJavaType()
+                .getFullyQualifiedName();
+    }
+
+    /**
+     * USER (ID, AGE, ACTIVE, LEVEL, SCORE, VERSION, BALANCE), only LEVEL is nullable and VERSION has a default value
+     */
+    private IntrospectedTable newTable() {
+        Context context = new Context(ModelType.FLAT);
+        IntrospectedTable table = new IntrospectedTableMyBatis3Impl();
+        table.setContext(context);
+        table.setFullyQualifiedTable(new FullyQualifiedTable(null, null, "USER", null, null, false,
+                null, null, null, false, null, context));
+        String[][] columns = {{"ID", "java.lang.Long"}, {"AGE", "java.lang.Integer"},
+                {"ACTIVE", "java.lang.Boolean"}, {"LEVEL", "java.lang.Integer"}, {"SCORE", "java.lang.Long"},
+                {"VERSION", "java.lang.Integer"}, {"BALANCE", "java.math.BigDecimal"}};
+        for (String[] column : columns) {
+            IntrospectedColumn introspectedColumn = new IntrospectedColumn();
+            introspectedColumn.setContext(context);
+            introspectedColumn.setIntrospectedTable(table);
+            introspectedColumn.setActualColumnName(column[0]);
+            introspectedColumn.setJavaProperty(column[0].toLowerCase());
+            introspectedColumn.setFullyQualifiedJavaType(new FullyQualifiedJavaType(column[1]));
+            introspectedColumn.setNullable(column[0].equals("LEVEL"));
+            if (column[0].equals("VERSION")) {
+                introspectedColumn.setDefaultValue("0");
+            }
+            table.addColumn(introspectedColumn);
+        }
+        table.addPrimaryKeyColumn("ID");
+        return table;
+    }
+}
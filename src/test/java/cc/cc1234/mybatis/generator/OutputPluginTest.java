@@ -0,0 +1,125 @@
+package cc.cc1234.mybatis.generator;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mybatis.generator.api.GeneratedJavaFile;
+import org.mybatis.generator.api.dom.DefaultJavaFormatter;
+import org.mybatis.generator.api.dom.java.Field;
+import org.mybatis.generator.api.dom.java.FullyQualifiedJavaType;
+import org.mybatis.generator.api.dom.java.TopLevelClass;
+import org.mybatis.generator.config.Context;
+import org.mybatis.generator.config.JavaModelGeneratorConfiguration;
+import org.mybatis.generator.config.ModelType;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+class OutputPluginTest {
+
+    @TempDir
+    Path targetProject;
+
+    @Test
+    public void testSkipUnchangedFiles() {
+        File file = targetProject.resolve("demo/model/User.java").toFile();
+        List<String> warnings = generate(newUser(false), true, false);
+        Assertions.assertTrue(file.isFile());
+        Assertions.assertTrue(warnings.contains(report(1, 0)));
+
+        Assertions.assertTrue(file.setLastModified(1000L));
+        warnings = generate(newUser(false), true, false);
+        Assertions.assertEquals(1000L, file.lastModified());
+        Assertions.assertTrue(warnings.contains(report(0, 1)));
+
+        warnings = generate(newUser(true), true, false);
+        Assertions.assertNotEquals(1000L, file.lastModified());
+        Assertions.assertTrue(warnings.contains(report(1, 0)));
+    }
+
+    /**
+     * the same as the generator, a changed existing file is not overwritten by default
+     */
+    @Test
+    public void testChangedFilesLeftToGenerator() {
+        File file = targetProject.resolve("demo/model/User.java").toFile();
+        List<String> warnings = generate(newUser(false), null, false);
+        Assertions.assertTrue(file.isFile());
+        Assertions.assertTrue(warnings.contains(report(1, 0)));
+
+        Assertions.assertTrue(file.setLastModified(1000L));
+        warnings = generate(newUser(true), null, true);
+        Assertions.assertEquals(1000L, file.lastModified());
+        Assertions.assertTrue(warnings.contains(report(0, 0)));
+    }
+
+    @Test
+    public void testPluginOrder() {
+        Context context = new Context(ModelType.FLAT);
+        context.setId("test");
+        context.addPluginConfiguration(GeneratedCode.plugin(LombokPlugin.class));
+        context.addPluginConfiguration(GeneratedCode.plugin(OutputPlugin.class));
+        context.addPluginConfiguration(GeneratedCode.plugin(NullSafePlugin.class));
+        context.addPluginConfiguration(GeneratedCode.plugin(ParallelGenerationPlugin.class));
+        OutputPlugin plugin = new OutputPlugin();
+        plugin.setContext(context);
+        List<String> warnings = new ArrayList<>();
+        plugin.validate(warnings);
+        Assertions.assertEquals(Collections.singletonList("The plugin " + NullSafePlugin.class.getName()
+                + " is configured after the OutputPlugin of context test, it is not called for the files written by "
+                + "the OutputPlugin, configure it before."), warnings);
+    }
+
+    @Test
+    public void testRemoveUnchanged() {
+        generate(newUser(false), null, false);
+        List<GeneratedJavaFile> javaFiles = new ArrayList<>();
+        javaFiles.add(new GeneratedJavaFile(newUser(false), targetProject.toString(), new DefaultJavaFormatter()));
+        javaFiles.add(new GeneratedJavaFile(newUser(true), targetProject.toString(), new DefaultJavaFormatter()));
+        Assertions.assertEquals(1, OutputPlugin.removeUnchanged(javaFiles));
+        Assertions.assertEquals(1, javaFiles.size());
+    }
+
+    /**
+     * @param overwrite the property output.overwrite, or null for the default one
+     * @param generated true if the file is expected to be left to the generator
+     */
+    private List<String> generate(TopLevelClass topLevelClass, Boolean overwrite, boolean generated) {
+        Context context = new Context(ModelType.FLAT);
+        context.setId("test");
+        JavaModelGeneratorConfiguration modelConfiguration = new JavaModelGeneratorConfiguration();
+        modelConfiguration.setTargetProject(targetProject.toString());
+        modelConfiguration.setTargetPackage("demo.model");
+        context.setJavaModelGeneratorConfiguration(modelConfiguration);
+
+        OutputPlugin plugin = new OutputPlugin();
+        plugin.setContext(context);
+        if (overwrite != null) {
+            Properties properties = new Properties();
+            properties.setProperty("output.overwrite", overwrite.toString());
+            plugin.setProperties(properties);
+        }
+        List<String> warnings = new ArrayList<>();
+        plugin.validate(warnings);
+        Assertions.assertEquals(generated, plugin.modelBaseRecordClassGenerated(topLevelClass, null));
+        Assertions.assertTrue(plugin.contextGenerateAdditionalJavaFiles().isEmpty());
+        return warnings;
+    }
+
+    private String report(int written, int skipped) {
+        return "The output of context test: " + written + " files written, " + skipped + " unchanged files skipped.";
+    }
+
+    private TopLevelClass newUser(boolean withEmail) {
+        TopLevelClass topLevelClass = new TopLevelClass("demo.model.User");
+        topLevelClass.addField(new Field("id", new FullyQualifiedJavaType("java.lang.Long")));
+        if (withEmail) {
+            topLevelClass.addField(new Field("email", FullyQualifiedJavaType.getStringInstance()));
+        }
+        return topLevelClass;
+    }
+}
@@ -0,0 +1,80 @@
+package cc.cc1234.mybatis.generator;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mybatis.generator.config.Context;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+class ParallelGenerationPluginTest {
+
+    private static final String[] DDL = {
+            "create table COUNTRY (ID bigint auto_increment primary key, NAME varchar(50) not null)",
+            "create table CITY (ID bigint auto_increment primary key, COUNTRY_ID bigint not null, "
+                    + "NAME varchar(50), POPULATION int not null)",
+            "create table CITY_TAG (CITY_ID bigint not null, TAG varchar(20) not null, primary key (CITY_ID, TAG))",
+            "create table AUDIT_LOG (MESSAGE varchar(200), CREATE_TIME timestamp not null)",
+            "create table USER_ACCOUNT (ID int primary key, EMAIL varchar(100) not null, ACTIVE boolean not null)",
+            "create table DICT (CODE varchar(20) primary key, LABEL varchar(50))"};
+
+    private static final String[] TABLES = {"COUNTRY", "CITY", "CITY_TAG", "AUDIT_LOG", "USER_ACCOUNT", "DICT"};
+
+    @Test
+    public void testSameAsSerial(@TempDir Path dir) throws Exception {
+        Path serialDir = Files.createDirectories(dir.resolve("serial"));
+        Path parallelDir = Files.createDirectories(dir.resolve("parallel"));
+        List<String> serialWarnings = generate(serialDir, null);
+        List<String> parallelWarnings = generate(parallelDir, "4");
+
+        Map<String, String> serialFiles = files(serialDir);
+        Assertions.assertTrue(serialFiles.size() > 20, serialFiles.keySet().toString());
+        Assertions.assertEquals(serialFiles, files(parallelDir));
+        // the warnings of the tables are collected by the table, in the order of the tables
+        Assertions.assertTrue(serialWarnings.size() > 3, serialWarnings.toString());
+        Assertions.assertEquals(serialWarnings,
+                parallelWarnings.stream().map(warning -> warning.replace(parallelDir.toString(), serialDir.toString()))
+                        .collect(Collectors.toList()));
+    }
+
+    /**
+     * @param parallelism null if the tables are generated serially by the generator
+     */
+    private List<String> generate(Path dir, String parallelism) throws Exception {
+        try (GeneratedCode code = new GeneratedCode(dir, DDL)) {
+            Context context = code.newContext("caching-mapper.tables", "*", "cache.tables", "DICT",
+                    "dirty-tracking.tables", "CITY");
+            context.addPluginConfiguration(GeneratedCode.plugin(NullSafePlugin.class, "primitive.types", "true"));
+            if (parallelism != null) {
+                context.addPluginConfiguration(GeneratedCode.plugin(ParallelGenerationPlugin.class,
+                        "parallelism", parallelism));
+            }
+            for (String table : TABLES) {
+                GeneratedCode.addTable(context, table, null);
+            }
+            return code.generate(context);
+        }
+    }
+
+    /**
+     * the contents of the generated files by their relative paths
+     */
+    private Map<String, String> files(Path dir) throws Exception {
+        Map<String, String> answer = new TreeMap<>();
+        List<Path> files;
+        try (Stream<Path> paths = Files.walk(dir)) {
+            files = paths.filter(Files::isRegularFile).collect(Collectors.toList());
+        }
+        for (Path file : files) {
+            answer.put(dir.relativize(file).toString(), new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+        }
+        return answer;
+    }
+}
@@ -0,0 +1,176 @@
+package cc.cc1234.mybatis.generator;
+
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mybatis.generator.config.Context;
+import org.mybatis.generator.config.JavaClientGeneratorConfiguration;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+class SqlProviderGeneratorTest {
+
+    private static final String[] DDL = {
+            "create table CITY (ID bigint, NAME varchar(50), POPULATION int, NOTE clob)",
+            "insert into CITY values (1, 'A', 10, 'a'), (2, 'B', 20, 'b'), (3, 'B', 30, null), (4, 'C', null, 'c')"};
+
+    private static final String[] STATEMENTS = {"countByExample", "countByExampleUpTo", "existsByExample",
+            "selectByExample", "selectOneByExample", "updateByExampleSelective", "updateByExample",
+            "deleteByExample"};
+
+    /**
+     * the sql built by the provider is the same as the dynamic sql of the xml mapper, and both bind the same values
+     */
+    @Test
+    public void testSameAsXmlMapper(@TempDir Path dir) throws Exception {
+        try (GeneratedCode xml = generate(Files.createDirectories(dir.resolve("xml")), false);
+             GeneratedCode provider = generate(Files.createDirectories(dir.resolve("provider")), true)) {
+            SqlSessionFactory xmlFactory = xml.sqlSessionFactory();
+            SqlSessionFactory providerFactory = provider.sqlSessionFactory();
+            for (String statement : STATEMENTS) {
+                String id = "demo.mapper.CityMapper." + statement;
+                MappedStatement xmlStatement = xmlFactory.getConfiguration().getMappedStatement(id);
+                MappedStatement providerStatement = providerFactory.getConfiguration().getMappedStatement(id);
+                Assertions.assertEquals("DynamicSqlSource",
+                        xmlStatement.getSqlSource().getClass().getSimpleName(), statement);
+                Assertions.assertEquals("ProviderSqlSource",
+                        providerStatement.getSqlSource().getClass().getSimpleName(), statement);
+                for (int i = 0; i < 3; i++) {
+                    Object xmlParameter = parameter(xml, statement, i);
+                    Object providerParameter = parameter(provider, statement, i);
+                    BoundSql xmlSql = xmlStatement.getBoundSql(xmlParameter);
+                    BoundSql providerSql = providerStatement.getBoundSql(providerParameter);
+                    Assertions.assertEquals(normalize(xmlSql.getSql()), normalize(providerSql.getSql()),
+                            statement + " " + i);
+                    Assertions.assertEquals(values(xmlStatement, xmlSql, xmlParameter),
+                            values(providerStatement, providerSql, providerParameter), statement + " " + i);
+                    Assertions.assertEquals(execute(xmlFactory, xmlStatement, xmlParameter),
+                            execute(providerFactory, providerStatement, providerParameter), statement + " " + i);
+                }
+            }
+        }
+    }
+
+    /**
+     * MBG generates its own CitySqlProvider next to an annotated CityMapper
+     */
+    @Test
+    public void testAnnotatedMapperProviderName(@TempDir Path dir) throws Exception {
+        try (GeneratedCode code = new GeneratedCode(dir, DDL)) {
+            Context context = code.newContext("sql-provider.enabled", "true", "java-mapper.generate", "false");
+            JavaClientGeneratorConfiguration clientConfiguration = new JavaClientGeneratorConfiguration();
+            clientConfiguration.setConfigurationType("ANNOTATEDMAPPER");
+            clientConfiguration.setTargetProject(dir.toString());
+            clientConfiguration.setTargetPackage(GeneratedCode.MAPPER_PACKAGE);
+            context.setJavaClientGeneratorConfiguration(clientConfiguration);
+            GeneratedCode.addTable(context, "CITY", null);
+            List<String> warnings = code.generate(context);
+
+            Assertions.assertTrue(warnings.isEmpty(), warnings.toString());
+            Assertions.assertTrue(code.read("demo/mapper/CitySqlProvider.java")
+                    .contains("import org.apache.ibatis.jdbc.SQL;"));
+            Assertions.assertTrue(code.read("demo/mapper/CityExampleSqlProvider.java")
+                    .contains("public class CityExampleSqlProvider implements TableSqlProvider"));
+        }
+    }
+
+    private static GeneratedCode generate(Path dir, boolean sqlProvider) throws Exception {
+        GeneratedCode code = new GeneratedCode(dir, DDL);
+        Context context = code.newContext("sql-provider.enabled", String.valueOf(sqlProvider));
+        GeneratedCode.addTable(context, "CITY", null);
+        code.generate(context);
+        return code;
+    }
+
+    /**
+     * the parameter of a statement: no criteria, or the criteria with a single, a between and a list value, an order
+     * and a limit, or ored criteria with selected columns
+     */
+    private static Object parameter(GeneratedCode code, String statement, int variant) throws Exception {
+        Object example = code.load("demo.model.CityExample").getConstructor().newInstance();
+        if (variant == 1) {
+            Object criteria = GeneratedCode.invoke(example, "createCriteria");
+            GeneratedCode.invoke(criteria, "andNameIn", Arrays.asList("B", "C"));
+            GeneratedCode.invoke(criteria, "andPopulationBetween", 15, 40);
+            GeneratedCode.invoke(criteria, "andIdNotEqualTo", 9L);
+            GeneratedCode.invoke(GeneratedCode.invoke(example, "orderBy"), "idDesc");
+            GeneratedCode.invoke(example, "limit", 1);
+        } else if (variant == 2) {
+            GeneratedCode.invoke(GeneratedCode.invoke(example, "or"), "andPopulationIsNull");
+            GeneratedCode.invoke(GeneratedCode.invoke(example, "or"), "andNameLike", "A%");
+            Object select = GeneratedCode.invoke(example, "select");
+            GeneratedCode.invoke(select, "nameCol");
+            GeneratedCode.invoke(select, "idCol");
+            GeneratedCode.invoke(example, "setDistinct", true);
+        }
+        Map<String, Object> parameter = new HashMap<>();
+        parameter.put("example", example);
+        switch (statement) {
+        case "countByExampleUpTo":
+            parameter.put("cap", 2);
+            return parameter;
+        case "updateByExampleSelective":
+        case "updateByExample":
+            Object row = code.load("demo.model.City").getConstructor().newInstance();
+            GeneratedCode.invoke(row, "setId", 10L + variant);
+            GeneratedCode.invoke(row, "setName", "U");
+            parameter.put("row", row);
+            return parameter;
+        default:
+            return example;
+        }
+    }
+
+    private static String normalize(String sql) {
+        return sql.replaceAll("\\s+", " ")
+                .replaceAll(" ?([(),]) ?", "$1")
+                .trim()
+                .toLowerCase(Locale.ENGLISH);
+    }
+
+    private static List<Object> values(MappedStatement statement, BoundSql boundSql, Object parameter) {
+        MetaObject metaObject = statement.getConfiguration().newMetaObject(parameter);
+        List<Object> values = new ArrayList<>();
+        for (ParameterMapping parameterMapping : boundSql.getParameterMappings()) {
+            String property = parameterMapping.getProperty();
+            values.add(boundSql.hasAdditionalParameter(property)
+                    ? boundSql.getAdditionalParameter(property)
+                    : metaObject.getValue(property));
+        }
+        return values;
+    }
+
+    /**
+     * the changed rows are rolled back, so that every statement runs against the same rows
+     */
+    private static Object execute(SqlSessionFactory factory, MappedStatement statement, Object parameter)
+            throws Exception {
+        try (SqlSession session = factory.openSession()) {
+            if (statement.getSqlCommandType() != SqlCommandType.SELECT) {
+                int count = session.update(statement.getId(), parameter);
+                session.rollback(true);
+                return count;
+            }
+            List<String> rows = new ArrayList<>();
+            for (Object row : session.selectList(statement.getId(), parameter)) {
+                rows.add(row instanceof Number || row instanceof Boolean ? row.toString()
+                        : GeneratedCode.invoke(row, "getId") + ":" + GeneratedCode.invoke(row, "getName"));
+            }
+            return rows;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package cc.cc1234.mybatis.generator;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+class StatementRulesTest {
+
+    @Test
+    public void testLastMatchingRuleWins() {
+        StatementRules rules = StatementRules.compile("statement.timeout",
+                "*.*=30, *.*ByExample=10, order_*.selectByExample=60", value -> true, new ArrayList<>());
+        Assertions.assertEquals("30", rules.valueOf("user", "selectByPrimaryKey"));
+        Assertions.assertEquals("10", rules.valueOf("user", "selectByExample"));
+        Assertions.assertEquals("10", rules.valueOf("order_item", "countByExample"));
+        Assertions.assertEquals("60", rules.valueOf("ORDER_ITEM", "selectByExample"));
+    }
+
+    @Test
+    public void testNoMatchingRule() {
+        StatementRules rules = StatementRules.compile("statement.fetch-size",
+                "user.selectOneByExample=1", value -> true, new ArrayList<>());
+        Assertions.assertNull(rules.valueOf("user", "selectByExample"));
+        Assertions.assertNull(rules.valueOf("order", "selectOneByExample"));
+        Assertions.assertTrue(StatementRules.compile("statement.type", " ", value -> true, new ArrayList<>())
+                .isEmpty());
+    }
+
+    @Test
+    public void testInvalidRules() {
+        List<String> warnings = new ArrayList<>();
+        StatementRules rules = StatementRules.compile("statement.timeout",
+                "selectByExample=10, user.=10, .selectByExample=10, user.selectByExample, user.*=x, user.*=5",
+                value -> value.equals("5"), warnings);
+        Assertions.assertEquals(5, warnings.size());
+        Assertions.assertEquals("5", rules.valueOf("user", "selectByExample"));
+    }
+}
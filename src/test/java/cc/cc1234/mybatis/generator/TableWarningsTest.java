@@ -0,0 +1,35 @@
+package cc.cc1234.mybatis.generator;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+class TableWarningsTest {
+
+    @Test
+    public void testBind() {
+        List<String> warnings = new ArrayList<>();
+        List<String> tableWarnings = new ArrayList<>();
+        List<String> wrapped = TableWarnings.of(warnings);
+        wrapped.add("context");
+        TableWarnings.bind(tableWarnings);
+        try {
+            wrapped.add("table");
+        } finally {
+            TableWarnings.unbind();
+        }
+        wrapped.add("context again");
+        Assertions.assertEquals(Arrays.asList("context", "context again"), warnings);
+        Assertions.assertEquals(Arrays.asList("table"), tableWarnings);
+        Assertions.assertEquals(warnings, wrapped);
+    }
+
+    @Test
+    public void testWrapOnce() {
+        List<String> wrapped = TableWarnings.of(new ArrayList<>());
+        Assertions.assertSame(wrapped, TableWarnings.of(wrapped));
+    }
+}